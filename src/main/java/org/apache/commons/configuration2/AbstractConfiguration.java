@@ -46,6 +46,7 @@ import org.apache.commons.configuration2.io.ConfigurationLogger;
 import org.apache.commons.configuration2.sync.LockMode;
 import org.apache.commons.configuration2.sync.NoOpSynchronizer;
 import org.apache.commons.configuration2.sync.Synchronizer;
+import org.apache.commons.configuration2.tree.StringPool;
 import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.ObjectUtils;
 
@@ -107,6 +108,9 @@ public abstract class AbstractConfiguration extends BaseEventSource implements C
     /** The conversion handler. */
     private ConversionHandler conversionHandler;
 
+    /** The pool for the strings read when loading this configuration. */
+    private StringPool stringPool;
+
     /**
      * Whether the configuration should throw NoSuchElementExceptions or simply
      * return null when a property does not exist. Defaults to return null.
@@ -220,6 +224,34 @@ public abstract class AbstractConfiguration extends BaseEventSource implements C
         this.conversionHandler = conversionHandler;
     }
 
+    /**
+     * Returns the {@code StringPool} used by this instance. Result is
+     * <b>null</b> if no pool has been set.
+     *
+     * @return the {@code StringPool}
+     * @since 2.2
+     */
+    public StringPool getStringPool()
+    {
+        return stringPool;
+    }
+
+    /**
+     * Sets a {@code StringPool} for this configuration. Configurations which
+     * are loaded from a file pass the keys and values read from the file
+     * through this pool, so that equal strings share a single instance. This
+     * can save a lot of memory if many similar configurations are loaded; in
+     * this case, the same pool should be used for all of them. By default, no
+     * pool is set. Note that access to this property is not synchronized.
+     *
+     * @param stringPool the {@code StringPool} to be used (may be <b>null</b>)
+     * @since 2.2
+     */
+    public void setStringPool(StringPool stringPool)
+    {
+        this.stringPool = stringPool;
+    }
+
     /**
      * Allows to set the {@code throwExceptionOnMissing} flag. This
      * flag controls the behavior of property getter methods that return
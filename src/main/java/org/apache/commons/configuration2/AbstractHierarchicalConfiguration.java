@@ -17,17 +17,21 @@
 
 package org.apache.commons.configuration2;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.configuration2.event.ConfigurationEvent;
 import org.apache.commons.configuration2.ex.ConfigurationRuntimeException;
@@ -42,6 +46,8 @@ import org.apache.commons.configuration2.tree.NodeModel;
 import org.apache.commons.configuration2.tree.NodeTreeWalker;
 import org.apache.commons.configuration2.tree.NodeUpdateData;
 import org.apache.commons.configuration2.tree.QueryResult;
+import org.apache.commons.configuration2.tree.QueryResultVisitor;
+import org.apache.commons.configuration2.tree.VisitingExpressionEngine;
 
 /**
  * <p>
@@ -168,6 +174,20 @@ import org.apache.commons.configuration2.tree.QueryResult;
  * effects. For concrete subclasses dealing with specific node structures, this
  * situation may be different.
  * </p>
+ * <p>
+ * Many applications query optional keys which are not defined in the
+ * configuration. Each such query requires a full evaluation of the key by the
+ * expression engine. To speed up these queries, a cache for absent keys can be
+ * enabled using the {@link #setAbsentKeyCacheEnabled(boolean)} method. Keys
+ * for which no value could be found are then recorded together with the root
+ * node they have been evaluated against. As long as the root node is not
+ * changed, a query for such a key is answered directly. This mechanism is
+ * based on the assumption that the {@code NodeModel} replaces the root node
+ * on each update as is done by the immutable node structures used by
+ * {@link org.apache.commons.configuration2.tree.InMemoryNodeModel
+ * InMemoryNodeModel}. Therefore, the cache is disabled per default; it must
+ * not be enabled for models whose nodes can be changed in place.
+ * </p>
  *
  * @version $Id$
  * @since 2.0
@@ -176,12 +196,30 @@ import org.apache.commons.configuration2.tree.QueryResult;
 public abstract class AbstractHierarchicalConfiguration<T> extends AbstractConfiguration
     implements Cloneable, NodeKeyResolver<T>, HierarchicalConfiguration<T>
 {
+    /**
+     * Stores for each configuration class whether it overrides one of the
+     * methods for resolving keys. In this case, keys are not evaluated by
+     * passing a visitor to the expression engine.
+     */
+    private static final ConcurrentMap<Class<?>, Boolean> KEY_RESOLUTION_OVERRIDES =
+            new ConcurrentHashMap<>();
+
+    /** The names of the methods for resolving keys. */
+    private static final Set<String> KEY_RESOLUTION_METHODS =
+            new HashSet<>(Arrays.asList("fetchNodeList", "resolveKey"));
+
     /** The model for managing the data stored in this configuration. */
     private NodeModel<T> model;
 
     /** Stores the expression engine for this instance.*/
     private ExpressionEngine expressionEngine;
 
+    /** The cache for keys which are not defined in the current node tree. */
+    private volatile AbsentKeyCache absentKeyCache;
+
+    /** A flag whether the cache for absent keys is enabled. */
+    private volatile boolean absentKeyCacheEnabled;
+
     /**
      * Creates a new instance of {@code AbstractHierarchicalConfiguration} and
      * sets the {@code NodeModel} to be used.
@@ -271,11 +309,42 @@ public abstract class AbstractHierarchicalConfiguration<T> extends AbstractConfi
     public void setExpressionEngine(ExpressionEngine expressionEngine)
     {
         this.expressionEngine = expressionEngine;
+        absentKeyCache = null;
+    }
+
+    /**
+     * Returns a flag whether the cache for absent keys is enabled.
+     *
+     * @return a flag whether the cache for absent keys is enabled
+     * @since 2.2
+     */
+    public boolean isAbsentKeyCacheEnabled()
+    {
+        return absentKeyCacheEnabled;
+    }
+
+    /**
+     * Enables or disables the cache for absent keys. If enabled, keys which
+     * could not be resolved to a value are recorded, so that further queries
+     * for them on the same node structure can be answered without evaluating
+     * the key again. The cache is bound to the current root node; it is
+     * discarded automatically when the root node is replaced because of an
+     * update. This requires a {@code NodeModel} that does not change nodes in
+     * place.
+     *
+     * @param absentKeyCacheEnabled the flag whether the cache is enabled
+     * @since 2.2
+     */
+    public void setAbsentKeyCacheEnabled(boolean absentKeyCacheEnabled)
+    {
+        this.absentKeyCacheEnabled = absentKeyCacheEnabled;
+        absentKeyCache = null;
     }
 
     /**
      * Fetches the specified property. This task is delegated to the associated
-     * expression engine.
+     * expression engine. If the cache for absent keys is enabled, it is
+     * checked first whether the key is known to be undefined.
      *
      * @param key the key to be looked up
      * @return the found value
@@ -283,34 +352,47 @@ public abstract class AbstractHierarchicalConfiguration<T> extends AbstractConfi
     @Override
     protected Object getPropertyInternal(String key)
     {
-        List<QueryResult<T>> results = fetchNodeList(key);
+        if (!absentKeyCacheEnabled)
+        {
+            return fetchPropertyValue(key);
+        }
 
-        if (results.isEmpty())
+        Object root = getModel().getNodeHandler().getRootNode();
+        AbsentKeyCache cache = absentKeyCache;
+        if (cache != null && cache.isValidFor(root, getExpressionEngine())
+                && cache.contains(key))
         {
             return null;
         }
-        else
-        {
-            NodeHandler<T> handler = getModel().getNodeHandler();
-            List<Object> list = new ArrayList<>();
-            for (QueryResult<T> result : results)
-            {
-                Object value = valueFromResult(result, handler);
-                if (value != null)
-                {
-                    list.add(value);
-                }
-            }
 
-            if (list.size() < 1)
-            {
-                return null;
-            }
-            else
+        Object value = fetchPropertyValue(key);
+        if (value == null
+                && root == getModel().getNodeHandler().getRootNode())
+        {
+            if (cache == null || !cache.isValidFor(root, getExpressionEngine()))
             {
-                return (list.size() == 1) ? list.get(0) : list;
+                cache = new AbsentKeyCache(root, getExpressionEngine());
+                absentKeyCache = cache;
             }
+            cache.add(key);
         }
+        return value;
+    }
+
+    /**
+     * Evaluates the specified key and returns the value of the selected
+     * node(s). This method is called by {@code getPropertyInternal()} if the
+     * key cannot be resolved from the cache for absent keys.
+     *
+     * @param key the key to be looked up
+     * @return the found value or <b>null</b>
+     */
+    private Object fetchPropertyValue(String key)
+    {
+        ValueCollector<T> collector =
+                new ValueCollector<>(getModel().getNodeHandler());
+        visitNodeList(key, collector);
+        return collector.getValue();
     }
 
     /**
@@ -633,34 +715,30 @@ public abstract class AbstractHierarchicalConfiguration<T> extends AbstractConfi
     @Override
     protected int sizeInternal()
     {
-        return visitDefinedKeys().getKeyList().size();
+        int size = 0;
+        for (Iterator<String> it = getKeysInternal(); it.hasNext(); it.next())
+        {
+            size++;
+        }
+        return size;
     }
 
     /**
      * Returns an iterator with all keys defined in this configuration.
      * Note that the keys returned by this method will not contain any
-     * indices. This means that some structure will be lost.
+     * indices. This means that some structure will be lost. The iterator
+     * traverses the node structure lazily while it is consumed; so the keys
+     * are not collected in a temporary collection.
      *
      * @return an iterator with the defined keys in this configuration
      */
     @Override
     protected Iterator<String> getKeysInternal()
     {
-        return visitDefinedKeys().getKeyList().iterator();
-    }
-
-    /**
-     * Creates a {@code DefinedKeysVisitor} and visits all defined keys with it.
-     *
-     * @return the visitor after all keys have been visited
-     */
-    private DefinedKeysVisitor visitDefinedKeys()
-    {
-        DefinedKeysVisitor visitor = new DefinedKeysVisitor();
-        NodeHandler<T> nodeHandler = getModel().getNodeHandler();
-        NodeTreeWalker.INSTANCE.walkDFS(nodeHandler.getRootNode(), visitor,
-                nodeHandler);
-        return visitor;
+        NodeHandler<T> handler = getModel().getNodeHandler();
+        return new DefinedKeysIterator(handler, getExpressionEngine(),
+                Collections.<String> emptyList(),
+                Collections.singletonList(handler.getRootNode()), null);
     }
 
     /**
@@ -668,8 +746,8 @@ public abstract class AbstractHierarchicalConfiguration<T> extends AbstractConfi
      * start with the given prefix. The returned keys will not contain any
      * indices. This implementation tries to locate a node whose key is the same
      * as the passed in prefix. Then the subtree of this node is traversed, and
-     * the keys of all nodes encountered (including attributes) are added to the
-     * result set.
+     * the keys of all nodes encountered (including attributes) are returned.
+     * As with {@link #getKeysInternal()}, the traversal is done lazily.
      *
      * @param prefix the prefix of the keys to start with
      * @return an iterator with the found keys
@@ -677,29 +755,19 @@ public abstract class AbstractHierarchicalConfiguration<T> extends AbstractConfi
     @Override
     protected Iterator<String> getKeysInternal(String prefix)
     {
-        DefinedKeysVisitor visitor = new DefinedKeysVisitor(prefix);
-        if (containsKey(prefix))
-        {
-            // explicitly add the prefix
-            visitor.getKeyList().add(prefix);
-        }
-
-        List<QueryResult<T>> results = fetchNodeList(prefix);
-        NodeHandler<T> handler = getModel().getNodeHandler();
-
-        for (QueryResult<T> result : results)
+        List<String> initialKeys = containsKey(prefix) ? Collections
+                .singletonList(prefix) : Collections.<String> emptyList();
+        List<T> nodes = new ArrayList<>();
+        for (QueryResult<T> result : fetchNodeList(prefix))
         {
             if (!result.isAttributeResult())
             {
-                for (T c : handler.getChildren(result.getNode()))
-                {
-                    NodeTreeWalker.INSTANCE.walkDFS(c, visitor, handler);
-                }
-                visitor.handleAttributeKeys(prefix, result.getNode(), handler);
+                nodes.add(result.getNode());
             }
         }
 
-        return visitor.getKeyList().iterator();
+        return new DefinedKeysIterator(getModel().getNodeHandler(),
+                getExpressionEngine(), initialKeys, nodes, prefix);
     }
 
     /**
@@ -737,7 +805,9 @@ public abstract class AbstractHierarchicalConfiguration<T> extends AbstractConfi
      */
     protected int getMaxIndexInternal(String key)
     {
-        return fetchNodeList(key).size() - 1;
+        ResultCounter<T> counter = new ResultCounter<>();
+        visitNodeList(key, counter);
+        return counter.getCount() - 1;
     }
 
     /**
@@ -761,6 +831,7 @@ public abstract class AbstractHierarchicalConfiguration<T> extends AbstractConfi
             copy.cloneInterpolator(this);
             copy.setSynchronizer(ConfigurationUtils.cloneSynchronizer(getSynchronizer()));
             copy.model = cloneNodeModel();
+            copy.absentKeyCache = null;
 
             return copy;
         }
@@ -796,6 +867,36 @@ public abstract class AbstractHierarchicalConfiguration<T> extends AbstractConfi
         return resolveKey(nodeHandler.getRootNode(), key, nodeHandler);
     }
 
+    /**
+     * Helper method for resolving the specified key and passing the results to
+     * the given visitor. In contrast to {@code fetchNodeList()}, no list of
+     * results has to be created. This is the preferred way to evaluate a key
+     * if the results need not be stored. The visitor is passed directly to the
+     * expression engine if it is a plain {@link DefaultExpressionEngine} or
+     * another {@link VisitingExpressionEngine}, and if this class does not
+     * override {@code fetchNodeList()} or {@code resolveKey()}. Otherwise, the
+     * key is resolved by {@code fetchNodeList()}, and the results are passed
+     * to the visitor. So overridden methods are always taken into account.
+     *
+     * @param key the key
+     * @param visitor the visitor receiving all results selected by this key
+     * @since 2.2
+     */
+    protected void visitNodeList(String key, QueryResultVisitor<T> visitor)
+    {
+        NodeHandler<T> nodeHandler = getModel().getNodeHandler();
+        ExpressionEngine engine = getExpressionEngine();
+        if (isVisitingEngine(engine) && !overridesKeyResolution(getClass()))
+        {
+            ((VisitingExpressionEngine) engine).query(
+                    nodeHandler.getRootNode(), key, nodeHandler, visitor);
+        }
+        else
+        {
+            visitResults(fetchNodeList(key), visitor);
+        }
+    }
+
     /**
      * Checks if the specified node is defined.
      *
@@ -824,16 +925,80 @@ public abstract class AbstractHierarchicalConfiguration<T> extends AbstractConfi
     }
 
     /**
-     * Extracts the value from a query result.
+     * Checks whether the given expression engine can evaluate keys with a
+     * visitor. This is the case for a {@code DefaultExpressionEngine} and for
+     * other implementations of {@code VisitingExpressionEngine}. Subclasses of
+     * {@code DefaultExpressionEngine} may have overridden the list-based
+     * {@code query()} method; therefore, they are not taken into account.
      *
-     * @param result the {@code QueryResult}
-     * @param handler the {@code NodeHandler}
-     * @return the value of this result (may be <b>null</b>)
+     * @param engine the expression engine
+     * @return a flag whether the visitor-based query can be used
      */
-    private Object valueFromResult(QueryResult<T> result, NodeHandler<T> handler)
+    private static boolean isVisitingEngine(ExpressionEngine engine)
     {
-        return result.isAttributeResult() ? result.getAttributeValue(handler)
-                : handler.getValue(result.getNode());
+        if (engine instanceof DefaultExpressionEngine)
+        {
+            return engine.getClass() == DefaultExpressionEngine.class;
+        }
+        return engine instanceof VisitingExpressionEngine;
+    }
+
+    /**
+     * Checks whether the given configuration class overrides one of the
+     * methods for resolving keys. The result is cached per class.
+     *
+     * @param configClass the configuration class
+     * @return a flag whether key resolution is overridden
+     */
+    private static boolean overridesKeyResolution(Class<?> configClass)
+    {
+        Boolean result = KEY_RESOLUTION_OVERRIDES.get(configClass);
+        if (result == null)
+        {
+            result = Boolean.FALSE;
+            for (Class<?> c = configClass; c != AbstractHierarchicalConfiguration.class
+                    && !result.booleanValue(); c = c.getSuperclass())
+            {
+                for (Method m : c.getDeclaredMethods())
+                {
+                    if (KEY_RESOLUTION_METHODS.contains(m.getName()))
+                    {
+                        result = Boolean.TRUE;
+                        break;
+                    }
+                }
+            }
+            KEY_RESOLUTION_OVERRIDES.putIfAbsent(configClass, result);
+        }
+        return result.booleanValue();
+    }
+
+    /**
+     * Passes the given query results to a visitor.
+     *
+     * @param <T> the type of the nodes
+     * @param results the list with query results
+     * @param visitor the visitor
+     */
+    private static <T> void visitResults(List<QueryResult<T>> results,
+            QueryResultVisitor<T> visitor)
+    {
+        for (QueryResult<T> result : results)
+        {
+            if (result.isAttributeResult())
+            {
+                visitor.visitAttribute(result.getNode(),
+                        result.getAttributeName());
+            }
+            else
+            {
+                visitor.visitNode(result.getNode());
+            }
+            if (visitor.terminate())
+            {
+                break;
+            }
+        }
     }
 
     /**
@@ -886,91 +1051,359 @@ public abstract class AbstractHierarchicalConfiguration<T> extends AbstractConfi
     }
 
     /**
-     * A specialized visitor that fills a list with keys that are defined in a
-     * node hierarchy.
+     * A helper class implementing the cache for absent keys. An instance is
+     * associated with the root node and the expression engine which have been
+     * used to evaluate the keys stored in it. It is valid only as long as
+     * both of them are unchanged. The number of keys is limited; if it is
+     * reached, the cache is cleared.
      */
-    private class DefinedKeysVisitor extends
-            ConfigurationNodeVisitorAdapter<T>
+    private static class AbsentKeyCache
     {
-        /** Stores the list to be filled. */
-        private final Set<String> keyList;
+        /** The maximum number of keys stored in the cache. */
+        private static final int MAX_KEYS = 4096;
+
+        /** The root node the keys have been evaluated against. */
+        private final Object root;
 
-        /** A stack with the keys of the already processed nodes. */
-        private final Stack<String> parentKeys;
+        /** The expression engine used for the evaluation. */
+        private final ExpressionEngine engine;
+
+        /** The set with the absent keys. */
+        private final ConcurrentMap<String, Boolean> keys;
 
         /**
-         * Default constructor.
+         * Creates a new instance of {@code AbsentKeyCache}.
+         *
+         * @param rootNode the root node
+         * @param exprEngine the expression engine
          */
-        public DefinedKeysVisitor()
+        public AbsentKeyCache(Object rootNode, ExpressionEngine exprEngine)
         {
-            keyList = new LinkedHashSet<>();
-            parentKeys = new Stack<>();
+            root = rootNode;
+            engine = exprEngine;
+            keys = new ConcurrentHashMap<>();
         }
 
         /**
-         * Creates a new {@code DefinedKeysVisitor} instance and sets the
-         * prefix for the keys to fetch.
+         * Checks whether this cache can be used for the given root node and
+         * expression engine.
          *
-         * @param prefix the prefix
+         * @param rootNode the current root node
+         * @param exprEngine the current expression engine
+         * @return a flag whether this cache is valid
          */
-        public DefinedKeysVisitor(String prefix)
+        public boolean isValidFor(Object rootNode, ExpressionEngine exprEngine)
         {
-            this();
-            parentKeys.push(prefix);
+            return root == rootNode && engine == exprEngine;
         }
 
         /**
-         * Returns the list with all defined keys.
+         * Checks whether the given key is known to be absent.
          *
-         * @return the list with the defined keys
+         * @param key the key
+         * @return a flag whether this key is absent
          */
-        public Set<String> getKeyList()
+        public boolean contains(String key)
         {
-            return keyList;
+            return keys.containsKey(key);
         }
 
         /**
-         * {@inheritDoc} This implementation removes this
-         * node's key from the stack.
+         * Records the given key as absent.
+         *
+         * @param key the key
          */
+        public void add(String key)
+        {
+            if (keys.size() >= MAX_KEYS)
+            {
+                keys.clear();
+            }
+            keys.put(key, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * An iterator implementation which lazily traverses a node structure and
+     * returns the keys of all nodes with a value and of their attributes.
+     * The nodes are processed in the same order as by a depth-first traversal.
+     * Keys which have already been returned are skipped. A key can only occur
+     * multiple times if one of the nodes on its path has a sibling with the
+     * same name; so only keys of such nodes have to be recorded for the
+     * detection of duplicates. For typical configurations with mostly unique
+     * node names this requires much less memory than collecting all keys in
+     * a set.
+     */
+    private class DefinedKeysIterator implements Iterator<String>
+    {
+        /** The handler for accessing nodes. */
+        private final NodeHandler<T> handler;
+
+        /** The expression engine for generating keys. */
+        private final ExpressionEngine engine;
+
+        /** The start nodes of the traversal which are not processed yet. */
+        private final Iterator<T> startNodes;
+
+        /** The key of the start nodes; null for the root node. */
+        private final String startKey;
+
+        /** A flag whether the keys of the start nodes can be duplicates. */
+        private final boolean startNodesAmbiguous;
+
+        /** A stack with the nodes currently processed. */
+        private final LinkedList<KeyFrame<T>> stack;
+
+        /** Stores keys which have been found, but not yet returned. */
+        private final LinkedList<String> pendingKeys;
+
+        /** Stores the keys returned for nodes with ambiguous paths. */
+        private final Set<String> ambiguousKeys;
+
+        /**
+         * Creates a new instance of {@code DefinedKeysIterator}.
+         *
+         * @param nodeHandler the {@code NodeHandler}
+         * @param expressionEngine the {@code ExpressionEngine}
+         * @param initialKeys keys to be returned before the traversal starts
+         * @param nodes the start nodes of the traversal
+         * @param prefix the key of the start nodes; <b>null</b> if the
+         *        traversal starts at the root node; in this case, the key and
+         *        the attributes of the root node are returned, too
+         */
+        public DefinedKeysIterator(NodeHandler<T> nodeHandler,
+                ExpressionEngine expressionEngine,
+                Collection<String> initialKeys, Collection<T> nodes,
+                String prefix)
+        {
+            handler = nodeHandler;
+            engine = expressionEngine;
+            startNodes = nodes.iterator();
+            startKey = prefix;
+            startNodesAmbiguous = nodes.size() > 1;
+            stack = new LinkedList<>();
+            pendingKeys = new LinkedList<>(initialKeys);
+            ambiguousKeys = new HashSet<>(initialKeys);
+        }
+
         @Override
-        public void visitAfterChildren(T node, NodeHandler<T> handler)
+        public boolean hasNext()
         {
-            parentKeys.pop();
+            return fetchPendingKeys();
+        }
+
+        @Override
+        public String next()
+        {
+            if (!fetchPendingKeys())
+            {
+                throw new NoSuchElementException();
+            }
+            return pendingKeys.removeFirst();
         }
 
         /**
-         * {@inheritDoc} If this node has a value, its key is added
-         * to the internal list.
+         * {@inheritDoc} Removing keys is not supported by this iterator.
          */
         @Override
-        public void visitBeforeChildren(T node, NodeHandler<T> handler)
+        public void remove()
+        {
+            throw new UnsupportedOperationException(
+                    "Removing keys is not supported!");
+        }
+
+        /**
+         * Continues the traversal until new keys are found or all nodes have
+         * been processed.
+         *
+         * @return a flag whether there are keys to be returned
+         */
+        private boolean fetchPendingKeys()
+        {
+            while (pendingKeys.isEmpty())
+            {
+                if (stack.isEmpty())
+                {
+                    if (!startNodes.hasNext())
+                    {
+                        return false;
+                    }
+                    startTraversal(startNodes.next());
+                }
+                else
+                {
+                    processTopFrame();
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Starts the traversal of the subtree defined by the given start
+         * node.
+         *
+         * @param node the start node
+         */
+        private void startTraversal(T node)
+        {
+            if (startKey == null)
+            {
+                enterNode(node, engine.nodeKey(node, null, handler), false);
+            }
+            else
+            {
+                // attributes of prefix nodes are reported after their children
+                stack.addFirst(new KeyFrame<>(node, startKey,
+                        startNodesAmbiguous, true));
+            }
+        }
+
+        /**
+         * Processes the next child of the node on top of the stack. If there
+         * are no more children, the node is removed from the stack.
+         */
+        private void processTopFrame()
+        {
+            KeyFrame<T> frame = stack.getFirst();
+            List<T> children = handler.getChildren(frame.node);
+            if (frame.childIndex < children.size())
+            {
+                T child = children.get(frame.childIndex++);
+                boolean ambiguous = frame.ambiguous
+                        || frame.duplicateNames(children, handler).contains(
+                                handler.nodeName(child));
+                enterNode(child,
+                        engine.nodeKey(child, frame.key, handler), ambiguous);
+            }
+            else
+            {
+                stack.removeFirst();
+                if (frame.attributesAfterChildren)
+                {
+                    addAttributeKeys(frame.node, frame.key, frame.ambiguous);
+                }
+            }
+        }
+
+        /**
+         * Processes a node when it is reached by the traversal. Its keys are
+         * recorded, and it is pushed on the stack.
+         *
+         * @param node the node
+         * @param key the key of this node
+         * @param ambiguous a flag whether the key can be a duplicate
+         */
+        private void enterNode(T node, String key, boolean ambiguous)
         {
-            String parentKey = parentKeys.isEmpty() ? null
-                    : parentKeys.peek();
-            String key = getExpressionEngine().nodeKey(node, parentKey, handler);
-            parentKeys.push(key);
             if (handler.getValue(node) != null)
             {
-                keyList.add(key);
+                addKey(key, ambiguous);
             }
-            handleAttributeKeys(key, node, handler);
+            addAttributeKeys(node, key, ambiguous);
+            stack.addFirst(new KeyFrame<>(node, key, ambiguous, false));
         }
 
         /**
-         * Appends all attribute keys of the current node.
+         * Records the keys of all attributes of the given node.
          *
-         * @param parentKey the parent key
-         * @param node the current node
-         * @param handler the {@code NodeHandler}
+         * @param node the node
+         * @param key the key of this node
+         * @param ambiguous a flag whether the keys can be duplicates
          */
-        public void handleAttributeKeys(String parentKey, T node,
-                NodeHandler<T> handler)
+        private void addAttributeKeys(T node, String key, boolean ambiguous)
         {
             for (String attr : handler.getAttributes(node))
             {
-                keyList.add(getExpressionEngine().attributeKey(parentKey, attr));
+                addKey(engine.attributeKey(key, attr), ambiguous);
+            }
+        }
+
+        /**
+         * Records a key to be returned by this iterator. If the key is
+         * ambiguous, it is checked whether it has already been returned.
+         *
+         * @param key the key
+         * @param ambiguous a flag whether the key can be a duplicate
+         */
+        private void addKey(String key, boolean ambiguous)
+        {
+            if (!ambiguous || ambiguousKeys.add(key))
+            {
+                pendingKeys.addLast(key);
+            }
+        }
+    }
+
+    /**
+     * A simple data class storing information about a node processed by a
+     * {@code DefinedKeysIterator}.
+     *
+     * @param <T> the type of the nodes
+     */
+    private static class KeyFrame<T>
+    {
+        /** The node. */
+        final T node;
+
+        /** The key of the node. */
+        final String key;
+
+        /** A flag whether the key of this node can be a duplicate. */
+        final boolean ambiguous;
+
+        /** A flag whether attribute keys are reported after the children. */
+        final boolean attributesAfterChildren;
+
+        /** The index of the next child node to be processed. */
+        int childIndex;
+
+        /** The names occurring multiple times among the child nodes. */
+        private Set<String> duplicateNames;
+
+        /**
+         * Creates a new instance of {@code KeyFrame}.
+         *
+         * @param n the node
+         * @param k the key
+         * @param amb the ambiguous flag
+         * @param attrsAfter the flag for reporting attributes
+         */
+        KeyFrame(T n, String k, boolean amb, boolean attrsAfter)
+        {
+            node = n;
+            key = k;
+            ambiguous = amb;
+            attributesAfterChildren = attrsAfter;
+        }
+
+        /**
+         * Returns a set with the names of child nodes which occur multiple
+         * times. The set is determined on first access.
+         *
+         * @param children the list with the child nodes
+         * @param handler the {@code NodeHandler}
+         * @return a set with the duplicate names of child nodes
+         */
+        Set<String> duplicateNames(List<T> children, NodeHandler<T> handler)
+        {
+            if (duplicateNames == null)
+            {
+                duplicateNames = Collections.emptySet();
+                Set<String> names = new HashSet<>();
+                for (T child : children)
+                {
+                    String name = handler.nodeName(child);
+                    if (!names.add(name))
+                    {
+                        if (duplicateNames.isEmpty())
+                        {
+                            duplicateNames = new HashSet<>();
+                        }
+                        duplicateNames.add(name);
+                    }
+                }
             }
+            return duplicateNames;
         }
     }
 
@@ -979,4 +1412,129 @@ public abstract class AbstractHierarchicalConfiguration<T> extends AbstractConfi
     {
         return super.toString() + "(" + getRootElementNameInternal() + ")";
     }
+
+    /**
+     * A visitor for query results which collects the values of the selected
+     * nodes and attributes. A list is only created if there are multiple
+     * values.
+     *
+     * @param <T> the type of the nodes
+     */
+    private static class ValueCollector<T> implements QueryResultVisitor<T>
+    {
+        /** The node handler. */
+        private final NodeHandler<T> handler;
+
+        /** The first value found. */
+        private Object firstValue;
+
+        /** A list with all values; created when a second value is found. */
+        private List<Object> values;
+
+        /**
+         * Creates a new instance of {@code ValueCollector}.
+         *
+         * @param nodeHandler the {@code NodeHandler}
+         */
+        public ValueCollector(NodeHandler<T> nodeHandler)
+        {
+            handler = nodeHandler;
+        }
+
+        @Override
+        public void visitNode(T node)
+        {
+            addValue(handler.getValue(node));
+        }
+
+        @Override
+        public void visitAttribute(T parentNode, String attributeName)
+        {
+            addValue(handler.getAttributeValue(parentNode, attributeName));
+        }
+
+        @Override
+        public boolean terminate()
+        {
+            return false;
+        }
+
+        /**
+         * Returns the collected value. This is <b>null</b> if no value was
+         * found, the single value if there was exactly one, or a list with all
+         * values.
+         *
+         * @return the collected value
+         */
+        public Object getValue()
+        {
+            return (values != null) ? values : firstValue;
+        }
+
+        /**
+         * Records a value. <b>null</b> values are ignored.
+         *
+         * @param value the value
+         */
+        private void addValue(Object value)
+        {
+            if (value == null)
+            {
+                return;
+            }
+            if (values != null)
+            {
+                values.add(value);
+            }
+            else if (firstValue == null)
+            {
+                firstValue = value;
+            }
+            else
+            {
+                values = new ArrayList<>();
+                values.add(firstValue);
+                values.add(value);
+            }
+        }
+    }
+
+    /**
+     * A visitor for query results which just counts the results.
+     *
+     * @param <T> the type of the nodes
+     */
+    private static class ResultCounter<T> implements QueryResultVisitor<T>
+    {
+        /** The number of results. */
+        private int count;
+
+        @Override
+        public void visitNode(T node)
+        {
+            count++;
+        }
+
+        @Override
+        public void visitAttribute(T parentNode, String attributeName)
+        {
+            count++;
+        }
+
+        @Override
+        public boolean terminate()
+        {
+            return false;
+        }
+
+        /**
+         * Returns the number of results.
+         *
+         * @return the number of results
+         */
+        public int getCount()
+        {
+            return count;
+        }
+    }
 }
@@ -69,7 +69,8 @@ public class AbstractYAMLBasedConfiguration extends BaseHierarchicalConfiguratio
      */
     protected void load(Map<String, Object> map)
     {
-        ImmutableNode.Builder rootBuilder = new ImmutableNode.Builder();
+        ImmutableNode.Builder rootBuilder =
+                new ImmutableNode.Builder().stringPool(getStringPool());
         ImmutableNode top = constructHierarchy(rootBuilder, map);
         getNodeModel().setRootNode(top);
     }
@@ -117,7 +118,8 @@ public class AbstractYAMLBasedConfiguration extends BaseHierarchicalConfiguratio
             if (value instanceof Map)
             {
                 ImmutableNode.Builder subtree =
-                        new ImmutableNode.Builder().name(key);
+                        new ImmutableNode.Builder().name(key)
+                                .stringPool(getStringPool());
                 ImmutableNode children =
                         constructHierarchy(subtree, (Map) value);
                 parent.addChild(children);
@@ -125,7 +127,7 @@ public class AbstractYAMLBasedConfiguration extends BaseHierarchicalConfiguratio
             else
             {
                 ImmutableNode leaf = new ImmutableNode.Builder().name(key)
-                        .value(value).create();
+                        .value(value).stringPool(getStringPool()).create();
                 parent.addChild(leaf);
             }
         }
@@ -19,10 +19,14 @@ package org.apache.commons.configuration2;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 import org.apache.commons.configuration2.ex.ConfigurationRuntimeException;
 
@@ -35,6 +39,12 @@ import org.apache.commons.configuration2.ex.ConfigurationRuntimeException;
  * to use the same key many times concatenating the value strings
  * instead of overwriting them.
  *
+ * <p>For querying keys with a given prefix, a sorted index of all keys is
+ * created on first access and then kept up-to-date on each change. So such
+ * queries (which are also performed by {@link SubsetConfiguration}) require
+ * only time proportional to the number of matching keys. They are returned in
+ * the order in which they have been added to this configuration.</p>
+ *
  * @author <a href="mailto:stefano@apache.org">Stefano Mazzocchi</a>
  * @author <a href="mailto:jon@latchkey.com">Jon S. Stevens</a>
  * @author <a href="mailto:daveb@miceda-data">Dave Bryson</a>
@@ -54,6 +64,22 @@ public class BaseConfiguration extends AbstractConfiguration implements Cloneabl
     /** stores the configuration key-value pairs */
     private Map<String, Object> store = new LinkedHashMap<>();
 
+    /**
+     * A sorted index of the keys in the store. The values are sequence
+     * numbers reflecting the order in which the keys have been added. The
+     * index is created on demand.
+     */
+    private volatile NavigableMap<String, Long> keyIndex;
+
+    /** The sequence number to be assigned to the next key in the index. */
+    private long keyIndexSequence;
+
+    /**
+     * A flag whether the store is shared with a clone. In this case, it must
+     * be copied before it can be modified.
+     */
+    private volatile boolean storeShared;
+
     /**
      * Adds a key/value pair to the map.  This routine does no magic morphing.
      * It ensures the keylist is maintained
@@ -64,11 +90,17 @@ public class BaseConfiguration extends AbstractConfiguration implements Cloneabl
     @Override
     protected void addPropertyDirect(String key, Object value)
     {
+        ensureStoreNotShared();
         Object previousValue = getPropertyInternal(key);
 
         if (previousValue == null)
         {
             store.put(key, value);
+            NavigableMap<String, Long> index = keyIndex;
+            if (index != null && !index.containsKey(key))
+            {
+                index.put(key, keyIndexSequence++);
+            }
         }
         else if (previousValue instanceof List)
         {
@@ -136,13 +168,28 @@ public class BaseConfiguration extends AbstractConfiguration implements Cloneabl
     @Override
     protected void clearPropertyDirect(String key)
     {
+        ensureStoreNotShared();
         store.remove(key);
+        NavigableMap<String, Long> index = keyIndex;
+        if (index != null)
+        {
+            index.remove(key);
+        }
     }
 
     @Override
     protected void clearInternal()
     {
-        store.clear();
+        if (storeShared)
+        {
+            store = new LinkedHashMap<>();
+            storeShared = false;
+        }
+        else
+        {
+            store.clear();
+        }
+        keyIndex = null;
     }
 
     /**
@@ -164,13 +211,45 @@ public class BaseConfiguration extends AbstractConfiguration implements Cloneabl
     @Override
     protected Iterator<String> getKeysInternal()
     {
-        return store.keySet().iterator();
+        return new StoreKeysIterator(store.keySet().iterator());
     }
 
     /**
-     * Creates a copy of this object. This implementation will create a deep
-     * clone, i.e. the map that stores the properties is cloned, too. So changes
-     * performed at the copy won't affect the original and vice versa.
+     * {@inheritDoc} This implementation uses the sorted key index to find the
+     * keys starting with the given prefix. The keys are returned in the order
+     * in which they have been added.
+     */
+    @Override
+    protected Iterator<String> getKeysInternal(String prefix)
+    {
+        final NavigableMap<String, Long> index = fetchKeyIndex();
+        List<String> keys = new ArrayList<>();
+        for (Iterator<String> it = new PrefixedKeysIterator(PrefixedKeysIterator
+                .prefixRange(index, prefix).keySet().iterator(), prefix); it
+                .hasNext();)
+        {
+            keys.add(it.next());
+        }
+
+        Collections.sort(keys, new Comparator<String>()
+        {
+            @Override
+            public int compare(String k1, String k2)
+            {
+                return index.get(k1).compareTo(index.get(k2));
+            }
+        });
+        return new StoreKeysIterator(keys.iterator());
+    }
+
+    /**
+     * Creates a copy of this object. Changes performed at the copy won't
+     * affect the original and vice versa. This implementation does not copy
+     * the map with the properties immediately; it is shared by the original
+     * and the copy until one of them is modified. Then the modified object
+     * creates a private copy of the map (including the collections stored
+     * for properties with multiple values). So cloning is a cheap operation
+     * which does not depend on the number of properties.
      *
      * @return the copy
      * @since 1.3
@@ -181,7 +260,9 @@ public class BaseConfiguration extends AbstractConfiguration implements Cloneabl
         try
         {
             BaseConfiguration copy = (BaseConfiguration) super.clone();
-            cloneStore(copy);
+            copy.keyIndex = null;
+            storeShared = true;
+            copy.storeShared = true;
             copy.cloneInterpolator(this);
 
             return copy;
@@ -194,29 +275,134 @@ public class BaseConfiguration extends AbstractConfiguration implements Cloneabl
     }
 
     /**
-     * Clones the internal map with the data of this configuration.
+     * Makes sure that the store can be modified. If it is shared with a
+     * clone, a private copy is created now. This method is called before each
+     * change of the store.
+     */
+    private void ensureStoreNotShared()
+    {
+        if (storeShared)
+        {
+            try
+            {
+                store = cloneStore(store);
+            }
+            catch (CloneNotSupportedException cex)
+            {
+                // should not happen
+                throw new ConfigurationRuntimeException(cex);
+            }
+            storeShared = false;
+        }
+    }
+
+    /**
+     * Clones the given map with the data of a configuration. Collections
+     * stored as property values are copied, too.
      *
-     * @param copy the copy created by the {@code clone()} method
+     * @param source the map to be copied
+     * @return the copied map
      * @throws CloneNotSupportedException if the map cannot be cloned
      */
-    private void cloneStore(BaseConfiguration copy)
+    private static Map<String, Object> cloneStore(Map<String, Object> source)
             throws CloneNotSupportedException
     {
         // This is safe because the type of the map is known
         @SuppressWarnings("unchecked")
-        Map<String, Object> clonedStore = (Map<String, Object>) ConfigurationUtils.clone(store);
-        copy.store = clonedStore;
+        Map<String, Object> clonedStore = (Map<String, Object>) ConfigurationUtils.clone(source);
 
         // Handle collections in the map; they have to be cloned, too
-        for (Map.Entry<String, Object> e : store.entrySet())
+        for (Map.Entry<String, Object> e : source.entrySet())
         {
             if (e.getValue() instanceof Collection)
             {
                 // This is safe because the collections were created by ourselves
                 @SuppressWarnings("unchecked")
                 Collection<String> strList = (Collection<String>) e.getValue();
-                copy.store.put(e.getKey(), new ArrayList<>(strList));
+                clonedStore.put(e.getKey(), new ArrayList<>(strList));
+            }
+        }
+        return clonedStore;
+    }
+
+    /**
+     * Returns the sorted index of the keys in this configuration. It is
+     * created if necessary.
+     *
+     * @return the key index
+     */
+    private NavigableMap<String, Long> fetchKeyIndex()
+    {
+        NavigableMap<String, Long> index = keyIndex;
+        if (index == null)
+        {
+            index = new TreeMap<>();
+            long sequence = 0;
+            for (String key : store.keySet())
+            {
+                index.put(key, sequence++);
+            }
+            keyIndexSequence = sequence;
+            keyIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * An iterator over keys of this configuration. The iterator supports the
+     * {@code remove()} operation, which removes the current key directly from
+     * the store and keeps the key index in sync. The wrapped iterator must
+     * support {@code remove()}, too.
+     */
+    private class StoreKeysIterator implements Iterator<String>
+    {
+        /** The wrapped iterator. */
+        private final Iterator<String> iterator;
+
+        /** The store the wrapped iterator belongs to. */
+        private final Map<String, Object> iteratedStore;
+
+        /** The key returned by the last call of next(). */
+        private String currentKey;
+
+        /**
+         * Creates a new instance of {@code StoreKeysIterator}.
+         *
+         * @param it the wrapped iterator
+         */
+        public StoreKeysIterator(Iterator<String> it)
+        {
+            iterator = it;
+            iteratedStore = store;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public String next()
+        {
+            currentKey = iterator.next();
+            return currentKey;
+        }
+
+        @Override
+        public void remove()
+        {
+            if (currentKey == null)
+            {
+                throw new IllegalStateException("next() has not been called!");
+            }
+            ensureStoreNotShared();
+            if (store == iteratedStore)
+            {
+                iterator.remove();
             }
+            clearPropertyDirect(currentKey);
+            currentKey = null;
         }
     }
 }
@@ -390,6 +390,57 @@ public class BaseHierarchicalConfiguration extends AbstractHierarchicalConfigura
         return sub;
     }
 
+    /**
+     * Obtains the nodes for the creation of views. The query is executed
+     * while holding the read lock; the views themselves do not need it.
+     *
+     * @param key the key
+     * @return the filtered list with result nodes
+     */
+    private List<ImmutableNode> fetchNodesForViews(String key)
+    {
+        beginRead(false);
+        try
+        {
+            return fetchFilteredNodeResults(key);
+        }
+        finally
+        {
+            endRead();
+        }
+    }
+
+    /**
+     * Creates a read-only view on the given node.
+     *
+     * @param node the root node of the view
+     * @return the view
+     */
+    private ImmutableHierarchicalConfiguration createView(ImmutableNode node)
+    {
+        NodeViewConfiguration view = new NodeViewConfiguration(node);
+        initSubConfigurationSettings(view);
+        return view;
+    }
+
+    /**
+     * Creates a list with read-only views on the given nodes.
+     *
+     * @param nodes the root nodes of the views
+     * @return the list with views
+     */
+    private List<ImmutableHierarchicalConfiguration> createViews(
+            List<ImmutableNode> nodes)
+    {
+        List<ImmutableHierarchicalConfiguration> views =
+                new ArrayList<>(nodes.size());
+        for (ImmutableNode node : nodes)
+        {
+            views.add(createView(node));
+        }
+        return views;
+    }
+
     /**
      * Executes a query on the specified key and filters it for node results.
      *
@@ -584,6 +635,70 @@ public class BaseHierarchicalConfiguration extends AbstractHierarchicalConfigura
         return toImmutable(childConfigurationsAt(key));
     }
 
+    /**
+     * Returns a read-only view on the sub tree selected by the given key. The
+     * key must select exactly one node. In contrast to the configurations
+     * returned by {@link #immutableConfigurationAt(String)}, a view directly
+     * references the selected node of the current version of the nodes
+     * structure: the sub tree is neither copied nor tracked, and the view does
+     * not need any locks. So views are very cheap to create. As nodes are
+     * immutable, later changes on this configuration are not visible in a view
+     * created before. A view inherits the expression engine, the list
+     * delimiter handler, and the parent interpolator from this configuration.
+     *
+     * @param key the key that selects the sub tree
+     * @return a read-only view on the selected sub tree
+     * @throws ConfigurationRuntimeException if the key does not select a single
+     *         node
+     * @since 2.2
+     */
+    public ImmutableHierarchicalConfiguration viewAt(String key)
+    {
+        List<ImmutableNode> nodes = fetchNodesForViews(key);
+        if (nodes.size() != 1)
+        {
+            throw new ConfigurationRuntimeException(
+                    "Passed in key must select exactly one node (found %,d): %s",
+                    nodes.size(), key);
+        }
+        return createView(nodes.get(0));
+    }
+
+    /**
+     * Returns a list with read-only views on all sub trees selected by the
+     * given key. This method works like {@link #viewAt(String)}, but the key
+     * may select an arbitrary number of nodes. This is an efficient way of
+     * iterating over a list of complex properties if no updates are needed.
+     *
+     * @param key the key that selects the sub trees
+     * @return a list with read-only views for the selected sub trees
+     * @since 2.2
+     */
+    public List<ImmutableHierarchicalConfiguration> viewsAt(String key)
+    {
+        return createViews(fetchNodesForViews(key));
+    }
+
+    /**
+     * Returns a list with read-only views on all children of the node selected
+     * by the given key. If not a single node is selected, an empty list is
+     * returned. The views are created as described for
+     * {@link #viewAt(String)}.
+     *
+     * @param key the key that selects the parent node
+     * @return a list with read-only views for the children of this node
+     * @since 2.2
+     */
+    public List<ImmutableHierarchicalConfiguration> childViewsAt(String key)
+    {
+        List<ImmutableNode> nodes = fetchNodesForViews(key);
+        if (nodes.size() != 1)
+        {
+            return Collections.emptyList();
+        }
+        return createViews(nodes.get(0).getChildren());
+    }
+
     /**
      * This method is always called when a subnode configuration created from
      * this configuration has been modified. This implementation transforms the
@@ -608,6 +723,19 @@ public class BaseHierarchicalConfiguration extends AbstractHierarchicalConfigura
     private void initSubConfiguration(BaseHierarchicalConfiguration sub)
     {
         sub.setSynchronizer(getSynchronizer());
+        initSubConfigurationSettings(sub);
+    }
+
+    /**
+     * Initializes the settings of a sub configuration or a view which are
+     * inherited from this configuration. Other than
+     * {@link #initSubConfiguration(BaseHierarchicalConfiguration)}, this
+     * method does not set the synchronizer.
+     *
+     * @param sub the sub configuration to be initialized
+     */
+    private void initSubConfigurationSettings(BaseHierarchicalConfiguration sub)
+    {
         sub.setExpressionEngine(getExpressionEngine());
         sub.setListDelimiterHandler(getListDelimiterHandler());
         sub.setThrowExceptionOnMissing(isThrowExceptionOnMissing());
@@ -661,12 +789,20 @@ public class BaseHierarchicalConfiguration extends AbstractHierarchicalConfigura
      * {@inheritDoc} This implementation creates a new instance of
      * {@link InMemoryNodeModel}, initialized with this configuration's root
      * node. This has the effect that although the same nodes are used, the
-     * original and copied configurations are independent on each other.
+     * original and copied configurations are independent on each other. If
+     * the current model is an {@code InMemoryNodeModel}, its nodes structure
+     * is shared with the copy, so that cloning does not depend on the size of
+     * the configuration.
      */
     @Override
     protected NodeModel<ImmutableNode> cloneNodeModel()
     {
-        return new InMemoryNodeModel(getModel().getNodeHandler().getRootNode());
+        NodeModel<ImmutableNode> model = getModel();
+        if (model instanceof InMemoryNodeModel)
+        {
+            return ((InMemoryNodeModel) model).createCopy();
+        }
+        return new InMemoryNodeModel(model.getNodeHandler().getRootNode());
     }
 
     /**
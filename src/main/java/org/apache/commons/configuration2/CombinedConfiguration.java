@@ -665,7 +665,10 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
      * i.e. all contained configurations will be cloned, too. For this to work,
      * all contained configurations must be cloneable. Registered event
      * listeners won't be cloned. The clone will use the same node combiner than
-     * the original.
+     * the original. Because the cloned child configurations contain the same
+     * data as the original ones, the combined nodes structure of this
+     * configuration is reused by the clone; it is not constructed again
+     * before one of the child configurations of the clone is changed.
      *
      * @return the copied object
      */
@@ -683,6 +686,13 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
                         .getConfiguration()), cd.getName(), cd.getAt());
             }
 
+            // the copied model already contains the combined root node
+            for (int i = 0; i < configurations.size(); i++)
+            {
+                copy.configurations.get(i).rootNode =
+                        configurations.get(i).rootNode;
+            }
+            copy.upToDate = upToDate;
             return copy;
         }
         finally
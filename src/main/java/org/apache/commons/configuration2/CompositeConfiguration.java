@@ -20,13 +20,17 @@ package org.apache.commons.configuration2;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.configuration2.convert.ListDelimiterHandler;
+import org.apache.commons.configuration2.event.ConfigurationEvent;
+import org.apache.commons.configuration2.event.EventListener;
+import org.apache.commons.configuration2.event.EventSource;
 import org.apache.commons.configuration2.ex.ConfigurationRuntimeException;
 
 /**
@@ -62,6 +66,20 @@ import org.apache.commons.configuration2.ex.ConfigurationRuntimeException;
  * object also depends on the {@code Synchronizer} objects used by these
  * children.
  * </p>
+ * <p>
+ * Optionally, a lookup cache can be enabled using the
+ * {@link #setLookupCacheEnabled(boolean)} method. It records for each queried
+ * key the child configuration which defines it (the <em>owner</em>) and the
+ * keys which could not be found in any child. So a subsequent query for the
+ * same key has to access at most a single child configuration. The cache is
+ * invalidated whenever a child configuration fires a change event or the list
+ * of children is changed. It is therefore only used if all child
+ * configurations are event sources. Because changes of data which are not
+ * reported by events (e.g. manipulations of system properties or of the
+ * tables underlying a {@link DatabaseConfiguration}) cannot be detected, the
+ * cache is disabled per default. The number of keys stored in the cache is
+ * limited; if the limit is reached, the cache is cleared.
+ * </p>
  *
  * @author <a href="mailto:epugh@upstate.com">Eric Pugh</a>
  * @author <a href="mailto:hps@intermeta.de">Henning P. Schmiedehausen</a>
@@ -70,6 +88,9 @@ import org.apache.commons.configuration2.ex.ConfigurationRuntimeException;
 public class CompositeConfiguration extends AbstractConfiguration
 implements Cloneable
 {
+    /** The maximum number of keys stored in each map of the lookup cache. */
+    static final int MAX_CACHED_KEYS = 4096;
+
     /** List holding all the configuration */
     private List<Configuration> configList = new LinkedList<>();
 
@@ -85,12 +106,31 @@ implements Cloneable
      */
     private boolean inMemoryConfigIsChild;
 
+    /** Maps keys to the child configurations defining them. */
+    private ConcurrentMap<String, Configuration> keyOwners;
+
+    /** Stores keys which are not contained in any child configuration. */
+    private ConcurrentMap<String, Boolean> missingKeys;
+
+    /** A counter which is incremented each time the lookup cache is reset. */
+    private AtomicLong cacheGeneration;
+
+    /** The listener which invalidates the lookup cache on child changes. */
+    private CacheInvalidationListener invalidationListener;
+
+    /** A flag whether the lookup cache is enabled. */
+    private volatile boolean lookupCacheEnabled;
+
+    /** A flag whether all child configurations support the lookup cache. */
+    private volatile boolean lookupCacheSupported;
+
     /**
      * Creates an empty CompositeConfiguration object which can then
      * be added some other Configuration files
      */
     public CompositeConfiguration()
     {
+        initLookupCache();
         clear();
     }
 
@@ -108,9 +148,11 @@ implements Cloneable
      */
     public CompositeConfiguration(Configuration inMemoryConfiguration)
     {
+        initLookupCache();
         configList.clear();
         this.inMemoryConfiguration = inMemoryConfiguration;
         configList.add(inMemoryConfiguration);
+        childrenChanged();
     }
 
     /**
@@ -205,6 +247,7 @@ implements Cloneable
                     ((AbstractConfiguration) config)
                             .setThrowExceptionOnMissing(isThrowExceptionOnMissing());
                 }
+                childrenChanged();
             }
         }
         finally
@@ -225,9 +268,11 @@ implements Cloneable
         {
             // Make sure that you can't remove the inMemoryConfiguration from
             // the CompositeConfiguration object
-            if (!config.equals(inMemoryConfiguration))
+            if (!config.equals(inMemoryConfiguration)
+                    && configList.remove(config))
             {
-                configList.remove(config);
+                unregisterInvalidationListener(config);
+                childrenChanged();
             }
         }
         finally
@@ -262,6 +307,10 @@ implements Cloneable
     @Override
     protected void clearInternal()
     {
+        for (Configuration config : configList)
+        {
+            unregisterInvalidationListener(config);
+        }
         configList.clear();
         // recreate the in memory configuration
         inMemoryConfiguration = new BaseConfiguration();
@@ -269,6 +318,7 @@ implements Cloneable
         ((BaseConfiguration) inMemoryConfiguration).setListDelimiterHandler(getListDelimiterHandler());
         configList.add(inMemoryConfiguration);
         inMemoryConfigIsChild = false;
+        childrenChanged();
     }
 
     /**
@@ -293,54 +343,60 @@ implements Cloneable
     @Override
     protected Object getPropertyInternal(String key)
     {
-        Configuration firstMatchingConfiguration = null;
-        for (Configuration config : configList)
+        if (!isLookupCacheActive())
         {
-            if (config.containsKey(key))
-            {
-                firstMatchingConfiguration = config;
-                break;
-            }
+            return fetchFirstValue(key);
         }
 
-        if (firstMatchingConfiguration != null)
+        if (missingKeys.containsKey(key))
         {
-            return firstMatchingConfiguration.getProperty(key);
+            return null;
         }
-        else
+        Configuration owner = keyOwners.get(key);
+        if (owner != null)
         {
-            return null;
+            Object value = owner.getProperty(key);
+            if (value != null)
+            {
+                return value;
+            }
         }
-    }
 
-    @Override
-    protected Iterator<String> getKeysInternal()
-    {
-        Set<String> keys = new LinkedHashSet<>();
+        long generation = cacheGeneration.get();
         for (Configuration config : configList)
         {
-            for (Iterator<String> it = config.getKeys(); it.hasNext();)
+            Object value = config.getProperty(key);
+            if (value != null)
             {
-                keys.add(it.next());
+                cacheKey(keyOwners, key, config);
+                checkCacheGeneration(generation);
+                return value;
             }
         }
+        cacheKey(missingKeys, key, Boolean.TRUE);
+        checkCacheGeneration(generation);
+        return null;
+    }
 
-        return keys.iterator();
+    /**
+     * {@inheritDoc} This implementation returns an iterator which obtains the
+     * keys of the child configurations lazily. Keys defined by multiple
+     * children are returned only once.
+     */
+    @Override
+    protected Iterator<String> getKeysInternal()
+    {
+        return new CompositeKeysIterator(configList, null);
     }
 
+    /**
+     * {@inheritDoc} This implementation returns an iterator which obtains the
+     * matching keys of the child configurations lazily.
+     */
     @Override
     protected Iterator<String> getKeysInternal(String key)
     {
-        Set<String> keys = new LinkedHashSet<>();
-        for (Configuration config : configList)
-        {
-            for (Iterator<String> it = config.getKeys(key); it.hasNext();)
-            {
-                keys.add(it.next());
-            }
-        }
-
-        return keys.iterator();
+        return new CompositeKeysIterator(configList, key);
     }
 
     @Override
@@ -369,6 +425,11 @@ implements Cloneable
     @Override
     protected boolean containsKeyInternal(String key)
     {
+        if (isLookupCacheActive())
+        {
+            return getPropertyInternal(key) != null;
+        }
+
         for (Configuration config : configList)
         {
             if (config.containsKey(key))
@@ -486,10 +547,12 @@ implements Cloneable
         {
             CompositeConfiguration copy = (CompositeConfiguration) super
                     .clone();
+            copy.initLookupCache();
             copy.configList = new LinkedList<>();
             copy.inMemoryConfiguration = ConfigurationUtils
                     .cloneConfiguration(getInMemoryConfiguration());
             copy.configList.add(copy.inMemoryConfiguration);
+            copy.childrenChanged();
 
             for (Configuration config : configList)
             {
@@ -526,6 +589,58 @@ implements Cloneable
         super.setListDelimiterHandler(listDelimiterHandler);
     }
 
+    /**
+     * Returns a flag whether the lookup cache is enabled.
+     *
+     * @return a flag whether the lookup cache is enabled
+     * @since 2.2
+     */
+    public boolean isLookupCacheEnabled()
+    {
+        return lookupCacheEnabled;
+    }
+
+    /**
+     * Enables or disables the lookup cache. If enabled, this configuration
+     * remembers which child configuration defines a queried key and which
+     * keys are not defined at all. This can speed up property access
+     * considerably if there are many child configurations. The cache is
+     * automatically invalidated when a child configuration is changed. Note
+     * that it is only used if all child configurations implement the
+     * {@link EventSource} interface and if there are no changes of the
+     * underlying data which are not reported via events.
+     *
+     * @param lookupCacheEnabled the flag whether the lookup cache is enabled
+     * @since 2.2
+     */
+    public void setLookupCacheEnabled(boolean lookupCacheEnabled)
+    {
+        beginWrite(false);
+        try
+        {
+            if (this.lookupCacheEnabled != lookupCacheEnabled)
+            {
+                for (Configuration config : configList)
+                {
+                    if (lookupCacheEnabled)
+                    {
+                        registerInvalidationListener(config);
+                    }
+                    else
+                    {
+                        unregisterInvalidationListener(config);
+                    }
+                }
+                this.lookupCacheEnabled = lookupCacheEnabled;
+                invalidateLookupCache();
+            }
+        }
+        finally
+        {
+            endWrite();
+        }
+    }
+
     /**
      * Returns the configuration source, in which the specified key is defined.
      * This method will iterate over all existing child configurations and check
@@ -573,6 +688,165 @@ implements Cloneable
         return source;
     }
 
+    /**
+     * Queries the child configurations for the specified key and returns the
+     * value of the first one defining this key. Each child is accessed only
+     * once.
+     *
+     * @param key the key
+     * @return the value of this key or <b>null</b> if it cannot be found
+     */
+    private Object fetchFirstValue(String key)
+    {
+        for (Configuration config : configList)
+        {
+            Object value = config.getProperty(key);
+            if (value != null)
+            {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Initializes the data structures of the lookup cache. This method is
+     * also called for a clone to make sure that it does not share the cache
+     * with the original configuration.
+     */
+    private void initLookupCache()
+    {
+        keyOwners = new ConcurrentHashMap<>();
+        missingKeys = new ConcurrentHashMap<>();
+        cacheGeneration = new AtomicLong();
+        invalidationListener = new CacheInvalidationListener();
+    }
+
+    /**
+     * Returns a flag whether the lookup cache can be used for the current
+     * operation.
+     *
+     * @return a flag whether the lookup cache is active
+     */
+    private boolean isLookupCacheActive()
+    {
+        return lookupCacheEnabled && lookupCacheSupported;
+    }
+
+    /**
+     * Clears all data stored in the lookup cache.
+     */
+    private void invalidateLookupCache()
+    {
+        cacheGeneration.incrementAndGet();
+        keyOwners.clear();
+        missingKeys.clear();
+    }
+
+    /**
+     * Returns the number of keys currently stored in the lookup cache. This
+     * method is mainly used for testing purposes.
+     *
+     * @return the number of cached keys
+     */
+    int getCachedKeyCount()
+    {
+        return keyOwners.size() + missingKeys.size();
+    }
+
+    /**
+     * Adds an entry to a map of the lookup cache. If the map has reached its
+     * maximum size, it is cleared before. This prevents the cache from growing
+     * without bounds if many different keys are queried.
+     *
+     * @param <V> the type of the map values
+     * @param cache the map to be updated
+     * @param key the key
+     * @param value the value
+     */
+    private static <V> void cacheKey(ConcurrentMap<String, V> cache,
+            String key, V value)
+    {
+        if (cache.size() >= MAX_CACHED_KEYS)
+        {
+            cache.clear();
+        }
+        cache.put(key, value);
+    }
+
+    /**
+     * Checks whether the lookup cache has been invalidated while an entry was
+     * added to it. In this case, the entry may be stale, and the cache is
+     * cleared again.
+     *
+     * @param generation the generation of the cache when the lookup started
+     */
+    private void checkCacheGeneration(long generation)
+    {
+        if (cacheGeneration.get() != generation)
+        {
+            keyOwners.clear();
+            missingKeys.clear();
+        }
+    }
+
+    /**
+     * Updates internal state after the list of child configurations has
+     * changed. The lookup cache becomes invalid, and it has to be checked
+     * whether all children support change notifications.
+     */
+    private void childrenChanged()
+    {
+        boolean supported = true;
+        for (Configuration config : configList)
+        {
+            if (!(config instanceof EventSource))
+            {
+                supported = false;
+            }
+            if (lookupCacheEnabled)
+            {
+                registerInvalidationListener(config);
+            }
+        }
+        lookupCacheSupported = supported;
+        invalidateLookupCache();
+    }
+
+    /**
+     * Registers the listener for invalidating the lookup cache at the given
+     * child configuration if possible. It is safe to call this method
+     * multiple times for the same child.
+     *
+     * @param config the child configuration
+     */
+    private void registerInvalidationListener(Configuration config)
+    {
+        if (config instanceof EventSource)
+        {
+            EventSource source = (EventSource) config;
+            source.removeEventListener(ConfigurationEvent.ANY,
+                    invalidationListener);
+            source.addEventListener(ConfigurationEvent.ANY,
+                    invalidationListener);
+        }
+    }
+
+    /**
+     * Removes the listener for invalidating the lookup cache from the given
+     * child configuration.
+     *
+     * @param config the child configuration
+     */
+    private void unregisterInvalidationListener(Configuration config)
+    {
+        if (config instanceof EventSource)
+        {
+            ((EventSource) config).removeEventListener(ConfigurationEvent.ANY,
+                    invalidationListener);
+        }
+    }
+
     /**
      * Replaces the current in-memory configuration by the given one.
      *
@@ -584,6 +858,7 @@ implements Cloneable
         {
             // remove current in-memory configuration
             configList.remove(inMemoryConfiguration);
+            unregisterInvalidationListener(inMemoryConfiguration);
         }
         inMemoryConfiguration = config;
     }
@@ -614,4 +889,22 @@ implements Cloneable
             }
         }
     }
+
+    /**
+     * An event listener which is registered at child configurations if the
+     * lookup cache is enabled. It clears the cache after each change of a
+     * child configuration.
+     */
+    private class CacheInvalidationListener implements
+            EventListener<ConfigurationEvent>
+    {
+        @Override
+        public void onEvent(ConfigurationEvent event)
+        {
+            if (!event.isBeforeUpdate())
+            {
+                invalidateLookupCache();
+            }
+        }
+    }
 }
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * A specialized iterator implementation used by
+ * {@link CompositeConfiguration} to iterate over the keys of all its child
+ * configurations.
+ * </p>
+ * <p>
+ * The keys of the child configurations are obtained lazily one after the
+ * other. A key that is defined by multiple child configurations is returned
+ * only once, at the position of the first child defining it. To detect such
+ * duplicates, the child configurations which have already been processed are
+ * asked whether they contain a key. So the costs per key are proportional to
+ * the number of child configurations, and no keys have to be stored; the
+ * memory used by the iteration does not depend on the number of keys.
+ * </p>
+ * <p>
+ * The keys of a child configuration are obtained when the iteration reaches
+ * this child. As is true for the key iterators of other configurations, an
+ * iteration may fail if a child configuration is changed concurrently.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.2
+ */
+class CompositeKeysIterator implements Iterator<String>
+{
+    /** The child configurations whose keys are to be iterated over. */
+    private final List<Configuration> configurations;
+
+    /** The prefix of the keys to be returned; null for all keys. */
+    private final String prefix;
+
+    /** The index of the current child configuration. */
+    private int configIndex;
+
+    /** The iterator over the keys of the current child configuration. */
+    private Iterator<String> currentKeys;
+
+    /** Stores the next element in the iteration. */
+    private String nextElement;
+
+    /**
+     * Creates a new instance of {@code CompositeKeysIterator} and initializes
+     * it with the child configurations and an optional prefix. The passed in
+     * collection is copied, so later changes on it do not affect the
+     * iteration.
+     *
+     * @param configs the child configurations
+     * @param keyPrefix the prefix of the keys to be returned; if <b>null</b>,
+     *        all keys are returned
+     */
+    public CompositeKeysIterator(Collection<? extends Configuration> configs,
+            String keyPrefix)
+    {
+        configurations = new ArrayList<>(configs);
+        prefix = keyPrefix;
+    }
+
+    /**
+     * Returns a flag whether there are more elements in the iteration.
+     *
+     * @return a flag if there is a next element
+     */
+    @Override
+    public boolean hasNext()
+    {
+        return nextElement != null || setNextElement();
+    }
+
+    /**
+     * Returns the next element in the iteration.
+     *
+     * @return the next element in the iteration
+     * @throws NoSuchElementException if there is no next element
+     */
+    @Override
+    public String next()
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        String result = nextElement;
+        nextElement = null;
+        return result;
+    }
+
+    /**
+     * Removing elements is not supported by this iterator.
+     *
+     * @throws UnsupportedOperationException if this method is called
+     */
+    @Override
+    public void remove()
+    {
+        throw new UnsupportedOperationException(
+                "Removing keys is not supported!");
+    }
+
+    /**
+     * Determines the next element in the iteration. The return value indicates
+     * whether such an element can be found.
+     *
+     * @return a flag whether a next element exists
+     */
+    private boolean setNextElement()
+    {
+        while (true)
+        {
+            if (currentKeys == null)
+            {
+                if (configIndex >= configurations.size())
+                {
+                    return false;
+                }
+                currentKeys = fetchKeys(configurations.get(configIndex));
+            }
+
+            while (currentKeys.hasNext())
+            {
+                String key = currentKeys.next();
+                if (!isDefinedByPrecedingConfiguration(key))
+                {
+                    nextElement = key;
+                    return true;
+                }
+            }
+
+            currentKeys = null;
+            configIndex++;
+        }
+    }
+
+    /**
+     * Obtains the keys of the given child configuration taking the prefix
+     * into account.
+     *
+     * @param config the child configuration
+     * @return an iterator over the keys of this configuration
+     */
+    private Iterator<String> fetchKeys(Configuration config)
+    {
+        return (prefix == null) ? config.getKeys() : config.getKeys(prefix);
+    }
+
+    /**
+     * Checks whether the given key is defined by a child configuration which
+     * has already been processed. In this case, it has already been returned.
+     *
+     * @param key the key to check
+     * @return a flag whether this key is a duplicate
+     */
+    private boolean isDefinedByPrecedingConfiguration(String key)
+    {
+        for (int i = 0; i < configIndex; i++)
+        {
+            if (configurations.get(i).containsKey(key))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
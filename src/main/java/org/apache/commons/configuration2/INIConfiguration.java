@@ -384,7 +384,8 @@ public class INIConfiguration extends BaseHierarchicalConfiguration implements
     {
         BufferedReader bufferedReader = new BufferedReader(in);
         Map<String, ImmutableNode.Builder> sectionBuilders = new LinkedHashMap<>();
-        ImmutableNode.Builder rootBuilder = new ImmutableNode.Builder();
+        ImmutableNode.Builder rootBuilder =
+                new ImmutableNode.Builder().stringPool(getStringPool());
 
         createNodeBuilders(bufferedReader, rootBuilder, sectionBuilders);
         ImmutableNode rootNode = createNewRootNode(rootBuilder, sectionBuilders);
@@ -439,7 +440,8 @@ public class INIConfiguration extends BaseHierarchicalConfiguration implements
                     sectionBuilder = sectionBuilders.get(section);
                     if (sectionBuilder == null)
                     {
-                        sectionBuilder = new ImmutableNode.Builder();
+                        sectionBuilder = new ImmutableNode.Builder()
+                                .stringPool(getStringPool());
                         sectionBuilders.put(section, sectionBuilder);
                     }
                 }
@@ -490,7 +492,7 @@ public class INIConfiguration extends BaseHierarchicalConfiguration implements
         for (String v : values)
         {
             sectionBuilder.addChild(new ImmutableNode.Builder().name(key)
-                    .value(v).create());
+                    .value(v).stringPool(getStringPool()).create());
         }
     }
 
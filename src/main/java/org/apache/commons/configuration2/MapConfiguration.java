@@ -22,6 +22,7 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Properties;
 
 import org.apache.commons.configuration2.ex.ConfigurationRuntimeException;
@@ -76,6 +77,13 @@ import org.apache.commons.configuration2.ex.ConfigurationRuntimeException;
  * depends on the map passed to the constructor.
  * </p>
  * <p>
+ * If the map passed to the constructor is a {@code NavigableMap} using the
+ * natural ordering of its keys (e.g. a {@code TreeMap}), queries for keys
+ * with a given prefix (which are also performed by
+ * {@link SubsetConfiguration}) are optimized: only the range of the map
+ * containing matching keys is inspected rather than all keys.
+ * </p>
+ * <p>
  * Notes about type safety: For properties with multiple values this implementation
  * creates lists of type {@code Object} and stores them. If a property is assigned
  * another value, the value is added to the list. This can cause problems if the
@@ -227,6 +235,24 @@ public class MapConfiguration extends AbstractConfiguration implements Cloneable
         return map.keySet().iterator();
     }
 
+    /**
+     * {@inheritDoc} If the underlying map is sorted according to the natural
+     * ordering of its keys, this implementation only iterates over the range
+     * of the map which can contain matching keys.
+     */
+    @Override
+    protected Iterator<String> getKeysInternal(String prefix)
+    {
+        if (map instanceof NavigableMap
+                && ((NavigableMap<String, Object>) map).comparator() == null)
+        {
+            return new PrefixedKeysIterator(PrefixedKeysIterator.prefixRange(
+                    (NavigableMap<String, Object>) map, prefix).keySet()
+                    .iterator(), prefix);
+        }
+        return super.getKeysInternal(prefix);
+    }
+
     @Override
     protected int sizeInternal()
     {
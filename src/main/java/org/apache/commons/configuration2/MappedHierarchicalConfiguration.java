@@ -0,0 +1,300 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.configuration2.ex.ConfigurationRuntimeException;
+import org.apache.commons.configuration2.tree.MappedNode;
+import org.apache.commons.configuration2.tree.MappedNodeModel;
+import org.apache.commons.configuration2.tree.NodeHandler;
+import org.apache.commons.configuration2.tree.NodeModel;
+
+/**
+ * <p>
+ * A read-only hierarchical configuration operating on a
+ * {@link MappedNodeModel}.
+ * </p>
+ * <p>
+ * This class makes the content of a {@code MappedNodeModel} available through
+ * the {@link HierarchicalConfiguration} interface. As the data of such a model
+ * is stored outside of the Java heap, this is a memory-efficient way of
+ * accessing huge configurations. Typical usage is to write the root node of a
+ * configuration loaded in a preprocessing step into a file using
+ * {@link MappedNodeModel#write(org.apache.commons.configuration2.tree.ImmutableNode, java.io.File)
+ * MappedNodeModel.write()}; the file can then be mapped and accessed by this
+ * class:
+ * </p>
+ *
+ * <pre>
+ * MappedHierarchicalConfiguration config =
+ *         new MappedHierarchicalConfiguration(MappedNodeModel.map(file));
+ * String value = config.getString(&quot;catalog.item(42).name&quot;);
+ * </pre>
+ *
+ * <p>
+ * The configuration cannot be changed: all methods which would manipulate
+ * properties throw an {@code UnsupportedOperationException}. Sub
+ * configurations share the model of their parent and are read-only, too.
+ * Because the model is immutable, no synchronization is required; the default
+ * {@code NoOpSynchronizer} is sufficient even for concurrent access.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.2
+ */
+public class MappedHierarchicalConfiguration extends
+        AbstractHierarchicalConfiguration<MappedNode>
+{
+    /**
+     * Creates a new instance of {@code MappedHierarchicalConfiguration} which
+     * operates on the given model.
+     *
+     * @param model the {@code MappedNodeModel} (must not be <b>null</b>)
+     * @throws IllegalArgumentException if the model is <b>null</b>
+     */
+    public MappedHierarchicalConfiguration(MappedNodeModel model)
+    {
+        super(checkModel(model));
+    }
+
+    /**
+     * {@inheritDoc} This implementation returns a configuration whose model
+     * is based on the single node selected by the given key. The
+     * {@code supportUpdates} flag is irrelevant because the data cannot be
+     * changed.
+     *
+     * @throws ConfigurationRuntimeException if the key does not select a single
+     *         node
+     */
+    @Override
+    public HierarchicalConfiguration<MappedNode> configurationAt(String key,
+            boolean supportUpdates)
+    {
+        List<MappedNode> nodes = fetchNodes(key);
+        if (nodes.size() != 1)
+        {
+            throw new ConfigurationRuntimeException(
+                    "Passed in key must select exactly one node (found %,d): %s",
+                    nodes.size(), key);
+        }
+        return createSubConfiguration(nodes.get(0));
+    }
+
+    /**
+     * {@inheritDoc} This is a short form for {@code configurationAt(key,
+     * false)}.
+     */
+    @Override
+    public HierarchicalConfiguration<MappedNode> configurationAt(String key)
+    {
+        return configurationAt(key, false);
+    }
+
+    /**
+     * {@inheritDoc} This implementation creates a sub configuration for each
+     * node selected by the given key.
+     */
+    @Override
+    public List<HierarchicalConfiguration<MappedNode>> configurationsAt(
+            String key)
+    {
+        return createSubConfigurations(fetchNodes(key));
+    }
+
+    /**
+     * {@inheritDoc} The {@code supportUpdates} flag is irrelevant because the
+     * data cannot be changed.
+     */
+    @Override
+    public List<HierarchicalConfiguration<MappedNode>> configurationsAt(
+            String key, boolean supportUpdates)
+    {
+        return configurationsAt(key);
+    }
+
+    /**
+     * {@inheritDoc} This implementation creates sub configurations for all
+     * children of the single node selected by the given key. If not a single
+     * node is selected, an empty list is returned.
+     */
+    @Override
+    public List<HierarchicalConfiguration<MappedNode>> childConfigurationsAt(
+            String key)
+    {
+        List<MappedNode> nodes = fetchNodes(key);
+        if (nodes.size() != 1)
+        {
+            return Collections.emptyList();
+        }
+        return createSubConfigurations(getModel().getNodeHandler()
+                .getChildren(nodes.get(0)));
+    }
+
+    /**
+     * {@inheritDoc} The {@code supportUpdates} flag is irrelevant because the
+     * data cannot be changed.
+     */
+    @Override
+    public List<HierarchicalConfiguration<MappedNode>> childConfigurationsAt(
+            String key, boolean supportUpdates)
+    {
+        return childConfigurationsAt(key);
+    }
+
+    /**
+     * {@inheritDoc} This implementation returns an immutable wrapper around
+     * the result of {@code configurationAt()}.
+     */
+    @Override
+    public ImmutableHierarchicalConfiguration immutableConfigurationAt(
+            String key, boolean supportUpdates)
+    {
+        return ConfigurationUtils.unmodifiableConfiguration(configurationAt(
+                key, supportUpdates));
+    }
+
+    /**
+     * {@inheritDoc} This implementation returns an immutable wrapper around
+     * the result of {@code configurationAt()}.
+     */
+    @Override
+    public ImmutableHierarchicalConfiguration immutableConfigurationAt(
+            String key)
+    {
+        return immutableConfigurationAt(key, false);
+    }
+
+    /**
+     * {@inheritDoc} This implementation returns immutable wrappers around the
+     * results of {@code configurationsAt()}.
+     */
+    @Override
+    public List<ImmutableHierarchicalConfiguration> immutableConfigurationsAt(
+            String key)
+    {
+        return toImmutable(configurationsAt(key));
+    }
+
+    /**
+     * {@inheritDoc} This implementation returns immutable wrappers around the
+     * results of {@code childConfigurationsAt()}.
+     */
+    @Override
+    public List<ImmutableHierarchicalConfiguration> immutableChildConfigurationsAt(
+            String key)
+    {
+        return toImmutable(childConfigurationsAt(key));
+    }
+
+    /**
+     * {@inheritDoc} The model of this configuration cannot be changed. So it
+     * can be shared by a clone.
+     */
+    @Override
+    protected NodeModel<MappedNode> cloneNodeModel()
+    {
+        return getModel();
+    }
+
+    /**
+     * Returns the nodes selected by the given key. Attribute results are
+     * ignored.
+     *
+     * @param key the key
+     * @return the list with the selected nodes
+     */
+    private List<MappedNode> fetchNodes(String key)
+    {
+        NodeHandler<MappedNode> handler = getModel().getNodeHandler();
+        return resolveNodeKey(handler.getRootNode(), key, handler);
+    }
+
+    /**
+     * Creates a sub configuration for the given node. The new configuration
+     * inherits some settings from this configuration.
+     *
+     * @param node the root node of the sub configuration
+     * @return the sub configuration
+     */
+    private MappedHierarchicalConfiguration createSubConfiguration(
+            MappedNode node)
+    {
+        MappedHierarchicalConfiguration sub =
+                new MappedHierarchicalConfiguration(
+                        ((MappedNodeModel) getModel()).subModel(node));
+        sub.setExpressionEngine(getExpressionEngine());
+        sub.setListDelimiterHandler(getListDelimiterHandler());
+        sub.setThrowExceptionOnMissing(isThrowExceptionOnMissing());
+        sub.getInterpolator().setParentInterpolator(getInterpolator());
+        return sub;
+    }
+
+    /**
+     * Creates sub configurations for all nodes in the given list.
+     *
+     * @param nodes the root nodes of the sub configurations
+     * @return the list with sub configurations
+     */
+    private List<HierarchicalConfiguration<MappedNode>> createSubConfigurations(
+            List<MappedNode> nodes)
+    {
+        List<HierarchicalConfiguration<MappedNode>> subs =
+                new ArrayList<>(nodes.size());
+        for (MappedNode node : nodes)
+        {
+            subs.add(createSubConfiguration(node));
+        }
+        return subs;
+    }
+
+    /**
+     * Creates a list with immutable configurations from the given list.
+     *
+     * @param subs the list with sub configurations
+     * @return the list with immutable wrappers
+     */
+    private static List<ImmutableHierarchicalConfiguration> toImmutable(
+            List<? extends HierarchicalConfiguration<?>> subs)
+    {
+        List<ImmutableHierarchicalConfiguration> res =
+                new ArrayList<>(subs.size());
+        for (HierarchicalConfiguration<?> sub : subs)
+        {
+            res.add(ConfigurationUtils.unmodifiableConfiguration(sub));
+        }
+        return res;
+    }
+
+    /**
+     * Checks the model passed to the constructor.
+     *
+     * @param model the model
+     * @return the checked model
+     * @throws IllegalArgumentException if the model is <b>null</b>
+     */
+    private static MappedNodeModel checkModel(MappedNodeModel model)
+    {
+        if (model == null)
+        {
+            throw new IllegalArgumentException("Model must not be null!");
+        }
+        return model;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2;
+
+import java.util.List;
+
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.commons.configuration2.tree.InMemoryNodeModel;
+import org.apache.commons.configuration2.tree.NodeModel;
+import org.apache.commons.configuration2.tree.ReadOnlyNodeModel;
+
+/**
+ * <p>
+ * A hierarchical configuration implementation which provides a read-only
+ * view on a sub tree of another hierarchical configuration.
+ * </p>
+ * <p>
+ * Instances are created by the {@code viewAt()} methods of
+ * {@link BaseHierarchicalConfiguration}. They are based on a
+ * {@link ReadOnlyNodeModel} which references the root node of the sub tree
+ * directly. So no data is copied, and no tracked node is registered at the
+ * parent configuration. All methods which would change the configuration's
+ * data throw an {@code UnsupportedOperationException}. Immutable sub
+ * configurations of a view are views again.
+ * </p>
+ * <p>
+ * Because the nodes of a view cannot change, a view is thread-safe without
+ * a synchronizer.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.2
+ */
+class NodeViewConfiguration extends BaseHierarchicalConfiguration
+{
+    /**
+     * Creates a new instance of {@code NodeViewConfiguration} for the given
+     * root node.
+     *
+     * @param root the root node of this view
+     */
+    public NodeViewConfiguration(ImmutableNode root)
+    {
+        super(new ReadOnlyNodeModel(root));
+    }
+
+    /**
+     * {@inheritDoc} A view is not based on an {@code InMemoryNodeModel};
+     * therefore, this implementation throws an exception. (A clone of a view
+     * has its own {@code InMemoryNodeModel} which is returned.)
+     *
+     * @throws UnsupportedOperationException if this is a view
+     */
+    @Override
+    public InMemoryNodeModel getNodeModel()
+    {
+        NodeModel<ImmutableNode> model = getModel();
+        if (!(model instanceof InMemoryNodeModel))
+        {
+            throw new UnsupportedOperationException(
+                    "A view is not based on an InMemoryNodeModel!");
+        }
+        return (InMemoryNodeModel) model;
+    }
+
+    /**
+     * {@inheritDoc} This implementation returns a view on the selected node.
+     */
+    @Override
+    public ImmutableHierarchicalConfiguration immutableConfigurationAt(
+            String key)
+    {
+        return viewAt(key);
+    }
+
+    /**
+     * {@inheritDoc} This implementation returns a view on the selected node.
+     * Because a view cannot be changed, the {@code supportUpdates} flag is
+     * irrelevant.
+     */
+    @Override
+    public ImmutableHierarchicalConfiguration immutableConfigurationAt(
+            String key, boolean supportUpdates)
+    {
+        return viewAt(key);
+    }
+
+    /**
+     * {@inheritDoc} This implementation returns views on the selected nodes.
+     */
+    @Override
+    public List<ImmutableHierarchicalConfiguration> immutableConfigurationsAt(
+            String key)
+    {
+        return viewsAt(key);
+    }
+
+    /**
+     * {@inheritDoc} This implementation returns views on the child nodes.
+     */
+    @Override
+    public List<ImmutableHierarchicalConfiguration> immutableChildConfigurationsAt(
+            String key)
+    {
+        return childViewsAt(key);
+    }
+}
@@ -18,6 +18,7 @@
 package org.apache.commons.configuration2;
 
 import java.util.Iterator;
+import java.util.NavigableMap;
 import java.util.NoSuchElementException;
 
 /**
@@ -57,6 +58,26 @@ class PrefixedKeysIterator implements Iterator<String>
         prefix = keyPrefix;
     }
 
+    /**
+     * Returns the part of a sorted map which can contain keys starting with
+     * the given prefix. The map must use the natural ordering of strings.
+     * Then all keys accepted by this iterator are located in a single range
+     * starting with the prefix itself. The range may contain some other keys
+     * which start with the prefix string, but are not followed by the key
+     * delimiter; so it has still to be filtered.
+     *
+     * @param map the sorted map
+     * @param keyPrefix the prefix
+     * @param <V> the type of the values of the map
+     * @return the range of the map containing all keys with this prefix
+     */
+    static <V> NavigableMap<String, V> prefixRange(NavigableMap<String, V> map,
+            String keyPrefix)
+    {
+        // '/' is the character following the key delimiter '.'
+        return map.subMap(keyPrefix, true, keyPrefix + "/", false);
+    }
+
     /**
      * Returns a flag whether there are more elements in the iteration.
      *
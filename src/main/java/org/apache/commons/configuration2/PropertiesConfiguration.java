@@ -38,6 +38,7 @@ import org.apache.commons.configuration2.io.FileHandler;
 import org.apache.commons.configuration2.io.FileLocator;
 import org.apache.commons.configuration2.io.FileLocatorAware;
 import org.apache.commons.configuration2.io.FileLocatorUtils;
+import org.apache.commons.configuration2.tree.StringPool;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringEscapeUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -667,6 +668,9 @@ public class PropertiesConfiguration extends BaseConfiguration
         /** Stores the property separator of the last read property.*/
         private String propertySeparator = DEFAULT_SEPARATOR;
 
+        /** An optional pool for the names and values of properties. */
+        private StringPool stringPool;
+
         /**
          * Constructor.
          *
@@ -830,7 +834,7 @@ public class PropertiesConfiguration extends BaseConfiguration
          */
         protected void initPropertyName(String name)
         {
-            propertyName = StringEscapeUtils.unescapeJava(name);
+            propertyName = intern(StringEscapeUtils.unescapeJava(name));
         }
 
         /**
@@ -844,7 +848,32 @@ public class PropertiesConfiguration extends BaseConfiguration
          */
         protected void initPropertyValue(String value)
         {
-            propertyValue = unescapeJava(value);
+            propertyValue = intern(unescapeJava(value));
+        }
+
+        /**
+         * Returns the {@code StringPool} used by this reader. Result is
+         * <b>null</b> if no pool has been set.
+         *
+         * @return the {@code StringPool}
+         * @since 2.2
+         */
+        public StringPool getStringPool()
+        {
+            return stringPool;
+        }
+
+        /**
+         * Sets a {@code StringPool} for this reader. If a pool is set, the
+         * names and values of the properties read are replaced by the
+         * instances obtained from the pool.
+         *
+         * @param stringPool the {@code StringPool} (may be <b>null</b>)
+         * @since 2.2
+         */
+        public void setStringPool(StringPool stringPool)
+        {
+            this.stringPool = stringPool;
         }
 
         /**
@@ -861,6 +890,18 @@ public class PropertiesConfiguration extends BaseConfiguration
             propertySeparator = value;
         }
 
+        /**
+         * Obtains the pooled instance of the given string if a
+         * {@code StringPool} is set.
+         *
+         * @param str the string
+         * @return the string to be used
+         */
+        private String intern(String str)
+        {
+            return (stringPool != null) ? stringPool.intern(str) : str;
+        }
+
         /**
          * Checks if the passed in line should be combined with the following.
          * This is true, if the line ends with an odd number of backslashes.
@@ -481,6 +481,7 @@ public class PropertiesConfigurationLayout implements EventListener<Configuratio
         loadCounter.incrementAndGet();
         PropertiesConfiguration.PropertiesReader reader =
                 config.getIOFactory().createPropertiesReader(in);
+        reader.setStringPool(config.getStringPool());
 
         try
         {
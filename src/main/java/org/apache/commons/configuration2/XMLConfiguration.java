@@ -555,7 +555,8 @@ public class XMLConfiguration extends BaseHierarchicalConfiguration implements
         setPublicID(docHelper.getSourcePublicID());
         setSystemID(docHelper.getSourceSystemID());
 
-        ImmutableNode.Builder rootBuilder = new ImmutableNode.Builder();
+        ImmutableNode.Builder rootBuilder =
+                new ImmutableNode.Builder().stringPool(getStringPool());
         MutableObject<String> rootValue = new MutableObject<>();
         Map<ImmutableNode, Object> elemRefMap =
                 elemRefs ? new HashMap<ImmutableNode, Object>() : null;
@@ -605,7 +606,7 @@ public class XMLConfiguration extends BaseHierarchicalConfiguration implements
             {
                 Element child = (Element) w3cNode;
                 ImmutableNode.Builder childNode = new ImmutableNode.Builder();
-                childNode.name(child.getTagName());
+                childNode.name(child.getTagName()).stringPool(getStringPool());
                 MutableObject<String> refChildValue =
                         new MutableObject<>();
                 Map<String, String> attrmap =
@@ -731,7 +732,7 @@ public class XMLConfiguration extends BaseHierarchicalConfiguration implements
             while (it.hasNext())
             {
                 ImmutableNode.Builder c = new ImmutableNode.Builder();
-                c.name(addedChildNode.getNodeName());
+                c.name(addedChildNode.getNodeName()).stringPool(getStringPool());
                 c.value(it.next());
                 c.addAttributes(attrmap);
                 ImmutableNode newChild = c.create();
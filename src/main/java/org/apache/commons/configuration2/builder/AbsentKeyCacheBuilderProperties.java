@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.builder;
+
+/**
+ * <p>
+ * Definition of a parameters interface for configurations supporting a cache
+ * for absent keys.
+ * </p>
+ * <p>
+ * This interface is implemented by the parameters objects for hierarchical
+ * configurations. It is separate from {@link HierarchicalBuilderProperties}, so
+ * that existing implementations of that interface are not affected.
+ * </p>
+ * <p>
+ * <strong>Important note:</strong> This interface is not intended to be
+ * implemented by client code! It defines a set of available properties and may
+ * be extended even in minor releases.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.2
+ * @param <T> the type of the result of all set methods for method chaining
+ */
+public interface AbsentKeyCacheBuilderProperties<T>
+{
+    /**
+     * Sets a flag whether the cache for absent keys should be enabled for the
+     * configuration. This can speed up queries for optional keys which are
+     * not defined in the configuration.
+     *
+     * @param enabled the flag whether the cache for absent keys is enabled
+     * @return a reference to this object for method chaining
+     */
+    T setAbsentKeyCacheEnabled(boolean enabled);
+}
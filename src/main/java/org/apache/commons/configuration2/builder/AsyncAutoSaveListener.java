@@ -0,0 +1,410 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.builder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.configuration2.io.DefaultFileSystem;
+import org.apache.commons.configuration2.io.FileHandler;
+import org.apache.commons.configuration2.io.FileLocatorUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+
+/**
+ * <p>
+ * A specialized auto save listener which saves changes asynchronously.
+ * </p>
+ * <p>
+ * In contrast to its base class, this listener does not save the monitored
+ * configuration for each change event. Instead, the first change schedules a
+ * save task at a {@code ScheduledExecutorService} which is executed after a
+ * configurable delay. Further changes received in the meantime do not cause
+ * additional save operations; they are written together by the pending task.
+ * So a burst of updates results in a single write operation, and the thread
+ * manipulating the configuration does not have to wait for I/O.
+ * </p>
+ * <p>
+ * If the configuration is stored in a file on the local file system, it is
+ * first written into a temporary file in the same directory which is then
+ * renamed to the target file. So readers of the file never see a partially
+ * written file. For other locations, the {@code FileHandler} is used directly.
+ * </p>
+ * <p>
+ * If a save operation fails, the changes are still considered pending, and
+ * another attempt is made after the delay. Pending changes can be written
+ * immediately by calling {@code flush()}. This should be done before an
+ * application terminates.
+ * </p>
+ * <p>
+ * Because the configuration is written by a background thread while other
+ * threads may still update it, it must be protected by a real
+ * {@code Synchronizer}. {@link FileBasedConfigurationBuilder} takes care of
+ * this when it uses this listener.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.2
+ */
+class AsyncAutoSaveListener extends AutoSaveListener
+{
+    /** Constant for the suffix of temporary files. */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /** The executor service for executing save operations. */
+    private final ScheduledExecutorService executorService;
+
+    /** The delay for save operations in milliseconds. */
+    private final long delay;
+
+    /** A flag whether the executor service was created by this object. */
+    private final boolean ownExecutor;
+
+    /** A lock for serializing save operations. */
+    private final Object saveLock;
+
+    /** The currently scheduled save task; <b>null</b> if there is none. */
+    private ScheduledFuture<?> pendingSave;
+
+    /** A flag whether there are changes which have not yet been saved. */
+    private boolean dirty;
+
+    /** A flag whether this listener has been shut down. */
+    private boolean shutdown;
+
+    /**
+     * Creates a new instance of {@code AsyncAutoSaveListener} and initializes
+     * it.
+     *
+     * @param bldr the associated builder
+     * @param saveDelay the delay for save operations in milliseconds
+     * @param exec the executor service for executing save operations; if
+     *        <b>null</b>, a default executor service is created
+     */
+    public AsyncAutoSaveListener(FileBasedConfigurationBuilder<?> bldr,
+            long saveDelay, ScheduledExecutorService exec)
+    {
+        super(bldr);
+        delay = saveDelay;
+        ownExecutor = exec == null;
+        executorService = ownExecutor ? createDefaultExecutorService() : exec;
+        saveLock = new Object();
+    }
+
+    /**
+     * Returns a flag whether there are changes which have not yet been saved.
+     *
+     * @return a flag whether a save operation is pending
+     */
+    public synchronized boolean isSavePending()
+    {
+        return dirty;
+    }
+
+    /**
+     * {@inheritDoc} This implementation writes pending changes immediately in
+     * the current thread. If a save operation is currently executed by the
+     * background thread, this method waits until it is complete. If the save
+     * operation fails, the changes remain pending, and another save task is
+     * scheduled.
+     */
+    @Override
+    public void flush() throws ConfigurationException
+    {
+        synchronized (saveLock)
+        {
+            FileHandler handler;
+            synchronized (this)
+            {
+                if (!dirty)
+                {
+                    return;
+                }
+                dirty = false;
+                cancelSaveTask();
+                handler = getFileHandler();
+            }
+
+            if (handler != null)
+            {
+                try
+                {
+                    save(handler);
+                }
+                catch (ConfigurationException | RuntimeException ex)
+                {
+                    saveNotCompleted();
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc} This implementation writes pending changes. If the
+     * executor service was created by this object, it is shut down. No
+     * further save tasks are scheduled.
+     */
+    @Override
+    public void shutdown()
+    {
+        synchronized (this)
+        {
+            shutdown = true;
+        }
+        try
+        {
+            flush();
+        }
+        catch (ConfigurationException ce)
+        {
+            saveFailed(ce);
+        }
+        finally
+        {
+            if (ownExecutor)
+            {
+                executorService.shutdown();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc} This implementation records that there are unsaved changes
+     * and schedules a save task if none is pending.
+     */
+    @Override
+    protected synchronized void saveRequired()
+    {
+        dirty = true;
+        scheduleSaveTask();
+    }
+
+    /**
+     * Saves the configuration associated with the given {@code FileHandler}.
+     * If it is stored in a local file, it is written to a temporary file first
+     * which is then moved to the target location.
+     *
+     * @param handler the {@code FileHandler}
+     * @throws ConfigurationException if an error occurs
+     */
+    void save(FileHandler handler) throws ConfigurationException
+    {
+        File target = fetchLocalFile(handler);
+        if (target == null)
+        {
+            handler.save();
+            return;
+        }
+
+        Path targetPath = target.toPath();
+        Path tempPath = null;
+        try
+        {
+            tempPath = createTempFile(targetPath);
+            handler.save(tempPath.toFile());
+            move(tempPath, targetPath);
+            tempPath = null;
+        }
+        catch (IOException ioex)
+        {
+            throw new ConfigurationException(ioex);
+        }
+        finally
+        {
+            deleteSilent(tempPath);
+        }
+    }
+
+    /**
+     * Schedules a save task if none is pending and this listener has not been
+     * shut down. Note: This method is called from a synchronized block.
+     */
+    private void scheduleSaveTask()
+    {
+        if (pendingSave == null && !shutdown)
+        {
+            pendingSave =
+                    executorService.schedule(createSaveTask(), delay,
+                            TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Cancels the currently scheduled save task if there is one. Note: This
+     * method is called from a synchronized block.
+     */
+    private void cancelSaveTask()
+    {
+        if (pendingSave != null)
+        {
+            pendingSave.cancel(false);
+            pendingSave = null;
+        }
+    }
+
+    /**
+     * Handles a failed save operation. The changes are marked as pending
+     * again, and a new save task is scheduled; so they are not lost.
+     */
+    private synchronized void saveNotCompleted()
+    {
+        dirty = true;
+        scheduleSaveTask();
+    }
+
+    /**
+     * Creates the task which saves pending changes.
+     *
+     * @return the save task
+     */
+    private Runnable createSaveTask()
+    {
+        return new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    flush();
+                }
+                catch (ConfigurationException ce)
+                {
+                    saveFailed(ce);
+                }
+                catch (RuntimeException rex)
+                {
+                    saveFailed(new ConfigurationException(rex));
+                }
+            }
+        };
+    }
+
+    /**
+     * Determines the local file the configuration is stored in. Result is
+     * <b>null</b> if the target is not a file on the local file system or if
+     * it does not exist yet.
+     *
+     * @param handler the {@code FileHandler}
+     * @return the local file or <b>null</b>
+     */
+    private static File fetchLocalFile(FileHandler handler)
+    {
+        if (!(handler.getFileSystem() instanceof DefaultFileSystem))
+        {
+            return null;
+        }
+        URL url = handler.getURL();
+        if (url == null)
+        {
+            return null;
+        }
+        File file = FileLocatorUtils.fileFromURL(url);
+        return (file != null && file.isFile()) ? file.getAbsoluteFile() : null;
+    }
+
+    /**
+     * Creates a temporary file in the directory of the given target file. If
+     * possible, the permissions of the target file are copied.
+     *
+     * @param target the target file
+     * @return the temporary file
+     * @throws IOException if an error occurs
+     */
+    private static Path createTempFile(Path target) throws IOException
+    {
+        Path temp =
+                Files.createTempFile(target.getParent(), "."
+                        + target.getFileName() + ".", TEMP_SUFFIX);
+        try
+        {
+            Files.setPosixFilePermissions(temp,
+                    Files.getPosixFilePermissions(target));
+        }
+        catch (UnsupportedOperationException | IOException ex)
+        {
+            // ignore; the file system does not support POSIX permissions
+        }
+        return temp;
+    }
+
+    /**
+     * Moves the temporary file to the target location. An atomic move is
+     * tried first; if this is not supported, the target file is replaced.
+     *
+     * @param temp the temporary file
+     * @param target the target file
+     * @throws IOException if an error occurs
+     */
+    private static void move(Path temp, Path target) throws IOException
+    {
+        try
+        {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (AtomicMoveNotSupportedException amex)
+        {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Deletes the given temporary file ignoring all exceptions.
+     *
+     * @param temp the file to be deleted (may be <b>null</b>)
+     */
+    private static void deleteSilent(Path temp)
+    {
+        if (temp != null)
+        {
+            try
+            {
+                Files.deleteIfExists(temp);
+            }
+            catch (IOException ioex)
+            {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Creates the default executor service used if no specific executor has
+     * been provided.
+     *
+     * @return the default executor service
+     */
+    private static ScheduledExecutorService createDefaultExecutorService()
+    {
+        ThreadFactory factory =
+                new BasicThreadFactory.Builder()
+                        .namingPattern("AutoSave-%s").daemon(true).build();
+        return Executors.newScheduledThreadPool(1, factory);
+    }
+}
@@ -85,14 +85,7 @@ class AutoSaveListener extends FileHandlerListenerAdapter implements
     {
         if (autoSaveRequired(event))
         {
-            try
-            {
-                builder.save();
-            }
-            catch (ConfigurationException ce)
-            {
-                log.warn("Auto save failed!", ce);
-            }
+            saveRequired();
         }
     }
 
@@ -138,6 +131,66 @@ class AutoSaveListener extends FileHandlerListenerAdapter implements
         handler = fh;
     }
 
+    /**
+     * Writes pending changes of the monitored configuration. This base
+     * implementation saves changes directly when they happen; so there is
+     * nothing to do here. Derived classes which delay save operations have to
+     * override this method.
+     *
+     * @throws ConfigurationException if an error occurs
+     */
+    public void flush() throws ConfigurationException
+    {
+    }
+
+    /**
+     * Releases the resources used by this listener. This method is called by
+     * the builder when auto save mode is disabled. This base implementation
+     * does nothing.
+     */
+    public void shutdown()
+    {
+    }
+
+    /**
+     * Performs the actions necessary after an update of the monitored
+     * configuration. This method is called by {@code onEvent()} if an auto
+     * save is required. This base implementation directly saves the
+     * configuration using the associated builder.
+     */
+    protected void saveRequired()
+    {
+        try
+        {
+            builder.save();
+        }
+        catch (ConfigurationException ce)
+        {
+            saveFailed(ce);
+        }
+    }
+
+    /**
+     * Handles an exception thrown by an auto save operation. The exception is
+     * just logged.
+     *
+     * @param ce the exception
+     */
+    protected void saveFailed(ConfigurationException ce)
+    {
+        log.warn("Auto save failed!", ce);
+    }
+
+    /**
+     * Returns the {@code FileHandler} monitored by this listener.
+     *
+     * @return the current {@code FileHandler} (may be <b>null</b>)
+     */
+    protected synchronized FileHandler getFileHandler()
+    {
+        return handler;
+    }
+
     /**
      * Returns a flag whether a load operation is currently in progress.
      *
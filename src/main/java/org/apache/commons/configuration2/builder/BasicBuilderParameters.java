@@ -30,6 +30,7 @@ import org.apache.commons.configuration2.interpol.ConfigurationInterpolator;
 import org.apache.commons.configuration2.interpol.InterpolatorSpecification;
 import org.apache.commons.configuration2.interpol.Lookup;
 import org.apache.commons.configuration2.sync.Synchronizer;
+import org.apache.commons.configuration2.tree.StringPool;
 
 /**
  * <p>
@@ -52,7 +53,8 @@ import org.apache.commons.configuration2.sync.Synchronizer;
  * @since 2.0
  */
 public class BasicBuilderParameters implements Cloneable, BuilderParameters,
-        BasicBuilderProperties<BasicBuilderParameters>
+        BasicBuilderProperties<BasicBuilderParameters>,
+        StringPoolBuilderProperties<BasicBuilderParameters>
 {
     /** The key of the <em>throwExceptionOnMissing</em> property. */
     private static final String PROP_THROW_EXCEPTION_ON_MISSING =
@@ -82,6 +84,9 @@ public class BasicBuilderParameters implements Cloneable, BuilderParameters,
     /** The key for the <em>conversionHandler</em> property. */
     private static final String PROP_CONVERSION_HANDLER = "conversionHandler";
 
+    /** The key for the <em>stringPool</em> property. */
+    private static final String PROP_STRING_POOL = "stringPool";
+
     /** The key for the <em>configurationDecoder</em> property. */
     private static final String PROP_CONFIGURATION_DECODER = "configurationDecoder";
 
@@ -255,6 +260,16 @@ public class BasicBuilderParameters implements Cloneable, BuilderParameters,
         return setProperty(PROP_CONVERSION_HANDLER, handler);
     }
 
+    /**
+     * {@inheritDoc} This implementation stores the passed in
+     * {@code StringPool} object in the internal parameters map.
+     */
+    @Override
+    public BasicBuilderParameters setStringPool(StringPool pool)
+    {
+        return setProperty(PROP_STRING_POOL, pool);
+    }
+
     /**
      * {@inheritDoc} This implementation stores the passed in {@code BeanHelper}
      * object in the internal parameters map, but uses a reserved key, so that
@@ -335,7 +350,7 @@ public class BasicBuilderParameters implements Cloneable, BuilderParameters,
         }
         copyPropertiesFrom(source, PROP_BEAN_HELPER, PROP_CONFIGURATION_DECODER,
                 PROP_CONVERSION_HANDLER, PROP_LIST_DELIMITER_HANDLER,
-                PROP_LOGGER, PROP_SYNCHRONIZER,
+                PROP_LOGGER, PROP_STRING_POOL, PROP_SYNCHRONIZER,
                 PROP_THROW_EXCEPTION_ON_MISSING);
     }
 
@@ -20,6 +20,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.apache.commons.configuration2.ConfigurationUtils;
@@ -37,6 +38,7 @@ import org.apache.commons.configuration2.event.EventType;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.configuration2.ex.ConfigurationRuntimeException;
 import org.apache.commons.configuration2.reloading.ReloadingController;
+import org.apache.commons.configuration2.reloading.ReloadingEvent;
 
 /**
  * <p>
@@ -127,6 +129,9 @@ public class BasicConfigurationBuilder<T extends ImmutableConfiguration> impleme
     /** The result object of this builder. */
     private volatile T result;
 
+    /** Stores the durations of the phases of the current result creation. */
+    private Map<String, Long> phaseDurations;
+
     /**
      * Creates a new instance of {@code BasicConfigurationBuilder} and
      * initializes it with the given result class. No initialization properties
@@ -265,7 +270,9 @@ public class BasicConfigurationBuilder<T extends ImmutableConfiguration> impleme
      * {@inheritDoc} This implementation creates the result configuration on
      * first access. Later invocations return the same object until this builder
      * is reset. The double-check idiom for lazy initialization is used (Bloch,
-     * Effective Java, item 71).
+     * Effective Java, item 71). When a new result has been created, a
+     * {@link ConfigurationBuilderResultCreatedEvent} and a
+     * {@link ConfigurationBuilderTimingEvent} are fired.
      */
     @Override
     public T getConfiguration() throws ConfigurationException
@@ -275,6 +282,8 @@ public class BasicConfigurationBuilder<T extends ImmutableConfiguration> impleme
 
         T resObj = result;
         boolean created = false;
+        Map<String, Long> phases = null;
+        long duration = 0;
         if (resObj == null)
         {
             synchronized (this)
@@ -282,7 +291,17 @@ public class BasicConfigurationBuilder<T extends ImmutableConfiguration> impleme
                 resObj = result;
                 if (resObj == null)
                 {
-                    result = resObj = createResult();
+                    long startTime = System.nanoTime();
+                    startPhaseRecording();
+                    try
+                    {
+                        result = resObj = createResult();
+                    }
+                    finally
+                    {
+                        phases = stopPhaseRecording();
+                    }
+                    duration = System.nanoTime() - startTime;
                     created = true;
                 }
             }
@@ -293,6 +312,11 @@ public class BasicConfigurationBuilder<T extends ImmutableConfiguration> impleme
             fireBuilderEvent(new ConfigurationBuilderResultCreatedEvent(this,
                     ConfigurationBuilderResultCreatedEvent.RESULT_CREATED,
                     resObj));
+            if (!phases.isEmpty())
+            {
+                fireBuilderEvent(new ConfigurationBuilderTimingEvent(this,
+                        phases, duration));
+            }
         }
         return resObj;
     }
@@ -394,6 +418,22 @@ public class BasicConfigurationBuilder<T extends ImmutableConfiguration> impleme
         ReloadingBuilderSupportListener.connect(this, controller);
     }
 
+    /**
+     * Notifies this builder that a {@code ReloadingController} it is connected
+     * to has detected the need for a reload. This method is called by the
+     * listener installed by {@link #connectToReloadingController(ReloadingController)}.
+     * This base implementation calls {@link #resetResult()}, so that a new
+     * result object is created on next access. Derived classes can override
+     * it to handle reloads in a different way.
+     *
+     * @param event the {@code ReloadingEvent}
+     * @since 2.2
+     */
+    protected void reloadingRequired(ReloadingEvent event)
+    {
+        resetResult();
+    }
+
     /**
      * Creates a new, initialized result object. This method is called by
      * {@code getConfiguration()} if no valid result object exists. This base
@@ -414,8 +454,12 @@ public class BasicConfigurationBuilder<T extends ImmutableConfiguration> impleme
      */
     protected T createResult() throws ConfigurationException
     {
+        long startTime = System.nanoTime();
         T resObj = createResultInstance();
+        recordPhaseDuration(ConfigurationBuilderTimingEvent.PHASE_CREATE,
+                System.nanoTime() - startTime);
 
+        startTime = System.nanoTime();
         try
         {
             initResultInstance(resObj);
@@ -427,6 +471,11 @@ public class BasicConfigurationBuilder<T extends ImmutableConfiguration> impleme
                 throw cex;
             }
         }
+        finally
+        {
+            recordPhaseDuration(ConfigurationBuilderTimingEvent.PHASE_INIT,
+                    System.nanoTime() - startTime);
+        }
 
         return resObj;
     }
@@ -626,6 +675,50 @@ public class BasicConfigurationBuilder<T extends ImmutableConfiguration> impleme
         eventListeners.addEventListener(eventType, listener);
     }
 
+    /**
+     * Records the duration of a phase of the creation of a result object. The
+     * durations recorded while a result object is created are passed to the
+     * {@link ConfigurationBuilderTimingEvent} fired afterwards. If the same
+     * phase is recorded multiple times, the durations are added. Calls of
+     * this method outside of the creation of a result object are ignored.
+     *
+     * @param phase the name of the phase
+     * @param nanos the duration of the phase in nanoseconds
+     * @since 2.2
+     */
+    protected synchronized void recordPhaseDuration(String phase, long nanos)
+    {
+        if (phaseDurations != null)
+        {
+            Long current = phaseDurations.get(phase);
+            phaseDurations.put(phase, (current != null) ? current.longValue()
+                    + nanos : nanos);
+        }
+    }
+
+    /**
+     * Starts recording the durations of the phases of a result creation.
+     * Note: This method must be called in a synchronized block.
+     */
+    void startPhaseRecording()
+    {
+        phaseDurations = new LinkedHashMap<>();
+    }
+
+    /**
+     * Stops recording the durations of the phases of a result creation and
+     * returns the recorded durations. Note: This method must be called in a
+     * synchronized block.
+     *
+     * @return a map with the recorded phase durations
+     */
+    Map<String, Long> stopPhaseRecording()
+    {
+        Map<String, Long> phases = phaseDurations;
+        phaseDurations = null;
+        return phases;
+    }
+
     /**
      * Sends the specified builder event to all registered listeners.
      *
@@ -636,6 +729,20 @@ public class BasicConfigurationBuilder<T extends ImmutableConfiguration> impleme
         eventListeners.fire(event);
     }
 
+    /**
+     * Sends the specified event to all listeners registered at this builder
+     * for a matching event type. In contrast to
+     * {@link #fireBuilderEvent(ConfigurationBuilderEvent)}, arbitrary events
+     * can be passed, e.g. configuration events on behalf of the result object.
+     *
+     * @param event the event to be fired
+     * @since 2.2
+     */
+    protected void fireEvent(Event event)
+    {
+        eventListeners.fire(event);
+    }
+
     /**
      * Replaces the current map with parameters by a new one.
      *
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.builder;
+
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.configuration2.io.FileHandler;
+import org.apache.commons.configuration2.reloading.ChecksumReloadingDetector;
+import org.apache.commons.configuration2.reloading.ReloadingDetector;
+
+/**
+ * <p>
+ * A specialized implementation of the {@code ReloadingDetectorFactory}
+ * interface which creates detectors comparing checksums of file contents.
+ * </p>
+ * <p>
+ * This factory creates objects of type {@link ChecksumReloadingDetector}. So
+ * a reload is only triggered if the content of a monitored file has actually
+ * changed, not if only its modification date was updated. The checksum
+ * algorithm can be passed to the constructor. Instances have no state and can
+ * be shared between multiple builders.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.2
+ */
+public class ChecksumReloadingDetectorFactory implements
+        ReloadingDetectorFactory
+{
+    /** The checksum algorithm. */
+    private final String algorithm;
+
+    /**
+     * Creates a new instance of {@code ChecksumReloadingDetectorFactory} which
+     * uses the specified checksum algorithm.
+     *
+     * @param algorithm the name of the checksum algorithm (<b>null</b> for the
+     *        default algorithm)
+     */
+    public ChecksumReloadingDetectorFactory(String algorithm)
+    {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Creates a new instance of {@code ChecksumReloadingDetectorFactory} which
+     * uses the default checksum algorithm.
+     */
+    public ChecksumReloadingDetectorFactory()
+    {
+        this(null);
+    }
+
+    @Override
+    public ReloadingDetector createReloadingDetector(FileHandler handler,
+            FileBasedBuilderParametersImpl params)
+            throws ConfigurationException
+    {
+        Long refreshDelay = params.getReloadingRefreshDelay();
+        return (refreshDelay != null) ? new ChecksumReloadingDetector(handler,
+                refreshDelay, algorithm) : new ChecksumReloadingDetector(
+                handler, algorithm);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.builder;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.configuration2.event.EventType;
+
+/**
+ * <p>
+ * A specialized event class which is generated by a
+ * {@link ConfigurationBuilder} after a result configuration has been created
+ * and which contains timing information about this operation.
+ * </p>
+ * <p>
+ * Events of this type are fired by {@link BasicConfigurationBuilder} directly
+ * after the {@link ConfigurationBuilderResultCreatedEvent}. They contain the
+ * total time needed to create the result configuration and the durations of
+ * single phases of the creation process. Which phases are available depends
+ * on the concrete builder; the constants defined by this class name the phases
+ * recorded by the builder implementations of this library. Note that phases
+ * can be nested; for instance, the {@link #PHASE_INIT} phase of a file-based
+ * builder includes the {@link #PHASE_LOCATE} and {@link #PHASE_LOAD} phases.
+ * All durations are in nanoseconds.
+ * </p>
+ * <p>
+ * Timing events can be used to monitor the performance of configuration
+ * sources, e.g. to find out which source of a combined configuration causes a
+ * reload operation to be slow.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.2
+ */
+public class ConfigurationBuilderTimingEvent extends ConfigurationBuilderEvent
+{
+    /**
+     * The specialized event type for timing information about the creation of
+     * a result configuration.
+     */
+    public static final EventType<ConfigurationBuilderTimingEvent> RESULT_TIMING =
+            new EventType<>(ANY, "RESULT_TIMING");
+
+    /** The phase in which the result object is created. */
+    public static final String PHASE_CREATE = "create";
+
+    /** The phase in which the result object is initialized. */
+    public static final String PHASE_INIT = "init";
+
+    /** The phase in which the file of a file-based builder is located. */
+    public static final String PHASE_LOCATE = "locate";
+
+    /** The phase in which the file of a file-based builder is read and parsed. */
+    public static final String PHASE_LOAD = "load";
+
+    /**
+     * The phase in which a combined builder merges the configurations of its
+     * sources.
+     */
+    public static final String PHASE_COMBINE = "combine";
+
+    /**
+     * The prefix of the phases in which a combined builder obtains the
+     * configurations of its sources. The prefix is followed by the name of the
+     * source or - if it has no name - by its index.
+     */
+    public static final String PHASE_SOURCE_PREFIX = "source:";
+
+    /**
+     * The serial version UID.
+     */
+    private static final long serialVersionUID = 20261019L;
+
+    /** The map with the durations of the single phases. */
+    private final Map<String, Long> phaseDurations;
+
+    /** The total duration. */
+    private final long totalDuration;
+
+    /**
+     * Creates a new instance of {@code ConfigurationBuilderTimingEvent} and
+     * initializes its properties.
+     *
+     * @param source the {@code ConfigurationBuilder} object which triggered
+     *        this event (must not be <b>null</b>)
+     * @param phases a map with the durations of the single phases in
+     *        nanoseconds (may be <b>null</b>)
+     * @param total the total duration in nanoseconds
+     * @throws IllegalArgumentException if a required parameter is null
+     */
+    public ConfigurationBuilderTimingEvent(ConfigurationBuilder<?> source,
+            Map<String, Long> phases, long total)
+    {
+        super(source, RESULT_TIMING);
+        phaseDurations =
+                (phases != null) ? Collections
+                        .unmodifiableMap(new LinkedHashMap<>(phases))
+                        : Collections.<String, Long> emptyMap();
+        totalDuration = total;
+    }
+
+    /**
+     * Returns the total time needed to create the result configuration in
+     * nanoseconds.
+     *
+     * @return the total duration
+     */
+    public long getTotalDuration()
+    {
+        return totalDuration;
+    }
+
+    /**
+     * Returns an unmodifiable map with the durations of all recorded phases in
+     * nanoseconds. The map is ordered by the end of the phases.
+     *
+     * @return a map with the durations of all phases
+     */
+    public Map<String, Long> getPhaseDurations()
+    {
+        return phaseDurations;
+    }
+
+    /**
+     * Returns the duration of the given phase in nanoseconds. If this phase
+     * has not been recorded, result is -1.
+     *
+     * @param phase the name of the phase
+     * @return the duration of this phase or -1
+     */
+    public long getPhaseDuration(String phase)
+    {
+        Long duration = phaseDurations.get(phase);
+        return (duration != null) ? duration.longValue() : -1;
+    }
+}
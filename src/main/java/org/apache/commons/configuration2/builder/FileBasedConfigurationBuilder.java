@@ -19,6 +19,7 @@ package org.apache.commons.configuration2.builder;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.apache.commons.configuration2.FileBasedConfiguration;
 import org.apache.commons.configuration2.PropertiesConfiguration;
@@ -26,6 +27,9 @@ import org.apache.commons.configuration2.XMLPropertiesConfiguration;
 import org.apache.commons.configuration2.event.ConfigurationEvent;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.configuration2.io.FileHandler;
+import org.apache.commons.configuration2.sync.NoOpSynchronizer;
+import org.apache.commons.configuration2.sync.ReadWriteSynchronizer;
+import org.apache.commons.configuration2.sync.SynchronizerSupport;
 import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.StringUtils;
 
@@ -51,6 +55,15 @@ import org.apache.commons.lang3.StringUtils;
  * initialization parameters are reset by calling {@code resetParameters()} the
  * location is reset, too.
  * </p>
+ * <p>
+ * In auto save mode the managed configuration is saved automatically whenever
+ * it is changed. Per default, this happens synchronously for each change. If an
+ * auto save delay is set, saving is done asynchronously by a background thread
+ * instead: changes are collected and written at most once per delay, using a
+ * temporary file which replaces the target file atomically. In this mode,
+ * {@link #flushAutoSave()} should be called before the application terminates
+ * to make sure that all changes have been written.
+ * </p>
  *
  * @version $Id$
  * @since 2.0
@@ -70,6 +83,12 @@ public class FileBasedConfigurationBuilder<T extends FileBasedConfiguration>
     /** A specialized listener for the auto save mechanism. */
     private AutoSaveListener autoSaveListener;
 
+    /** The executor service for asynchronous auto save operations. */
+    private ScheduledExecutorService autoSaveExecutor;
+
+    /** The delay for asynchronous auto save operations. */
+    private long autoSaveDelay;
+
     /** A flag whether the builder's parameters were reset. */
     private boolean resetParameters;
 
@@ -253,7 +272,9 @@ public class FileBasedConfigurationBuilder<T extends FileBasedConfiguration>
     /**
      * Enables or disables auto save mode. If auto save mode is enabled, every
      * update of the managed configuration causes it to be saved automatically;
-     * so changes are directly written to disk.
+     * so changes are directly written to disk. If an auto save delay has been
+     * set, changes are written asynchronously (see
+     * {@link #setAutoSaveDelay(long)}).
      *
      * @param enabled <b>true</b> if auto save mode is to be enabled,
      *        <b>false</b> otherwise
@@ -270,6 +291,112 @@ public class FileBasedConfigurationBuilder<T extends FileBasedConfiguration>
         }
     }
 
+    /**
+     * Returns the delay for asynchronous auto save operations in milliseconds.
+     * A value of 0 means that auto save is performed synchronously.
+     *
+     * @return the auto save delay
+     * @since 2.2
+     */
+    public synchronized long getAutoSaveDelay()
+    {
+        return autoSaveDelay;
+    }
+
+    /**
+     * <p>
+     * Sets the delay for asynchronous auto save operations in milliseconds. If
+     * a value greater than 0 is set, auto save mode no longer writes the
+     * configuration on every change. Rather, the first change after a save
+     * operation schedules a background task which saves the configuration
+     * after the delay has passed; all changes done in the meantime are written
+     * by this task. A value of 0 (which is the default) switches back to
+     * synchronous auto save. If auto save mode is currently active, the new
+     * setting becomes effective immediately; pending changes are written.
+     * </p>
+     * <p>
+     * In asynchronous mode the managed configuration is written by a
+     * background thread while other threads may still modify it. Therefore,
+     * it has to be protected by a {@code Synchronizer}: if the configuration
+     * uses a {@link NoOpSynchronizer} (which is the default), the builder
+     * replaces it by a {@link ReadWriteSynchronizer} when asynchronous auto
+     * save is enabled or a new configuration is created. If a different
+     * {@code Synchronizer} has been set, it is kept; it must then support
+     * concurrent access. Because the configuration may be changed when
+     * asynchronous auto save is enabled, this mode should be configured before
+     * the managed configuration is used by multiple threads.
+     * </p>
+     *
+     * @param delay the auto save delay in milliseconds
+     * @throws IllegalArgumentException if the delay is negative
+     * @since 2.2
+     */
+    public synchronized void setAutoSaveDelay(long delay)
+    {
+        if (delay < 0)
+        {
+            throw new IllegalArgumentException(
+                    "Auto save delay must not be negative: " + delay);
+        }
+        autoSaveDelay = delay;
+        reinstallAutoSaveListener();
+    }
+
+    /**
+     * Returns the executor service used for asynchronous auto save operations.
+     * Result is <b>null</b> if no executor service has been set.
+     *
+     * @return the auto save executor service
+     * @since 2.2
+     */
+    public synchronized ScheduledExecutorService getAutoSaveExecutor()
+    {
+        return autoSaveExecutor;
+    }
+
+    /**
+     * Sets the executor service to be used for asynchronous auto save
+     * operations. This is only relevant if an auto save delay has been set. If
+     * no executor service is set, a default one with a single daemon thread is
+     * created when auto save mode is enabled; it is shut down again when auto
+     * save mode is disabled. An executor service passed to this method is
+     * never shut down by this builder.
+     *
+     * @param executor the auto save executor service (can be <b>null</b>)
+     * @since 2.2
+     */
+    public synchronized void setAutoSaveExecutor(
+            ScheduledExecutorService executor)
+    {
+        autoSaveExecutor = executor;
+        reinstallAutoSaveListener();
+    }
+
+    /**
+     * Writes all changes of the managed configuration which have not yet been
+     * saved by an asynchronous auto save operation. This method should be
+     * called before the application terminates if auto save is performed
+     * asynchronously. It saves the configuration in the current thread; if a
+     * save operation is currently in progress, it waits until it is complete.
+     * If there are no pending changes or auto save mode is synchronous or
+     * disabled, this method has no effect.
+     *
+     * @throws ConfigurationException if an error occurs
+     * @since 2.2
+     */
+    public void flushAutoSave() throws ConfigurationException
+    {
+        AutoSaveListener listener;
+        synchronized (this)
+        {
+            listener = autoSaveListener;
+        }
+        if (listener != null)
+        {
+            listener.flush();
+        }
+    }
+
     /**
      * {@inheritDoc} This implementation deals with the creation and
      * initialization of a {@code FileHandler} associated with the new result
@@ -287,6 +414,7 @@ public class FileBasedConfigurationBuilder<T extends FileBasedConfiguration>
         if (autoSaveListener != null)
         {
             autoSaveListener.updateFileHandler(currentFileHandler);
+            checkAsyncAutoSaveSynchronizer(obj);
         }
         initFileHandler(currentFileHandler);
         resetParameters = false;
@@ -308,8 +436,43 @@ public class FileBasedConfigurationBuilder<T extends FileBasedConfiguration>
         initEncoding(handler);
         if (handler.isLocationDefined())
         {
+            long startTime = System.nanoTime();
             handler.locate();
+            recordPhaseDuration(ConfigurationBuilderTimingEvent.PHASE_LOCATE,
+                    System.nanoTime() - startTime);
+            startTime = System.nanoTime();
             handler.load();
+            recordPhaseDuration(ConfigurationBuilderTimingEvent.PHASE_LOAD,
+                    System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Returns the {@code FileHandler} associated with the current result
+     * object. Result is <b>null</b> if no result object has been created yet.
+     * Note: This method is called from a synchronized block.
+     *
+     * @return the current {@code FileHandler} (can be <b>null</b>)
+     */
+    FileHandler getCurrentFileHandler()
+    {
+        return currentFileHandler;
+    }
+
+    /**
+     * Sets the {@code FileHandler} associated with the current result object.
+     * This method is used to undo the effects of a failed attempt to create a
+     * new result object while the previous one is still in use. Note: This
+     * method is called from a synchronized block.
+     *
+     * @param handler the {@code FileHandler} to be restored
+     */
+    void restoreCurrentFileHandler(FileHandler handler)
+    {
+        currentFileHandler = handler;
+        if (autoSaveListener != null)
+        {
+            autoSaveListener.updateFileHandler(handler);
         }
     }
 
@@ -343,26 +506,74 @@ public class FileBasedConfigurationBuilder<T extends FileBasedConfiguration>
     {
         if (autoSaveListener == null)
         {
-            autoSaveListener = new AutoSaveListener(this);
+            autoSaveListener = createAutoSaveListener();
             addEventListener(ConfigurationEvent.ANY, autoSaveListener);
-            autoSaveListener.updateFileHandler(getFileHandler());
+            FileHandler handler = getFileHandler();
+            autoSaveListener.updateFileHandler(handler);
+            checkAsyncAutoSaveSynchronizer(handler.getContent());
         }
     }
 
     /**
      * Removes the listener for the auto save mechanism if it is currently
-     * active.
+     * active. Pending changes are written before.
      */
     private void removeAutoSaveListener()
     {
         if (autoSaveListener != null)
         {
             removeEventListener(ConfigurationEvent.ANY, autoSaveListener);
+            autoSaveListener.shutdown();
             autoSaveListener.updateFileHandler(null);
             autoSaveListener = null;
         }
     }
 
+    /**
+     * Replaces the listener for the auto save mechanism if it is currently
+     * active. This method is called when the auto save settings are changed.
+     */
+    private void reinstallAutoSaveListener()
+    {
+        if (autoSaveListener != null)
+        {
+            removeAutoSaveListener();
+            installAutoSaveListener();
+        }
+    }
+
+    /**
+     * Makes sure that the given configuration can be saved asynchronously.
+     * If asynchronous auto save is active and the configuration does not use a
+     * real {@code Synchronizer}, a {@code ReadWriteSynchronizer} is set.
+     *
+     * @param config the configuration (may be <b>null</b>)
+     */
+    private void checkAsyncAutoSaveSynchronizer(Object config)
+    {
+        if (autoSaveListener instanceof AsyncAutoSaveListener
+                && config instanceof SynchronizerSupport)
+        {
+            SynchronizerSupport syncSupport = (SynchronizerSupport) config;
+            if (syncSupport.getSynchronizer() instanceof NoOpSynchronizer)
+            {
+                syncSupport.setSynchronizer(new ReadWriteSynchronizer());
+            }
+        }
+    }
+
+    /**
+     * Creates the listener for the auto save mechanism based on the current
+     * settings.
+     *
+     * @return the auto save listener
+     */
+    private AutoSaveListener createAutoSaveListener()
+    {
+        return (autoSaveDelay > 0) ? new AsyncAutoSaveListener(this,
+                autoSaveDelay, autoSaveExecutor) : new AutoSaveListener(this);
+    }
+
     /**
      * Initializes the encoding of the specified file handler. If already an
      * encoding is set, it is used. Otherwise, the default encoding for the
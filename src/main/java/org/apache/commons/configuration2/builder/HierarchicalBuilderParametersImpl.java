@@ -35,11 +35,15 @@ import org.apache.commons.configuration2.tree.ExpressionEngine;
  */
 public class HierarchicalBuilderParametersImpl extends
         FileBasedBuilderParametersImpl implements
-        HierarchicalBuilderProperties<HierarchicalBuilderParametersImpl>
+        HierarchicalBuilderProperties<HierarchicalBuilderParametersImpl>,
+        AbsentKeyCacheBuilderProperties<HierarchicalBuilderParametersImpl>
 {
     /** Constant for the expression engine property. */
     private static final String PROP_EXPRESSION_ENGINE = "expressionEngine";
 
+    /** Constant for the absent key cache property. */
+    private static final String PROP_ABSENT_KEY_CACHE = "absentKeyCacheEnabled";
+
     /**
      * {@inheritDoc} This implementation copies some more properties defined by
      * this class.
@@ -48,7 +52,7 @@ public class HierarchicalBuilderParametersImpl extends
     public void inheritFrom(Map<String, ?> source)
     {
         super.inheritFrom(source);
-        copyPropertiesFrom(source, PROP_EXPRESSION_ENGINE);
+        copyPropertiesFrom(source, PROP_EXPRESSION_ENGINE, PROP_ABSENT_KEY_CACHE);
     }
 
     /**
@@ -62,4 +66,16 @@ public class HierarchicalBuilderParametersImpl extends
         storeProperty(PROP_EXPRESSION_ENGINE, engine);
         return this;
     }
+
+    /**
+     * {@inheritDoc} This implementation stores the flag in the internal
+     * parameters map.
+     */
+    @Override
+    public HierarchicalBuilderParametersImpl setAbsentKeyCacheEnabled(
+            boolean enabled)
+    {
+        storeProperty(PROP_ABSENT_KEY_CACHE, Boolean.valueOf(enabled));
+        return this;
+    }
 }
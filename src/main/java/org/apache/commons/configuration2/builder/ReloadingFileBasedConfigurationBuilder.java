@@ -16,14 +16,29 @@
  */
 package org.apache.commons.configuration2.builder;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.apache.commons.configuration2.BaseHierarchicalConfiguration;
 import org.apache.commons.configuration2.FileBasedConfiguration;
+import org.apache.commons.configuration2.event.ConfigurationErrorEvent;
+import org.apache.commons.configuration2.event.ConfigurationEvent;
+import org.apache.commons.configuration2.event.EventType;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.configuration2.io.FileHandler;
 import org.apache.commons.configuration2.reloading.ReloadingController;
 import org.apache.commons.configuration2.reloading.ReloadingControllerSupport;
 import org.apache.commons.configuration2.reloading.ReloadingDetector;
+import org.apache.commons.configuration2.reloading.ReloadingEvent;
+import org.apache.commons.configuration2.tree.TreeDiff;
+import org.apache.commons.lang3.ObjectUtils;
 
 /**
  * <p>
@@ -49,6 +64,36 @@ import org.apache.commons.configuration2.reloading.ReloadingDetector;
  * listener directly at the {@code ReloadingController}.
  * </p>
  * <p>
+ * Optionally, the builder can report the changes caused by a reload in a
+ * fine-grained way. If the {@code fireChangeEventsOnReload} property is set,
+ * a newly created result object is compared with the previous one. For each
+ * key which has been added, removed, or changed, a {@link ConfigurationEvent}
+ * of type {@code ADD_PROPERTY}, {@code CLEAR_PROPERTY}, or
+ * {@code SET_PROPERTY} is sent to the event listeners registered at this
+ * builder. The source of these events is the new result object; they are
+ * fired after the new result has been created and report the state after the
+ * update. So listeners can update derived state for the affected keys only
+ * rather than rebuilding it completely. For hierarchical configurations, the
+ * comparison is based on {@link TreeDiff}; thus, its effort is mainly
+ * determined by the number of changes.
+ * </p>
+ * <p>
+ * Per default, a reload happens synchronously: the result object is reset,
+ * and the next caller of {@code getConfiguration()} creates and loads the new
+ * one. If an {@code Executor} has been set using
+ * {@link #setBackgroundReloadExecutor(Executor)}, reloads are performed in the
+ * background instead: the new result object is created and loaded by a task
+ * passed to the executor while the previous result object remains available.
+ * Only if the new object could be loaded successfully, it replaces the
+ * previous one, so that it is returned by the next call of
+ * {@code getConfiguration()}. (Note that the <em>allowFailOnInit</em> flag is
+ * not evaluated for background reloads; a failed reload never replaces a
+ * valid result object.) If loading fails, the previous result object is kept,
+ * a {@link ConfigurationErrorEvent} of type {@code READ} is fired at this
+ * builder, and the reloading controller is reset, so that the next change can
+ * be detected. This way, callers never have to wait for a reload.
+ * </p>
+ * <p>
  * This builder does not actively trigger the {@code ReloadingController} to
  * perform a reload check. This has to be done by an external component, e.g. a
  * timer.
@@ -78,6 +123,36 @@ public class ReloadingFileBasedConfigurationBuilder<T extends FileBasedConfigura
      */
     private volatile ReloadingDetector resultReloadingDetector;
 
+    /**
+     * Stores the change events which have to be fired for new results. If
+     * multiple results are created before the events are fired, the events of
+     * all of them are queued.
+     */
+    private final Queue<ConfigurationEvent> pendingChangeEvents =
+            new ConcurrentLinkedQueue<>();
+
+    /**
+     * The result object created before; it is needed for determining the
+     * changes caused by a reload. This field is only accessed in synchronized
+     * blocks.
+     */
+    private T previousResult;
+
+    /** A flag whether change events are fired after a reload. */
+    private volatile boolean fireChangeEventsOnReload;
+
+    /** The executor for background reloads; <b>null</b> if disabled. */
+    private volatile Executor backgroundReloadExecutor;
+
+    /** A flag whether a background reload is currently in progress. */
+    private final AtomicBoolean backgroundReloadPending = new AtomicBoolean();
+
+    /**
+     * A result object created by a background reload which has not yet been
+     * requested. This field is only accessed in synchronized blocks.
+     */
+    private T preparedResult;
+
     /**
      * Creates a new instance of {@code ReloadingFileBasedConfigurationBuilder}
      * which produces result objects of the specified class and sets
@@ -138,6 +213,95 @@ public class ReloadingFileBasedConfigurationBuilder<T extends FileBasedConfigura
         return reloadingController;
     }
 
+    /**
+     * Returns a flag whether the changes caused by a reload are reported by
+     * configuration events.
+     *
+     * @return the <em>fireChangeEventsOnReload</em> flag
+     * @since 2.2
+     */
+    public boolean isFireChangeEventsOnReload()
+    {
+        return fireChangeEventsOnReload;
+    }
+
+    /**
+     * Sets a flag whether the changes caused by a reload are reported by
+     * configuration events. If this flag is set, each new result object is
+     * compared with the one created before, and events for the keys affected
+     * by changes are fired. This requires that the previous result object is
+     * kept until the new one has been created. Per default, this flag is
+     * <b>false</b>.
+     *
+     * @param f the <em>fireChangeEventsOnReload</em> flag
+     * @since 2.2
+     */
+    public synchronized void setFireChangeEventsOnReload(boolean f)
+    {
+        fireChangeEventsOnReload = f;
+        if (!f)
+        {
+            previousResult = null;
+        }
+    }
+
+    /**
+     * Returns the {@code Executor} used for background reloads. Result is
+     * <b>null</b> if reloads are performed synchronously.
+     *
+     * @return the {@code Executor} for background reloads
+     * @since 2.2
+     */
+    public Executor getBackgroundReloadExecutor()
+    {
+        return backgroundReloadExecutor;
+    }
+
+    /**
+     * Sets the {@code Executor} used for background reloads. If an executor is
+     * set, a change detected by the reloading controller does not reset the
+     * current result object; rather, a new one is created by a task executed
+     * by this executor and replaces the current one when it is ready. Passing
+     * <b>null</b> switches back to synchronous reloads, which is the default.
+     *
+     * @param exec the {@code Executor} for background reloads
+     * @since 2.2
+     */
+    public void setBackgroundReloadExecutor(Executor exec)
+    {
+        backgroundReloadExecutor = exec;
+    }
+
+    /**
+     * {@inheritDoc} This implementation also discards a result object which
+     * has been created by a background reload, but has not yet been requested.
+     */
+    @Override
+    public void resetResult()
+    {
+        synchronized (this)
+        {
+            preparedResult = null;
+        }
+        super.resetResult();
+    }
+
+    /**
+     * {@inheritDoc} If change events after a reload are enabled, this
+     * implementation fires the events for a newly created result object.
+     */
+    @Override
+    public T getConfiguration() throws ConfigurationException
+    {
+        T config = super.getConfiguration();
+        ConfigurationEvent event;
+        while ((event = pendingChangeEvents.poll()) != null)
+        {
+            fireEvent(event);
+        }
+        return config;
+    }
+
     /**
      * {@inheritDoc} This method is overridden here to change the result type.
      */
@@ -190,6 +354,227 @@ public class ReloadingFileBasedConfigurationBuilder<T extends FileBasedConfigura
                                 getParameters(), true));
     }
 
+    /**
+     * {@inheritDoc} If a background reload is active, this implementation
+     * starts a task which creates the new result object. Otherwise, the
+     * inherited method is called.
+     */
+    @Override
+    protected void reloadingRequired(ReloadingEvent event)
+    {
+        Executor exec = getBackgroundReloadExecutor();
+        if (exec == null)
+        {
+            super.reloadingRequired(event);
+            return;
+        }
+
+        if (backgroundReloadPending.compareAndSet(false, true))
+        {
+            try
+            {
+                exec.execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        reloadInBackground();
+                    }
+                });
+            }
+            catch (RejectedExecutionException rex)
+            {
+                backgroundReloadPending.set(false);
+                super.reloadingRequired(event);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc} If a result object has been created by a background
+     * reload, it is returned directly. If change events after a reload are
+     * enabled, this implementation compares the new result object with the
+     * previous one. The events for the changes are fired later, outside of the
+     * synchronized block, by {@code getConfiguration()}.
+     */
+    @Override
+    protected T createResult() throws ConfigurationException
+    {
+        T newResult = preparedResult;
+        if (newResult != null)
+        {
+            preparedResult = null;
+        }
+        else
+        {
+            newResult = super.createResult();
+        }
+        if (isFireChangeEventsOnReload())
+        {
+            if (previousResult != null)
+            {
+                pendingChangeEvents.addAll(createChangeEvents(previousResult,
+                        newResult));
+            }
+            previousResult = newResult;
+        }
+        return newResult;
+    }
+
+    /**
+     * Performs a reload in the background. A new result object is created and
+     * initialized. If this is successful, it replaces the current result
+     * object, and a timing event for the creation is fired. Otherwise, the
+     * state of this builder is restored, and an error event is fired. As in
+     * {@code resetResult()}, events are fired outside of the synchronized
+     * block.
+     */
+    private void reloadInBackground()
+    {
+        try
+        {
+            Map<String, Long> phases;
+            long duration;
+            synchronized (this)
+            {
+                FileHandler oldHandler = getCurrentFileHandler();
+                ReloadingDetector oldDetector = resultReloadingDetector;
+                long startTime = System.nanoTime();
+                startPhaseRecording();
+                try
+                {
+                    T newResult = createResultInstance();
+                    recordPhaseDuration(
+                            ConfigurationBuilderTimingEvent.PHASE_CREATE,
+                            System.nanoTime() - startTime);
+                    long initStartTime = System.nanoTime();
+                    initResultInstance(newResult);
+                    recordPhaseDuration(
+                            ConfigurationBuilderTimingEvent.PHASE_INIT,
+                            System.nanoTime() - initStartTime);
+                    preparedResult = newResult;
+                }
+                catch (ConfigurationException | RuntimeException ex)
+                {
+                    restoreCurrentFileHandler(oldHandler);
+                    resultReloadingDetector = oldDetector;
+                    throw ex;
+                }
+                finally
+                {
+                    phases = stopPhaseRecording();
+                }
+                duration = System.nanoTime() - startTime;
+            }
+            // The reset event must not be fired while the monitor is held;
+            // listeners like the one of a combined builder acquire other
+            // locks which may lead to a deadlock.
+            super.resetResult();
+            fireBuilderEvent(new ConfigurationBuilderTimingEvent(this, phases,
+                    duration));
+        }
+        catch (ConfigurationException | RuntimeException ex)
+        {
+            getReloadingController().resetReloadingState();
+            fireEvent(new ConfigurationErrorEvent(this,
+                    ConfigurationErrorEvent.READ, ConfigurationErrorEvent.READ,
+                    null, null, ex));
+        }
+        finally
+        {
+            backgroundReloadPending.set(false);
+        }
+    }
+
+    /**
+     * Creates the events for the changes between the given configurations.
+     * Hierarchical configurations are compared by their node structures;
+     * other configurations are compared key by key.
+     *
+     * @param oldConfig the old configuration
+     * @param newConfig the new configuration
+     * @return a list with the change events
+     */
+    private static List<ConfigurationEvent> createChangeEvents(
+            FileBasedConfiguration oldConfig, FileBasedConfiguration newConfig)
+    {
+        List<ConfigurationEvent> events = new ArrayList<>();
+        if (oldConfig instanceof BaseHierarchicalConfiguration
+                && newConfig instanceof BaseHierarchicalConfiguration)
+        {
+            BaseHierarchicalConfiguration newHc =
+                    (BaseHierarchicalConfiguration) newConfig;
+            TreeDiff diff = TreeDiff.compare(
+                    ((BaseHierarchicalConfiguration) oldConfig).getNodeModel()
+                            .getNodeHandler().getRootNode(),
+                    newHc.getNodeModel().getNodeHandler().getRootNode(),
+                    newHc.getExpressionEngine());
+            addChangeEvents(events, newConfig, ConfigurationEvent.ADD_PROPERTY,
+                    diff.getAddedKeys());
+            addChangeEvents(events, newConfig,
+                    ConfigurationEvent.CLEAR_PROPERTY, diff.getRemovedKeys());
+            addChangeEvents(events, newConfig, ConfigurationEvent.SET_PROPERTY,
+                    diff.getChangedKeys());
+        }
+        else
+        {
+            List<String> added = new ArrayList<>();
+            List<String> removed = new ArrayList<>();
+            List<String> changed = new ArrayList<>();
+            for (Iterator<String> it = oldConfig.getKeys(); it.hasNext();)
+            {
+                String key = it.next();
+                if (!newConfig.containsKey(key))
+                {
+                    removed.add(key);
+                }
+                else if (!ObjectUtils.equals(oldConfig.getProperty(key),
+                        newConfig.getProperty(key)))
+                {
+                    changed.add(key);
+                }
+            }
+            for (Iterator<String> it = newConfig.getKeys(); it.hasNext();)
+            {
+                String key = it.next();
+                if (!oldConfig.containsKey(key))
+                {
+                    added.add(key);
+                }
+            }
+            addChangeEvents(events, newConfig, ConfigurationEvent.ADD_PROPERTY,
+                    added);
+            addChangeEvents(events, newConfig,
+                    ConfigurationEvent.CLEAR_PROPERTY, removed);
+            addChangeEvents(events, newConfig, ConfigurationEvent.SET_PROPERTY,
+                    changed);
+        }
+        return events;
+    }
+
+    /**
+     * Adds events of the given type for the specified keys to a list. The
+     * property values are obtained from the new configuration.
+     *
+     * @param events the list with events
+     * @param newConfig the new configuration
+     * @param type the event type
+     * @param keys the affected keys
+     */
+    private static void addChangeEvents(List<ConfigurationEvent> events,
+            FileBasedConfiguration newConfig,
+            EventType<ConfigurationEvent> type, Iterable<String> keys)
+    {
+        for (String key : keys)
+        {
+            Object value =
+                    (type == ConfigurationEvent.CLEAR_PROPERTY) ? null
+                            : newConfig.getProperty(key);
+            events.add(new ConfigurationEvent(newConfig, type, key, value,
+                    false));
+        }
+    }
+
     /**
      * Creates the {@code ReloadingController} associated with this object. The
      * controller is assigned a specialized reloading detector which delegates
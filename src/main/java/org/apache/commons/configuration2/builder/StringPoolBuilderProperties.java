@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.builder;
+
+import org.apache.commons.configuration2.tree.StringPool;
+
+/**
+ * <p>
+ * Definition of a parameters interface for configurations which can use a
+ * {@link StringPool}.
+ * </p>
+ * <p>
+ * This interface is implemented by {@link BasicBuilderParameters} and thus
+ * supported by all parameters objects. It is separate from
+ * {@link BasicBuilderProperties}, so that existing implementations of that
+ * interface are not affected.
+ * </p>
+ * <p>
+ * <strong>Important note:</strong> This interface is not intended to be
+ * implemented by client code! It defines a set of available properties and may
+ * be extended even in minor releases.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.2
+ * @param <T> the type of the result of all set methods for method chaining
+ */
+public interface StringPoolBuilderProperties<T>
+{
+    /**
+     * Sets a {@code StringPool} for this configuration. If defined, the pool
+     * is used to eliminate duplicate strings when the configuration is loaded
+     * from a file. By passing the same pool to the builders of multiple
+     * configurations, strings can also be shared between these
+     * configurations.
+     *
+     * @param pool the {@code StringPool} to be used
+     * @return a reference to this object for method chaining
+     */
+    T setStringPool(StringPool pool);
+}
@@ -20,6 +20,7 @@ import java.net.URL;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -41,12 +42,15 @@ import org.apache.commons.configuration2.builder.BasicConfigurationBuilder;
 import org.apache.commons.configuration2.builder.BuilderParameters;
 import org.apache.commons.configuration2.builder.ConfigurationBuilder;
 import org.apache.commons.configuration2.builder.ConfigurationBuilderEvent;
+import org.apache.commons.configuration2.builder.ConfigurationBuilderTimingEvent;
 import org.apache.commons.configuration2.builder.FileBasedBuilderParametersImpl;
 import org.apache.commons.configuration2.builder.FileBasedBuilderProperties;
 import org.apache.commons.configuration2.builder.FileBasedConfigurationBuilder;
 import org.apache.commons.configuration2.builder.XMLBuilderParametersImpl;
 import org.apache.commons.configuration2.builder.XMLBuilderProperties;
+import org.apache.commons.configuration2.event.ConfigurationEvent;
 import org.apache.commons.configuration2.event.EventListener;
+import org.apache.commons.configuration2.event.EventSource;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.configuration2.interpol.ConfigurationInterpolator;
 import org.apache.commons.configuration2.interpol.Lookup;
@@ -229,6 +233,15 @@ import org.xml.sax.EntityResolver;
  * configuration sources which have been assigned a name; care has to be taken
  * that these names are unique.
  * </p>
+ * <p>
+ * The builders for the child configuration sources are created once and then
+ * reused. If one of them is reset - for instance because a reloading operation
+ * was triggered for its source - this builder is reset, too; but when the next
+ * combined configuration is created, only the affected source is read again.
+ * All other sources are added with the configurations already created by
+ * their builders. Only an explicit call of {@code resetResult()} or a change
+ * of the definition configuration causes all child builders to be recreated.
+ * </p>
  *
  * @since 1.3
  * @author <a
@@ -498,6 +511,9 @@ public class CombinedConfigurationBuilder extends BasicConfigurationBuilder<Comb
      */
     private ConfigurationInterpolator parentInterpolator;
 
+    /** A flag whether a reset is caused by a child builder. */
+    private boolean childBuilderReset;
+
     /**
      * Creates a new instance of {@code CombinedConfigurationBuilder}. No parameters
      * are set.
@@ -624,6 +640,25 @@ public class CombinedConfigurationBuilder extends BasicConfigurationBuilder<Comb
         }
     }
 
+    /**
+     * {@inheritDoc} This implementation also discards the builders for the
+     * child configuration sources, so that all sources are read again when
+     * the next result is created. If the reset has been caused by a reset of
+     * one of the child builders, the child builders are kept.
+     */
+    @Override
+    public void resetResult()
+    {
+        synchronized (this)
+        {
+            if (sourceData != null && !childBuilderReset)
+            {
+                sourceData.discardBuilders();
+            }
+        }
+        super.resetResult();
+    }
+
     /**
      * {@inheritDoc} This implementation resets some specific internal state of
      * this builder.
@@ -798,6 +833,7 @@ public class CombinedConfigurationBuilder extends BasicConfigurationBuilder<Comb
         setUpParentInterpolator(currentConfiguration, config);
 
         ConfigurationSourceData data = getSourceData();
+        data.detachConfigurations();
         data.createAndAddConfigurations(result, data.getOverrideSources());
         if (!data.getUnionSources().isEmpty())
         {
@@ -807,7 +843,10 @@ public class CombinedConfigurationBuilder extends BasicConfigurationBuilder<Comb
             data.createAndAddConfigurations(addConfig, data.getUnionSources());
         }
 
+        long startTime = System.nanoTime();
         result.isEmpty();  // this sets up the node structure
+        recordPhaseDuration(ConfigurationBuilderTimingEvent.PHASE_COMBINE,
+                System.nanoTime() - startTime);
         currentConfiguration = null;
     }
 
@@ -1300,6 +1339,23 @@ public class CombinedConfigurationBuilder extends BasicConfigurationBuilder<Comb
         });
     }
 
+    /**
+     * Resets the result of this builder because one of the child builders was
+     * reset. In this case, the other child builders can be reused.
+     */
+    private synchronized void resetResultForChildBuilder()
+    {
+        childBuilderReset = true;
+        try
+        {
+            resetResult();
+        }
+        finally
+        {
+            childBuilderReset = false;
+        }
+    }
+
     /**
      * Returns a map with the current prefix lookup objects. This map is
      * obtained from the {@code ConfigurationInterpolator} of the configuration
@@ -1372,8 +1428,21 @@ public class CombinedConfigurationBuilder extends BasicConfigurationBuilder<Comb
         /** A collection with all child builders. */
         private final Collection<ConfigurationBuilder<? extends Configuration>> allBuilders;
 
+        /** A map with the builders created for the source declarations. */
+        private final Map<HierarchicalConfiguration<?>, ConfigurationBuilder<? extends Configuration>> sourceBuilders;
+
+        /**
+         * A map with the child configurations added to combined
+         * configurations. It is used to remove the event listeners registered
+         * by the combined configurations when they are replaced.
+         */
+        private final Map<Configuration, CombinedConfiguration> attachedConfigurations;
+
         /** A listener for reacting on changes of sub builders. */
-        private EventListener<ConfigurationBuilderEvent> changeListener;
+        private final EventListener<ConfigurationBuilderEvent> changeListener;
+
+        /** The number of sources processed for the current result. */
+        private int sourceIndex;
 
         /**
          * Creates a new instance of {@code ConfigurationSourceData}.
@@ -1388,6 +1457,9 @@ public class CombinedConfigurationBuilder extends BasicConfigurationBuilder<Comb
                     new HashMap<>();
             allBuilders =
                     new LinkedList<>();
+            sourceBuilders = new IdentityHashMap<>();
+            attachedConfigurations = new IdentityHashMap<>();
+            changeListener = createBuilderChangeListener();
         }
 
         /**
@@ -1407,7 +1479,8 @@ public class CombinedConfigurationBuilder extends BasicConfigurationBuilder<Comb
         /**
          * Processes the declaration of configuration builder providers, creates
          * the corresponding builder, obtains configurations, and adds them to
-         * the specified result configuration.
+         * the specified result configuration. Builders which have already been
+         * created for a declaration are reused.
          *
          * @param ccResult the result configuration
          * @param srcDecl the collection with the declarations of configuration
@@ -1418,29 +1491,67 @@ public class CombinedConfigurationBuilder extends BasicConfigurationBuilder<Comb
                 Collection<HierarchicalConfiguration<?>> srcDecl)
                 throws ConfigurationException
         {
-            createBuilderChangeListener();
             for (HierarchicalConfiguration<?> src : srcDecl)
             {
                 ConfigurationDeclaration decl =
                         new ConfigurationDeclaration(
                                 CombinedConfigurationBuilder.this, src);
                 ConfigurationBuilder<? extends Configuration> builder =
-                        createConfigurationBuilder(src, decl);
+                        sourceBuilders.get(src);
+                if (builder == null)
+                {
+                    builder = createConfigurationBuilder(src, decl);
+                }
                 addChildConfiguration(ccResult, decl, builder);
             }
         }
 
         /**
-         * Frees resources used by this object and performs clean up. This
-         * method is called when the owning builder is reset.
+         * Removes the combined configurations created before from the child
+         * configurations they have been registered at as event listeners. This
+         * method is called before a new result configuration is populated.
+         * (The child configurations may be reused; so the old combined
+         * configurations would otherwise be kept alive by them.) It also
+         * resets the index used for recording timing information.
          */
-        public void cleanUp()
+        public void detachConfigurations()
+        {
+            for (Map.Entry<Configuration, CombinedConfiguration> e : attachedConfigurations
+                    .entrySet())
+            {
+                if (e.getKey() instanceof EventSource)
+                {
+                    ((EventSource) e.getKey()).removeEventListener(
+                            ConfigurationEvent.ANY, e.getValue());
+                }
+            }
+            attachedConfigurations.clear();
+            sourceIndex = 0;
+        }
+
+        /**
+         * Discards all builders created for child configuration sources. They
+         * are created anew when the next result configuration is constructed.
+         */
+        public void discardBuilders()
         {
             for (ConfigurationBuilder<?> b : getChildBuilders())
             {
                 b.removeEventListener(ConfigurationBuilderEvent.RESET,
                         changeListener);
             }
+            allBuilders.clear();
+            sourceBuilders.clear();
+        }
+
+        /**
+         * Frees resources used by this object and performs clean up. This
+         * method is called when the owning builder is reset.
+         */
+        public void cleanUp()
+        {
+            discardBuilders();
+            detachConfigurations();
             namedBuilders.clear();
         }
 
@@ -1530,6 +1641,7 @@ public class CombinedConfigurationBuilder extends BasicConfigurationBuilder<Comb
                 namedBuilders.put(decl.getName(), builder);
             }
             allBuilders.add(builder);
+            sourceBuilders.put(src, builder);
             builder.addEventListener(ConfigurationBuilderEvent.RESET,
                     changeListener);
             return builder;
@@ -1537,7 +1649,8 @@ public class CombinedConfigurationBuilder extends BasicConfigurationBuilder<Comb
 
         /**
          * Creates a new configuration using the specified builder and adds it
-         * to the resulting combined configuration.
+         * to the resulting combined configuration. The time needed to obtain
+         * the configuration from the builder is recorded.
          *
          * @param ccResult the resulting combined configuration
          * @param decl the current {@code ConfigurationDeclaration}
@@ -1549,11 +1662,17 @@ public class CombinedConfigurationBuilder extends BasicConfigurationBuilder<Comb
                 ConfigurationBuilder<? extends Configuration> builder)
                 throws ConfigurationException
         {
+            String phase =
+                    ConfigurationBuilderTimingEvent.PHASE_SOURCE_PREFIX
+                            + ((decl.getName() != null) ? decl.getName()
+                                    : String.valueOf(sourceIndex));
+            sourceIndex++;
+            long startTime = System.nanoTime();
             try
             {
-                ccResult.addConfiguration(
-                        builder.getConfiguration(),
-                        decl.getName(), decl.getAt());
+                Configuration config = builder.getConfiguration();
+                ccResult.addConfiguration(config, decl.getName(), decl.getAt());
+                attachedConfigurations.put(config, ccResult);
             }
             catch (ConfigurationException cex)
             {
@@ -1563,20 +1682,26 @@ public class CombinedConfigurationBuilder extends BasicConfigurationBuilder<Comb
                     throw cex;
                 }
             }
+            finally
+            {
+                recordPhaseDuration(phase, System.nanoTime() - startTime);
+            }
         }
 
         /**
          * Creates a listener for builder change events. This listener is
          * registered at all builders for child configurations.
+         *
+         * @return the listener
          */
-        private void createBuilderChangeListener()
+        private EventListener<ConfigurationBuilderEvent> createBuilderChangeListener()
         {
-            changeListener = new EventListener<ConfigurationBuilderEvent>()
+            return new EventListener<ConfigurationBuilderEvent>()
             {
                 @Override
                 public void onEvent(ConfigurationBuilderEvent event)
                 {
-                    resetResult();
+                    resetResultForChildBuilder();
                 }
             };
         }
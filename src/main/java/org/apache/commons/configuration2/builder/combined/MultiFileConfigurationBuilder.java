@@ -29,6 +29,7 @@ import org.apache.commons.configuration2.builder.BasicConfigurationBuilder;
 import org.apache.commons.configuration2.builder.BuilderParameters;
 import org.apache.commons.configuration2.builder.ConfigurationBuilderEvent;
 import org.apache.commons.configuration2.builder.ConfigurationBuilderResultCreatedEvent;
+import org.apache.commons.configuration2.builder.ConfigurationBuilderTimingEvent;
 import org.apache.commons.configuration2.builder.FileBasedConfigurationBuilder;
 import org.apache.commons.configuration2.event.Event;
 import org.apache.commons.configuration2.event.EventListener;
@@ -503,6 +504,15 @@ public class MultiFileConfigurationBuilder<T extends FileBasedConfiguration>
                     ((ConfigurationBuilderResultCreatedEvent) event)
                             .getConfiguration());
         }
+        if (ConfigurationBuilderTimingEvent.RESULT_TIMING.equals(event
+                .getEventType()))
+        {
+            ConfigurationBuilderTimingEvent timingEvent =
+                    (ConfigurationBuilderTimingEvent) event;
+            return new ConfigurationBuilderTimingEvent(this,
+                    timingEvent.getPhaseDurations(),
+                    timingEvent.getTotalDuration());
+        }
         @SuppressWarnings("unchecked")
         // This is safe due to the constructor of ConfigurationBuilderEvent
         EventType<? extends ConfigurationBuilderEvent> type =
@@ -52,6 +52,13 @@ import org.apache.commons.configuration2.reloading.ReloadingControllerSupport;
  * reloading controller managed by an instance can be used to react on changes
  * in one of these configuration sources or in the definition configuration.
  * </p>
+ * <p>
+ * If multiple sources are typically changed together (e.g. by a deployment
+ * script), a quiet period can be set for reloading. Then the changes are
+ * coalesced, and the combined configuration is reset only once after all
+ * sources have been stable for this period. Refer to the documentation of
+ * {@link ReloadingController} for more information.
+ * </p>
  *
  * @version $Id$
  * @since 2.0
@@ -62,6 +69,12 @@ public class ReloadingCombinedConfigurationBuilder extends
     /** The reloading controller used by this builder. */
     private ReloadingController reloadingController;
 
+    /** The quiet period for the reloading controller. */
+    private long reloadingQuietPeriod;
+
+    /** The maximum reload delay for the reloading controller. */
+    private long reloadingMaxDelay;
+
     /**
      * Creates a new instance of {@code ReloadingCombinedConfigurationBuilder}.
      * No parameters are set.
@@ -122,6 +135,78 @@ public class ReloadingCombinedConfigurationBuilder extends
         return reloadingController;
     }
 
+    /**
+     * Returns the quiet period set for the reloading controller of this
+     * builder.
+     *
+     * @return the quiet period in milliseconds
+     * @since 2.2
+     */
+    public synchronized long getReloadingQuietPeriod()
+    {
+        return reloadingQuietPeriod;
+    }
+
+    /**
+     * Sets the quiet period for the reloading controller of this builder. The
+     * value is passed to the controller when it is created. If a controller
+     * already exists, it is updated directly.
+     *
+     * @param millis the quiet period in milliseconds
+     * @throws IllegalArgumentException if the value is negative
+     * @see ReloadingController#setQuietPeriod(long)
+     * @since 2.2
+     */
+    public synchronized void setReloadingQuietPeriod(long millis)
+    {
+        if (millis < 0)
+        {
+            throw new IllegalArgumentException(
+                    "Quiet period must not be negative: " + millis);
+        }
+        reloadingQuietPeriod = millis;
+        if (reloadingController != null)
+        {
+            reloadingController.setQuietPeriod(millis);
+        }
+    }
+
+    /**
+     * Returns the maximum reload delay set for the reloading controller of
+     * this builder.
+     *
+     * @return the maximum reload delay in milliseconds
+     * @since 2.2
+     */
+    public synchronized long getReloadingMaxDelay()
+    {
+        return reloadingMaxDelay;
+    }
+
+    /**
+     * Sets the maximum reload delay for the reloading controller of this
+     * builder. The value is passed to the controller when it is created. If a
+     * controller already exists, it is updated directly.
+     *
+     * @param millis the maximum reload delay in milliseconds
+     * @throws IllegalArgumentException if the value is negative
+     * @see ReloadingController#setMaxReloadDelay(long)
+     * @since 2.2
+     */
+    public synchronized void setReloadingMaxDelay(long millis)
+    {
+        if (millis < 0)
+        {
+            throw new IllegalArgumentException(
+                    "Maximum reload delay must not be negative: " + millis);
+        }
+        reloadingMaxDelay = millis;
+        if (reloadingController != null)
+        {
+            reloadingController.setMaxReloadDelay(millis);
+        }
+    }
+
     /**
      * {@inheritDoc} This implementation creates a builder for XML
      * configurations with reloading support.
@@ -138,14 +223,18 @@ public class ReloadingCombinedConfigurationBuilder extends
      * {@inheritDoc} This implementation first calls the super method to
      * actually initialize the result configuration. Then it creates the
      * {@link CombinedReloadingController} for all child configuration sources
-     * with reloading support.
+     * with reloading support. The quiet period and the maximum reload delay
+     * set for this builder are applied to the new controller.
      */
     @Override
     protected void initResultInstance(CombinedConfiguration result)
             throws ConfigurationException
     {
         super.initResultInstance(result);
-        reloadingController = createReloadingController();
+        ReloadingController ctrl = createReloadingController();
+        ctrl.setQuietPeriod(reloadingQuietPeriod);
+        ctrl.setMaxReloadDelay(reloadingMaxDelay);
+        reloadingController = ctrl;
     }
 
     /**
@@ -18,6 +18,7 @@ package org.apache.commons.configuration2.builder.fluent;
 
 import org.apache.commons.configuration2.builder.BasicBuilderProperties;
 import org.apache.commons.configuration2.builder.BuilderParameters;
+import org.apache.commons.configuration2.builder.StringPoolBuilderProperties;
 import org.apache.commons.configuration2.builder.combined.CombinedBuilderProperties;
 
 /**
@@ -36,6 +37,7 @@ import org.apache.commons.configuration2.builder.combined.CombinedBuilderPropert
  */
 public interface CombinedBuilderParameters extends
         BasicBuilderProperties<CombinedBuilderParameters>,
+        StringPoolBuilderProperties<CombinedBuilderParameters>,
         CombinedBuilderProperties<CombinedBuilderParameters>, BuilderParameters
 {
 }
@@ -19,6 +19,7 @@ package org.apache.commons.configuration2.builder.fluent;
 import org.apache.commons.configuration2.builder.BasicBuilderProperties;
 import org.apache.commons.configuration2.builder.BuilderParameters;
 import org.apache.commons.configuration2.builder.FileBasedBuilderProperties;
+import org.apache.commons.configuration2.builder.StringPoolBuilderProperties;
 
 /**
  * <p>
@@ -36,6 +37,7 @@ import org.apache.commons.configuration2.builder.FileBasedBuilderProperties;
  */
 public interface FileBasedBuilderParameters extends
         BasicBuilderProperties<FileBasedBuilderParameters>,
+        StringPoolBuilderProperties<FileBasedBuilderParameters>,
         FileBasedBuilderProperties<FileBasedBuilderParameters>,
         BuilderParameters
 {
@@ -16,10 +16,12 @@
  */
 package org.apache.commons.configuration2.builder.fluent;
 
+import org.apache.commons.configuration2.builder.AbsentKeyCacheBuilderProperties;
 import org.apache.commons.configuration2.builder.BasicBuilderProperties;
 import org.apache.commons.configuration2.builder.BuilderParameters;
 import org.apache.commons.configuration2.builder.FileBasedBuilderProperties;
 import org.apache.commons.configuration2.builder.HierarchicalBuilderProperties;
+import org.apache.commons.configuration2.builder.StringPoolBuilderProperties;
 
 /**
  * <p>
@@ -37,8 +39,10 @@ import org.apache.commons.configuration2.builder.HierarchicalBuilderProperties;
  */
 public interface HierarchicalBuilderParameters extends
         BasicBuilderProperties<HierarchicalBuilderParameters>,
+        StringPoolBuilderProperties<HierarchicalBuilderParameters>,
         FileBasedBuilderProperties<HierarchicalBuilderParameters>,
         HierarchicalBuilderProperties<HierarchicalBuilderParameters>,
+        AbsentKeyCacheBuilderProperties<HierarchicalBuilderParameters>,
         BuilderParameters
 {
 }
@@ -16,11 +16,13 @@
  */
 package org.apache.commons.configuration2.builder.fluent;
 
+import org.apache.commons.configuration2.builder.AbsentKeyCacheBuilderProperties;
 import org.apache.commons.configuration2.builder.BasicBuilderProperties;
 import org.apache.commons.configuration2.builder.BuilderParameters;
 import org.apache.commons.configuration2.builder.FileBasedBuilderProperties;
 import org.apache.commons.configuration2.builder.HierarchicalBuilderProperties;
 import org.apache.commons.configuration2.builder.INIBuilderProperties;
+import org.apache.commons.configuration2.builder.StringPoolBuilderProperties;
 
 /**
  * <p>
@@ -37,8 +39,10 @@ import org.apache.commons.configuration2.builder.INIBuilderProperties;
  */
 public interface INIBuilderParameters extends
         BasicBuilderProperties<INIBuilderParameters>,
+        StringPoolBuilderProperties<INIBuilderParameters>,
         FileBasedBuilderProperties<INIBuilderParameters>,
         HierarchicalBuilderProperties<INIBuilderParameters>,
+        AbsentKeyCacheBuilderProperties<INIBuilderParameters>,
         INIBuilderProperties<INIBuilderParameters>, BuilderParameters
 {
 }
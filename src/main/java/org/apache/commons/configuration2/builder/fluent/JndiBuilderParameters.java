@@ -19,6 +19,7 @@ package org.apache.commons.configuration2.builder.fluent;
 import org.apache.commons.configuration2.builder.BasicBuilderProperties;
 import org.apache.commons.configuration2.builder.BuilderParameters;
 import org.apache.commons.configuration2.builder.JndiBuilderProperties;
+import org.apache.commons.configuration2.builder.StringPoolBuilderProperties;
 
 /**
  * <p>
@@ -36,6 +37,7 @@ import org.apache.commons.configuration2.builder.JndiBuilderProperties;
  */
 public interface JndiBuilderParameters extends
         BasicBuilderProperties<JndiBuilderParameters>,
+        StringPoolBuilderProperties<JndiBuilderParameters>,
         JndiBuilderProperties<JndiBuilderParameters>, BuilderParameters
 {
 }
@@ -20,6 +20,7 @@ import org.apache.commons.configuration2.builder.BasicBuilderProperties;
 import org.apache.commons.configuration2.builder.BuilderParameters;
 import org.apache.commons.configuration2.builder.FileBasedBuilderProperties;
 import org.apache.commons.configuration2.builder.PropertiesBuilderProperties;
+import org.apache.commons.configuration2.builder.StringPoolBuilderProperties;
 
 /**
  * <p>
@@ -37,6 +38,7 @@ import org.apache.commons.configuration2.builder.PropertiesBuilderProperties;
  */
 public interface PropertiesBuilderParameters extends
         BasicBuilderProperties<PropertiesBuilderParameters>,
+        StringPoolBuilderProperties<PropertiesBuilderParameters>,
         FileBasedBuilderProperties<PropertiesBuilderParameters>,
         PropertiesBuilderProperties<PropertiesBuilderParameters>,
         BuilderParameters
@@ -16,10 +16,12 @@
  */
 package org.apache.commons.configuration2.builder.fluent;
 
+import org.apache.commons.configuration2.builder.AbsentKeyCacheBuilderProperties;
 import org.apache.commons.configuration2.builder.BasicBuilderProperties;
 import org.apache.commons.configuration2.builder.BuilderParameters;
 import org.apache.commons.configuration2.builder.FileBasedBuilderProperties;
 import org.apache.commons.configuration2.builder.HierarchicalBuilderProperties;
+import org.apache.commons.configuration2.builder.StringPoolBuilderProperties;
 import org.apache.commons.configuration2.builder.XMLBuilderProperties;
 
 /**
@@ -38,8 +40,10 @@ import org.apache.commons.configuration2.builder.XMLBuilderProperties;
  */
 public interface XMLBuilderParameters extends
         BasicBuilderProperties<XMLBuilderParameters>,
+        StringPoolBuilderProperties<XMLBuilderParameters>,
         FileBasedBuilderProperties<XMLBuilderParameters>,
         HierarchicalBuilderProperties<XMLBuilderParameters>,
+        AbsentKeyCacheBuilderProperties<XMLBuilderParameters>,
         XMLBuilderProperties<XMLBuilderParameters>, BuilderParameters
 {
 }
@@ -283,6 +283,28 @@ public class VFSFileSystem extends DefaultFileSystem
         }
     }
 
+    /**
+     * Resolves the {@code FileObject} for the given URI. The options returned
+     * by the {@link FileOptionsProvider} for the URI's scheme are applied in
+     * the same way as for reading and writing files. Therefore, the resulting
+     * object belongs to the same VFS file system as the files accessed by
+     * this object; e.g. for remote providers an existing connection can be
+     * reused.
+     *
+     * @param uri the URI of the file
+     * @return the {@code FileObject} for this URI
+     * @throws FileSystemException if the file cannot be resolved
+     * @since 2.2
+     */
+    public FileObject resolveFile(String uri) throws FileSystemException
+    {
+        FileSystemManager fsManager = VFS.getManager();
+        String scheme = UriParser.extractScheme(uri);
+        FileSystemOptions opts = (scheme != null) ? getOptions(scheme) : null;
+        return (opts == null) ? fsManager.resolveFile(uri)
+                : fsManager.resolveFile(uri, opts);
+    }
+
     private FileSystemOptions getOptions(String scheme)
     {
         FileSystemOptions opts = new FileSystemOptions();
@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.reloading;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import org.apache.commons.configuration2.io.FileHandler;
+
+/**
+ * <p>
+ * A specialized {@code FileHandlerReloadingDetector} which reports a change
+ * only if the content of the monitored file has actually changed.
+ * </p>
+ * <p>
+ * The base class triggers a reload whenever the last modification date of
+ * the monitored file changes. This also happens if the file is just touched or
+ * rewritten with identical content, e.g. by a deployment or a configuration
+ * management tool. This class additionally stores the size and a checksum of
+ * the file's content. If the modification date has changed, it first compares
+ * the file size; if the size is unchanged, the content is read in a streaming
+ * fashion to compute a new checksum which is compared with the stored one.
+ * Only if a difference is found, a reload is reported. Otherwise, the new
+ * modification date is stored, and no reload takes place.
+ * </p>
+ * <p>
+ * So the (expensive) checksum is only computed if the cheap checks indicate a
+ * potential change and when a reload has been performed. The algorithm used
+ * for the checksum can be specified at construction time; it must be supported
+ * by {@code java.security.MessageDigest}. The default algorithm is MD5 which
+ * is fast and sufficient to detect accidental changes. If the file cannot be
+ * read, a change is assumed as in the base class.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.2
+ */
+public class ChecksumReloadingDetector extends FileHandlerReloadingDetector
+{
+    /** Constant for the default checksum algorithm. */
+    public static final String DEFAULT_ALGORITHM = "MD5";
+
+    /** Constant for the default refresh delay. */
+    private static final long DEFAULT_REFRESH_DELAY = 5000;
+
+    /** Constant for the size of the read buffer. */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** The name of the checksum algorithm. */
+    private final String algorithm;
+
+    /** The stored checksum of the file. */
+    private byte[] checksum;
+
+    /** The stored size of the file. */
+    private long size;
+
+    /** A flag whether a content change has been detected. */
+    private boolean changeDetected;
+
+    /**
+     * Creates a new instance of {@code ChecksumReloadingDetector} and
+     * initializes it with the {@code FileHandler} to monitor, the refresh
+     * delay, and the checksum algorithm.
+     *
+     * @param handler the {@code FileHandler} associated with this detector (can
+     *        be <b>null</b>)
+     * @param refreshDelay the refresh delay; a value of 0 means that a check is
+     *        performed in all cases
+     * @param algorithm the name of the checksum algorithm (<b>null</b> for the
+     *        default algorithm)
+     * @throws IllegalArgumentException if the algorithm is not supported
+     */
+    public ChecksumReloadingDetector(FileHandler handler, long refreshDelay,
+            String algorithm)
+    {
+        super(handler, refreshDelay);
+        this.algorithm = (algorithm != null) ? algorithm : DEFAULT_ALGORITHM;
+        createDigest(this.algorithm);
+    }
+
+    /**
+     * Creates a new instance of {@code ChecksumReloadingDetector} and
+     * initializes it with the {@code FileHandler} to monitor and the refresh
+     * delay. The default checksum algorithm is used.
+     *
+     * @param handler the {@code FileHandler} associated with this detector (can
+     *        be <b>null</b>)
+     * @param refreshDelay the refresh delay
+     */
+    public ChecksumReloadingDetector(FileHandler handler, long refreshDelay)
+    {
+        this(handler, refreshDelay, null);
+    }
+
+    /**
+     * Creates a new instance of {@code ChecksumReloadingDetector} and
+     * initializes it with the {@code FileHandler} to monitor and the checksum
+     * algorithm. A default refresh delay is used.
+     *
+     * @param handler the {@code FileHandler} associated with this detector (can
+     *        be <b>null</b>)
+     * @param algorithm the name of the checksum algorithm (<b>null</b> for the
+     *        default algorithm)
+     * @throws IllegalArgumentException if the algorithm is not supported
+     */
+    public ChecksumReloadingDetector(FileHandler handler, String algorithm)
+    {
+        this(handler, DEFAULT_REFRESH_DELAY, algorithm);
+    }
+
+    /**
+     * Creates a new instance of {@code ChecksumReloadingDetector} and
+     * initializes it with the {@code FileHandler} to monitor and default
+     * settings.
+     *
+     * @param handler the {@code FileHandler} associated with this detector (can
+     *        be <b>null</b>)
+     */
+    public ChecksumReloadingDetector(FileHandler handler)
+    {
+        this(handler, (String) null);
+    }
+
+    /**
+     * Creates a new instance of {@code ChecksumReloadingDetector} with an
+     * uninitialized {@code FileHandler} object.
+     */
+    public ChecksumReloadingDetector()
+    {
+        this(null);
+    }
+
+    /**
+     * Returns the name of the algorithm used for computing checksums.
+     *
+     * @return the checksum algorithm
+     */
+    public String getAlgorithm()
+    {
+        return algorithm;
+    }
+
+    /**
+     * {@inheritDoc} This implementation calls the base class to find out
+     * whether the modification date of the file has changed. If this is the
+     * case, the file's size and content are checked.
+     */
+    @Override
+    public boolean isReloadingRequired()
+    {
+        if (changeDetected)
+        {
+            return true;
+        }
+        if (!super.isReloadingRequired())
+        {
+            return false;
+        }
+
+        File file = getFile();
+        long modified = getLastModificationDate();
+        long newSize = (file != null) ? file.length() : 0;
+        if (newSize == size && checksum != null)
+        {
+            byte[] newChecksum = calculateChecksum(file);
+            if (Arrays.equals(checksum, newChecksum))
+            {
+                // only the modification date has changed
+                super.updateLastModified(modified);
+                return false;
+            }
+        }
+
+        changeDetected = true;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc} This implementation also stores the size and the checksum
+     * of the monitored file.
+     */
+    @Override
+    protected void updateLastModified(long time)
+    {
+        super.updateLastModified(time);
+        File file = getFile();
+        if (time != 0 && file != null)
+        {
+            size = file.length();
+            checksum = calculateChecksum(file);
+        }
+        else
+        {
+            size = 0;
+            checksum = null;
+        }
+        changeDetected = false;
+    }
+
+    /**
+     * Calculates the checksum of the given file. The file is read in chunks,
+     * so it is never loaded into memory completely.
+     *
+     * @param file the file
+     * @return the checksum or <b>null</b> if the file cannot be read
+     */
+    protected byte[] calculateChecksum(File file)
+    {
+        MessageDigest digest = createDigest(getAlgorithm());
+        try
+        {
+            InputStream in = new FileInputStream(file);
+            try
+            {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int count;
+                while ((count = in.read(buffer)) >= 0)
+                {
+                    digest.update(buffer, 0, count);
+                }
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        catch (IOException ioex)
+        {
+            return null;
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Creates a {@code MessageDigest} for the given algorithm.
+     *
+     * @param algorithm the name of the algorithm
+     * @return the {@code MessageDigest}
+     * @throws IllegalArgumentException if the algorithm is not supported
+     */
+    private static MessageDigest createDigest(String algorithm)
+    {
+        try
+        {
+            return MessageDigest.getInstance(algorithm);
+        }
+        catch (NoSuchAlgorithmException nsaex)
+        {
+            throw new IllegalArgumentException(
+                    "Unsupported checksum algorithm: " + algorithm, nsaex);
+        }
+    }
+}
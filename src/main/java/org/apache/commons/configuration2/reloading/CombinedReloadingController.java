@@ -19,6 +19,8 @@ package org.apache.commons.configuration2.reloading;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  * <p>
@@ -48,6 +50,15 @@ import java.util.Collections;
  * controllers (e.g. a more dynamic way). However, they are then responsible to
  * ensure a safe access to this list in a multi-threaded environment.
  * </p>
+ * <p>
+ * If a quiet period is set for a combined controller, changes of multiple sub
+ * controllers are coalesced: the sub controllers are polled without firing
+ * events, and only after none of them has reported a change for the duration
+ * of the quiet period, a single reloading event is fired. Directly before, all
+ * sub controllers which have detected a change are put into reloading state
+ * and fire their own events. The quiet periods of the sub controllers are
+ * ignored in this mode.
+ * </p>
  *
  * @version $Id$
  * @since 2.0
@@ -64,6 +75,9 @@ public class CombinedReloadingController extends ReloadingController
     /** The reloading detector used by this instance. */
     private final ReloadingDetector detector;
 
+    /** The sub controllers which have detected a change in the quiet period. */
+    private final Set<ReloadingController> changedControllers;
+
     /**
      * Creates a new instance of {@code CombinedReloadingController} and
      * initializes it with the {@code ReloadingController} objects to be
@@ -80,6 +94,7 @@ public class CombinedReloadingController extends ReloadingController
         super(DUMMY);
         controllers = checkManagedControllers(subCtrls);
         detector = new MultiReloadingControllerDetector(this);
+        changedControllers = new LinkedHashSet<>();
     }
 
     /**
@@ -116,6 +131,52 @@ public class CombinedReloadingController extends ReloadingController
         getDetector().reloadingPerformed();
     }
 
+    /**
+     * {@inheritDoc} This implementation polls all sub controllers which are
+     * not yet in reloading state without firing events. The controllers which
+     * have detected a change are recorded; they are triggered when this
+     * controller fires its reloading event.
+     */
+    @Override
+    protected boolean pollChange()
+    {
+        boolean changed = false;
+        for (ReloadingController rc : getSubControllers())
+        {
+            boolean subChanged;
+            synchronized (rc)
+            {
+                subChanged = !rc.isInReloadingState() && rc.pollChange();
+            }
+            if (subChanged)
+            {
+                changedControllers.add(rc);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * {@inheritDoc} This implementation triggers all sub controllers which
+     * have detected a change during the quiet period. So their listeners are
+     * notified before the listeners of this controller.
+     */
+    @Override
+    void beforeReloadingEvent()
+    {
+        Collection<ReloadingController> changed;
+        synchronized (this)
+        {
+            changed = new ArrayList<>(changedControllers);
+            changedControllers.clear();
+        }
+        for (ReloadingController rc : changed)
+        {
+            rc.triggerReloading(null);
+        }
+    }
+
     /**
      * Checks the collection with the passed in sub controllers and creates a
      * defensive copy.
@@ -172,20 +233,22 @@ public class CombinedReloadingController extends ReloadingController
 
         /**
          * {@inheritDoc} This implementation delegates to the managed
-         * controllers. If one of them returns <b>true</b> from its check
-         * method, iteration is aborted, and result is <b>true</b>.
+         * controllers. All of them are checked, so that changes of multiple
+         * sources are detected by a single check. Result is <b>true</b> if at
+         * least one of them returns <b>true</b> from its check method.
          */
         @Override
         public boolean isReloadingRequired()
         {
+            boolean result = false;
             for (ReloadingController rc : owner.getSubControllers())
             {
                 if (rc.checkForReloading(null))
                 {
-                    return true;
+                    result = true;
                 }
             }
-            return false;
+            return result;
         }
 
         /**
@@ -0,0 +1,455 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.reloading;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+
+/**
+ * <p>
+ * An internal helper class which monitors files for changes using a
+ * {@code java.nio.file.WatchService}.
+ * </p>
+ * <p>
+ * An instance manages a single {@code WatchService} and a single daemon thread
+ * which waits for file system events. The directories containing the files of
+ * all registered {@link WatchServiceReloadingDetector} objects are registered
+ * at this service; a directory is registered only once, no matter how many
+ * monitored files it contains. When an event is received for a monitored
+ * file, all detectors watching this file are notified.
+ * </p>
+ * <p>
+ * The watch service and the thread are created lazily when the first file is
+ * registered; they are released again when the last registration is removed.
+ * Detectors are referenced weakly; so a detector which is no longer used does
+ * not prevent garbage collection even if it was not unregistered explicitly.
+ * Implementation note: This class is thread-safe.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.2
+ */
+final class FileWatcher
+{
+    /** The shared default instance. */
+    private static final FileWatcher DEFAULT_INSTANCE = new FileWatcher();
+
+    /** The factory for creating watcher threads. */
+    private final ThreadFactory threadFactory;
+
+    /** A map with the directories currently watched. */
+    private final Map<Path, WatchedDirectory> directories;
+
+    /** A map for looking up directories by their watch keys. */
+    private final Map<WatchKey, WatchedDirectory> keys;
+
+    /** The current watch service; <b>null</b> if nothing is watched. */
+    private WatchService watchService;
+
+    /**
+     * Creates a new instance of {@code FileWatcher}.
+     */
+    FileWatcher()
+    {
+        threadFactory =
+                new BasicThreadFactory.Builder()
+                        .namingPattern("FileWatcher-%s").daemon(true).build();
+        directories = new HashMap<>();
+        keys = new HashMap<>();
+    }
+
+    /**
+     * Returns the default instance of this class. This instance is shared by
+     * all detectors which have not been passed a specific watcher.
+     *
+     * @return the default {@code FileWatcher}
+     */
+    static FileWatcher getDefaultInstance()
+    {
+        return DEFAULT_INSTANCE;
+    }
+
+    /**
+     * Registers a detector for the given file. From now on the detector is
+     * notified about changes of this file. If the file's directory cannot be
+     * monitored, an exception is thrown; in this case, the detector has to
+     * fall back to polling.
+     *
+     * @param detector the detector
+     * @param file the file to be monitored (must be absolute)
+     * @throws IOException if the directory cannot be registered
+     * @throws UnsupportedOperationException if the file system does not
+     *         support watching
+     */
+    synchronized void register(WatchServiceReloadingDetector detector,
+            Path file) throws IOException
+    {
+        Path dir = file.getParent();
+        if (dir == null)
+        {
+            throw new IOException("Cannot watch file without a directory: "
+                    + file);
+        }
+
+        WatchedDirectory watched = directories.get(dir);
+        if (watched == null)
+        {
+            WatchService service = fetchWatchService(dir);
+            WatchKey key;
+            try
+            {
+                key = dir.register(service, ENTRY_CREATE, ENTRY_MODIFY);
+            }
+            catch (IOException | RuntimeException ex)
+            {
+                releaseWatchServiceIfUnused();
+                throw ex;
+            }
+            watched = new WatchedDirectory(dir, key);
+            directories.put(dir, watched);
+            keys.put(key, watched);
+        }
+        watched.add(detector, file.getFileName());
+    }
+
+    /**
+     * Removes the registration of the given detector. If no more files are
+     * monitored in the affected directory, the directory is no longer
+     * watched.
+     *
+     * @param detector the detector
+     * @param file the file the detector was registered for
+     */
+    synchronized void unregister(WatchServiceReloadingDetector detector,
+            Path file)
+    {
+        WatchedDirectory watched = directories.get(file.getParent());
+        if (watched != null && watched.remove(detector))
+        {
+            removeDirectory(watched);
+        }
+    }
+
+    /**
+     * Returns the number of directories currently watched. This method is
+     * mainly used for testing purposes.
+     *
+     * @return the number of watched directories
+     */
+    synchronized int getWatchedDirectoryCount()
+    {
+        return directories.size();
+    }
+
+    /**
+     * Returns a flag whether this object currently has an active watch
+     * service.
+     *
+     * @return a flag whether files are watched
+     */
+    synchronized boolean isActive()
+    {
+        return watchService != null;
+    }
+
+    /**
+     * Processes the events received for a watch key. This method is called by
+     * the watcher thread.
+     *
+     * @param key the watch key
+     * @param changedFiles the names of the files which have been changed
+     * @param overflow a flag whether events may have been lost
+     * @param valid a flag whether the key is still valid
+     */
+    private void processEvents(WatchKey key, Set<Path> changedFiles,
+            boolean overflow, boolean valid)
+    {
+        List<WatchServiceReloadingDetector> affected;
+        synchronized (this)
+        {
+            WatchedDirectory watched = keys.get(key);
+            if (watched == null)
+            {
+                return;
+            }
+            affected = watched.fetchAffected(changedFiles, overflow || !valid);
+            if (!valid || watched.isEmpty())
+            {
+                removeDirectory(watched);
+            }
+        }
+
+        for (WatchServiceReloadingDetector detector : affected)
+        {
+            if (valid)
+            {
+                detector.fileChanged();
+            }
+            else
+            {
+                detector.watchCancelled();
+            }
+        }
+    }
+
+    /**
+     * Removes a watched directory and cancels its key. If this was the last
+     * directory, the watch service is closed.
+     *
+     * @param watched the directory to be removed
+     */
+    private void removeDirectory(WatchedDirectory watched)
+    {
+        watched.key.cancel();
+        directories.remove(watched.directory);
+        keys.remove(watched.key);
+        releaseWatchServiceIfUnused();
+    }
+
+    /**
+     * Returns the current watch service, creating it and starting the watcher
+     * thread if necessary.
+     *
+     * @param dir the directory to be registered
+     * @return the watch service
+     * @throws IOException if the service cannot be created
+     */
+    private WatchService fetchWatchService(Path dir) throws IOException
+    {
+        if (watchService == null)
+        {
+            final WatchService service =
+                    dir.getFileSystem().newWatchService();
+            threadFactory.newThread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    watch(service);
+                }
+            }).start();
+            watchService = service;
+        }
+        return watchService;
+    }
+
+    /**
+     * Closes the current watch service if there are no more watched
+     * directories. This causes the watcher thread to terminate.
+     */
+    private void releaseWatchServiceIfUnused()
+    {
+        if (directories.isEmpty() && watchService != null)
+        {
+            try
+            {
+                watchService.close();
+            }
+            catch (IOException ioex)
+            {
+                // ignore; the service is no longer used anyway
+            }
+            watchService = null;
+        }
+    }
+
+    /**
+     * The main loop of the watcher thread. Waits for events of the given
+     * watch service until it is closed.
+     *
+     * @param service the watch service
+     */
+    private void watch(WatchService service)
+    {
+        while (true)
+        {
+            WatchKey key;
+            try
+            {
+                key = service.take();
+            }
+            catch (InterruptedException iex)
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch (ClosedWatchServiceException cwex)
+            {
+                return;
+            }
+
+            Set<Path> changedFiles = new HashSet<>();
+            boolean overflow = false;
+            for (WatchEvent<?> event : key.pollEvents())
+            {
+                if (event.kind() == OVERFLOW)
+                {
+                    overflow = true;
+                }
+                else
+                {
+                    changedFiles.add((Path) event.context());
+                }
+            }
+            boolean valid = key.reset();
+            processEvents(key, changedFiles, overflow, valid);
+        }
+    }
+
+    /**
+     * A class storing information about a watched directory.
+     */
+    private static class WatchedDirectory
+    {
+        /** The directory. */
+        private final Path directory;
+
+        /** The watch key of the directory. */
+        private final WatchKey key;
+
+        /** The registered detectors and the names of their files. */
+        private final List<Registration> registrations;
+
+        /**
+         * Creates a new instance of {@code WatchedDirectory}.
+         *
+         * @param dir the directory
+         * @param key the watch key
+         */
+        public WatchedDirectory(Path dir, WatchKey key)
+        {
+            directory = dir;
+            this.key = key;
+            registrations = new ArrayList<>();
+        }
+
+        /**
+         * Adds a registration for a detector.
+         *
+         * @param detector the detector
+         * @param fileName the name of the monitored file
+         */
+        public void add(WatchServiceReloadingDetector detector, Path fileName)
+        {
+            registrations.add(new Registration(detector, fileName));
+        }
+
+        /**
+         * Removes the registration for the given detector.
+         *
+         * @param detector the detector
+         * @return a flag whether this directory is now empty
+         */
+        public boolean remove(WatchServiceReloadingDetector detector)
+        {
+            for (Iterator<Registration> it = registrations.iterator(); it
+                    .hasNext();)
+            {
+                Registration reg = it.next();
+                WatchServiceReloadingDetector d = reg.get();
+                if (d == null || d == detector)
+                {
+                    it.remove();
+                }
+            }
+            return registrations.isEmpty();
+        }
+
+        /**
+         * Returns a flag whether there are no more registrations.
+         *
+         * @return a flag whether this directory is empty
+         */
+        public boolean isEmpty()
+        {
+            return registrations.isEmpty();
+        }
+
+        /**
+         * Returns a list with the detectors affected by a change of the given
+         * files. Registrations of detectors which have been garbage collected
+         * are removed.
+         *
+         * @param changedFiles the names of the changed files
+         * @param all a flag whether all detectors are affected
+         * @return a list with the affected detectors
+         */
+        public List<WatchServiceReloadingDetector> fetchAffected(
+                Set<Path> changedFiles, boolean all)
+        {
+            List<WatchServiceReloadingDetector> affected = new ArrayList<>();
+            for (Iterator<Registration> it = registrations.iterator(); it
+                    .hasNext();)
+            {
+                Registration reg = it.next();
+                WatchServiceReloadingDetector detector = reg.get();
+                if (detector == null)
+                {
+                    it.remove();
+                }
+                else if (all || changedFiles.contains(reg.fileName))
+                {
+                    affected.add(detector);
+                }
+            }
+            return affected;
+        }
+    }
+
+    /**
+     * A class representing the registration of a single detector. The
+     * detector is referenced weakly.
+     */
+    private static class Registration extends
+            WeakReference<WatchServiceReloadingDetector>
+    {
+        /** The name of the monitored file. */
+        private final Path fileName;
+
+        /**
+         * Creates a new instance of {@code Registration}.
+         *
+         * @param detector the detector
+         * @param fileName the name of the monitored file
+         */
+        public Registration(WatchServiceReloadingDetector detector,
+                Path fileName)
+        {
+            super(detector);
+            this.fileName = fileName;
+        }
+    }
+}
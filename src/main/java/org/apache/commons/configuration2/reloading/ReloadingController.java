@@ -57,6 +57,38 @@ import org.apache.commons.configuration2.event.EventType;
  * notifications any more.</li>
  * </ul>
  * <p>
+ * Optionally, a <em>quiet period</em> can be set. Then a change reported by
+ * the detector does not immediately cause a reloading event. Rather, the
+ * controller waits until no further changes have been detected for the
+ * duration of the quiet period; so a burst of changes - e.g. a file which is
+ * written in multiple steps - results in a single event, which is fired only
+ * after the source has become stable. To find out whether changes continue,
+ * the detector's {@code reloadingPerformed()} method is called each time a
+ * change has been detected during the quiet period. In order to avoid that a
+ * source which is changed continuously never gets reloaded, a maximum delay
+ * can be set; when it has passed since the first change, the event is fired
+ * in any case. Note that the quiet period is evaluated only when
+ * {@code checkForReloading()} is called; so the interval of checks determines
+ * its accuracy.
+ * </p>
+ * <p>
+ * {@code checkForReloading()} invokes the detector while holding this
+ * object's monitor; depending on the detector this may involve I/O. It should
+ * therefore not be called on performance-critical code paths, e.g. whenever a
+ * configuration is accessed. For such use cases, checks should be performed in
+ * the background (for instance by a {@link PeriodicReloadingTrigger} or a
+ * {@link ReloadingScheduler}); the {@link #isInReloadingState()} method can
+ * then be used to find out cheaply whether a change has been detected. This
+ * method just reads a flag which is published by the background checks; it
+ * neither blocks nor accesses the detector.
+ * </p>
+ * <p>
+ * After listeners have been notified about a reloading event, a
+ * {@link ReloadingTimingEvent} is fired which provides information about the
+ * durations of the single steps. It can be used to monitor reloading
+ * operations.
+ * </p>
+ * <p>
  * This class can be accessed from multiple threads concurrently. It shields the
  * associated {@link ReloadingDetector} object for concurrent access, so that a
  * concrete detector implementation does not have to be thread-safe.
@@ -73,8 +105,26 @@ public class ReloadingController implements EventSource
     /** The helper object which manages the registered event listeners. */
     private final EventListenerList listeners;
 
-    /** A flag whether this controller is in reloading state. */
-    private boolean reloadingState;
+    /**
+     * A flag whether this controller is in reloading state. It is only
+     * changed while holding the monitor, but can be read without it.
+     */
+    private volatile boolean reloadingState;
+
+    /** The quiet period in milliseconds. */
+    private long quietPeriod;
+
+    /** The maximum delay of a reload caused by the quiet period. */
+    private long maxReloadDelay;
+
+    /** The time of the first change in the current quiet period. */
+    private long firstChangeTime;
+
+    /** The time of the last change in the current quiet period. */
+    private long lastChangeTime;
+
+    /** A flag whether changes have been detected in the quiet period. */
+    private boolean changePending;
 
     /**
      * Creates a new instance of {@code ReloadingController} and associates it
@@ -122,16 +172,82 @@ public class ReloadingController implements EventSource
         return listeners.removeEventListener(eventType, listener);
     }
 
+    /**
+     * Returns the quiet period in milliseconds. A value of 0 means that
+     * reloading events are fired immediately when a change is detected.
+     *
+     * @return the quiet period
+     * @since 2.2
+     */
+    public synchronized long getQuietPeriod()
+    {
+        return quietPeriod;
+    }
+
+    /**
+     * Sets the quiet period in milliseconds. If set to a value greater than 0,
+     * a reloading event is only fired if no further changes have been
+     * detected for this time. Per default, the quiet period is 0.
+     *
+     * @param millis the quiet period in milliseconds
+     * @throws IllegalArgumentException if the value is negative
+     * @since 2.2
+     */
+    public synchronized void setQuietPeriod(long millis)
+    {
+        if (millis < 0)
+        {
+            throw new IllegalArgumentException(
+                    "Quiet period must not be negative: " + millis);
+        }
+        quietPeriod = millis;
+    }
+
+    /**
+     * Returns the maximum delay of a reloading event caused by the quiet
+     * period in milliseconds. A value of 0 means that there is no limit.
+     *
+     * @return the maximum reload delay
+     * @since 2.2
+     */
+    public synchronized long getMaxReloadDelay()
+    {
+        return maxReloadDelay;
+    }
+
+    /**
+     * Sets the maximum delay of a reloading event caused by the quiet period
+     * in milliseconds. If changes are detected continuously, a reloading event
+     * is fired after this time has passed since the first change. A value of
+     * 0 (which is the default) means that there is no limit.
+     *
+     * @param millis the maximum reload delay in milliseconds
+     * @throws IllegalArgumentException if the value is negative
+     * @since 2.2
+     */
+    public synchronized void setMaxReloadDelay(long millis)
+    {
+        if (millis < 0)
+        {
+            throw new IllegalArgumentException(
+                    "Maximum reload delay must not be negative: " + millis);
+        }
+        maxReloadDelay = millis;
+    }
+
     /**
      * Tests whether this controller is in <em>reloading state</em>. A return
      * value of <b>true</b> means that a previous invocation of
      * {@code checkForReloading()} has detected the necessity for a reload
      * operation, but {@code resetReloadingState()} has not been called yet. In
-     * this state no further reloading checks are possible.
+     * this state no further reloading checks are possible. This method does
+     * not synchronize on this object; so it never blocks, even if another
+     * thread is currently performing a reloading check. It can therefore be
+     * called frequently on the read path of an application.
      *
      * @return a flag whether this controller is in reloading state
      */
-    public synchronized boolean isInReloadingState()
+    public boolean isInReloadingState()
     {
         return reloadingState;
     }
@@ -147,30 +263,49 @@ public class ReloadingController implements EventSource
      * is in <em>reloading state</em>. Until this state is reset (by calling
      * {@link #resetReloadingState()}), no further reloading checks are
      * performed by this method, and no events are fired; it then returns always
-     * <b>true</b>.
+     * <b>true</b>. If a quiet period is set, this method returns <b>false</b>
+     * while changes have been detected, but the quiet period has not yet
+     * passed.
      *
      * @param data additional data for an event notification
      * @return a flag whether a reload operation is necessary
      */
     public boolean checkForReloading(Object data)
     {
+        if (reloadingState)
+        {
+            // fast path: no need to acquire the lock
+            return true;
+        }
+
         boolean sendEvent = false;
+        long detectionNanos;
+        long latency = 0;
         synchronized (this)
         {
             if (isInReloadingState())
             {
                 return true;
             }
-            if (getDetector().isReloadingRequired())
+            long startTime = System.nanoTime();
+            boolean quiet = getQuietPeriod() > 0;
+            sendEvent =
+                    quiet ? checkQuietPeriod() : getDetector()
+                            .isReloadingRequired();
+            detectionNanos = System.nanoTime() - startTime;
+            if (sendEvent)
             {
-                sendEvent = true;
                 reloadingState = true;
+                if (quiet)
+                {
+                    latency = now() - firstChangeTime;
+                }
             }
         }
 
         if (sendEvent)
         {
-            listeners.fire(new ReloadingEvent(this, data));
+            fireReloadingEvent(data, detectionNanos, latency);
             return true;
         }
         return false;
@@ -189,4 +324,116 @@ public class ReloadingController implements EventSource
             reloadingState = false;
         }
     }
+
+    /**
+     * Checks whether a change has been detected during the quiet period. This
+     * method is called by {@code checkForReloading()} if a quiet period is
+     * set. The default implementation asks the associated detector. If it
+     * reports a change, its {@code reloadingPerformed()} method is called, so
+     * that further changes can be detected. Note: This method is called from a
+     * synchronized block.
+     *
+     * @return a flag whether a change has been detected
+     * @since 2.2
+     */
+    protected boolean pollChange()
+    {
+        if (getDetector().isReloadingRequired())
+        {
+            getDetector().reloadingPerformed();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Puts this controller into reloading state and fires a reloading event
+     * unconditionally. This method is used by a combined controller to
+     * trigger sub controllers for which changes have been detected during a
+     * quiet period. If this controller is already in reloading state, this
+     * method has no effect.
+     *
+     * @param data additional data for the event notification
+     */
+    void triggerReloading(Object data)
+    {
+        synchronized (this)
+        {
+            if (isInReloadingState())
+            {
+                return;
+            }
+            reloadingState = true;
+            changePending = false;
+        }
+        fireReloadingEvent(data, 0, 0);
+    }
+
+    /**
+     * Notifies this object that a reloading event is about to be fired. This
+     * method is called outside of a synchronized block. This base
+     * implementation is empty.
+     */
+    void beforeReloadingEvent()
+    {
+    }
+
+    /**
+     * Returns the current time in milliseconds. This method is used for
+     * evaluating the quiet period.
+     *
+     * @return the current time
+     */
+    long now()
+    {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Fires a reloading event to all registered listeners. Afterwards, a
+     * {@link ReloadingTimingEvent} is fired.
+     *
+     * @param data additional data for the event notification
+     * @param detectionNanos the duration of the reloading check
+     * @param latency the change latency in milliseconds
+     */
+    private void fireReloadingEvent(Object data, long detectionNanos,
+            long latency)
+    {
+        long startTime = System.nanoTime();
+        beforeReloadingEvent();
+        listeners.fire(new ReloadingEvent(this, data));
+        listeners.fire(new ReloadingTimingEvent(this, data, detectionNanos,
+                latency, System.nanoTime() - startTime));
+    }
+
+    /**
+     * Checks whether a reloading event has to be fired if a quiet period is
+     * set. New changes restart the quiet period. The event is fired when the
+     * quiet period or the maximum reload delay has passed.
+     *
+     * @return a flag whether a reloading event has to be fired
+     */
+    private boolean checkQuietPeriod()
+    {
+        long time = now();
+        if (pollChange())
+        {
+            if (!changePending)
+            {
+                changePending = true;
+                firstChangeTime = time;
+            }
+            lastChangeTime = time;
+        }
+
+        if (changePending
+                && (time - lastChangeTime >= getQuietPeriod() || (getMaxReloadDelay() > 0 && time
+                        - firstChangeTime >= getMaxReloadDelay())))
+        {
+            changePending = false;
+            return true;
+        }
+        return false;
+    }
 }
@@ -55,7 +55,23 @@ public class ReloadingEvent extends Event
      */
     public ReloadingEvent(ReloadingController source, Object addData)
     {
-        super(source, ANY);
+        this(source, ANY, addData);
+    }
+
+    /**
+     * Creates a new instance of {@code ReloadingEvent} with the given event
+     * type. This constructor is used by derived event classes.
+     *
+     * @param source the controller which generated this event
+     * @param evType the type of this event
+     * @param addData an arbitrary data object to be evaluated by event
+     *        listeners
+     * @since 2.2
+     */
+    protected ReloadingEvent(ReloadingController source,
+            EventType<? extends ReloadingEvent> evType, Object addData)
+    {
+        super(source, evType);
         data = addData;
     }
 
@@ -0,0 +1,519 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.reloading;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+
+/**
+ * <p>
+ * A central scheduler which triggers reloading checks for an arbitrary number
+ * of {@link ReloadingController} objects using a small pool of threads.
+ * </p>
+ * <p>
+ * While a {@link PeriodicReloadingTrigger} schedules a task for a single
+ * controller, an instance of this class manages many controllers. Each
+ * controller is registered with its own period. The scheduler keeps all
+ * registered controllers in a queue ordered by the time of their next check.
+ * A single dispatch task runs in short intervals; it removes all controllers
+ * which are due and hands them over to the executor in batches. A batch is
+ * processed sequentially by a single worker thread, which keeps the number of
+ * tasks - and thus scheduling overhead - low even if thousands of controllers
+ * are registered. After a controller has been checked, it is scheduled again
+ * based on its period; so checks of the same controller never overlap.
+ * </p>
+ * <p>
+ * To avoid that many controllers with the same period are checked at exactly
+ * the same time (which would cause bursts of file system accesses), a random
+ * jitter is applied: the first check of a newly registered controller happens
+ * at a random point in time within its period, and the intervals between
+ * further checks vary randomly by the jitter factor (a value of 0.1 means that
+ * an interval may be up to 10 percent shorter or longer than the period).
+ * </p>
+ * <p>
+ * Because the dispatch task runs every 50 milliseconds, periods shorter than
+ * this value are not supported exactly. When the scheduler is no longer
+ * needed, its {@code shutdown()} method should be called. Implementation
+ * note: This class is thread-safe.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.2
+ * @see PeriodicReloadingTrigger
+ */
+public class ReloadingScheduler
+{
+    /** Constant for the default jitter factor. */
+    public static final double DEFAULT_JITTER = 0.1;
+
+    /** Constant for the default batch size. */
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    /** Constant for the interval of the dispatch task in milliseconds. */
+    static final long DISPATCH_INTERVAL_MILLIS = 50;
+
+    /** The executor service used by this scheduler. */
+    private final ScheduledExecutorService executorService;
+
+    /** The jitter factor. */
+    private final double jitter;
+
+    /** The maximum number of controllers checked in a single task. */
+    private final int batchSize;
+
+    /** A map with the registrations for the managed controllers. */
+    private final ConcurrentMap<ReloadingController, Registration> registrations;
+
+    /** The queue with the registrations ordered by their next check. */
+    private final PriorityQueue<Registration> queue;
+
+    /** The dispatch task; <b>null</b> if the scheduler is shut down. */
+    private ScheduledFuture<?> dispatchTask;
+
+    /**
+     * Creates a new instance of {@code ReloadingScheduler} and initializes it
+     * with all parameters.
+     *
+     * @param exec the executor service to use (can be <b>null</b>, then a
+     *        default executor service with a single thread is created)
+     * @param jitterFactor the jitter factor; must be in the range [0, 1)
+     * @param batch the maximum number of controllers checked by a single task
+     * @throws IllegalArgumentException if a parameter is invalid
+     */
+    public ReloadingScheduler(ScheduledExecutorService exec,
+            double jitterFactor, int batch)
+    {
+        if (jitterFactor < 0 || jitterFactor >= 1)
+        {
+            throw new IllegalArgumentException(
+                    "Jitter must be in the range [0, 1): " + jitterFactor);
+        }
+        if (batch < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Batch size must be positive: " + batch);
+        }
+
+        executorService =
+                (exec != null) ? exec : createDefaultExecutorService(1);
+        jitter = jitterFactor;
+        batchSize = batch;
+        registrations = new ConcurrentHashMap<>();
+        queue = new PriorityQueue<>();
+        dispatchTask =
+                executorService.scheduleWithFixedDelay(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        dispatch();
+                    }
+                }, DISPATCH_INTERVAL_MILLIS, DISPATCH_INTERVAL_MILLIS,
+                        TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new instance of {@code ReloadingScheduler} with a default
+     * executor service using the given number of threads and default
+     * settings for the jitter and the batch size.
+     *
+     * @param threadCount the number of threads
+     * @throws IllegalArgumentException if the number of threads is not
+     *         positive
+     */
+    public ReloadingScheduler(int threadCount)
+    {
+        this(createDefaultExecutorService(threadCount), DEFAULT_JITTER,
+                DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a new instance of {@code ReloadingScheduler} with a default
+     * executor service using a single thread.
+     */
+    public ReloadingScheduler()
+    {
+        this(1);
+    }
+
+    /**
+     * Returns the jitter factor used by this scheduler.
+     *
+     * @return the jitter factor
+     */
+    public double getJitter()
+    {
+        return jitter;
+    }
+
+    /**
+     * Returns the maximum number of controllers checked by a single task.
+     *
+     * @return the batch size
+     */
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    /**
+     * Registers a {@code ReloadingController} at this scheduler. From now on
+     * the controller's {@code checkForReloading()} method is called
+     * periodically with the given parameter. If the controller is already
+     * registered, its registration is replaced.
+     *
+     * @param ctrl the {@code ReloadingController} (must not be <b>null</b>)
+     * @param ctrlParam the optional parameter to be passed to the controller
+     * @param period the period in which the controller is checked
+     * @param unit the time unit for the period (must not be <b>null</b>)
+     * @throws IllegalArgumentException if a parameter is invalid
+     * @throws IllegalStateException if this scheduler has been shut down
+     */
+    public void register(ReloadingController ctrl, Object ctrlParam,
+            long period, TimeUnit unit)
+    {
+        if (ctrl == null)
+        {
+            throw new IllegalArgumentException(
+                    "ReloadingController must not be null!");
+        }
+        if (unit == null)
+        {
+            throw new IllegalArgumentException("TimeUnit must not be null!");
+        }
+        if (period <= 0)
+        {
+            throw new IllegalArgumentException("Period must be positive: "
+                    + period);
+        }
+
+        Registration reg =
+                new Registration(ctrl, ctrlParam, unit.toNanos(period));
+        reg.nextCheck =
+                System.nanoTime()
+                        + ThreadLocalRandom.current().nextLong(reg.period);
+        synchronized (queue)
+        {
+            if (isShutdown())
+            {
+                throw new IllegalStateException(
+                        "ReloadingScheduler has been shut down!");
+            }
+            Registration old = registrations.put(ctrl, reg);
+            if (old != null)
+            {
+                cancel(old);
+            }
+            queue.add(reg);
+        }
+    }
+
+    /**
+     * Removes the registration of the given {@code ReloadingController}. It is
+     * no longer checked by this scheduler.
+     *
+     * @param ctrl the {@code ReloadingController}
+     * @return a flag whether the controller was registered
+     */
+    public boolean unregister(ReloadingController ctrl)
+    {
+        synchronized (queue)
+        {
+            Registration reg = registrations.remove(ctrl);
+            if (reg != null)
+            {
+                cancel(reg);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Returns a flag whether the given {@code ReloadingController} is
+     * registered at this scheduler.
+     *
+     * @param ctrl the {@code ReloadingController}
+     * @return a flag whether this controller is registered
+     */
+    public boolean isRegistered(ReloadingController ctrl)
+    {
+        return registrations.containsKey(ctrl);
+    }
+
+    /**
+     * Returns the number of controllers registered at this scheduler.
+     *
+     * @return the number of registered controllers
+     */
+    public int getRegisteredControllerCount()
+    {
+        return registrations.size();
+    }
+
+    /**
+     * Returns a flag whether this scheduler has been shut down.
+     *
+     * @return a flag whether this scheduler is shut down
+     */
+    public boolean isShutdown()
+    {
+        synchronized (queue)
+        {
+            return dispatchTask == null;
+        }
+    }
+
+    /**
+     * Shuts down this scheduler and optionally shuts down the
+     * {@code ScheduledExecutorService} used by this object. All registrations
+     * are removed. If the parameter is <b>true</b>, the executor service is
+     * also shut down. This should be done if this scheduler is the only user of
+     * this executor service.
+     *
+     * @param shutdownExecutor a flag whether the associated
+     *        {@code ScheduledExecutorService} is to be shut down
+     */
+    public void shutdown(boolean shutdownExecutor)
+    {
+        synchronized (queue)
+        {
+            if (dispatchTask != null)
+            {
+                dispatchTask.cancel(false);
+                dispatchTask = null;
+            }
+            for (Registration reg : registrations.values())
+            {
+                reg.cancelled = true;
+            }
+            registrations.clear();
+            queue.clear();
+        }
+        if (shutdownExecutor)
+        {
+            getExecutorService().shutdown();
+        }
+    }
+
+    /**
+     * Shuts down this scheduler and its {@code ScheduledExecutorService}. This
+     * is a shortcut for {@code shutdown(true)}.
+     *
+     * @see #shutdown(boolean)
+     */
+    public void shutdown()
+    {
+        shutdown(true);
+    }
+
+    /**
+     * Returns the {@code ScheduledExecutorService} used by this object.
+     *
+     * @return the associated {@code ScheduledExecutorService}
+     */
+    ScheduledExecutorService getExecutorService()
+    {
+        return executorService;
+    }
+
+    /**
+     * Calculates the delay until the next check of a controller with the
+     * given period. The period is varied randomly by the jitter factor.
+     *
+     * @param period the period in nanoseconds
+     * @return the delay in nanoseconds
+     */
+    long nextDelay(long period)
+    {
+        if (jitter == 0)
+        {
+            return period;
+        }
+        double factor =
+                1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Math.max(1, (long) (period * factor));
+    }
+
+    /**
+     * Executes a dispatch run. All registrations which are due are removed
+     * from the queue and passed to the executor service in batches.
+     */
+    private void dispatch()
+    {
+        List<Registration> due = new ArrayList<>();
+        long now = System.nanoTime();
+        synchronized (queue)
+        {
+            while (!queue.isEmpty() && queue.peek().nextCheck - now <= 0)
+            {
+                due.add(queue.poll());
+            }
+        }
+
+        for (int start = 0; start < due.size(); start += batchSize)
+        {
+            final List<Registration> batch =
+                    due.subList(start, Math.min(start + batchSize, due.size()));
+            try
+            {
+                getExecutorService().execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        check(batch);
+                    }
+                });
+            }
+            catch (RejectedExecutionException rex)
+            {
+                // the executor has been shut down
+                return;
+            }
+        }
+    }
+
+    /**
+     * Performs reloading checks for a batch of registrations and schedules
+     * them again.
+     *
+     * @param batch the registrations to be checked
+     */
+    private void check(List<Registration> batch)
+    {
+        for (Registration reg : batch)
+        {
+            if (!reg.cancelled)
+            {
+                try
+                {
+                    reg.controller.checkForReloading(reg.param);
+                }
+                catch (RuntimeException rex)
+                {
+                    // ignore; a failing controller must not affect others
+                }
+            }
+        }
+
+        long now = System.nanoTime();
+        synchronized (queue)
+        {
+            for (Registration reg : batch)
+            {
+                if (!reg.cancelled)
+                {
+                    reg.nextCheck = now + nextDelay(reg.period);
+                    queue.add(reg);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cancels a registration and removes it from the queue. Caller must hold
+     * the lock on the queue.
+     *
+     * @param reg the registration
+     */
+    private void cancel(Registration reg)
+    {
+        reg.cancelled = true;
+        queue.remove(reg);
+    }
+
+    /**
+     * Creates a default executor service with the given number of threads.
+     *
+     * @param threadCount the number of threads
+     * @return the default executor service
+     */
+    private static ScheduledExecutorService createDefaultExecutorService(
+            int threadCount)
+    {
+        if (threadCount < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Number of threads must be positive: " + threadCount);
+        }
+        ThreadFactory factory =
+                new BasicThreadFactory.Builder()
+                        .namingPattern("ReloadingScheduler-%s").daemon(true)
+                        .build();
+        return Executors.newScheduledThreadPool(threadCount, factory);
+    }
+
+    /**
+     * A class representing the registration of a controller.
+     */
+    private static class Registration implements Comparable<Registration>
+    {
+        /** The controller. */
+        private final ReloadingController controller;
+
+        /** The parameter for the controller. */
+        private final Object param;
+
+        /** The period in nanoseconds. */
+        private final long period;
+
+        /** The time of the next check; changed only while not queued. */
+        private long nextCheck;
+
+        /** A flag whether this registration has been cancelled. */
+        private volatile boolean cancelled;
+
+        /**
+         * Creates a new instance of {@code Registration}.
+         *
+         * @param ctrl the controller
+         * @param ctrlParam the parameter for the controller
+         * @param periodNanos the period in nanoseconds
+         */
+        public Registration(ReloadingController ctrl, Object ctrlParam,
+                long periodNanos)
+        {
+            controller = ctrl;
+            param = ctrlParam;
+            period = periodNanos;
+        }
+
+        /**
+         * {@inheritDoc} Registrations are ordered by the time of their next
+         * check.
+         */
+        @Override
+        public int compareTo(Registration o)
+        {
+            long diff = nextCheck - o.nextCheck;
+            return (diff < 0) ? -1 : ((diff > 0) ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.reloading;
+
+import org.apache.commons.configuration2.event.Event;
+import org.apache.commons.configuration2.event.EventType;
+
+/**
+ * <p>
+ * An event providing timing information about a reloading notification.
+ * </p>
+ * <p>
+ * Events of this type are generated by {@link ReloadingController} after a
+ * {@link ReloadingEvent} has been delivered to all registered listeners. They
+ * contain the following durations:
+ * </p>
+ * <ul>
+ * <li>The <em>detection duration</em>: the time the reloading check took which
+ * detected the change (i.e. mainly the time spent in the
+ * {@link ReloadingDetector}).</li>
+ * <li>The <em>change latency</em>: if a quiet period is set, the time between
+ * the first detected change and the reloading notification. Without a quiet
+ * period, this is 0.</li>
+ * <li>The <em>listener duration</em>: the time needed to notify all listeners
+ * about the {@code ReloadingEvent}; this includes the reset of the builders
+ * connected to the controller.</li>
+ * </ul>
+ * <p>
+ * Note that the event type of this class is not derived from
+ * {@link ReloadingEvent#ANY}; so listeners for reloading events are not
+ * notified about timing events. Listeners interested in timing information
+ * have to register for the {@link #RELOADING_TIMING} event type explicitly.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.2
+ */
+public class ReloadingTimingEvent extends ReloadingEvent
+{
+    /** The event type for timing events of a reloading controller. */
+    public static final EventType<ReloadingTimingEvent> RELOADING_TIMING =
+            new EventType<>(Event.ANY, "RELOADING_TIMING");
+
+    /**
+     * The serial version UID.
+     */
+    private static final long serialVersionUID = 20261019L;
+
+    /** The detection duration in nanoseconds. */
+    private final long detectionNanos;
+
+    /** The change latency in milliseconds. */
+    private final long changeLatencyMillis;
+
+    /** The listener duration in nanoseconds. */
+    private final long listenerNanos;
+
+    /**
+     * Creates a new instance of {@code ReloadingTimingEvent} and initializes
+     * it.
+     *
+     * @param source the controller which generated this event
+     * @param addData the data object passed to the reloading check
+     * @param detection the detection duration in nanoseconds
+     * @param latency the change latency in milliseconds
+     * @param listeners the listener duration in nanoseconds
+     */
+    public ReloadingTimingEvent(ReloadingController source, Object addData,
+            long detection, long latency, long listeners)
+    {
+        super(source, RELOADING_TIMING, addData);
+        detectionNanos = detection;
+        changeLatencyMillis = latency;
+        listenerNanos = listeners;
+    }
+
+    /**
+     * Returns the duration of the reloading check which detected the change
+     * in nanoseconds. This is 0 if the reloading event was not caused by a
+     * check of this controller (e.g. if it was triggered by a combined
+     * controller).
+     *
+     * @return the detection duration in nanoseconds
+     */
+    public long getDetectionNanos()
+    {
+        return detectionNanos;
+    }
+
+    /**
+     * Returns the time between the first detected change and the reloading
+     * notification in milliseconds. This is only greater than 0 if a quiet
+     * period is set.
+     *
+     * @return the change latency in milliseconds
+     */
+    public long getChangeLatencyMillis()
+    {
+        return changeLatencyMillis;
+    }
+
+    /**
+     * Returns the time needed to notify all reloading listeners in
+     * nanoseconds.
+     *
+     * @return the listener duration in nanoseconds
+     */
+    public long getListenerNanos()
+    {
+        return listenerNanos;
+    }
+}
@@ -19,7 +19,9 @@ package org.apache.commons.configuration2.reloading;
 
 import org.apache.commons.configuration2.ex.ConfigurationRuntimeException;
 import org.apache.commons.configuration2.io.FileHandler;
+import org.apache.commons.configuration2.io.FileHandlerListenerAdapter;
 import org.apache.commons.configuration2.io.FileSystem;
+import org.apache.commons.configuration2.io.VFSFileSystem;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.commons.vfs2.FileObject;
@@ -41,6 +43,16 @@ import org.apache.commons.vfs2.VFS;
  * <p>
  * This strategy only works with FileConfiguration instances.
  * </p>
+ * <p>
+ * The {@code FileObject} for the monitored file is resolved only once and then
+ * cached until the location of the associated {@code FileHandler} changes. On
+ * each check, the cached object is refreshed, so that a single metadata
+ * request is sufficient to find out whether the file has been changed. If the
+ * {@code FileHandler} uses a {@link VFSFileSystem}, the file is resolved
+ * through this file system; so its file system options apply, and the
+ * detector can share the VFS file system (e.g. an open connection to a remote
+ * host) with the operations which load the file.
+ * </p>
  *
  * @author <a
  *         href="http://commons.apache.org/configuration/team-list.html">Commons
@@ -53,6 +65,12 @@ public class VFSFileHandlerReloadingDetector extends FileHandlerReloadingDetecto
     /** Stores the logger.*/
     private final Log log = LogFactory.getLog(getClass());
 
+    /** The cached file object for the monitored file. */
+    private FileObject fileObject;
+
+    /** A flag whether the location of the file handler has changed. */
+    private volatile boolean locationChanged;
+
     /**
      * Creates a new instance of {@code VFSFileHandlerReloadingDetector} and
      * initializes it with an empty {@code FileHandler} object.
@@ -60,6 +78,7 @@ public class VFSFileHandlerReloadingDetector extends FileHandlerReloadingDetecto
     public VFSFileHandlerReloadingDetector()
     {
         super();
+        registerLocationListener();
     }
 
     /**
@@ -74,6 +93,7 @@ public class VFSFileHandlerReloadingDetector extends FileHandlerReloadingDetecto
             long refreshDelay)
     {
         super(handler, refreshDelay);
+        registerLocationListener();
     }
 
     /**
@@ -85,6 +105,7 @@ public class VFSFileHandlerReloadingDetector extends FileHandlerReloadingDetecto
     public VFSFileHandlerReloadingDetector(FileHandler handler)
     {
         super(handler);
+        registerLocationListener();
     }
 
     /**
@@ -114,7 +135,9 @@ public class VFSFileHandlerReloadingDetector extends FileHandlerReloadingDetecto
 
     /**
      * Returns the file that is monitored by this strategy. Note that the return
-     * value can be <b>null </b> under some circumstances.
+     * value can be <b>null </b> under some circumstances. The file object is
+     * cached; if a cached object is available, it is refreshed so that it
+     * reflects the current state of the file.
      *
      * @return the monitored file
      */
@@ -125,15 +148,34 @@ public class VFSFileHandlerReloadingDetector extends FileHandlerReloadingDetecto
             return null;
         }
 
+        if (locationChanged)
+        {
+            locationChanged = false;
+            fileObject = null;
+        }
+        if (fileObject != null)
+        {
+            try
+            {
+                fileObject.refresh();
+                return fileObject;
+            }
+            catch (FileSystemException fse)
+            {
+                // resolve the file again
+                fileObject = null;
+            }
+        }
+
         try
         {
-            FileSystemManager fsManager = VFS.getManager();
             String uri = resolveFileURI();
             if (uri == null)
             {
                 throw new ConfigurationRuntimeException("Unable to determine file to monitor");
             }
-            return fsManager.resolveFile(uri);
+            fileObject = resolveFile(uri);
+            return fileObject;
         }
         catch (FileSystemException fse)
         {
@@ -143,6 +185,44 @@ public class VFSFileHandlerReloadingDetector extends FileHandlerReloadingDetecto
         }
     }
 
+    /**
+     * Resolves the {@code FileObject} for the given URI. If the file handler
+     * uses a {@link VFSFileSystem}, the file is resolved by this file system.
+     * Otherwise, the default VFS file system manager is used.
+     *
+     * @param uri the URI of the monitored file
+     * @return the {@code FileObject}
+     * @throws FileSystemException if the file cannot be resolved
+     */
+    private FileObject resolveFile(String uri) throws FileSystemException
+    {
+        FileSystem fs = getFileHandler().getFileSystem();
+        if (fs instanceof VFSFileSystem)
+        {
+            return ((VFSFileSystem) fs).resolveFile(uri);
+        }
+        FileSystemManager fsManager = VFS.getManager();
+        return fsManager.resolveFile(uri);
+    }
+
+    /**
+     * Registers a listener at the file handler which invalidates the cached
+     * file object when the location changes.
+     */
+    private void registerLocationListener()
+    {
+        getFileHandler().addFileHandlerListener(
+                new FileHandlerListenerAdapter()
+                {
+                    @Override
+                    public void locationChanged(FileHandler handler)
+                    {
+                        VFSFileHandlerReloadingDetector.this.locationChanged =
+                                true;
+                    }
+                });
+    }
+
     /**
      * Resolves the URI of the monitored file.
      *
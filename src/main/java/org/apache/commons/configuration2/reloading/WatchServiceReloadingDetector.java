@@ -0,0 +1,336 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.reloading;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+
+import org.apache.commons.configuration2.io.FileHandler;
+import org.apache.commons.configuration2.io.FileHandlerListenerAdapter;
+
+/**
+ * <p>
+ * A specialized {@code ReloadingDetector} implementation which is notified
+ * about changes of the monitored file by a {@code java.nio.file.WatchService}.
+ * </p>
+ * <p>
+ * {@link FileHandlerReloadingDetector} checks the last modification date of
+ * the monitored file each time {@code isReloadingRequired()} is called (at most
+ * once per refresh delay). This class in contrast registers the directory of
+ * the file at a watch service. File system events are received by a
+ * background thread which sets a flag in the affected detectors. Therefore,
+ * {@code isReloadingRequired()} does not have to perform any I/O; it merely
+ * checks this flag, and changes are noticed as soon as the file system reports
+ * them, independent on the refresh delay.
+ * </p>
+ * <p>
+ * All instances share a single watch service and a single daemon thread; each
+ * directory is registered only once, even if it contains many monitored files.
+ * The monitored file is registered lazily on the first invocation of
+ * {@code isReloadingRequired()}. If the location of the associated
+ * {@code FileHandler} changes, the registration is updated automatically.
+ * </p>
+ * <p>
+ * If the file cannot be watched - for instance because it does not exist, it
+ * is not located on the local file system, or the file system does not
+ * support change notifications - this class falls back to the polling
+ * mechanism of its base class. In this case, the refresh delay has its usual
+ * meaning; it also determines how often an attempt is made to register the
+ * file again.
+ * </p>
+ * <p>
+ * Polling is used, too, if the monitored file is a symbolic link. Events are
+ * only reported for the directory containing the link, but not for the
+ * target of the link; so if the target is changed, or the link is replaced
+ * by another one pointing to a different location (as is done, for instance,
+ * for configuration files mounted into containers), no event would be
+ * received for the monitored file. A file which becomes a symbolic link while
+ * it is watched is detected after the next reload.
+ * </p>
+ * <p>
+ * When a detector is no longer needed its {@code close()} method should be
+ * called. (Detectors which are garbage collected are removed automatically,
+ * too, but this may take longer.)
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.2
+ */
+public class WatchServiceReloadingDetector extends FileHandlerReloadingDetector
+{
+    /** Constant for the default refresh delay. */
+    private static final long DEFAULT_REFRESH_DELAY = 5000;
+
+    /** The object for watching files. */
+    private final FileWatcher watcher;
+
+    /** A flag whether a change notification was received. */
+    private volatile boolean changed;
+
+    /** A flag whether the location of the file handler has changed. */
+    private volatile boolean locationChanged;
+
+    /** The file to be watched. */
+    private Path watchedFile;
+
+    /** A flag whether the file is currently registered. */
+    private boolean watching;
+
+    /** The time of the last attempt to register the file. */
+    private long lastRegistrationAttempt;
+
+    /**
+     * Creates a new instance of {@code WatchServiceReloadingDetector} and
+     * initializes it with the {@code FileHandler} to monitor and the refresh
+     * delay. The refresh delay is only relevant if the file cannot be watched
+     * and polling has to be used.
+     *
+     * @param handler the {@code FileHandler} associated with this detector (can
+     *        be <b>null</b>)
+     * @param refreshDelay the refresh delay for polling
+     */
+    public WatchServiceReloadingDetector(FileHandler handler, long refreshDelay)
+    {
+        this(handler, refreshDelay, FileWatcher.getDefaultInstance());
+    }
+
+    /**
+     * Creates a new instance of {@code WatchServiceReloadingDetector} and
+     * initializes it with the {@code FileHandler} to monitor and a default
+     * refresh delay.
+     *
+     * @param handler the {@code FileHandler} associated with this detector (can
+     *        be <b>null</b>)
+     */
+    public WatchServiceReloadingDetector(FileHandler handler)
+    {
+        this(handler, DEFAULT_REFRESH_DELAY);
+    }
+
+    /**
+     * Creates a new instance of {@code WatchServiceReloadingDetector} with an
+     * uninitialized {@code FileHandler} object.
+     */
+    public WatchServiceReloadingDetector()
+    {
+        this(null);
+    }
+
+    /**
+     * Creates a new instance of {@code WatchServiceReloadingDetector} which
+     * uses the specified {@code FileWatcher}. This constructor is used for
+     * testing purposes.
+     *
+     * @param handler the {@code FileHandler}
+     * @param refreshDelay the refresh delay for polling
+     * @param fileWatcher the {@code FileWatcher}
+     */
+    WatchServiceReloadingDetector(FileHandler handler, long refreshDelay,
+            FileWatcher fileWatcher)
+    {
+        super(handler, refreshDelay);
+        watcher = fileWatcher;
+        locationChanged = true;
+        getFileHandler().addFileHandlerListener(
+                new FileHandlerListenerAdapter()
+                {
+                    @Override
+                    public void locationChanged(FileHandler handler)
+                    {
+                        WatchServiceReloadingDetector.this.locationChanged =
+                                true;
+                    }
+                });
+    }
+
+    /**
+     * Returns a flag whether the monitored file is currently watched. A result
+     * of <b>false</b> means that polling is used.
+     *
+     * @return a flag whether the file is watched
+     */
+    public synchronized boolean isWatching()
+    {
+        return watching;
+    }
+
+    /**
+     * {@inheritDoc} If the monitored file can be watched, this implementation
+     * just checks whether a change notification has been received. Otherwise,
+     * the polling implementation of the base class is called.
+     */
+    @Override
+    public boolean isReloadingRequired()
+    {
+        if (checkWatching())
+        {
+            return changed;
+        }
+        return super.isReloadingRequired();
+    }
+
+    /**
+     * {@inheritDoc} This implementation resets the flag for received change
+     * notifications.
+     */
+    @Override
+    public void reloadingPerformed()
+    {
+        changed = false;
+        checkSymbolicLink();
+        super.reloadingPerformed();
+    }
+
+    /**
+     * Releases the resources used by this detector. The monitored file is no
+     * longer watched. A detector can still be used after it has been closed;
+     * it then registers the file again.
+     */
+    public synchronized void close()
+    {
+        unwatch();
+        locationChanged = true;
+    }
+
+    /**
+     * Notifies this object that the monitored file has been changed. This
+     * method is called by the watcher thread.
+     */
+    void fileChanged()
+    {
+        changed = true;
+    }
+
+    /**
+     * Notifies this object that the watch for its file has been cancelled,
+     * e.g. because the directory was removed. The detector falls back to
+     * polling. This method is called by the watcher thread.
+     */
+    synchronized void watchCancelled()
+    {
+        watching = false;
+        lastRegistrationAttempt = System.currentTimeMillis();
+    }
+
+    /**
+     * Checks whether the monitored file is watched. Tries to register the
+     * file if necessary.
+     *
+     * @return a flag whether the file is watched
+     */
+    private synchronized boolean checkWatching()
+    {
+        if (locationChanged)
+        {
+            locationChanged = false;
+            unwatch();
+            watchedFile = fetchPath();
+            lastRegistrationAttempt = 0;
+        }
+
+        if (!watching && watchedFile != null)
+        {
+            long now = System.currentTimeMillis();
+            if (lastRegistrationAttempt == 0
+                    || now >= lastRegistrationAttempt + getRefreshDelay())
+            {
+                lastRegistrationAttempt = now;
+                watching = register(watchedFile);
+            }
+        }
+        return watching;
+    }
+
+    /**
+     * Checks whether the watched file has been replaced by a symbolic link. In
+     * this case, the file is no longer watched, and polling is used instead.
+     */
+    private synchronized void checkSymbolicLink()
+    {
+        if (watching && Files.isSymbolicLink(watchedFile))
+        {
+            unwatch();
+            lastRegistrationAttempt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Tries to register the given file at the watcher. Symbolic links are not
+     * registered because changes of their targets would not be reported.
+     *
+     * @param file the file to be watched
+     * @return a flag whether registration was successful
+     */
+    private boolean register(Path file)
+    {
+        if (Files.isSymbolicLink(file))
+        {
+            return false;
+        }
+        try
+        {
+            watcher.register(this, file);
+            return true;
+        }
+        catch (IOException ioex)
+        {
+            return false;
+        }
+        catch (UnsupportedOperationException uoex)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Removes the registration of the monitored file if it is currently
+     * watched.
+     */
+    private void unwatch()
+    {
+        if (watching)
+        {
+            watcher.unregister(this, watchedFile);
+            watching = false;
+        }
+    }
+
+    /**
+     * Determines the path of the file to be watched.
+     *
+     * @return the path or <b>null</b> if it cannot be determined
+     */
+    private Path fetchPath()
+    {
+        File file = getFile();
+        if (file == null)
+        {
+            return null;
+        }
+        try
+        {
+            return file.toPath().toAbsolutePath();
+        }
+        catch (InvalidPathException ipex)
+        {
+            return null;
+        }
+    }
+}
@@ -16,6 +16,7 @@
  */
 package org.apache.commons.configuration2.tree;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
@@ -113,7 +114,7 @@ import org.apache.commons.lang3.StringUtils;
  * Configuration team</a>
  * @version $Id$
  */
-public class DefaultExpressionEngine implements ExpressionEngine
+public class DefaultExpressionEngine implements VisitingExpressionEngine
 {
     /**
      * A default instance of this class that is used as expression engine for
@@ -186,12 +187,25 @@ public class DefaultExpressionEngine implements ExpressionEngine
     public <T> List<QueryResult<T>> query(T root, String key,
             NodeHandler<T> handler)
     {
-        List<QueryResult<T>> results = new LinkedList<>();
+        List<QueryResult<T>> results = new ArrayList<>();
         findNodesForKey(new DefaultConfigurationKey(this, key).iterator(),
                 root, results, handler);
         return results;
     }
 
+    /**
+     * {@inheritDoc} This method supports the syntax as described in the class
+     * comment. The node structure is traversed without creating temporary
+     * lists of child nodes or {@code QueryResult} objects.
+     */
+    @Override
+    public <T> void query(T root, String key, NodeHandler<T> handler,
+            QueryResultVisitor<T> visitor)
+    {
+        visitNodesForKey(new DefaultConfigurationKey(this, key).iterator(),
+                root, visitor, handler);
+    }
+
     /**
      * {@inheritDoc} This implementation takes the
      * given parent key, adds a property delimiter, and then adds the node's
@@ -377,27 +391,8 @@ public class DefaultExpressionEngine implements ExpressionEngine
             DefaultConfigurationKey.KeyIterator keyPart, T node,
             Collection<QueryResult<T>> results, NodeHandler<T> handler)
     {
-        if (!keyPart.hasNext())
-        {
-            results.add(QueryResult.createNodeResult(node));
-        }
-
-        else
-        {
-            String key = keyPart.nextKey(false);
-            if (keyPart.isPropertyKey())
-            {
-                processSubNodes(keyPart, findChildNodesByName(handler, node, key),
-                        results, handler);
-            }
-            if (keyPart.isAttribute() && !keyPart.hasNext())
-            {
-                if (handler.getAttributeValue(node, key) != null)
-                {
-                    results.add(QueryResult.createAttributeResult(node, key));
-                }
-            }
-        }
+        visitNodesForKey(keyPart, node, new ResultCollector<>(results),
+                handler);
     }
 
     /**
@@ -450,35 +445,88 @@ public class DefaultExpressionEngine implements ExpressionEngine
     }
 
     /**
-     * Called by {@code findNodesForKey()} to process the sub nodes of
-     * the current node depending on the type of the current key part (children,
-     * attributes, or both).
+     * Recursive helper method for evaluating a key with a visitor. This method
+     * processes all facets of a configuration key, traverses the tree of
+     * properties and passes all matching results to the visitor. The return
+     * value indicates whether the traversal should continue.
+     *
+     * @param <T> the type of nodes to be dealt with
+     * @param keyPart the configuration key iterator
+     * @param node the current node
+     * @param visitor the visitor receiving the results
+     * @param handler the node handler
+     * @return <b>false</b> if the visitor requested termination
+     */
+    private <T> boolean visitNodesForKey(
+            DefaultConfigurationKey.KeyIterator keyPart, T node,
+            QueryResultVisitor<T> visitor, NodeHandler<T> handler)
+    {
+        if (!keyPart.hasNext())
+        {
+            visitor.visitNode(node);
+            return !visitor.terminate();
+        }
+
+        String key = keyPart.nextKey(false);
+        // evaluate the iterator before it is passed to child nodes
+        boolean attribute = keyPart.isAttribute() && !keyPart.hasNext();
+        if (keyPart.isPropertyKey()
+                && !visitSubNodes(keyPart, node, key, visitor, handler))
+        {
+            return false;
+        }
+        if (attribute && handler.getAttributeValue(node, key) != null)
+        {
+            visitor.visitAttribute(node, key);
+            return !visitor.terminate();
+        }
+        return true;
+    }
+
+    /**
+     * Called by {@code visitNodesForKey()} to process the child nodes of the
+     * current node which match the current key part. The matching child nodes
+     * are obtained from the {@code NodeHandler}. If the key part has an index,
+     * only the child node with this index is processed. The key iterator is
+     * only cloned if multiple child nodes have to be processed; the last one
+     * receives the passed in iterator. Note that the iterator must not be used
+     * by the caller after this method returns.
      *
      * @param <T> the type of the nodes to be dealt with
      * @param keyPart the key part
-     * @param subNodes a list with the sub nodes to process
-     * @param nodes the target collection
+     * @param node the current node
+     * @param key the name of the child nodes
+     * @param visitor the visitor receiving the results
      * @param handler the node handler
+     * @return <b>false</b> if the visitor requested termination
      */
-    private <T> void processSubNodes(DefaultConfigurationKey.KeyIterator keyPart,
-            List<T> subNodes, Collection<QueryResult<T>> nodes, NodeHandler<T> handler)
+    private <T> boolean visitSubNodes(
+            DefaultConfigurationKey.KeyIterator keyPart, T node, String key,
+            QueryResultVisitor<T> visitor, NodeHandler<T> handler)
     {
+        List<T> subNodes = findChildNodesByName(handler, node, key);
         if (keyPart.hasIndex())
         {
-            if (keyPart.getIndex() >= 0 && keyPart.getIndex() < subNodes.size())
-            {
-                findNodesForKey((DefaultConfigurationKey.KeyIterator) keyPart
-                        .clone(), subNodes.get(keyPart.getIndex()), nodes, handler);
-            }
+            int index = keyPart.getIndex();
+            return index < 0 || index >= subNodes.size()
+                    || visitNodesForKey(keyPart, subNodes.get(index), visitor,
+                            handler);
         }
-        else
+
+        T pendingChild = null;
+        for (T child : subNodes)
         {
-            for (T node : subNodes)
+            if (pendingChild != null
+                    && !visitNodesForKey(
+                            (DefaultConfigurationKey.KeyIterator) keyPart
+                                    .clone(), pendingChild, visitor, handler))
             {
-                findNodesForKey((DefaultConfigurationKey.KeyIterator) keyPart
-                        .clone(), node, nodes, handler);
+                return false;
             }
+            pendingChild = child;
         }
+        return pendingChild == null
+                || visitNodesForKey(keyPart, pendingChild, visitor, handler);
     }
 
     /**
@@ -513,4 +561,46 @@ public class DefaultExpressionEngine implements ExpressionEngine
     {
         return handler.getMatchingChildren(parent, nameMatcher, nodeName);
     }
+
+    /**
+     * A visitor implementation which stores the results of a query in a
+     * collection. This is used to implement the list-based query methods on
+     * top of the visitor-based traversal.
+     *
+     * @param <T> the type of the nodes
+     */
+    private static class ResultCollector<T> implements QueryResultVisitor<T>
+    {
+        /** The collection for storing the results. */
+        private final Collection<QueryResult<T>> results;
+
+        /**
+         * Creates a new instance of {@code ResultCollector}.
+         *
+         * @param target the collection for storing the results
+         */
+        public ResultCollector(Collection<QueryResult<T>> target)
+        {
+            results = target;
+        }
+
+        @Override
+        public void visitNode(T node)
+        {
+            results.add(QueryResult.createNodeResult(node));
+        }
+
+        @Override
+        public void visitAttribute(T parentNode, String attributeName)
+        {
+            results.add(QueryResult.createAttributeResult(parentNode,
+                    attributeName));
+        }
+
+        @Override
+        public boolean terminate()
+        {
+            return false;
+        }
+    }
 }
@@ -16,13 +16,19 @@
  */
 package org.apache.commons.configuration2.tree;
 
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
 
 /**
  * <p>
@@ -38,12 +44,42 @@ import java.util.Map;
  * updating properties, but these methods return new {@code ImmutableNode}
  * instances. Instances are created using the nested {@code Builder} class.
  * </p>
+ * <p>
+ * Because hierarchical configurations can consist of a large number of nodes,
+ * most of them leaves with no or only a few attributes, this class uses a
+ * compact internal representation: Nodes without children or attributes
+ * share empty singleton collections; children are stored in arrays of exactly
+ * the required size; small sets of attributes are stored inline in an array of
+ * keys and values rather than in a hash map. Iterating over the attributes of
+ * such a node returns them in the order in which they have been added.
+ * </p>
  *
  * @version $Id$
  * @since 2.0
  */
 public final class ImmutableNode
 {
+    /** The factor for combining the components of a structural hash. */
+    private static final long HASH_FACTOR = 0x9e3779b97f4a7c15L;
+
+    /** The offset basis of the FNV-1a hash for strings. */
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    /** The prime of the FNV-1a hash for strings. */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** The first constant for mixing hash values. */
+    private static final long MIX_FACTOR1 = 0xff51afd7ed558ccdL;
+
+    /** The second constant for mixing hash values. */
+    private static final long MIX_FACTOR2 = 0xc4ceb9fe1a85ec53L;
+
+    /**
+     * The maximum number of attributes stored inline in an array. Nodes with
+     * more attributes use a hash map.
+     */
+    private static final int MAX_INLINE_ATTRIBUTES = 8;
+
     /** The name of this node. */
     private final String nodeName;
 
@@ -56,6 +92,9 @@ public final class ImmutableNode
     /** A map with the attributes of this node. */
     private final Map<String, Object> attributes;
 
+    /** The structural hash of this node; 0 if it has not yet been computed. */
+    private volatile long structureHash;
+
     /**
      * Creates a new instance of {@code ImmutableNode} from the given
      * {@code Builder} object.
@@ -136,6 +175,32 @@ public final class ImmutableNode
         return attributes;
     }
 
+    /**
+     * Returns a hash value for the whole structure rooted at this node. The
+     * hash is derived from the name, the value, and the attributes of this
+     * node and from the structural hashes of its children (in their order).
+     * So two nodes with different hashes are guaranteed to represent
+     * different structures, while equal hashes indicate (with a very high
+     * probability) equal structures. The hash is computed on first access and
+     * then cached; because nodes are immutable, this is cheap for nodes which
+     * were taken over from another structure, e.g. when a node model is
+     * updated. Note that this method does not affect {@code equals()} and
+     * {@code hashCode()} which are based on object identity.
+     *
+     * @return the structural hash of this node
+     * @since 2.2
+     */
+    public long structureHash()
+    {
+        long hash = structureHash;
+        if (hash == 0)
+        {
+            hash = calculateStructureHash();
+            structureHash = hash;
+        }
+        return hash;
+    }
+
     /**
      * Creates a new {@code ImmutableNode} instance which is a copy of this
      * object with the name changed to the passed in value.
@@ -268,9 +333,16 @@ public final class ImmutableNode
      */
     public ImmutableNode setAttribute(String name, Object value)
     {
+        if (attributes instanceof InlineAttributeMap
+                || attributes.isEmpty())
+        {
+            return createWithNewAttributes(InlineAttributeMap.with(
+                    attributes, name, value));
+        }
+
         Map<String, Object> newAttrs = new HashMap<>(attributes);
         newAttrs.put(name, value);
-        return createWithNewAttributes(newAttrs);
+        return createWithNewAttributes(compactAttributes(newAttrs));
     }
 
     /**
@@ -292,7 +364,7 @@ public final class ImmutableNode
 
         Map<String, Object> newAttrs = new HashMap<>(attributes);
         newAttrs.putAll(newAttributes);
-        return createWithNewAttributes(newAttrs);
+        return createWithNewAttributes(compactAttributes(newAttrs));
     }
 
     /**
@@ -305,12 +377,19 @@ public final class ImmutableNode
      */
     public ImmutableNode removeAttribute(String name)
     {
-        Map<String, Object> newAttrs = new HashMap<>(attributes);
-        if (newAttrs.remove(name) != null)
+        if (!attributes.containsKey(name))
+        {
+            return this;
+        }
+        if (attributes instanceof InlineAttributeMap)
         {
-            return createWithNewAttributes(newAttrs);
+            return createWithNewAttributes(((InlineAttributeMap) attributes)
+                    .without(name));
         }
-        return this;
+
+        Map<String, Object> newAttrs = new HashMap<>(attributes);
+        newAttrs.remove(name);
+        return createWithNewAttributes(compactAttributes(newAttrs));
     }
 
     /**
@@ -328,15 +407,123 @@ public final class ImmutableNode
 
     /**
      * Creates a new {@code ImmutableNode} instance with the same properties as
-     * this object, but with the given new attributes.
+     * this object, but with the given new attributes. The map is directly
+     * passed to the new node; so it must already be immutable.
      *
      * @param newAttrs the new attributes
      * @return the new node instance
      */
     private ImmutableNode createWithNewAttributes(Map<String, Object> newAttrs)
     {
-        return createWithBasicProperties(new Builder(children, null)
-                .addAttributes(newAttrs));
+        return createWithBasicProperties(new Builder(children, newAttrs));
+    }
+
+    /**
+     * Calculates the structural hash of this node. The children's hashes are
+     * obtained via {@code structureHash()}; so they are computed bottom-up
+     * and cached, too.
+     *
+     * @return the structural hash
+     */
+    private long calculateStructureHash()
+    {
+        long hash = mixHash(valueHash(nodeName));
+        hash = hash * HASH_FACTOR + valueHash(value);
+        long attrHash = 0;
+        for (Map.Entry<String, Object> e : attributes.entrySet())
+        {
+            // order-independent like the equality of maps
+            attrHash += mixHash(valueHash(e.getKey()) * HASH_FACTOR
+                    + valueHash(e.getValue()));
+        }
+        hash = hash * HASH_FACTOR + attrHash;
+        for (ImmutableNode child : children)
+        {
+            hash = hash * HASH_FACTOR + child.structureHash();
+        }
+        hash = mixHash(hash);
+        return (hash != 0) ? hash : 1;
+    }
+
+    /**
+     * Calculates a 64 bit hash for a single value. For strings, which are the
+     * most common values, a 64 bit FNV-1a hash is used because collisions of
+     * {@code String.hashCode()} are easy to produce. Other objects use their
+     * {@code hashCode()} method.
+     *
+     * @param obj the object (may be <b>null</b>)
+     * @return the hash for this object
+     */
+    private static long valueHash(Object obj)
+    {
+        if (obj == null)
+        {
+            return 0;
+        }
+        if (obj instanceof String)
+        {
+            String str = (String) obj;
+            long hash = FNV_OFFSET;
+            for (int i = 0; i < str.length(); i++)
+            {
+                hash ^= str.charAt(i);
+                hash *= FNV_PRIME;
+            }
+            return hash;
+        }
+        return mixHash(obj.hashCode());
+    }
+
+    /**
+     * Spreads the bits of a hash value so that structural hashes of similar
+     * nodes differ in many bits.
+     *
+     * @param h the hash value
+     * @return the mixed hash value
+     */
+    private static long mixHash(long h)
+    {
+        long x = (h ^ (h >>> 33)) * MIX_FACTOR1;
+        x = (x ^ (x >>> 33)) * MIX_FACTOR2;
+        return x ^ (x >>> 33);
+    }
+
+    /**
+     * Creates an immutable map with the content of the given map using the
+     * most compact representation available.
+     *
+     * @param attrs the map with attributes
+     * @return the immutable map with these attributes
+     */
+    private static Map<String, Object> compactAttributes(
+            Map<String, Object> attrs)
+    {
+        if (attrs.isEmpty())
+        {
+            return Collections.emptyMap();
+        }
+        if (attrs.size() <= MAX_INLINE_ATTRIBUTES)
+        {
+            return InlineAttributeMap.copyOf(attrs);
+        }
+        return Collections.unmodifiableMap(attrs);
+    }
+
+    /**
+     * Creates an immutable list with the given child nodes using the most
+     * compact representation available.
+     *
+     * @param nodes the collection with child nodes
+     * @return the immutable list with these nodes
+     */
+    private static List<ImmutableNode> compactChildren(
+            Collection<ImmutableNode> nodes)
+    {
+        if (nodes.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+        return new ChildList(nodes.toArray(new ImmutableNode[nodes.size()]));
     }
 
     /**
@@ -395,6 +582,9 @@ public final class ImmutableNode
         /** The value of the node. */
         private Object value;
 
+        /** An optional pool for the strings of the new node. */
+        private StringPool stringPool;
+
         /**
          * Creates a new instance of {@code Builder} which does not contain any
          * property definitions yet.
@@ -547,6 +737,25 @@ public final class ImmutableNode
             return this;
         }
 
+        /**
+         * Sets a {@code StringPool} for the node to be created. If a pool is
+         * set, the name of the node, the names of its attributes, and all
+         * values which are strings are replaced by the instances obtained
+         * from the pool when the node is created. This is useful when many
+         * nodes are created whose names and values are likely to be
+         * duplicates, e.g. when loading configuration files.
+         *
+         * @param pool the {@code StringPool} (may be <b>null</b>, then strings
+         *        are used as they are)
+         * @return a reference to this object for method chaining
+         * @since 2.2
+         */
+        public Builder stringPool(StringPool pool)
+        {
+            stringPool = pool;
+            return this;
+        }
+
         /**
          * Creates a new {@code ImmutableNode} instance based on the properties
          * set for this builder.
@@ -555,6 +764,10 @@ public final class ImmutableNode
          */
         public ImmutableNode create()
         {
+            if (stringPool != null)
+            {
+                internStrings();
+            }
             ImmutableNode newNode = new ImmutableNode(this);
             children = null;
             attributes = null;
@@ -576,7 +789,7 @@ public final class ImmutableNode
             }
             if (children != null)
             {
-                return Collections.unmodifiableList(children);
+                return compactChildren(children);
             }
             return Collections.emptyList();
         }
@@ -584,7 +797,7 @@ public final class ImmutableNode
         /**
          * Creates a map with the attributes of the newly created node. This is
          * an immutable map. If direct attributes were set, they are returned.
-         * Otherwise an unmodifiable map from the attributes passed to this
+         * Otherwise a compact immutable map from the attributes passed to this
          * builder is constructed.
          *
          * @return a map with the attributes for the new node
@@ -597,11 +810,33 @@ public final class ImmutableNode
             }
             if (attributes != null)
             {
-                return Collections.unmodifiableMap(attributes);
+                return compactAttributes(attributes);
             }
             return Collections.emptyMap();
         }
 
+        /**
+         * Replaces the name, the value, and the attributes of the new node by
+         * the instances obtained from the string pool.
+         */
+        private void internStrings()
+        {
+            name = stringPool.intern(name);
+            value = stringPool.internValue(value);
+            if (attributes != null)
+            {
+                // a new map is needed because put() keeps the existing keys
+                Map<String, Object> pooledAttrs =
+                        new HashMap<>(attributes.size() * 2);
+                for (Map.Entry<String, Object> e : attributes.entrySet())
+                {
+                    pooledAttrs.put(stringPool.intern(e.getKey()),
+                            stringPool.internValue(e.getValue()));
+                }
+                attributes = pooledAttrs;
+            }
+        }
+
         /**
          * Ensures that the collection for the child nodes exists. It is created
          * on demand.
@@ -610,7 +845,7 @@ public final class ImmutableNode
         {
             if (children == null)
             {
-                children = new LinkedList<>();
+                children = new ArrayList<>();
             }
         }
 
@@ -668,4 +903,241 @@ public final class ImmutableNode
     {
         return super.toString() + "(" + nodeName + ")";
     }
+
+    /**
+     * An immutable list implementation for the child nodes of a node. The
+     * nodes are stored in an array of exactly the required size.
+     */
+    private static final class ChildList extends AbstractList<ImmutableNode>
+            implements RandomAccess
+    {
+        /** The array with the child nodes. */
+        private final ImmutableNode[] nodes;
+
+        /**
+         * Creates a new instance of {@code ChildList} for the given array. The
+         * array is used directly; it must not be modified afterwards.
+         *
+         * @param nodes the array with the child nodes
+         */
+        public ChildList(ImmutableNode[] nodes)
+        {
+            this.nodes = nodes;
+        }
+
+        @Override
+        public ImmutableNode get(int index)
+        {
+            return nodes[index];
+        }
+
+        @Override
+        public int size()
+        {
+            return nodes.length;
+        }
+
+        @Override
+        public Object[] toArray()
+        {
+            return nodes.clone();
+        }
+    }
+
+    /**
+     * An immutable map implementation for a small number of attributes. Keys
+     * and values are stored alternating in a single array which is searched
+     * linearly. For the typical number of attributes of a node this is both
+     * faster and much smaller than a hash map.
+     */
+    private static final class InlineAttributeMap extends
+            AbstractMap<String, Object>
+    {
+        /** The array with the keys and values of the attributes. */
+        private final Object[] keysAndValues;
+
+        /**
+         * Creates a new instance of {@code InlineAttributeMap} with the given
+         * array of keys and values. The array is used directly.
+         *
+         * @param keysAndValues the array with keys and values
+         */
+        private InlineAttributeMap(Object[] keysAndValues)
+        {
+            this.keysAndValues = keysAndValues;
+        }
+
+        /**
+         * Creates a new instance with the content of the given map.
+         *
+         * @param attrs the map to be copied
+         * @return the new instance
+         */
+        public static InlineAttributeMap copyOf(Map<String, ?> attrs)
+        {
+            Object[] data = new Object[attrs.size() * 2];
+            int idx = 0;
+            for (Map.Entry<String, ?> e : attrs.entrySet())
+            {
+                data[idx++] = e.getKey();
+                data[idx++] = e.getValue();
+            }
+            return new InlineAttributeMap(data);
+        }
+
+        /**
+         * Returns an immutable map with the content of the given map plus the
+         * specified attribute. The passed in map must either be empty or an
+         * {@code InlineAttributeMap}. If the maximum number of inline
+         * attributes is exceeded, a hash map is created.
+         *
+         * @param attrs the original map
+         * @param key the key of the attribute
+         * @param value the value of the attribute
+         * @return the map with the attribute set
+         */
+        public static Map<String, Object> with(Map<String, Object> attrs,
+                String key, Object value)
+        {
+            Object[] data =
+                    attrs.isEmpty() ? new Object[0]
+                            : ((InlineAttributeMap) attrs).keysAndValues;
+            int idx = indexOf(data, key);
+            if (idx >= 0)
+            {
+                Object[] newData = data.clone();
+                newData[idx + 1] = value;
+                return new InlineAttributeMap(newData);
+            }
+
+            if (data.length / 2 >= MAX_INLINE_ATTRIBUTES)
+            {
+                Map<String, Object> newAttrs = new HashMap<>(attrs);
+                newAttrs.put(key, value);
+                return Collections.unmodifiableMap(newAttrs);
+            }
+            Object[] newData = new Object[data.length + 2];
+            System.arraycopy(data, 0, newData, 0, data.length);
+            newData[data.length] = key;
+            newData[data.length + 1] = value;
+            return new InlineAttributeMap(newData);
+        }
+
+        /**
+         * Returns an immutable map with the content of this map without the
+         * specified attribute which must exist.
+         *
+         * @param key the key of the attribute to be removed
+         * @return the map without this attribute
+         */
+        public Map<String, Object> without(String key)
+        {
+            if (keysAndValues.length == 2)
+            {
+                return Collections.emptyMap();
+            }
+            int idx = indexOf(keysAndValues, key);
+            Object[] newData = new Object[keysAndValues.length - 2];
+            System.arraycopy(keysAndValues, 0, newData, 0, idx);
+            System.arraycopy(keysAndValues, idx + 2, newData, idx,
+                    newData.length - idx);
+            return new InlineAttributeMap(newData);
+        }
+
+        @Override
+        public int size()
+        {
+            return keysAndValues.length / 2;
+        }
+
+        @Override
+        public boolean containsKey(Object key)
+        {
+            return indexOf(keysAndValues, key) >= 0;
+        }
+
+        @Override
+        public Object get(Object key)
+        {
+            int idx = indexOf(keysAndValues, key);
+            return (idx >= 0) ? keysAndValues[idx + 1] : null;
+        }
+
+        @Override
+        public Set<Map.Entry<String, Object>> entrySet()
+        {
+            return new AbstractSet<Map.Entry<String, Object>>()
+            {
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator()
+                {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size()
+                {
+                    return InlineAttributeMap.this.size();
+                }
+            };
+        }
+
+        /**
+         * Searches the given array for the specified key.
+         *
+         * @param data the array with keys and values
+         * @param key the key
+         * @return the index of the key in the array or -1 if it is not found
+         */
+        private static int indexOf(Object[] data, Object key)
+        {
+            for (int i = 0; i < data.length; i += 2)
+            {
+                Object k = data[i];
+                if (k == key || (k != null && k.equals(key)))
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * The iterator for the entry set of this map.
+         */
+        private class EntryIterator implements
+                Iterator<Map.Entry<String, Object>>
+        {
+            /** The index of the next key in the data array. */
+            private int index;
+
+            @Override
+            public boolean hasNext()
+            {
+                return index < keysAndValues.length;
+            }
+
+            @Override
+            public Map.Entry<String, Object> next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                Map.Entry<String, Object> entry =
+                        new SimpleImmutableEntry<>(
+                                (String) keysAndValues[index],
+                                keysAndValues[index + 1]);
+                index += 2;
+                return entry;
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException(
+                        "Attributes cannot be modified!");
+            }
+        }
+    }
 }
@@ -70,7 +70,7 @@ public class InMemoryNodeModel implements NodeModel<ImmutableNode>
      */
     public InMemoryNodeModel()
     {
-        this(null);
+        this((ImmutableNode) null);
     }
 
     /**
@@ -87,6 +87,37 @@ public class InMemoryNodeModel implements NodeModel<ImmutableNode>
                         createTreeData(initialRootNode(root), null));
     }
 
+    /**
+     * Creates a new instance of {@code InMemoryNodeModel} which is initialized
+     * with the given {@code TreeData} object. This constructor is used when
+     * copying a model.
+     *
+     * @param treeData the initial {@code TreeData}
+     */
+    private InMemoryNodeModel(TreeData treeData)
+    {
+        structure = new AtomicReference<>(treeData);
+    }
+
+    /**
+     * Creates a new {@code InMemoryNodeModel} which contains the same nodes
+     * structure as this model. Because nodes are immutable, the structure can
+     * be shared between both models, including the internal mapping from nodes
+     * to their parents. So this is a cheap operation which does not depend on
+     * the size of the nodes structure. Changes on one of the models do not
+     * affect the other one. Tracked nodes and references are not copied; the
+     * new model starts without any.
+     *
+     * @return a new model with the same nodes structure
+     * @since 2.2
+     */
+    public InMemoryNodeModel createCopy()
+    {
+        return new InMemoryNodeModel(structure.get()
+                .updateNodeTracker(new NodeTracker())
+                .updateReferenceTracker(new ReferenceTracker()));
+    }
+
     /**
      * Returns the root node of this mode. Note: This method should be used with
      * care. The model may be updated concurrently which causes the root node to
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.tree;
+
+/**
+ * <p>
+ * A class representing a node managed by a {@link MappedNodeModel}.
+ * </p>
+ * <p>
+ * The data of the nodes of a {@code MappedNodeModel} is stored in a binary
+ * representation outside of the Java heap. Objects of this class are merely
+ * lightweight handles pointing to a node in this representation; they are
+ * created on demand when nodes are accessed and do not hold any data
+ * themselves. Therefore, multiple instances can refer to the same node; they
+ * are then equal. All properties of a node are obtained via the
+ * {@link NodeHandler} of the model.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.2
+ */
+public final class MappedNode
+{
+    /** The image containing this node. */
+    private final MappedNodeImage image;
+
+    /** The offset of this node in the image. */
+    private final int offset;
+
+    /**
+     * Creates a new instance of {@code MappedNode}.
+     *
+     * @param image the image containing the node
+     * @param offset the offset of the node
+     */
+    MappedNode(MappedNodeImage image, int offset)
+    {
+        this.image = image;
+        this.offset = offset;
+    }
+
+    /**
+     * Returns the image containing this node.
+     *
+     * @return the image
+     */
+    MappedNodeImage getImage()
+    {
+        return image;
+    }
+
+    /**
+     * Returns the offset of this node in its image.
+     *
+     * @return the offset
+     */
+    int getOffset()
+    {
+        return offset;
+    }
+
+    /**
+     * Returns a hash code for this object.
+     *
+     * @return a hash code
+     */
+    @Override
+    public int hashCode()
+    {
+        return offset;
+    }
+
+    /**
+     * Compares this object with another one. Two instances are equal if they
+     * refer to the same node.
+     *
+     * @param obj the object to compare
+     * @return a flag whether these objects are equal
+     */
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (!(obj instanceof MappedNode))
+        {
+            return false;
+        }
+
+        MappedNode c = (MappedNode) obj;
+        return offset == c.offset && image == c.image;
+    }
+
+    /**
+     * Returns a string representation of this object. It contains the name of
+     * the node.
+     *
+     * @return a string for this object
+     */
+    @Override
+    public String toString()
+    {
+        return super.toString() + "(" + image.nodeName(offset) + ")";
+    }
+}
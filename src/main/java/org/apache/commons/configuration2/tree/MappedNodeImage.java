@@ -0,0 +1,706 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.tree;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * A class providing access to the binary representation of a node structure
+ * used by {@link MappedNodeModel}.
+ * </p>
+ * <p>
+ * The binary layout consists of the following parts (all numbers are 32 bit
+ * integers in big-endian order):
+ * </p>
+ * <ul>
+ * <li>A header with a magic number, a version, the number of node names and
+ * the offset of the name table, the number of values and the offset of the
+ * value table, the number of nodes, and the offset of the root node.</li>
+ * <li>The records for the nodes. A record consists of the index of the node
+ * name, the index of the value (-1 for <b>null</b>), the offset of the parent
+ * node (-1 for the root node), the number of children followed by their
+ * offsets, and the number of attributes followed by pairs of name and value
+ * indices.</li>
+ * <li>The name table and the value table. Each table starts with an array of
+ * offsets, one for each string. A string is stored as its length in bytes
+ * followed by its UTF-8 encoding.</li>
+ * </ul>
+ * <p>
+ * Node names and attribute names are held in a separate table because they
+ * are typically few and used frequently. They are decoded once when they are
+ * accessed for the first time. Values are decoded on each access.
+ * </p>
+ * <p>
+ * Implementation note: This class is thread-safe. The buffer is accessed only
+ * by absolute read operations which do not change its state.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.2
+ */
+final class MappedNodeImage
+{
+    /** Constant for the magic number at the start of a tree image. */
+    private static final int MAGIC = 0x43464731;
+
+    /** Constant for the version of the binary layout. */
+    private static final int VERSION = 1;
+
+    /** Constant for the size of the header. */
+    private static final int HEADER_SIZE = 32;
+
+    /** Constant for the size of an integer. */
+    private static final int INT_SIZE = 4;
+
+    /** Constant for an undefined index or offset. */
+    private static final int UNDEFINED = -1;
+
+    /** The encoding of strings. */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** The offset of the name count in the header. */
+    private static final int POS_NAME_COUNT = 8;
+
+    /** The offset of the name table offset in the header. */
+    private static final int POS_NAME_TABLE = 12;
+
+    /** The offset of the value table offset in the header. */
+    private static final int POS_VALUE_TABLE = 20;
+
+    /** The offset of the node count in the header. */
+    private static final int POS_NODE_COUNT = 24;
+
+    /** The offset of the root node offset in the header. */
+    private static final int POS_ROOT = 28;
+
+    /** The position of the child count in a node record. */
+    private static final int REC_CHILD_COUNT = 12;
+
+    /** The number of fixed fields in a node record. */
+    private static final int REC_FIXED_FIELDS = 5;
+
+    /** The buffer with the binary data. */
+    private final ByteBuffer buffer;
+
+    /** The decoded names; created on demand. */
+    private volatile NameTable nameTable;
+
+    /**
+     * Creates a new instance of {@code MappedNodeImage} for the given buffer.
+     * The header is validated.
+     *
+     * @param buf the buffer with the binary data
+     * @throws IllegalArgumentException if the buffer does not contain a valid
+     *         tree image
+     */
+    public MappedNodeImage(ByteBuffer buf)
+    {
+        if (buf == null)
+        {
+            throw new IllegalArgumentException("Buffer must not be null!");
+        }
+        buffer = buf.duplicate();
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+        {
+            throw new IllegalArgumentException(
+                    "Buffer does not contain a configuration tree image!");
+        }
+        if (buffer.getInt(INT_SIZE) != VERSION)
+        {
+            throw new IllegalArgumentException(
+                    "Unsupported version of tree image: "
+                            + buffer.getInt(INT_SIZE));
+        }
+    }
+
+    /**
+     * Returns the offset of the root node.
+     *
+     * @return the root offset
+     */
+    public int getRootOffset()
+    {
+        return buffer.getInt(POS_ROOT);
+    }
+
+    /**
+     * Returns the number of nodes contained in this image.
+     *
+     * @return the number of nodes
+     */
+    public int getNodeCount()
+    {
+        return buffer.getInt(POS_NODE_COUNT);
+    }
+
+    /**
+     * Returns the name of the node at the given offset.
+     *
+     * @param node the node offset
+     * @return the name of this node (may be <b>null</b>)
+     */
+    public String nodeName(int node)
+    {
+        int index = buffer.getInt(node);
+        return (index == UNDEFINED) ? null : fetchNameTable().names[index];
+    }
+
+    /**
+     * Returns the index of the name of the node at the given offset.
+     *
+     * @param node the node offset
+     * @return the name index
+     */
+    public int nodeNameIndex(int node)
+    {
+        return buffer.getInt(node);
+    }
+
+    /**
+     * Returns the value of the node at the given offset.
+     *
+     * @param node the node offset
+     * @return the value of this node (may be <b>null</b>)
+     */
+    public String value(int node)
+    {
+        return valueString(buffer.getInt(node + INT_SIZE));
+    }
+
+    /**
+     * Returns the offset of the parent of the node at the given offset.
+     *
+     * @param node the node offset
+     * @return the parent offset or -1 for the root node
+     */
+    public int parent(int node)
+    {
+        return buffer.getInt(node + 2 * INT_SIZE);
+    }
+
+    /**
+     * Returns the number of children of the node at the given offset.
+     *
+     * @param node the node offset
+     * @return the number of children
+     */
+    public int childCount(int node)
+    {
+        return buffer.getInt(node + REC_CHILD_COUNT);
+    }
+
+    /**
+     * Returns the offset of a child of the node at the given offset.
+     *
+     * @param node the node offset
+     * @param index the index of the child
+     * @return the offset of this child
+     */
+    public int child(int node, int index)
+    {
+        return buffer.getInt(node + REC_CHILD_COUNT + INT_SIZE
+                * (index + 1));
+    }
+
+    /**
+     * Returns the number of attributes of the node at the given offset.
+     *
+     * @param node the node offset
+     * @return the number of attributes
+     */
+    public int attributeCount(int node)
+    {
+        return buffer.getInt(attributeStart(node));
+    }
+
+    /**
+     * Returns the name of an attribute of the node at the given offset.
+     *
+     * @param node the node offset
+     * @param index the index of the attribute
+     * @return the name of this attribute
+     */
+    public String attributeName(int node, int index)
+    {
+        return fetchNameTable().names[attributeNameIndex(node, index)];
+    }
+
+    /**
+     * Returns the index of the name of an attribute of the node at the given
+     * offset.
+     *
+     * @param node the node offset
+     * @param index the index of the attribute
+     * @return the name index of this attribute
+     */
+    public int attributeNameIndex(int node, int index)
+    {
+        return buffer.getInt(attributeStart(node) + INT_SIZE
+                * (2 * index + 1));
+    }
+
+    /**
+     * Returns the value of an attribute of the node at the given offset.
+     *
+     * @param node the node offset
+     * @param index the index of the attribute
+     * @return the value of this attribute
+     */
+    public String attributeValue(int node, int index)
+    {
+        return valueString(buffer.getInt(attributeStart(node) + INT_SIZE
+                * (2 * index + 2)));
+    }
+
+    /**
+     * Returns the index of the given name in the name table. Result is -1 if
+     * this name is not used in this image.
+     *
+     * @param name the name
+     * @return the index of this name
+     */
+    public int nameIndex(String name)
+    {
+        Integer index = fetchNameTable().indices.get(name);
+        return (index != null) ? index.intValue() : UNDEFINED;
+    }
+
+    /**
+     * Writes the binary representation of the given node structure to the
+     * specified stream. All values are stored as strings.
+     *
+     * @param root the root node of the structure
+     * @param out the target stream
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the structure is too large
+     */
+    public static void write(ImmutableNode root, OutputStream out)
+            throws IOException
+    {
+        new ImageWriter(root).write(new DataOutputStream(out));
+    }
+
+    /**
+     * Creates a direct buffer with the binary representation of the given
+     * node structure.
+     *
+     * @param root the root node of the structure
+     * @return the buffer with the image
+     * @throws IllegalArgumentException if the structure is too large
+     */
+    public static ByteBuffer createDirectBuffer(ImmutableNode root)
+    {
+        ImageWriter writer = new ImageWriter(root);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(writer.totalSize);
+        try
+        {
+            writer.write(new DataOutputStream(new ByteBufferOutputStream(
+                    buffer)));
+        }
+        catch (IOException ioex)
+        {
+            // cannot happen when writing to a buffer
+            throw new IllegalStateException(ioex);
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns the offset of the attribute count in a node record.
+     *
+     * @param node the node offset
+     * @return the position of the attribute count
+     */
+    private int attributeStart(int node)
+    {
+        return node + REC_CHILD_COUNT + INT_SIZE * (childCount(node) + 1);
+    }
+
+    /**
+     * Decodes a string from the value table.
+     *
+     * @param index the index of the string
+     * @return the decoded string or <b>null</b> for an undefined index
+     */
+    private String valueString(int index)
+    {
+        return (index == UNDEFINED) ? null : readString(
+                buffer.getInt(POS_VALUE_TABLE), index);
+    }
+
+    /**
+     * Reads a string from one of the string tables.
+     *
+     * @param table the offset of the table
+     * @param index the index of the string
+     * @return the decoded string
+     */
+    private String readString(int table, int index)
+    {
+        int pos = buffer.getInt(table + INT_SIZE * index);
+        int length = buffer.getInt(pos);
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++)
+        {
+            data[i] = buffer.get(pos + INT_SIZE + i);
+        }
+        return new String(data, UTF8);
+    }
+
+    /**
+     * Returns the table with the decoded names. It is created on first
+     * access. If multiple threads call this method concurrently, the table may
+     * be created multiple times; but all instances are equal.
+     *
+     * @return the name table
+     */
+    private NameTable fetchNameTable()
+    {
+        NameTable table = nameTable;
+        if (table == null)
+        {
+            int count = buffer.getInt(POS_NAME_COUNT);
+            int tablePos = buffer.getInt(POS_NAME_TABLE);
+            String[] names = new String[count];
+            Map<String, Integer> indices = new HashMap<>();
+            for (int i = 0; i < count; i++)
+            {
+                names[i] = readString(tablePos, i);
+                indices.put(names[i], i);
+            }
+            table = new NameTable(names, indices);
+            nameTable = table;
+        }
+        return table;
+    }
+
+    /**
+     * A simple data class holding the decoded names of an image.
+     */
+    private static class NameTable
+    {
+        /** The names ordered by their indices. */
+        private final String[] names;
+
+        /** The mapping from names to indices. */
+        private final Map<String, Integer> indices;
+
+        /**
+         * Creates a new instance of {@code NameTable}.
+         *
+         * @param names the array with names
+         * @param indices the map with indices
+         */
+        public NameTable(String[] names, Map<String, Integer> indices)
+        {
+            this.names = names;
+            this.indices = indices;
+        }
+    }
+
+    /**
+     * An output stream which writes into a {@code ByteBuffer}.
+     */
+    private static class ByteBufferOutputStream extends OutputStream
+    {
+        /** The target buffer. */
+        private final ByteBuffer buffer;
+
+        /**
+         * Creates a new instance of {@code ByteBufferOutputStream}.
+         *
+         * @param buffer the target buffer
+         */
+        public ByteBufferOutputStream(ByteBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b)
+        {
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len)
+        {
+            buffer.put(b, off, len);
+        }
+    }
+
+    /**
+     * A helper class for creating the binary representation of a node
+     * structure. In a first step, the layout is computed; the data is then
+     * written in a single pass.
+     */
+    private static class ImageWriter
+    {
+        /** The nodes of the structure in the order they are written. */
+        private final List<ImmutableNode> nodes;
+
+        /** The offsets of the nodes' parents. */
+        private final List<Integer> parentOffsets;
+
+        /** The offsets of the nodes. */
+        private final List<Integer> nodeOffsets;
+
+        /** The indices of the first children of the nodes. */
+        private final List<Integer> firstChildIndices;
+
+        /** The table with names. */
+        private final Map<String, Integer> names;
+
+        /** The table with values. */
+        private final Map<String, Integer> values;
+
+        /** The offset of the name table. */
+        private final int nameTableOffset;
+
+        /** The offset of the value table. */
+        private final int valueTableOffset;
+
+        /** The total size of the image. */
+        private final int totalSize;
+
+        /**
+         * Creates a new instance of {@code ImageWriter} and computes the
+         * layout of the image.
+         *
+         * @param root the root node of the structure
+         */
+        public ImageWriter(ImmutableNode root)
+        {
+            nodes = new ArrayList<>();
+            parentOffsets = new ArrayList<>();
+            nodeOffsets = new ArrayList<>();
+            firstChildIndices = new ArrayList<>();
+            names = new LinkedHashMap<>();
+            values = new LinkedHashMap<>();
+
+            long offset = collectNodes(root);
+            nameTableOffset = checkSize(offset);
+            offset += tableSize(names);
+            valueTableOffset = checkSize(offset);
+            totalSize = checkSize(offset + tableSize(values));
+        }
+
+        /**
+         * Writes the image to the given output.
+         *
+         * @param out the output
+         * @throws IOException if an I/O error occurs
+         */
+        public void write(DataOutputStream out) throws IOException
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(names.size());
+            out.writeInt(nameTableOffset);
+            out.writeInt(values.size());
+            out.writeInt(valueTableOffset);
+            out.writeInt(nodes.size());
+            out.writeInt(HEADER_SIZE);
+
+            for (int i = 0; i < nodes.size(); i++)
+            {
+                writeNode(out, i);
+            }
+            writeTable(out, names, nameTableOffset);
+            writeTable(out, values, valueTableOffset);
+            out.flush();
+        }
+
+        /**
+         * Determines the nodes of the structure and their offsets. The nodes
+         * are ordered so that the children of a node are stored
+         * consecutively. (A node instance which occurs multiple times in the
+         * structure gets multiple records.) The string tables are populated,
+         * too.
+         *
+         * @param root the root node
+         * @return the offset after the last node record
+         */
+        private long collectNodes(ImmutableNode root)
+        {
+            long offset = HEADER_SIZE;
+            nodes.add(root);
+            parentOffsets.add(UNDEFINED);
+            for (int i = 0; i < nodes.size(); i++)
+            {
+                ImmutableNode node = nodes.get(i);
+                int nodeOffset = checkSize(offset);
+                nodeOffsets.add(nodeOffset);
+                firstChildIndices.add(nodes.size());
+                offset += recordSize(node);
+                for (ImmutableNode child : node.getChildren())
+                {
+                    nodes.add(child);
+                    parentOffsets.add(nodeOffset);
+                }
+
+                stringIndex(names, node.getNodeName());
+                stringIndex(values, node.getValue());
+                for (Map.Entry<String, Object> e : node.getAttributes()
+                        .entrySet())
+                {
+                    stringIndex(names, e.getKey());
+                    stringIndex(values, e.getValue());
+                }
+            }
+            return offset;
+        }
+
+        /**
+         * Writes the record for a single node.
+         *
+         * @param out the output
+         * @param index the index of the node
+         * @throws IOException if an I/O error occurs
+         */
+        private void writeNode(DataOutputStream out, int index)
+                throws IOException
+        {
+            ImmutableNode node = nodes.get(index);
+            out.writeInt(stringIndex(names, node.getNodeName()));
+            out.writeInt(stringIndex(values, node.getValue()));
+            out.writeInt(parentOffsets.get(index));
+            int childCount = node.getChildren().size();
+            out.writeInt(childCount);
+            int firstChild = firstChildIndices.get(index);
+            for (int i = 0; i < childCount; i++)
+            {
+                out.writeInt(nodeOffsets.get(firstChild + i));
+            }
+            out.writeInt(node.getAttributes().size());
+            for (Map.Entry<String, Object> e : node.getAttributes().entrySet())
+            {
+                out.writeInt(stringIndex(names, e.getKey()));
+                out.writeInt(stringIndex(values, e.getValue()));
+            }
+        }
+
+        /**
+         * Writes a string table.
+         *
+         * @param out the output
+         * @param table the map with the strings of the table
+         * @param tableOffset the offset of the table
+         * @throws IOException if an I/O error occurs
+         */
+        private static void writeTable(DataOutputStream out,
+                Map<String, Integer> table, int tableOffset)
+                throws IOException
+        {
+            int pos = tableOffset + INT_SIZE * table.size();
+            List<byte[]> data = new ArrayList<>(table.size());
+            for (String s : table.keySet())
+            {
+                byte[] bytes = s.getBytes(UTF8);
+                data.add(bytes);
+                out.writeInt(pos);
+                pos += INT_SIZE + bytes.length;
+            }
+            for (byte[] bytes : data)
+            {
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        /**
+         * Returns the index of a string in a string table. The string is added
+         * if necessary. Objects which are not strings are converted to
+         * strings; for <b>null</b> -1 is returned.
+         *
+         * @param table the string table
+         * @param obj the object
+         * @return the index of this object in the table
+         */
+        private static int stringIndex(Map<String, Integer> table, Object obj)
+        {
+            if (obj == null)
+            {
+                return UNDEFINED;
+            }
+            String s = String.valueOf(obj);
+            Integer index = table.get(s);
+            if (index == null)
+            {
+                index = table.size();
+                table.put(s, index);
+            }
+            return index.intValue();
+        }
+
+        /**
+         * Returns the size of the record for the given node.
+         *
+         * @param node the node
+         * @return the size of its record
+         */
+        private static long recordSize(ImmutableNode node)
+        {
+            return (long) INT_SIZE
+                    * (REC_FIXED_FIELDS + node.getChildren().size() + 2 * node
+                            .getAttributes().size());
+        }
+
+        /**
+         * Returns the size of a string table.
+         *
+         * @param table the map with the strings of the table
+         * @return the size of this table in bytes
+         */
+        private static long tableSize(Map<String, Integer> table)
+        {
+            long size = 0;
+            for (String s : table.keySet())
+            {
+                size += 2 * INT_SIZE + s.getBytes(UTF8).length;
+            }
+            return size;
+        }
+
+        /**
+         * Checks whether the given offset can be represented in an image.
+         *
+         * @param offset the offset
+         * @return the offset as integer
+         * @throws IllegalArgumentException if the offset is too large
+         */
+        private static int checkSize(long offset)
+        {
+            if (offset > Integer.MAX_VALUE)
+            {
+                throw new IllegalArgumentException(
+                        "Node structure is too large for a tree image!");
+            }
+            return (int) offset;
+        }
+    }
+}
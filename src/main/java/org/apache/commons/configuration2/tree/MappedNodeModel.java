@@ -0,0 +1,683 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.tree;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * <p>
+ * A read-only {@link NodeModel} implementation which stores its nodes in a
+ * compact binary representation outside of the Java heap.
+ * </p>
+ * <p>
+ * Huge configurations with millions of keys need a lot of heap memory if they
+ * are represented as a structure of {@link ImmutableNode} objects, and they
+ * put a burden on the garbage collector. This model instead keeps the whole
+ * structure in a {@code ByteBuffer} - typically a direct buffer or a buffer
+ * obtained by memory-mapping a file. The binary representation contains tables
+ * with the strings used as node names and values, and records for the nodes
+ * with the offsets of their children. {@link MappedNode} objects are created
+ * only when nodes are accessed; they are lightweight handles which can be
+ * garbage collected immediately.
+ * </p>
+ * <p>
+ * The binary representation of a node structure is created by the
+ * {@link #write(ImmutableNode, File)} method; a file written this way can
+ * later be loaded using {@link #map(File)}. With
+ * {@link #fromTree(ImmutableNode)} a model can be created directly from a
+ * structure of {@code ImmutableNode} objects. Note that all values of nodes
+ * and attributes are stored as strings; the representation is limited to a
+ * size of 2 GB.
+ * </p>
+ * <p>
+ * As the {@link NodeHandler} interface abstracts from the concrete node
+ * implementation, this model can be used by a configuration derived from
+ * {@code AbstractHierarchicalConfiguration<MappedNode>}. All methods which
+ * would change the structure throw an {@code UnsupportedOperationException}.
+ * As the model cannot change, it can be accessed by multiple threads without
+ * any synchronization.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.2
+ */
+public final class MappedNodeModel implements NodeModel<MappedNode>
+{
+    /** The node handler of this model. */
+    private final MappedNodeHandler nodeHandler;
+
+    /**
+     * Creates a new instance of {@code MappedNodeModel} which operates on the
+     * given buffer. The buffer must contain the binary representation of a
+     * node structure as created by one of the {@code write()} methods. It is
+     * accessed only by absolute read operations; so its position and limit
+     * are irrelevant.
+     *
+     * @param buffer the buffer with the data of the nodes (must not be
+     *        <b>null</b>)
+     * @throws IllegalArgumentException if the buffer is <b>null</b> or does
+     *         not contain valid data
+     */
+    public MappedNodeModel(ByteBuffer buffer)
+    {
+        MappedNodeImage image = new MappedNodeImage(buffer);
+        nodeHandler = new MappedNodeHandler(image, image.getRootOffset());
+    }
+
+    /**
+     * Creates a new instance of {@code MappedNodeModel} which shares the data
+     * of another model, but uses a different root node.
+     *
+     * @param handler the handler of the other model
+     * @param root the new root node
+     */
+    private MappedNodeModel(MappedNodeHandler handler, MappedNode root)
+    {
+        nodeHandler =
+                new MappedNodeHandler(handler.image, handler.offset(root));
+    }
+
+    /**
+     * Creates a new {@code MappedNodeModel} from the specified file. The file
+     * must have been created by {@link #write(ImmutableNode, File)}. It is
+     * mapped into memory; so only the parts which are actually accessed are
+     * loaded by the operating system.
+     *
+     * @param file the file to be mapped (must not be <b>null</b>)
+     * @return the new model
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the file does not contain valid data
+     */
+    public static MappedNodeModel map(File file) throws IOException
+    {
+        if (file == null)
+        {
+            throw new IllegalArgumentException("File must not be null!");
+        }
+
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try
+        {
+            FileChannel channel = raf.getChannel();
+            return new MappedNodeModel(channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    /**
+     * Creates a new {@code MappedNodeModel} with the content of the given
+     * node structure. The binary representation of the structure is stored in
+     * a direct buffer outside of the Java heap. After this method has
+     * returned, the passed in structure is no longer referenced.
+     *
+     * @param root the root node of the structure (must not be <b>null</b>)
+     * @return the new model
+     * @throws IllegalArgumentException if the root node is <b>null</b> or the
+     *         structure is too large
+     */
+    public static MappedNodeModel fromTree(ImmutableNode root)
+    {
+        checkRoot(root);
+        return new MappedNodeModel(MappedNodeImage.createDirectBuffer(root));
+    }
+
+    /**
+     * Writes the binary representation of the given node structure to the
+     * specified file. The file can then be loaded using {@link #map(File)}.
+     *
+     * @param root the root node of the structure (must not be <b>null</b>)
+     * @param file the target file (must not be <b>null</b>)
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if a parameter is <b>null</b> or the
+     *         structure is too large
+     */
+    public static void write(ImmutableNode root, File file) throws IOException
+    {
+        checkRoot(root);
+        if (file == null)
+        {
+            throw new IllegalArgumentException("File must not be null!");
+        }
+
+        OutputStream out = new FileOutputStream(file);
+        try
+        {
+            write(root, new BufferedOutputStream(out));
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes the binary representation of the given node structure to the
+     * specified stream. The stream is not closed.
+     *
+     * @param root the root node of the structure (must not be <b>null</b>)
+     * @param out the target stream (must not be <b>null</b>)
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if a parameter is <b>null</b> or the
+     *         structure is too large
+     */
+    public static void write(ImmutableNode root, OutputStream out)
+            throws IOException
+    {
+        checkRoot(root);
+        if (out == null)
+        {
+            throw new IllegalArgumentException(
+                    "Output stream must not be null!");
+        }
+        MappedNodeImage.write(root, out);
+    }
+
+    /**
+     * Returns a model for the sub tree defined by the given node. The new
+     * model shares the data with this model; so this operation is cheap. It
+     * can be used for instance to create sub configurations.
+     *
+     * @param root the root node of the sub tree (must not be <b>null</b>)
+     * @return the model for this sub tree
+     * @throws IllegalArgumentException if the node is <b>null</b> or does not
+     *         belong to this model
+     */
+    public MappedNodeModel subModel(MappedNode root)
+    {
+        if (root == null)
+        {
+            throw new IllegalArgumentException("Root node must not be null!");
+        }
+        return new MappedNodeModel(nodeHandler, root);
+    }
+
+    /**
+     * Returns the number of nodes managed by this model. For a model created
+     * by {@link #subModel(MappedNode)}, this is the number of nodes in the
+     * whole image.
+     *
+     * @return the number of nodes
+     */
+    public int getNodeCount()
+    {
+        return nodeHandler.image.getNodeCount();
+    }
+
+    /**
+     * {@inheritDoc} This implementation always throws an exception.
+     *
+     * @throws UnsupportedOperationException as this model cannot be changed
+     */
+    @Override
+    public void setRootNode(MappedNode newRoot)
+    {
+        throw readOnly();
+    }
+
+    @Override
+    public NodeHandler<MappedNode> getNodeHandler()
+    {
+        return nodeHandler;
+    }
+
+    /**
+     * {@inheritDoc} This implementation always throws an exception.
+     *
+     * @throws UnsupportedOperationException as this model cannot be changed
+     */
+    @Override
+    public void addProperty(String key, Iterable<?> values,
+            NodeKeyResolver<MappedNode> resolver)
+    {
+        throw readOnly();
+    }
+
+    /**
+     * {@inheritDoc} This implementation always throws an exception.
+     *
+     * @throws UnsupportedOperationException as this model cannot be changed
+     */
+    @Override
+    public void addNodes(String key, Collection<? extends MappedNode> nodes,
+            NodeKeyResolver<MappedNode> resolver)
+    {
+        throw readOnly();
+    }
+
+    /**
+     * {@inheritDoc} This implementation always throws an exception.
+     *
+     * @throws UnsupportedOperationException as this model cannot be changed
+     */
+    @Override
+    public void setProperty(String key, Object value,
+            NodeKeyResolver<MappedNode> resolver)
+    {
+        throw readOnly();
+    }
+
+    /**
+     * {@inheritDoc} This implementation always throws an exception.
+     *
+     * @throws UnsupportedOperationException as this model cannot be changed
+     */
+    @Override
+    public Object clearTree(String key, NodeKeyResolver<MappedNode> resolver)
+    {
+        throw readOnly();
+    }
+
+    /**
+     * {@inheritDoc} This implementation always throws an exception.
+     *
+     * @throws UnsupportedOperationException as this model cannot be changed
+     */
+    @Override
+    public void clearProperty(String key, NodeKeyResolver<MappedNode> resolver)
+    {
+        throw readOnly();
+    }
+
+    /**
+     * {@inheritDoc} This implementation always throws an exception.
+     *
+     * @throws UnsupportedOperationException as this model cannot be changed
+     */
+    @Override
+    public void clear(NodeKeyResolver<MappedNode> resolver)
+    {
+        throw readOnly();
+    }
+
+    /**
+     * {@inheritDoc} This implementation creates a structure of
+     * {@code ImmutableNode} objects with the content of this model. Note that
+     * this is an expensive operation for large models which requires the
+     * whole structure to be loaded into the heap.
+     */
+    @Override
+    public ImmutableNode getInMemoryRepresentation()
+    {
+        return toImmutableNode(nodeHandler.image,
+                nodeHandler.rootNode.getOffset());
+    }
+
+    /**
+     * Creates an {@code ImmutableNode} for the node at the given offset and
+     * all its children.
+     *
+     * @param image the image
+     * @param offset the offset of the node
+     * @return the corresponding {@code ImmutableNode}
+     */
+    private static ImmutableNode toImmutableNode(MappedNodeImage image,
+            int offset)
+    {
+        int childCount = image.childCount(offset);
+        ImmutableNode.Builder builder = new ImmutableNode.Builder(childCount);
+        builder.name(image.nodeName(offset)).value(image.value(offset));
+        for (int i = 0; i < childCount; i++)
+        {
+            builder.addChild(toImmutableNode(image, image.child(offset, i)));
+        }
+        int attrCount = image.attributeCount(offset);
+        for (int i = 0; i < attrCount; i++)
+        {
+            builder.addAttribute(image.attributeName(offset, i),
+                    image.attributeValue(offset, i));
+        }
+        return builder.create();
+    }
+
+    /**
+     * Checks the root node passed to one of the factory methods.
+     *
+     * @param root the root node
+     * @throws IllegalArgumentException if the root node is <b>null</b>
+     */
+    private static void checkRoot(ImmutableNode root)
+    {
+        if (root == null)
+        {
+            throw new IllegalArgumentException("Root node must not be null!");
+        }
+    }
+
+    /**
+     * Creates the exception thrown by methods which would change this model.
+     *
+     * @return the exception
+     */
+    private static UnsupportedOperationException readOnly()
+    {
+        return new UnsupportedOperationException(
+                "MappedNodeModel cannot be changed!");
+    }
+
+    /**
+     * The node handler implementation used by this model. It reads all data
+     * directly from the image.
+     */
+    private static class MappedNodeHandler implements NodeHandler<MappedNode>
+    {
+        /** The image with the node data. */
+        private final MappedNodeImage image;
+
+        /** The root node. */
+        private final MappedNode rootNode;
+
+        /**
+         * Creates a new instance of {@code MappedNodeHandler}.
+         *
+         * @param image the image with the node data
+         * @param rootOffset the offset of the root node
+         */
+        public MappedNodeHandler(MappedNodeImage image, int rootOffset)
+        {
+            this.image = image;
+            rootNode = new MappedNode(image, rootOffset);
+        }
+
+        @Override
+        public String nodeName(MappedNode node)
+        {
+            return image.nodeName(offset(node));
+        }
+
+        @Override
+        public Object getValue(MappedNode node)
+        {
+            return image.value(offset(node));
+        }
+
+        @Override
+        public MappedNode getParent(MappedNode node)
+        {
+            int offset = offset(node);
+            if (offset == rootNode.getOffset())
+            {
+                return null;
+            }
+            int parent = image.parent(offset);
+            return (parent < 0) ? null : new MappedNode(image, parent);
+        }
+
+        /**
+         * {@inheritDoc} This implementation returns a view on the children of
+         * the node. The objects representing the children are created when
+         * they are accessed.
+         */
+        @Override
+        public List<MappedNode> getChildren(MappedNode node)
+        {
+            int offset = offset(node);
+            return (image.childCount(offset) == 0) ? Collections
+                    .<MappedNode> emptyList() : new ChildList(image, offset);
+        }
+
+        /**
+         * {@inheritDoc} This implementation compares the indices of node names
+         * rather than the names themselves.
+         */
+        @Override
+        public List<MappedNode> getChildren(MappedNode node, String name)
+        {
+            int offset = offset(node);
+            int nameIndex = image.nameIndex(name);
+            if (nameIndex < 0)
+            {
+                return Collections.emptyList();
+            }
+
+            List<MappedNode> result = new ArrayList<>();
+            int count = image.childCount(offset);
+            for (int i = 0; i < count; i++)
+            {
+                int child = image.child(offset, i);
+                if (image.nodeNameIndex(child) == nameIndex)
+                {
+                    result.add(new MappedNode(image, child));
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public <C> List<MappedNode> getMatchingChildren(MappedNode node,
+                NodeMatcher<C> matcher, C criterion)
+        {
+            List<MappedNode> result = new ArrayList<>();
+            for (MappedNode child : getChildren(node))
+            {
+                if (matcher.matches(child, this, criterion))
+                {
+                    result.add(child);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public MappedNode getChild(MappedNode node, int index)
+        {
+            int offset = offset(node);
+            if (index < 0 || index >= image.childCount(offset))
+            {
+                throw new IndexOutOfBoundsException("Invalid child index: "
+                        + index);
+            }
+            return new MappedNode(image, image.child(offset, index));
+        }
+
+        @Override
+        public int indexOfChild(MappedNode parent, MappedNode child)
+        {
+            int offset = offset(parent);
+            if (child == null || child.getImage() != image)
+            {
+                return -1;
+            }
+            int count = image.childCount(offset);
+            for (int i = 0; i < count; i++)
+            {
+                if (image.child(offset, i) == child.getOffset())
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public int getChildrenCount(MappedNode node, String name)
+        {
+            int offset = offset(node);
+            if (name == null)
+            {
+                return image.childCount(offset);
+            }
+
+            int nameIndex = image.nameIndex(name);
+            int count = 0;
+            if (nameIndex >= 0)
+            {
+                int childCount = image.childCount(offset);
+                for (int i = 0; i < childCount; i++)
+                {
+                    if (image.nodeNameIndex(image.child(offset, i)) == nameIndex)
+                    {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public <C> int getMatchingChildrenCount(MappedNode node,
+                NodeMatcher<C> matcher, C criterion)
+        {
+            return getMatchingChildren(node, matcher, criterion).size();
+        }
+
+        @Override
+        public Set<String> getAttributes(MappedNode node)
+        {
+            int offset = offset(node);
+            int count = image.attributeCount(offset);
+            if (count == 0)
+            {
+                return Collections.emptySet();
+            }
+
+            Set<String> names = new LinkedHashSet<>();
+            for (int i = 0; i < count; i++)
+            {
+                names.add(image.attributeName(offset, i));
+            }
+            return Collections.unmodifiableSet(names);
+        }
+
+        @Override
+        public boolean hasAttributes(MappedNode node)
+        {
+            return image.attributeCount(offset(node)) > 0;
+        }
+
+        @Override
+        public Object getAttributeValue(MappedNode node, String name)
+        {
+            int offset = offset(node);
+            int nameIndex = image.nameIndex(name);
+            if (nameIndex >= 0)
+            {
+                int count = image.attributeCount(offset);
+                for (int i = 0; i < count; i++)
+                {
+                    if (image.attributeNameIndex(offset, i) == nameIndex)
+                    {
+                        return image.attributeValue(offset, i);
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * {@inheritDoc} A node is defined if it has a value, children, or
+         * attributes.
+         */
+        @Override
+        public boolean isDefined(MappedNode node)
+        {
+            int offset = offset(node);
+            return image.value(offset) != null || image.childCount(offset) > 0
+                    || image.attributeCount(offset) > 0;
+        }
+
+        @Override
+        public MappedNode getRootNode()
+        {
+            return rootNode;
+        }
+
+        /**
+         * Returns the offset of the given node. It is checked whether the node
+         * belongs to this model.
+         *
+         * @param node the node
+         * @return the offset of this node
+         * @throws IllegalArgumentException if the node does not belong to this
+         *         model
+         */
+        private int offset(MappedNode node)
+        {
+            if (node.getImage() != image)
+            {
+                throw new IllegalArgumentException(node
+                        + " is not part of this model!");
+            }
+            return node.getOffset();
+        }
+    }
+
+    /**
+     * A list implementation providing a view on the children of a node. The
+     * objects representing the children are created on access.
+     */
+    private static class ChildList extends AbstractList<MappedNode> implements
+            RandomAccess
+    {
+        /** The image with the node data. */
+        private final MappedNodeImage image;
+
+        /** The offset of the parent node. */
+        private final int parent;
+
+        /** The number of children. */
+        private final int size;
+
+        /**
+         * Creates a new instance of {@code ChildList}.
+         *
+         * @param image the image
+         * @param parent the offset of the parent node
+         */
+        public ChildList(MappedNodeImage image, int parent)
+        {
+            this.image = image;
+            this.parent = parent;
+            size = image.childCount(parent);
+        }
+
+        @Override
+        public MappedNode get(int index)
+        {
+            if (index < 0 || index >= size)
+            {
+                throw new IndexOutOfBoundsException("Invalid child index: "
+                        + index);
+            }
+            return new MappedNode(image, image.child(parent, index));
+        }
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.tree;
+
+/**
+ * <p>
+ * An extended {@link ConfigurationNodeVisitor} interface for visitors which
+ * can be used for a parallel traversal of a node structure.
+ * </p>
+ * <p>
+ * When a large structure is traversed in parallel by
+ * {@link NodeTreeWalker#walkParallelDFS(Object, MergeableNodeVisitor, NodeHandler)},
+ * it is split into multiple parts which are processed by different threads.
+ * For each part a separate visitor is obtained by calling {@code fork()} on
+ * the visitor responsible for the enclosing part. When the part has been
+ * processed, its visitor is passed to the {@code merge()} method of the
+ * visitor it was forked from. Merging happens in the order of the parts in
+ * the structure: the visitor for a sub tree is merged after the visitors of
+ * all sub trees preceding it. So a visitor which accumulates results in a
+ * list can append the results of the other visitor to obtain the same
+ * order as in a sequential traversal.
+ * </p>
+ * <p>
+ * A visitor which is thread-safe can simply return itself from
+ * {@code fork()}; its {@code merge()} method then has nothing to do if it is
+ * passed the same instance.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.2
+ * @param <T> the type of the nodes processed by this visitor
+ * @param <V> the concrete type of the visitor
+ */
+public interface MergeableNodeVisitor<T, V extends MergeableNodeVisitor<T, V>>
+        extends ConfigurationNodeVisitor<T>
+{
+    /**
+     * Returns a visitor for processing a part of the structure which may be
+     * traversed by another thread. This is typically a new, empty instance of
+     * the same visitor class.
+     *
+     * @return the visitor for a part of the structure
+     */
+    V fork();
+
+    /**
+     * Merges the results of a visitor obtained from {@code fork()} into this
+     * visitor after it has processed its part of the structure.
+     *
+     * @param other the visitor to be merged
+     */
+    void merge(V other);
+}
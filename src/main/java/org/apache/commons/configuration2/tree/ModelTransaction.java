@@ -98,6 +98,12 @@ class ModelTransaction
     /** A new parent mapping. */
     private final Map<ImmutableNode, ImmutableNode> parentMapping;
 
+    /**
+     * The nodes whose content (value, attributes, children, or the names of
+     * the children) is changed in this transaction.
+     */
+    private final Set<ImmutableNode> changedNodes;
+
     /** A collection with nodes which have been added. */
     private final Collection<ImmutableNode> addedNodes;
 
@@ -142,6 +148,7 @@ class ModelTransaction
         replacementMapping = getCurrentData().copyReplacementMapping();
         replacedNodes = new HashMap<>();
         parentMapping = getCurrentData().copyParentMapping();
+        changedNodes = new HashSet<>();
         operations = new TreeMap<>();
         addedNodes = new LinkedList<>();
         removedNodes = new LinkedList<>();
@@ -183,6 +190,7 @@ class ModelTransaction
     public void addAddNodesOperation(ImmutableNode parent,
             Collection<? extends ImmutableNode> newNodes)
     {
+        nodeChanged(parent);
         ChildrenUpdateOperation op = new ChildrenUpdateOperation();
         op.addNewNodes(newNodes);
         fetchOperations(parent, LEVEL_UNKNOWN).addChildrenOperation(op);
@@ -196,6 +204,7 @@ class ModelTransaction
      */
     public void addAddNodeOperation(ImmutableNode parent, ImmutableNode newChild)
     {
+        nodeChanged(parent);
         ChildrenUpdateOperation op = new ChildrenUpdateOperation();
         op.addNewNode(newChild);
         fetchOperations(parent, LEVEL_UNKNOWN).addChildrenOperation(op);
@@ -211,6 +220,7 @@ class ModelTransaction
     public void addAttributeOperation(ImmutableNode target, String name,
             Object value)
     {
+        nodeChanged(target);
         fetchOperations(target, LEVEL_UNKNOWN).addOperation(
                 new AddAttributeOperation(name, value));
     }
@@ -224,6 +234,7 @@ class ModelTransaction
     public void addAttributesOperation(ImmutableNode target,
             Map<String, Object> attributes)
     {
+        nodeChanged(target);
         fetchOperations(target, LEVEL_UNKNOWN).addOperation(
                 new AddAttributesOperation(attributes));
     }
@@ -236,6 +247,7 @@ class ModelTransaction
      */
     public void addRemoveNodeOperation(ImmutableNode parent, ImmutableNode node)
     {
+        nodeChanged(parent);
         ChildrenUpdateOperation op = new ChildrenUpdateOperation();
         op.addNodeToRemove(node);
         fetchOperations(parent, LEVEL_UNKNOWN).addChildrenOperation(op);
@@ -249,6 +261,7 @@ class ModelTransaction
      */
     public void addRemoveAttributeOperation(ImmutableNode target, String name)
     {
+        nodeChanged(target);
         fetchOperations(target, LEVEL_UNKNOWN).addOperation(
                 new RemoveAttributeOperation(name));
     }
@@ -272,6 +285,7 @@ class ModelTransaction
     public void addChangeNodeValueOperation(ImmutableNode target,
             Object newValue)
     {
+        nodeChanged(target);
         fetchOperations(target, LEVEL_UNKNOWN).addOperation(
                 new ChangeNodeValueOperation(newValue));
     }
@@ -284,6 +298,9 @@ class ModelTransaction
      */
     public void addChangeNodeNameOperation(ImmutableNode target, String newName)
     {
+        nodeChanged(target);
+        // the name is relevant when the children of the parent are selected
+        nodeChanged(getParent(target));
         fetchOperations(target, LEVEL_UNKNOWN).addOperation(
                 new ChangeNodeNameOperation(newName));
     }
@@ -323,7 +340,8 @@ class ModelTransaction
         updateParentMapping();
         return new TreeData(newRoot, parentMapping, replacementMapping,
                 currentData.getNodeTracker().update(newRoot, rootNodeSelector,
-                        getResolver(), getCurrentData()), updateReferenceTracker()
+                        getResolver(), getCurrentData(), changedNodes,
+                        replacedNodes), updateReferenceTracker()
         );
     }
 
@@ -377,6 +395,21 @@ class ModelTransaction
         return ops;
     }
 
+    /**
+     * Records the given node as changed by this transaction. This information
+     * is used by the {@code NodeTracker} to find out which tracked nodes are
+     * affected by the transaction.
+     *
+     * @param node the changed node (may be <b>null</b>)
+     */
+    private void nodeChanged(ImmutableNode node)
+    {
+        if (node != null)
+        {
+            changedNodes.add(node);
+        }
+    }
+
     /**
      * Initializes the root node to be used within queries. If a tracked node
      * selector is provided, this node becomes the root node. Otherwise, the
@@ -1086,6 +1119,7 @@ class ModelTransaction
             else
             {
                 co.addNodeToRemove(target);
+                nodeChanged(parent);
             }
             fetchOperations(parent, level - 1).addChildrenOperation(co);
         }
@@ -19,8 +19,11 @@ package org.apache.commons.configuration2.tree;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.configuration2.ex.ConfigurationRuntimeException;
 
@@ -53,6 +56,16 @@ import org.apache.commons.configuration2.ex.ConfigurationRuntimeException;
  * </ul>
  * </p>
  * <p>
+ * When a selector is evaluated, the nodes it accesses are recorded. If the
+ * caller of the {@code update()} method provides information about the nodes
+ * changed by a transaction, a selector is only evaluated again if one of its
+ * recorded nodes was changed. Otherwise, the selector would select the same
+ * node as before; so the tracked node is just replaced by its new instance in
+ * the updated structure. This makes updates cheap even if many nodes are
+ * tracked, provided that the changes do not affect the paths to the tracked
+ * nodes.
+ * </p>
+ * <p>
  * Implementation note: This class is intended to work in a concurrent
  * environment. Instances are immutable. The represented state can be updated by
  * creating new instances which are then stored by the owning node model.
@@ -241,6 +254,36 @@ class NodeTracker
     public NodeTracker update(ImmutableNode root, NodeSelector txTarget,
             NodeKeyResolver<ImmutableNode> resolver,
             NodeHandler<ImmutableNode> handler)
+    {
+        return update(root, txTarget, resolver, handler, null, null);
+    }
+
+    /**
+     * Updates tracking information after the node structure has been changed
+     * by a transaction with known changes. This method works like the
+     * overloaded method, but selectors are only evaluated again if they
+     * accessed one of the changed nodes when they were evaluated the last
+     * time. For the other selectors, only the references to the tracked nodes
+     * are updated using the passed in map with replaced nodes. If the set with
+     * changed nodes is <b>null</b>, all selectors are evaluated again.
+     *
+     * @param root the root node
+     * @param txTarget the {@code NodeSelector} referencing the target node of
+     *        the current transaction (may be <b>null</b>)
+     * @param resolver the {@code NodeKeyResolver}
+     * @param handler the {@code NodeHandler}
+     * @param changedNodes the nodes whose content was changed by the
+     *        transaction (may be <b>null</b>)
+     * @param replacedNodes a map with the nodes replaced by the transaction
+     *        and their replacements
+     * @return the updated instance
+     * @since 2.2
+     */
+    public NodeTracker update(ImmutableNode root, NodeSelector txTarget,
+            NodeKeyResolver<ImmutableNode> resolver,
+            NodeHandler<ImmutableNode> handler,
+            Set<ImmutableNode> changedNodes,
+            Map<ImmutableNode, ImmutableNode> replacedNodes)
     {
         if (trackedNodes.isEmpty())
         {
@@ -253,10 +296,19 @@ class NodeTracker
         for (Map.Entry<NodeSelector, TrackedNodeData> e : trackedNodes
                 .entrySet())
         {
-            newState.put(
-                    e.getKey(),
-                    determineUpdatedTrackedNodeData(root, txTarget, resolver,
-                            handler, e));
+            TrackedNodeData newData;
+            if (changedNodes != null && !e.getValue().isDetached()
+                    && !e.getValue().dependsOn(changedNodes))
+            {
+                newData = e.getValue().nodesReplaced(replacedNodes);
+            }
+            else
+            {
+                newData =
+                        determineUpdatedTrackedNodeData(root, txTarget,
+                                resolver, handler, e);
+            }
+            newState.put(e.getKey(), newData);
         }
 
         return new NodeTracker(newState);
@@ -353,9 +405,10 @@ class NodeTracker
         }
 
         ImmutableNode newTarget;
+        DependencyRecorder recorder = new DependencyRecorder(handler);
         try
         {
-            newTarget = e.getKey().select(root, resolver, handler);
+            newTarget = e.getKey().select(root, resolver, recorder);
         }
         catch (Exception ex)
         {
@@ -370,7 +423,7 @@ class NodeTracker
         {
             return detachedTrackedNodeData(txTarget, e);
         }
-        return e.getValue().updateNode(newTarget);
+        return e.getValue().updateNode(newTarget, recorder.getDependencies());
     }
 
     /**
@@ -432,13 +485,14 @@ class NodeTracker
         }
         else
         {
-            ImmutableNode target = selector.select(root, resolver, handler);
+            DependencyRecorder recorder = new DependencyRecorder(handler);
+            ImmutableNode target = selector.select(root, resolver, recorder);
             if (target == null)
             {
                 throw new ConfigurationRuntimeException(
                         "Selector does not select unique node: " + selector);
             }
-            return new TrackedNodeData(target);
+            return new TrackedNodeData(target, recorder.getDependencies());
         }
     }
 
@@ -456,6 +510,12 @@ class NodeTracker
         /** A node model to be used when the tracked node is detached. */
         private final InMemoryNodeModel detachedModel;
 
+        /**
+         * The nodes accessed when the selector was evaluated the last time;
+         * <b>null</b> if unknown.
+         */
+        private final Set<ImmutableNode> dependencies;
+
         /**
          * Creates a new instance of {@code TrackedNodeData} and initializes it
          * with the current reference to the tracked node.
@@ -464,7 +524,20 @@ class NodeTracker
          */
         public TrackedNodeData(ImmutableNode nd)
         {
-            this(nd, 1, null);
+            this(nd, null);
+        }
+
+        /**
+         * Creates a new instance of {@code TrackedNodeData} and initializes it
+         * with the current reference to the tracked node and the nodes
+         * accessed when selecting it.
+         *
+         * @param nd the tracked node
+         * @param deps the nodes the selection depends on (may be <b>null</b>)
+         */
+        public TrackedNodeData(ImmutableNode nd, Set<ImmutableNode> deps)
+        {
+            this(nd, 1, null, deps);
         }
 
         /**
@@ -474,13 +547,15 @@ class NodeTracker
          * @param nd the tracked node
          * @param obsCount the observer count
          * @param detachedNodeModel a model to be used in detached mode
+         * @param deps the nodes the selection depends on (may be <b>null</b>)
          */
         private TrackedNodeData(ImmutableNode nd, int obsCount,
-                InMemoryNodeModel detachedNodeModel)
+                InMemoryNodeModel detachedNodeModel, Set<ImmutableNode> deps)
         {
             node = nd;
             observerCount = obsCount;
             detachedModel = detachedNodeModel;
+            dependencies = deps;
         }
 
         /**
@@ -523,7 +598,8 @@ class NodeTracker
          */
         public TrackedNodeData observerAdded()
         {
-            return new TrackedNodeData(node, observerCount + 1, getDetachedModel());
+            return new TrackedNodeData(node, observerCount + 1,
+                    getDetachedModel(), dependencies);
         }
 
         /**
@@ -537,7 +613,7 @@ class NodeTracker
         public TrackedNodeData observerRemoved()
         {
             return (observerCount <= 1) ? null : new TrackedNodeData(node,
-                    observerCount - 1, getDetachedModel());
+                    observerCount - 1, getDetachedModel(), dependencies);
         }
 
         /**
@@ -546,11 +622,50 @@ class NodeTracker
          * another instance.
          *
          * @param newNode the new tracked node instance
+         * @param deps the nodes accessed when selecting the new node
          * @return the updated instance
          */
-        public TrackedNodeData updateNode(ImmutableNode newNode)
+        public TrackedNodeData updateNode(ImmutableNode newNode,
+                Set<ImmutableNode> deps)
+        {
+            return new TrackedNodeData(newNode, observerCount,
+                    getDetachedModel(), deps);
+        }
+
+        /**
+         * Checks whether the selection of the represented tracked node may be
+         * affected by changes on the given nodes. This is the case if one of
+         * these nodes was accessed during the selection or if this information
+         * is not available.
+         *
+         * @param changedNodes the set with changed nodes
+         * @return a flag whether the tracked node has to be selected again
+         */
+        public boolean dependsOn(Set<ImmutableNode> changedNodes)
         {
-            return new TrackedNodeData(newNode, observerCount, getDetachedModel());
+            return dependencies == null
+                    || !Collections.disjoint(dependencies, changedNodes);
+        }
+
+        /**
+         * Returns an instance which references the new instances of the
+         * tracked node and the nodes it depends on after a transaction. This
+         * method is called if the tracked node need not be selected again.
+         *
+         * @param replacedNodes a map with replaced nodes and their
+         *        replacements
+         * @return the updated instance
+         */
+        public TrackedNodeData nodesReplaced(
+                Map<ImmutableNode, ImmutableNode> replacedNodes)
+        {
+            Set<ImmutableNode> newDeps = new HashSet<>();
+            for (ImmutableNode dep : dependencies)
+            {
+                newDeps.add(replacement(dep, replacedNodes));
+            }
+            return new TrackedNodeData(replacement(node, replacedNodes),
+                    observerCount, getDetachedModel(), newDeps);
         }
 
         /**
@@ -568,7 +683,167 @@ class NodeTracker
             ImmutableNode newTrackedNode =
                     (newNode != null) ? newNode : getNode();
             return new TrackedNodeData(newTrackedNode, observerCount,
-                    new InMemoryNodeModel(newTrackedNode));
+                    new InMemoryNodeModel(newTrackedNode), null);
+        }
+
+        /**
+         * Returns the replacement of the given node if it was replaced.
+         * Otherwise, the node itself is returned.
+         *
+         * @param nd the node
+         * @param replacedNodes the map with replaced nodes
+         * @return the current instance of this node
+         */
+        private static ImmutableNode replacement(ImmutableNode nd,
+                Map<ImmutableNode, ImmutableNode> replacedNodes)
+        {
+            ImmutableNode repl = replacedNodes.get(nd);
+            return (repl != null) ? repl : nd;
+        }
+    }
+
+    /**
+     * A special {@code NodeHandler} implementation which records all nodes
+     * passed to its methods. It is used when evaluating a selector to find out
+     * on which nodes the selection depends.
+     */
+    private static class DependencyRecorder extends
+            NodeHandlerDecorator<ImmutableNode>
+    {
+        /** The wrapped handler. */
+        private final NodeHandler<ImmutableNode> handler;
+
+        /** The set with the nodes accessed. */
+        private final Set<ImmutableNode> dependencies;
+
+        /**
+         * Creates a new instance of {@code DependencyRecorder} which wraps the
+         * given handler.
+         *
+         * @param h the handler to be decorated
+         */
+        public DependencyRecorder(NodeHandler<ImmutableNode> h)
+        {
+            handler = h;
+            dependencies = new HashSet<>();
+        }
+
+        /**
+         * Returns the set with the nodes accessed so far.
+         *
+         * @return the set with dependencies
+         */
+        public Set<ImmutableNode> getDependencies()
+        {
+            return dependencies;
+        }
+
+        @Override
+        public String nodeName(ImmutableNode node)
+        {
+            return super.nodeName(record(node));
+        }
+
+        @Override
+        public Object getValue(ImmutableNode node)
+        {
+            return super.getValue(record(node));
+        }
+
+        @Override
+        public ImmutableNode getParent(ImmutableNode node)
+        {
+            return super.getParent(record(node));
+        }
+
+        @Override
+        public List<ImmutableNode> getChildren(ImmutableNode node)
+        {
+            return super.getChildren(record(node));
+        }
+
+        @Override
+        public <C> List<ImmutableNode> getMatchingChildren(ImmutableNode node,
+                NodeMatcher<C> matcher, C criterion)
+        {
+            return super.getMatchingChildren(record(node), matcher, criterion);
+        }
+
+        @Override
+        public <C> int getMatchingChildrenCount(ImmutableNode node,
+                NodeMatcher<C> matcher, C criterion)
+        {
+            return super.getMatchingChildrenCount(record(node), matcher,
+                    criterion);
+        }
+
+        @Override
+        public List<ImmutableNode> getChildren(ImmutableNode node, String name)
+        {
+            return super.getChildren(record(node), name);
+        }
+
+        @Override
+        public ImmutableNode getChild(ImmutableNode node, int index)
+        {
+            return super.getChild(record(node), index);
+        }
+
+        @Override
+        public int indexOfChild(ImmutableNode parent, ImmutableNode child)
+        {
+            return super.indexOfChild(record(parent), child);
+        }
+
+        @Override
+        public int getChildrenCount(ImmutableNode node, String name)
+        {
+            return super.getChildrenCount(record(node), name);
+        }
+
+        @Override
+        public Set<String> getAttributes(ImmutableNode node)
+        {
+            return super.getAttributes(record(node));
+        }
+
+        @Override
+        public boolean hasAttributes(ImmutableNode node)
+        {
+            return super.hasAttributes(record(node));
+        }
+
+        @Override
+        public Object getAttributeValue(ImmutableNode node, String name)
+        {
+            return super.getAttributeValue(record(node), name);
+        }
+
+        @Override
+        public boolean isDefined(ImmutableNode node)
+        {
+            return super.isDefined(record(node));
+        }
+
+        @Override
+        protected NodeHandler<ImmutableNode> getDecoratedNodeHandler()
+        {
+            return handler;
+        }
+
+        /**
+         * Records the given node as a dependency.
+         *
+         * @param node the node accessed
+         * @return the same node
+         */
+        private ImmutableNode record(ImmutableNode node)
+        {
+            if (node != null)
+            {
+                dependencies.add(node);
+            }
+            return node;
         }
     }
 }
@@ -16,8 +16,13 @@
  */
 package org.apache.commons.configuration2.tree;
 
-import java.util.LinkedList;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * <p>
@@ -32,10 +37,18 @@ import java.util.List;
  * visited. Details can be found in the method documentation.
  * </p>
  * <p>
- * An instance of this class does not define any state; therefore, it can be
- * shared and used concurrently. The {@code INSTANCE} member field can be used
- * for accessing a default instance. If desired (e.g. for testing purposes), new
- * instances can be created.
+ * All traversals are implemented iteratively; the nodes still to be processed
+ * are stored in structures on the heap. So the depth of the structures which
+ * can be traversed is not limited by the stack size. For large structures,
+ * there is also a parallel variant of the depth-first traversal which can be
+ * used with visitors implementing the {@link MergeableNodeVisitor} interface.
+ * </p>
+ * <p>
+ * An instance of this class does not define any state except for the
+ * threshold for parallel traversals; therefore, it can be shared and used
+ * concurrently. The {@code INSTANCE} member field can be used for accessing a
+ * default instance. If desired (e.g. for testing purposes), new instances can
+ * be created.
  * </p>
  *
  * @version $Id$
@@ -43,9 +56,76 @@ import java.util.List;
  */
 public class NodeTreeWalker
 {
+    /**
+     * The default threshold for parallel traversals. The children of a node
+     * are processed in parallel only if there are at least this number of
+     * children.
+     *
+     * @since 2.2
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 16;
+
     /** The default instance of this class. */
     public static final NodeTreeWalker INSTANCE = new NodeTreeWalker();
 
+    /**
+     * Constant for the maximum nesting level of parallel tasks. Below this
+     * level, sub trees are always processed sequentially. This limits the
+     * stack depth required for parallel traversals.
+     */
+    private static final int MAX_NESTING = 32;
+
+    /**
+     * Constant for the number of surplus tasks in the queue of a worker thread
+     * up to which further tasks are split off. This prevents that more tasks
+     * are created than can be processed in parallel.
+     */
+    private static final int MAX_SURPLUS_TASKS = 2;
+
+    /** The threshold for parallel traversals. */
+    private final int parallelThreshold;
+
+    /**
+     * Creates a new instance of {@code NodeTreeWalker} with the default
+     * threshold for parallel traversals.
+     */
+    public NodeTreeWalker()
+    {
+        this(DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Creates a new instance of {@code NodeTreeWalker} with the given threshold
+     * for parallel traversals. A node's children are only processed in
+     * parallel by {@code walkParallelDFS()} if the node has at least this
+     * number of children.
+     *
+     * @param threshold the threshold for parallel traversals (must be greater
+     *        than 1)
+     * @throws IllegalArgumentException if the threshold is invalid
+     * @since 2.2
+     */
+    public NodeTreeWalker(int threshold)
+    {
+        if (threshold < 2)
+        {
+            throw new IllegalArgumentException(
+                    "Threshold must be greater than 1: " + threshold);
+        }
+        parallelThreshold = threshold;
+    }
+
+    /**
+     * Returns the threshold for parallel traversals.
+     *
+     * @return the threshold for parallel traversals
+     * @since 2.2
+     */
+    public int getParallelThreshold()
+    {
+        return parallelThreshold;
+    }
+
     /**
      * Visits all nodes in the hierarchy represented by the given root node in
      * <em>depth first search</em> manner. This means that first
@@ -68,7 +148,7 @@ public class NodeTreeWalker
     {
         if (checkParameters(root, visitor, handler))
         {
-            dfs(root, visitor, handler);
+            dfs(root, visitor, handler, null);
         }
     }
 
@@ -101,26 +181,103 @@ public class NodeTreeWalker
     }
 
     /**
-     * Recursive helper method for performing a DFS traversal.
+     * Visits all nodes in the hierarchy represented by the given root node in
+     * <em>depth first search</em> manner, processing large parts of the
+     * structure in parallel. For nodes with at least the number of children
+     * defined by the parallel threshold, the sub trees of the children are
+     * distributed over multiple fork/join tasks. Each task uses a visitor
+     * obtained via {@code fork()}; after the task is complete, this visitor is
+     * merged into the visitor it was forked from (in the order of the sub
+     * trees). So for each single visitor the same rules apply as for
+     * {@link #walkDFS(Object, ConfigurationNodeVisitor, NodeHandler)}, and the
+     * merged results correspond to a sequential traversal. The
+     * {@code terminate()} method, however, only affects the part of the
+     * structure processed by the visitor on which it is called.
      *
-     * @param node the current node
+     * @param root the root node of the hierarchy to be processed (may be
+     *        <b>null</b>, then this call has no effect)
+     * @param visitor the {@code MergeableNodeVisitor} (must not be
+     *        <b>null</b>)
+     * @param handler the {@code NodeHandler} (must not be <b>null</b>)
+     * @param <T> the type of the nodes involved
+     * @param <V> the type of the visitor
+     * @throws IllegalArgumentException if a required parameter is <b>null</b>
+     * @since 2.2
+     */
+    public <T, V extends MergeableNodeVisitor<T, V>> void walkParallelDFS(
+            T root, V visitor, NodeHandler<T> handler)
+    {
+        if (checkParameters(root, visitor, handler))
+        {
+            ParallelWalkTask<T, V> task =
+                    new ParallelWalkTask<>(Collections.singletonList(root), 0,
+                            1, visitor, handler, parallelThreshold, 0);
+            if (ForkJoinTask.inForkJoinPool())
+            {
+                task.invoke();
+            }
+            else
+            {
+                PoolHolder.POOL.invoke(task);
+            }
+        }
+    }
+
+    /**
+     * Helper method for performing a DFS traversal. The nodes on the current
+     * path are stored in a stack on the heap together with the position of
+     * the next child to be processed. If a parallel task is passed in, the
+     * children of nodes with many children are handed over to this task.
+     *
+     * @param root the root node to be navigated
      * @param visitor the visitor
      * @param handler the handler
+     * @param task the parallel task or <b>null</b> for a sequential traversal
      * @param <T> the type of the nodes involved
      */
-    private static <T> void dfs(T node, ConfigurationNodeVisitor<T> visitor,
-            NodeHandler<T> handler)
+    private static <T> void dfs(T root, ConfigurationNodeVisitor<T> visitor,
+            NodeHandler<T> handler, ParallelWalkTask<T, ?> task)
     {
-        if (!visitor.terminate())
+        Deque<DfsFrame<T>> stack = new ArrayDeque<>();
+        T node = root;
+        while (true)
         {
-            visitor.visitBeforeChildren(node, handler);
-            for (T c : handler.getChildren(node))
+            if (node != null)
             {
-                dfs(c, visitor, handler);
+                if (visitor.terminate())
+                {
+                    return;
+                }
+                visitor.visitBeforeChildren(node, handler);
+                List<T> children = handler.getChildren(node);
+                if (task != null && task.processChildren(children))
+                {
+                    if (visitor.terminate())
+                    {
+                        return;
+                    }
+                    visitor.visitAfterChildren(node, handler);
+                }
+                else
+                {
+                    stack.push(new DfsFrame<>(node, children));
+                }
             }
-            if (!visitor.terminate())
+
+            DfsFrame<T> frame = stack.peek();
+            if (frame == null)
+            {
+                return;
+            }
+            node = frame.nextChild();
+            if (node == null)
             {
-                visitor.visitAfterChildren(node, handler);
+                stack.pop();
+                if (visitor.terminate())
+                {
+                    return;
+                }
+                visitor.visitAfterChildren(frame.node, handler);
             }
         }
     }
@@ -140,19 +297,16 @@ public class NodeTreeWalker
     private static <T> void bfs(T root, ConfigurationNodeVisitor<T> visitor,
             NodeHandler<T> handler)
     {
-        List<T> pendingNodes = new LinkedList<>();
+        Deque<T> pendingNodes = new ArrayDeque<>();
         pendingNodes.add(root);
         boolean cancel = false;
 
         while (!pendingNodes.isEmpty() && !cancel)
         {
-            T node = pendingNodes.remove(0);
+            T node = pendingNodes.removeFirst();
             visitor.visitBeforeChildren(node, handler);
             cancel = visitor.terminate();
-            for (T c : handler.getChildren(node))
-            {
-                pendingNodes.add(c);
-            }
+            pendingNodes.addAll(handler.getChildren(node));
         }
     }
 
@@ -182,4 +336,161 @@ public class NodeTreeWalker
         }
         return root != null;
     }
+
+    /**
+     * A data class representing a node on the stack of a DFS traversal. It
+     * stores the position of the next child to be processed.
+     *
+     * @param <T> the type of the nodes involved
+     */
+    private static class DfsFrame<T>
+    {
+        /** The node. */
+        private final T node;
+
+        /** The children of the node. */
+        private final List<T> children;
+
+        /** The index of the next child to be processed. */
+        private int childIndex;
+
+        /**
+         * Creates a new instance of {@code DfsFrame}.
+         *
+         * @param n the node
+         * @param c the children of this node
+         */
+        public DfsFrame(T n, List<T> c)
+        {
+            node = n;
+            children = c;
+        }
+
+        /**
+         * Returns the next child to be processed or <b>null</b> if all
+         * children have been processed.
+         *
+         * @return the next child
+         */
+        public T nextChild()
+        {
+            return (childIndex < children.size()) ? children
+                    .get(childIndex++) : null;
+        }
+    }
+
+    /**
+     * A fork/join task for a parallel DFS traversal. A task is responsible for
+     * a range of sibling nodes and their sub trees. If there are enough idle
+     * worker threads, the range is split, and the second half is processed by
+     * a new task with a forked visitor.
+     *
+     * @param <T> the type of the nodes involved
+     * @param <V> the type of the visitor
+     */
+    private static class ParallelWalkTask<T, V extends MergeableNodeVisitor<T, V>>
+            extends RecursiveAction
+    {
+        private static final long serialVersionUID = 20161019L;
+
+        /** The list of sibling nodes. */
+        private final List<T> nodes;
+
+        /** The start index of the range of nodes to be processed. */
+        private final int from;
+
+        /** The end index (exclusive) of the range of nodes to be processed. */
+        private final int to;
+
+        /** The visitor. */
+        private final V visitor;
+
+        /** The node handler. */
+        private final NodeHandler<T> handler;
+
+        /** The threshold for processing children in parallel. */
+        private final int threshold;
+
+        /** The nesting level of this task. */
+        private final int nesting;
+
+        /**
+         * Creates a new instance of {@code ParallelWalkTask}.
+         *
+         * @param nodeList the list of sibling nodes
+         * @param fromIdx the start index of the range
+         * @param toIdx the end index of the range
+         * @param v the visitor
+         * @param h the node handler
+         * @param t the threshold for parallel processing
+         * @param level the nesting level
+         */
+        public ParallelWalkTask(List<T> nodeList, int fromIdx, int toIdx, V v,
+                NodeHandler<T> h, int t, int level)
+        {
+            nodes = nodeList;
+            from = fromIdx;
+            to = toIdx;
+            visitor = v;
+            handler = h;
+            threshold = t;
+            nesting = level;
+        }
+
+        /**
+         * Processes the children of a node in parallel if this is
+         * appropriate. This method is called by the DFS traversal for each
+         * visited node. If it returns <b>true</b>, the sub trees of the
+         * children have been processed.
+         *
+         * @param children the children of the current node
+         * @return a flag whether the children have been processed
+         */
+        public boolean processChildren(List<T> children)
+        {
+            if (children.size() < threshold || nesting >= MAX_NESTING)
+            {
+                return false;
+            }
+            new ParallelWalkTask<>(children, 0, children.size(), visitor,
+                    handler, threshold, nesting + 1).compute();
+            return true;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from > 1
+                    && getSurplusQueuedTaskCount() <= MAX_SURPLUS_TASKS)
+            {
+                int mid = (from + to) >>> 1;
+                V forkedVisitor = visitor.fork();
+                ParallelWalkTask<T, V> second =
+                        new ParallelWalkTask<>(nodes, mid, to, forkedVisitor,
+                                handler, threshold, nesting);
+                second.fork();
+                new ParallelWalkTask<>(nodes, from, mid, visitor, handler,
+                        threshold, nesting).compute();
+                second.join();
+                visitor.merge(forkedVisitor);
+            }
+            else
+            {
+                for (int i = from; i < to; i++)
+                {
+                    dfs(nodes.get(i), visitor, handler, this);
+                }
+            }
+        }
+    }
+
+    /**
+     * A holder class for the thread pool used for parallel traversals. The
+     * pool is created on first use.
+     */
+    private static class PoolHolder
+    {
+        /** The pool for parallel traversals. */
+        private static final ForkJoinPool POOL = new ForkJoinPool();
+    }
 }
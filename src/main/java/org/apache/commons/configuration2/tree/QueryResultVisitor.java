@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.tree;
+
+/**
+ * <p>
+ * Definition of a <em>Visitor</em> interface for the results of a query on a
+ * hierarchical node structure.
+ * </p>
+ * <p>
+ * An object implementing this interface can be passed to the callback-based
+ * {@code query()} method of a {@link VisitingExpressionEngine}. Rather than
+ * collecting the results of the query in a list of {@link QueryResult}
+ * objects, the expression engine passes each result directly to the visitor
+ * as soon as it has been found. This avoids temporary objects, which is
+ * especially beneficial for frequent queries with only a single result, e.g.
+ * when reading simple properties.
+ * </p>
+ * <p>
+ * The results are passed to the visitor in the same order in which they
+ * would be contained in the list returned by the list-based {@code query()}
+ * method.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.2
+ * @param <T> the type of the nodes processed by this visitor
+ */
+public interface QueryResultVisitor<T>
+{
+    /**
+     * Visits a result of type node.
+     *
+     * @param node the node selected by the query
+     */
+    void visitNode(T node);
+
+    /**
+     * Visits a result of type attribute.
+     *
+     * @param parentNode the node the attribute belongs to
+     * @param attributeName the name of the attribute selected by the query
+     */
+    void visitAttribute(T parentNode, String attributeName);
+
+    /**
+     * Returns a flag whether the query should be aborted. This method allows a
+     * visitor implementation to state that it does not need any further
+     * results, e.g. if it is only interested in the first one. It is called
+     * after each visited result; a result of <strong>true</strong> indicates
+     * that the query is to be aborted.
+     *
+     * @return a flag if the query should be stopped
+     */
+    boolean terminate();
+}
@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.tree;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * A {@code NodeModel} implementation which provides read-only access to a
+ * structure of {@link ImmutableNode} objects.
+ * </p>
+ * <p>
+ * An instance is created for a given root node which is referenced directly;
+ * the nodes structure is neither copied nor traversed. Because immutable nodes
+ * cannot change, this model always represents the same version of the
+ * structure, and it can be accessed by multiple threads without any
+ * synchronization. All methods which would manipulate the structure throw an
+ * {@code UnsupportedOperationException}.
+ * </p>
+ * <p>
+ * The {@code NodeHandler} of this model determines the parent nodes of the
+ * managed nodes only on demand: the mapping from nodes to their parents is
+ * created when the parent of a node is requested for the first time. For many
+ * typical operations, e.g. querying properties with the default expression
+ * engine, this information is not needed.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.2
+ */
+public class ReadOnlyNodeModel implements NodeModel<ImmutableNode>
+{
+    /** The node handler of this model. */
+    private final ReadOnlyNodeHandler nodeHandler;
+
+    /**
+     * Creates a new instance of {@code ReadOnlyNodeModel} for the given root
+     * node.
+     *
+     * @param root the root node of this model (must not be <b>null</b>)
+     * @throws IllegalArgumentException if the root node is <b>null</b>
+     */
+    public ReadOnlyNodeModel(ImmutableNode root)
+    {
+        if (root == null)
+        {
+            throw new IllegalArgumentException("Root node must not be null!");
+        }
+        nodeHandler = new ReadOnlyNodeHandler(root);
+    }
+
+    /**
+     * {@inheritDoc} This implementation always throws an exception.
+     *
+     * @throws UnsupportedOperationException as this model cannot be changed
+     */
+    @Override
+    public void setRootNode(ImmutableNode newRoot)
+    {
+        throw readOnly();
+    }
+
+    @Override
+    public NodeHandler<ImmutableNode> getNodeHandler()
+    {
+        return nodeHandler;
+    }
+
+    /**
+     * {@inheritDoc} This implementation always throws an exception.
+     *
+     * @throws UnsupportedOperationException as this model cannot be changed
+     */
+    @Override
+    public void addProperty(String key, Iterable<?> values,
+            NodeKeyResolver<ImmutableNode> resolver)
+    {
+        throw readOnly();
+    }
+
+    /**
+     * {@inheritDoc} This implementation always throws an exception.
+     *
+     * @throws UnsupportedOperationException as this model cannot be changed
+     */
+    @Override
+    public void addNodes(String key, Collection<? extends ImmutableNode> nodes,
+            NodeKeyResolver<ImmutableNode> resolver)
+    {
+        throw readOnly();
+    }
+
+    /**
+     * {@inheritDoc} This implementation always throws an exception.
+     *
+     * @throws UnsupportedOperationException as this model cannot be changed
+     */
+    @Override
+    public void setProperty(String key, Object value,
+            NodeKeyResolver<ImmutableNode> resolver)
+    {
+        throw readOnly();
+    }
+
+    /**
+     * {@inheritDoc} This implementation always throws an exception.
+     *
+     * @throws UnsupportedOperationException as this model cannot be changed
+     */
+    @Override
+    public Object clearTree(String key, NodeKeyResolver<ImmutableNode> resolver)
+    {
+        throw readOnly();
+    }
+
+    /**
+     * {@inheritDoc} This implementation always throws an exception.
+     *
+     * @throws UnsupportedOperationException as this model cannot be changed
+     */
+    @Override
+    public void clearProperty(String key,
+            NodeKeyResolver<ImmutableNode> resolver)
+    {
+        throw readOnly();
+    }
+
+    /**
+     * {@inheritDoc} This implementation always throws an exception.
+     *
+     * @throws UnsupportedOperationException as this model cannot be changed
+     */
+    @Override
+    public void clear(NodeKeyResolver<ImmutableNode> resolver)
+    {
+        throw readOnly();
+    }
+
+    /**
+     * {@inheritDoc} This implementation returns the root node of this model.
+     */
+    @Override
+    public ImmutableNode getInMemoryRepresentation()
+    {
+        return nodeHandler.getRootNode();
+    }
+
+    /**
+     * Creates the exception thrown by methods which would change this model.
+     *
+     * @return the exception
+     */
+    private static UnsupportedOperationException readOnly()
+    {
+        return new UnsupportedOperationException(
+                "ReadOnlyNodeModel cannot be changed!");
+    }
+
+    /**
+     * The node handler implementation used by this model. It creates the
+     * mapping to parent nodes lazily.
+     */
+    private static class ReadOnlyNodeHandler extends
+            AbstractImmutableNodeHandler
+    {
+        /** The root node. */
+        private final ImmutableNode rootNode;
+
+        /** The mapping from nodes to their parents; created on demand. */
+        private volatile Map<ImmutableNode, ImmutableNode> parentMapping;
+
+        /**
+         * Creates a new instance of {@code ReadOnlyNodeHandler}.
+         *
+         * @param root the root node
+         */
+        public ReadOnlyNodeHandler(ImmutableNode root)
+        {
+            rootNode = root;
+        }
+
+        @Override
+        public ImmutableNode getRootNode()
+        {
+            return rootNode;
+        }
+
+        /**
+         * {@inheritDoc} This implementation creates the mapping to parent
+         * nodes when it is called for the first time. If the passed in node
+         * does not belong to the managed structure, an exception is thrown.
+         */
+        @Override
+        public ImmutableNode getParent(ImmutableNode node)
+        {
+            if (node == rootNode)
+            {
+                return null;
+            }
+
+            ImmutableNode parent = fetchParentMapping().get(node);
+            if (parent == null)
+            {
+                throw new IllegalArgumentException("Cannot determine parent! "
+                        + node + " is not part of this model.");
+            }
+            return parent;
+        }
+
+        /**
+         * Returns the mapping from nodes to their parents. It is created if
+         * necessary. If multiple threads access this method concurrently, the
+         * mapping may be created multiple times; but all instances are equal.
+         *
+         * @return the parent mapping
+         */
+        private Map<ImmutableNode, ImmutableNode> fetchParentMapping()
+        {
+            Map<ImmutableNode, ImmutableNode> mapping = parentMapping;
+            if (mapping == null)
+            {
+                mapping = new HashMap<>();
+                InMemoryNodeModel.updateParentMapping(mapping, rootNode);
+                parentMapping = mapping;
+            }
+            return mapping;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.tree;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ * A pool for eliminating duplicate {@code String} instances.
+ * </p>
+ * <p>
+ * When configuration files are loaded, typically many strings with the same
+ * content are created, e.g. for node names, attribute names, or common values
+ * like <em>true</em> or <em>false</em>. If many similar configurations are
+ * held in memory, these duplicates can consume a significant amount of heap.
+ * A {@code StringPool} can be passed to a configuration (for instance via the
+ * {@code stringPool} property of the builder parameters); the configuration's
+ * reader then replaces each string by an equal instance obtained from the
+ * pool.
+ * </p>
+ * <p>
+ * A pool can hold its strings either via strong or via weak references. A
+ * strong pool is slightly faster, but it keeps all strings ever added until it
+ * is cleared; so it should only be used for a limited period of time, e.g.
+ * during a batch of load operations. A weak pool drops strings which are no
+ * longer referenced anywhere else; so it can be shared by multiple
+ * configurations over their whole life time. The {@link #sharedPool()} method
+ * returns such a pool which can be used globally.
+ * </p>
+ * <p>
+ * Implementation note: This class is thread-safe.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.2
+ */
+public final class StringPool
+{
+    /** The map for a pool with strong references. */
+    private final ConcurrentMap<String, String> strongPool;
+
+    /** The map for a pool with weak references. */
+    private final Map<String, WeakReference<String>> weakPool;
+
+    /**
+     * Creates a new instance of {@code StringPool} which stores its strings
+     * via strong references.
+     */
+    public StringPool()
+    {
+        this(false);
+    }
+
+    /**
+     * Creates a new instance of {@code StringPool} and sets the flag whether
+     * strings are referenced weakly.
+     *
+     * @param weak <b>true</b> for a pool with weak references, <b>false</b>
+     *        for a pool with strong references
+     */
+    public StringPool(boolean weak)
+    {
+        if (weak)
+        {
+            weakPool = new WeakHashMap<>();
+            strongPool = null;
+        }
+        else
+        {
+            strongPool = new ConcurrentHashMap<>();
+            weakPool = null;
+        }
+    }
+
+    /**
+     * Returns a global pool with weak references which can be shared by
+     * arbitrary configurations.
+     *
+     * @return the shared {@code StringPool}
+     */
+    public static StringPool sharedPool()
+    {
+        return SharedPoolHolder.POOL;
+    }
+
+    /**
+     * Returns a flag whether this pool stores its strings via weak references.
+     *
+     * @return <b>true</b> if this is a weak pool, <b>false</b> otherwise
+     */
+    public boolean isWeak()
+    {
+        return weakPool != null;
+    }
+
+    /**
+     * Returns the canonical instance for the given string. If the pool already
+     * contains an equal string, this instance is returned. Otherwise, the
+     * passed in string is added to the pool and returned.
+     *
+     * @param str the string (may be <b>null</b>)
+     * @return the pooled instance of this string
+     */
+    public String intern(String str)
+    {
+        if (str == null)
+        {
+            return null;
+        }
+        return isWeak() ? internWeak(str) : internStrong(str);
+    }
+
+    /**
+     * Returns the canonical instance for the given value if it is a string.
+     * Other objects are returned without changes. This is a convenience method
+     * for dealing with the values of configuration nodes.
+     *
+     * @param value the value (may be <b>null</b>)
+     * @return the pooled instance of the value
+     */
+    public Object internValue(Object value)
+    {
+        return (value instanceof String) ? intern((String) value) : value;
+    }
+
+    /**
+     * Returns the number of strings contained in this pool. For a weak pool
+     * this is an estimate because strings may be garbage collected at any
+     * time.
+     *
+     * @return the number of strings in this pool
+     */
+    public int size()
+    {
+        if (isWeak())
+        {
+            synchronized (weakPool)
+            {
+                return weakPool.size();
+            }
+        }
+        return strongPool.size();
+    }
+
+    /**
+     * Removes all strings from this pool.
+     */
+    public void clear()
+    {
+        if (isWeak())
+        {
+            synchronized (weakPool)
+            {
+                weakPool.clear();
+            }
+        }
+        else
+        {
+            strongPool.clear();
+        }
+    }
+
+    /**
+     * Interns a string in the pool with strong references.
+     *
+     * @param str the string
+     * @return the pooled instance
+     */
+    private String internStrong(String str)
+    {
+        String pooled = strongPool.putIfAbsent(str, str);
+        return (pooled != null) ? pooled : str;
+    }
+
+    /**
+     * Interns a string in the pool with weak references.
+     *
+     * @param str the string
+     * @return the pooled instance
+     */
+    private String internWeak(String str)
+    {
+        synchronized (weakPool)
+        {
+            WeakReference<String> ref = weakPool.get(str);
+            String pooled = (ref != null) ? ref.get() : null;
+            if (pooled == null)
+            {
+                weakPool.put(str, new WeakReference<>(str));
+                pooled = str;
+            }
+            return pooled;
+        }
+    }
+
+    /**
+     * A holder class for the shared pool. It is created on first access.
+     */
+    private static class SharedPoolHolder
+    {
+        /** The shared pool instance. */
+        private static final StringPool POOL = new StringPool(true);
+    }
+}
@@ -0,0 +1,465 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.tree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.ObjectUtils;
+
+/**
+ * <p>
+ * A class describing the differences between two structures of
+ * {@link ImmutableNode} objects.
+ * </p>
+ * <p>
+ * An instance is created by one of the static {@code compare()} methods. It
+ * contains the keys of the properties which have been added, removed, or
+ * changed when going from the old structure to the new one. As in
+ * {@code getKeys()} of a hierarchical configuration, keys are reported for
+ * nodes with a value and for attributes. Child nodes are matched by their
+ * name and their index among the siblings with the same name; if a node has
+ * multiple children with the same name, their keys contain this index (in the
+ * format of the {@link ExpressionEngine#canonicalKey(Object, String, NodeHandler)
+ * canonicalKey()} method of the expression engine).
+ * </p>
+ * <p>
+ * The comparison makes use of the structural hashes of the nodes (see
+ * {@link ImmutableNode#structureHash()}): sub trees with equal hashes are
+ * considered equal and are skipped. Thus, the effort of a comparison mainly
+ * depends on the number of differences and not on the size of the
+ * structures. This is especially true if the structures share nodes, as is
+ * the case for different versions of the data of an {@link InMemoryNodeModel}.
+ * The keys reported as changed are always verified by comparing the values
+ * with {@code equals()}.
+ * </p>
+ * <p>
+ * Instances of this class are immutable.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.2
+ */
+public final class TreeDiff
+{
+    /** The keys of added properties. */
+    private final Set<String> addedKeys;
+
+    /** The keys of removed properties. */
+    private final Set<String> removedKeys;
+
+    /** The keys of changed properties. */
+    private final Set<String> changedKeys;
+
+    /**
+     * Creates a new instance of {@code TreeDiff} with the sets of keys.
+     *
+     * @param added the added keys
+     * @param removed the removed keys
+     * @param changed the changed keys
+     */
+    private TreeDiff(Set<String> added, Set<String> removed,
+            Set<String> changed)
+    {
+        addedKeys = Collections.unmodifiableSet(added);
+        removedKeys = Collections.unmodifiableSet(removed);
+        changedKeys = Collections.unmodifiableSet(changed);
+    }
+
+    /**
+     * Compares the given structures using the default expression engine for
+     * generating keys.
+     *
+     * @param oldRoot the root node of the old structure (must not be
+     *        <b>null</b>)
+     * @param newRoot the root node of the new structure (must not be
+     *        <b>null</b>)
+     * @return an object describing the differences
+     * @throws IllegalArgumentException if a root node is <b>null</b>
+     */
+    public static TreeDiff compare(ImmutableNode oldRoot, ImmutableNode newRoot)
+    {
+        return compare(oldRoot, newRoot, DefaultExpressionEngine.INSTANCE);
+    }
+
+    /**
+     * Compares the given structures using the specified expression engine for
+     * generating keys.
+     *
+     * @param oldRoot the root node of the old structure (must not be
+     *        <b>null</b>)
+     * @param newRoot the root node of the new structure (must not be
+     *        <b>null</b>)
+     * @param engine the expression engine (must not be <b>null</b>)
+     * @return an object describing the differences
+     * @throws IllegalArgumentException if a parameter is <b>null</b>
+     */
+    public static TreeDiff compare(ImmutableNode oldRoot,
+            ImmutableNode newRoot, ExpressionEngine engine)
+    {
+        if (oldRoot == null || newRoot == null)
+        {
+            throw new IllegalArgumentException("Root nodes must not be null!");
+        }
+        if (engine == null)
+        {
+            throw new IllegalArgumentException(
+                    "Expression engine must not be null!");
+        }
+
+        Comparison comparison = new Comparison(engine);
+        ParentNodeHandler rootHandler = new ParentNodeHandler(null);
+        comparison.compareNodes(oldRoot, newRoot,
+                engine.nodeKey(newRoot, null, rootHandler));
+        return new TreeDiff(comparison.added, comparison.removed,
+                comparison.changed);
+    }
+
+    /**
+     * Returns a set with the keys of properties which are contained only in
+     * the new structure. The keys are in the order in which they were
+     * encountered.
+     *
+     * @return the added keys
+     */
+    public Set<String> getAddedKeys()
+    {
+        return addedKeys;
+    }
+
+    /**
+     * Returns a set with the keys of properties which are contained only in
+     * the old structure. The keys are in the order in which they were
+     * encountered.
+     *
+     * @return the removed keys
+     */
+    public Set<String> getRemovedKeys()
+    {
+        return removedKeys;
+    }
+
+    /**
+     * Returns a set with the keys of properties which are contained in both
+     * structures, but with different values. The keys are in the order in
+     * which they were encountered.
+     *
+     * @return the changed keys
+     */
+    public Set<String> getChangedKeys()
+    {
+        return changedKeys;
+    }
+
+    /**
+     * Returns a flag whether there are no differences between the compared
+     * structures.
+     *
+     * @return <b>true</b> if the structures are equal, <b>false</b> otherwise
+     */
+    public boolean isEmpty()
+    {
+        return addedKeys.isEmpty() && removedKeys.isEmpty()
+                && changedKeys.isEmpty();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TreeDiff [added=" + addedKeys + ", removed=" + removedKeys
+                + ", changed=" + changedKeys + "]";
+    }
+
+    /**
+     * Groups the given child nodes by their names. The order of the names is
+     * the order of their first occurrence.
+     *
+     * @param children the list of child nodes
+     * @return a map with the children grouped by their names
+     */
+    private static Map<String, List<ImmutableNode>> groupByName(
+            List<ImmutableNode> children)
+    {
+        Map<String, List<ImmutableNode>> groups = new LinkedHashMap<>();
+        for (ImmutableNode child : children)
+        {
+            List<ImmutableNode> group = groups.get(child.getNodeName());
+            if (group == null)
+            {
+                group = new ArrayList<>(1);
+                groups.put(child.getNodeName(), group);
+            }
+            group.add(child);
+        }
+        return groups;
+    }
+
+    /**
+     * A helper class which performs the actual comparison and collects the
+     * keys of the differences.
+     */
+    private static class Comparison
+    {
+        /** The expression engine for generating keys. */
+        private final ExpressionEngine engine;
+
+        /** The keys of added properties. */
+        private final Set<String> added = new LinkedHashSet<>();
+
+        /** The keys of removed properties. */
+        private final Set<String> removed = new LinkedHashSet<>();
+
+        /** The keys of changed properties. */
+        private final Set<String> changed = new LinkedHashSet<>();
+
+        /**
+         * Creates a new instance of {@code Comparison}.
+         *
+         * @param exprEngine the expression engine
+         */
+        public Comparison(ExpressionEngine exprEngine)
+        {
+            engine = exprEngine;
+        }
+
+        /**
+         * Compares two nodes and their sub trees which are known under the
+         * same key.
+         *
+         * @param oldNode the node from the old structure
+         * @param newNode the node from the new structure
+         * @param key the key of both nodes
+         */
+        public void compareNodes(ImmutableNode oldNode, ImmutableNode newNode,
+                String key)
+        {
+            if (oldNode == newNode
+                    || oldNode.structureHash() == newNode.structureHash())
+            {
+                return;
+            }
+
+            compareValues(oldNode.getValue(), newNode.getValue(), key);
+            compareAttributes(oldNode, newNode, key);
+            compareChildren(oldNode, newNode, key);
+        }
+
+        /**
+         * Compares the values of a property and records the result.
+         *
+         * @param oldValue the old value
+         * @param newValue the new value
+         * @param key the key of the property
+         */
+        private void compareValues(Object oldValue, Object newValue, String key)
+        {
+            if (oldValue == null)
+            {
+                if (newValue != null)
+                {
+                    added.add(key);
+                }
+            }
+            else if (newValue == null)
+            {
+                removed.add(key);
+            }
+            else if (!ObjectUtils.equals(oldValue, newValue))
+            {
+                changed.add(key);
+            }
+        }
+
+        /**
+         * Compares the attributes of two nodes.
+         *
+         * @param oldNode the node from the old structure
+         * @param newNode the node from the new structure
+         * @param key the key of both nodes
+         */
+        private void compareAttributes(ImmutableNode oldNode,
+                ImmutableNode newNode, String key)
+        {
+            Map<String, Object> oldAttrs = oldNode.getAttributes();
+            Map<String, Object> newAttrs = newNode.getAttributes();
+            for (Map.Entry<String, Object> e : oldAttrs.entrySet())
+            {
+                compareValues(e.getValue(), newAttrs.get(e.getKey()),
+                        engine.attributeKey(key, e.getKey()));
+            }
+            for (Map.Entry<String, Object> e : newAttrs.entrySet())
+            {
+                if (!oldAttrs.containsKey(e.getKey()))
+                {
+                    compareValues(null, e.getValue(),
+                            engine.attributeKey(key, e.getKey()));
+                }
+            }
+        }
+
+        /**
+         * Compares the children of two nodes. Children are matched by their
+         * names and their indices.
+         *
+         * @param oldNode the node from the old structure
+         * @param newNode the node from the new structure
+         * @param key the key of both nodes
+         */
+        private void compareChildren(ImmutableNode oldNode,
+                ImmutableNode newNode, String key)
+        {
+            Map<String, List<ImmutableNode>> oldGroups =
+                    groupByName(oldNode.getChildren());
+            Map<String, List<ImmutableNode>> newGroups =
+                    groupByName(newNode.getChildren());
+            ParentNodeHandler oldHandler = new ParentNodeHandler(oldNode);
+            ParentNodeHandler newHandler = new ParentNodeHandler(newNode);
+
+            for (Map.Entry<String, List<ImmutableNode>> e : oldGroups
+                    .entrySet())
+            {
+                List<ImmutableNode> oldChildren = e.getValue();
+                List<ImmutableNode> newChildren = newGroups.get(e.getKey());
+                int newCount = (newChildren != null) ? newChildren.size() : 0;
+                boolean indexed = oldChildren.size() > 1 || newCount > 1;
+                for (int i = 0; i < oldChildren.size(); i++)
+                {
+                    ImmutableNode oldChild = oldChildren.get(i);
+                    String childKey =
+                            childKey(oldChild, key, oldHandler, indexed);
+                    if (i < newCount)
+                    {
+                        compareNodes(oldChild, newChildren.get(i), childKey);
+                    }
+                    else
+                    {
+                        collectKeys(oldChild, childKey, removed);
+                    }
+                }
+                for (int i = oldChildren.size(); i < newCount; i++)
+                {
+                    ImmutableNode newChild = newChildren.get(i);
+                    collectKeys(newChild,
+                            childKey(newChild, key, newHandler, indexed), added);
+                }
+            }
+
+            for (Map.Entry<String, List<ImmutableNode>> e : newGroups
+                    .entrySet())
+            {
+                if (!oldGroups.containsKey(e.getKey()))
+                {
+                    boolean indexed = e.getValue().size() > 1;
+                    for (ImmutableNode newChild : e.getValue())
+                    {
+                        collectKeys(newChild,
+                                childKey(newChild, key, newHandler, indexed),
+                                added);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds the keys of all properties defined by the given sub tree to the
+         * specified set.
+         *
+         * @param node the root node of the sub tree
+         * @param key the key of this node
+         * @param keys the set to be populated
+         */
+        private void collectKeys(ImmutableNode node, String key,
+                Set<String> keys)
+        {
+            if (node.getValue() != null)
+            {
+                keys.add(key);
+            }
+            for (String attr : node.getAttributes().keySet())
+            {
+                keys.add(engine.attributeKey(key, attr));
+            }
+
+            ParentNodeHandler handler = new ParentNodeHandler(node);
+            for (Map.Entry<String, List<ImmutableNode>> e : groupByName(
+                    node.getChildren()).entrySet())
+            {
+                boolean indexed = e.getValue().size() > 1;
+                for (ImmutableNode child : e.getValue())
+                {
+                    collectKeys(child,
+                            childKey(child, key, handler, indexed), keys);
+                }
+            }
+        }
+
+        /**
+         * Generates the key of a child node.
+         *
+         * @param child the child node
+         * @param parentKey the key of the parent node
+         * @param handler the handler for the parent node
+         * @param indexed a flag whether the key must contain an index
+         * @return the key of the child node
+         */
+        private String childKey(ImmutableNode child, String parentKey,
+                ParentNodeHandler handler, boolean indexed)
+        {
+            return indexed ? engine.canonicalKey(child, parentKey, handler)
+                    : engine.nodeKey(child, parentKey, handler);
+        }
+    }
+
+    /**
+     * A simple node handler implementation which is used for generating the
+     * keys of the child nodes of a specific node. It reports this node as the
+     * parent of all other nodes; this is sufficient for the expression engine
+     * to determine the indices of child nodes.
+     */
+    private static class ParentNodeHandler extends AbstractImmutableNodeHandler
+    {
+        /** The parent node. */
+        private final ImmutableNode parent;
+
+        /**
+         * Creates a new instance of {@code ParentNodeHandler}.
+         *
+         * @param parentNode the parent node
+         */
+        public ParentNodeHandler(ImmutableNode parentNode)
+        {
+            parent = parentNode;
+        }
+
+        @Override
+        public ImmutableNode getParent(ImmutableNode node)
+        {
+            return (node == parent) ? null : parent;
+        }
+
+        @Override
+        public ImmutableNode getRootNode()
+        {
+            return parent;
+        }
+    }
+}
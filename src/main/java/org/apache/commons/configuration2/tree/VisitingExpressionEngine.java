@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.tree;
+
+/**
+ * <p>
+ * An extended {@link ExpressionEngine} interface which supports passing query
+ * results to a visitor.
+ * </p>
+ * <p>
+ * Implementing this interface is optional. Hierarchical configurations check
+ * whether their expression engine implements it. If this is the case, read
+ * operations like {@code getProperty()} evaluate keys through the visitor-based
+ * {@code query()} method, which avoids the creation of temporary result lists.
+ * Otherwise, the list-based {@code query()} method is used, and its results
+ * are passed to the visitor. This is also the case for subclasses of
+ * {@link DefaultExpressionEngine} and for configurations which override the
+ * methods for resolving keys, so that overridden methods are not bypassed.
+ * Note that an implementation has to ensure that both {@code query()} methods
+ * yield the same results.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.2
+ */
+public interface VisitingExpressionEngine extends ExpressionEngine
+{
+    /**
+     * Finds the nodes and/or attributes that are matched by the specified key
+     * and passes them to the given visitor. This method works like the
+     * list-based {@code query()} method, but the results are not collected;
+     * each result is passed to the visitor as soon as it has been found. If
+     * the visitor's {@code terminate()} method returns <b>true</b>, the query
+     * can be aborted. Implementations should try to avoid the creation of
+     * temporary objects in this method because it is used for frequent read
+     * operations.
+     *
+     * @param <T> the type of the node to be processed
+     * @param root the root node of a hierarchy of nodes
+     * @param key the key to be evaluated
+     * @param handler the {@code NodeHandler} for accessing the node
+     * @param visitor the visitor receiving the results
+     */
+    <T> void query(T root, String key, NodeHandler<T> handler,
+            QueryResultVisitor<T> visitor);
+}
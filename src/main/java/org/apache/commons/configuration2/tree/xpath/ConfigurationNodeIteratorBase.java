@@ -91,7 +91,7 @@ abstract class ConfigurationNodeIteratorBase<T> implements NodeIterator
     public boolean setPosition(int pos)
     {
         position = pos;
-        return pos >= 1 && pos <= getMaxPosition();
+        return isValidPosition(pos);
     }
 
     /**
@@ -131,6 +131,31 @@ abstract class ConfigurationNodeIteratorBase<T> implements NodeIterator
         return getParent().getNodeHandler();
     }
 
+    /**
+     * Returns the reverse flag of this iteration.
+     *
+     * @return a flag whether the nodes are iterated over in reverse order
+     */
+    protected boolean isReverse()
+    {
+        return reverse;
+    }
+
+    /**
+     * Checks whether the given position is valid for this iteration. This
+     * method is called by {@code setPosition()}. This base implementation
+     * compares the position with the maximum position. Derived classes can
+     * override it if they are able to perform the check without determining
+     * the total number of elements.
+     *
+     * @param pos the position (1-based)
+     * @return a flag whether this is a valid position
+     */
+    protected boolean isValidPosition(int pos)
+    {
+        return pos >= 1 && pos <= getMaxPosition();
+    }
+
     /**
      * Returns the start offset of the iteration.
      *
@@ -18,6 +18,7 @@ package org.apache.commons.configuration2.tree.xpath;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.commons.jxpath.ri.Compiler;
@@ -31,6 +32,14 @@ import org.apache.commons.lang3.StringUtils;
 /**
  * A specialized iterator implementation for the child nodes of a configuration
  * node.
+ * <p>
+ * If the iteration is restricted by a node name, the matching child nodes are
+ * determined lazily: the list of children of the parent node is only scanned
+ * as far as necessary to provide the positions requested by JXPath. So if a
+ * query only needs the first matching node, the remaining children do not have
+ * to be checked. If no restriction applies, the list of children is used
+ * directly without being copied.
+ * </p>
  *
  * @since 1.3
  * @version $Id$
@@ -40,9 +49,21 @@ class ConfigurationNodeIteratorChildren<T> extends
         ConfigurationNodeIteratorBase<T>
 {
 
-    /** The list with the sub nodes to iterate over. */
+    /** The list with the sub nodes found so far. */
     private final List<T> subNodes;
 
+    /**
+     * An iterator over the children which have not yet been checked; null if
+     * all matching sub nodes have been determined.
+     */
+    private Iterator<T> pendingChildren;
+
+    /** The name to be matched by the sub nodes. */
+    private String matchName;
+
+    /** A flag whether the name is only a prefix of the sub nodes' names. */
+    private boolean matchPrefix;
+
     /**
      * Creates a new instance of {@code ConfigurationNodeIteratorChildren} and
      * initializes it.
@@ -62,8 +83,7 @@ class ConfigurationNodeIteratorChildren<T> extends
 
         if (startsWith != null)
         {
-            setStartOffset(findStartIndex(subNodes,
-                    startsWith.getConfigurationNode()));
+            setStartOffset(findStartIndex(startsWith.getConfigurationNode()));
         }
         else
         {
@@ -83,26 +103,47 @@ class ConfigurationNodeIteratorChildren<T> extends
     @Override
     protected NodePointer createNodePointer(int position)
     {
+        fetchSubNodes(position + 1);
         return new ConfigurationNodePointer<>(getParent(), subNodes
                 .get(position), getNodeHandler());
     }
 
     /**
      * Returns the number of elements in this iteration. This is the number of
-     * elements in the children list.
+     * matching elements in the children list. In order to determine it, all
+     * children have to be checked.
      *
      * @return the number of elements
      */
     @Override
     protected int size()
     {
-        return subNodes.size();
+        return fetchSubNodes(Integer.MAX_VALUE);
+    }
+
+    /**
+     * {@inheritDoc} For a forward iteration, this implementation only checks
+     * the children of the parent node until the element at the given position
+     * is found.
+     */
+    @Override
+    protected boolean isValidPosition(int pos)
+    {
+        if (pos < 1 || isReverse())
+        {
+            return super.isValidPosition(pos);
+        }
+
+        int index = positionToIndex(pos);
+        return fetchSubNodes(index + 1) > index;
     }
 
     /**
      * Creates the list with sub nodes. This method gets called during
      * initialization phase. It finds out, based on the given test, which nodes
-     * must be iterated over.
+     * must be iterated over. If there is a restriction for the names of the
+     * sub nodes, the returned list is initially empty; it is populated on
+     * demand by {@link #fetchSubNodes(int)}.
      *
      * @param node the current node
      * @param test the test object
@@ -139,73 +180,110 @@ class ConfigurationNodeIteratorChildren<T> extends
     }
 
     /**
-     * Obtains the list of selected nodes for a {@code NodeNameTest} with either
-     * a simple or a qualified name.
+     * Prepares the list of selected nodes for a {@code NodeNameTest} with
+     * either a simple or a qualified name.
      *
      * @param node the current node
      * @param name the name to be selected
-     * @return the list with selected sub nodes
+     * @return the list for the selected sub nodes
      */
     private List<T> createSubNodeListForName(T node, QName name)
     {
-        String compareName = qualifiedName(name);
-        List<T> result = new ArrayList<>();
-        for (T child : getNodeHandler().getChildren(node))
-        {
-            if (StringUtils.equals(compareName, getNodeHandler()
-                    .nodeName(child)))
-            {
-                result.add(child);
-            }
-        }
-        return result;
+        return initPendingChildren(node, qualifiedName(name), false);
     }
 
     /**
-     * Obtains the list of selected sub nodes for a {@code NodeNameTest} with a
+     * Prepares the list of selected sub nodes for a {@code NodeNameTest} with a
      * wildcard name.
      *
      * @param node the current node
      * @param name the name to be selected
-     * @return the list with selected sub nodes
+     * @return the list for the selected sub nodes
      */
     private List<T> createSubNodeListForWildcardName(T node, QName name)
     {
-        List<T> children = getNodeHandler().getChildren(node);
         if (name.getPrefix() == null)
         {
-            return children;
+            return getNodeHandler().getChildren(node);
         }
         else
         {
-            List<T> prefixChildren = new ArrayList<>(children.size());
-            String prefix = prefixName(name.getPrefix(), null);
-            for (T child : children)
+            return initPendingChildren(node,
+                    prefixName(name.getPrefix(), null), true);
+        }
+    }
+
+    /**
+     * Initializes the fields for determining the matching sub nodes lazily.
+     *
+     * @param node the current node
+     * @param name the name to be matched
+     * @param prefix the flag whether the name is a prefix
+     * @return the initially empty list for the selected sub nodes
+     */
+    private List<T> initPendingChildren(T node, String name, boolean prefix)
+    {
+        matchName = name;
+        matchPrefix = prefix;
+        pendingChildren = getNodeHandler().getChildren(node).iterator();
+        return new ArrayList<>();
+    }
+
+    /**
+     * Makes sure that the given number of matching sub nodes has been
+     * determined if possible. The children of the parent node are checked
+     * until enough matching nodes are found or all children have been
+     * processed.
+     *
+     * @param count the number of sub nodes requested
+     * @return the number of sub nodes available
+     */
+    private int fetchSubNodes(int count)
+    {
+        while (pendingChildren != null && subNodes.size() < count)
+        {
+            if (pendingChildren.hasNext())
             {
-                if (StringUtils.startsWith(getNodeHandler().nodeName(child),
-                        prefix))
+                T child = pendingChildren.next();
+                if (matches(getNodeHandler().nodeName(child)))
                 {
-                    prefixChildren.add(child);
+                    subNodes.add(child);
                 }
             }
-            return prefixChildren;
+            else
+            {
+                pendingChildren = null;
+            }
         }
+        return subNodes.size();
+    }
+
+    /**
+     * Checks whether a child node with the given name is selected by this
+     * iteration.
+     *
+     * @param nodeName the name of the child node
+     * @return a flag whether this node is selected
+     */
+    private boolean matches(String nodeName)
+    {
+        return matchPrefix ? StringUtils.startsWith(nodeName, matchName)
+                : StringUtils.equals(matchName, nodeName);
     }
 
     /**
      * Determines the start position of the iteration. Finds the index of the
-     * given start node in the children of the root node.
+     * given start node in the selected children of the root node.
      *
-     * @param children the children of the root node
      * @param startNode the start node
      * @return the start node's index
      */
-    private int findStartIndex(List<T> children, T startNode)
+    private int findStartIndex(T startNode)
     {
         int index = 0;
-        for (T child : children)
+        while (fetchSubNodes(index + 1) > index)
         {
-            if (child == startNode)
+            if (subNodes.get(index) == startNode)
             {
                 return index;
             }
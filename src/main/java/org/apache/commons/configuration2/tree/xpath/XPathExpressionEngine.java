@@ -18,15 +18,21 @@ package org.apache.commons.configuration2.tree.xpath;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.configuration2.tree.ExpressionEngine;
 import org.apache.commons.configuration2.tree.NodeAddData;
 import org.apache.commons.configuration2.tree.NodeHandler;
 import org.apache.commons.configuration2.tree.QueryResult;
+import org.apache.commons.jxpath.CompiledExpression;
 import org.apache.commons.jxpath.JXPathContext;
+import org.apache.commons.jxpath.Pointer;
 import org.apache.commons.jxpath.ri.JXPathContextReferenceImpl;
 import org.apache.commons.lang3.StringUtils;
 
@@ -133,6 +139,14 @@ import org.apache.commons.lang3.StringUtils;
  * should be added. For keys without a whitespace delimiter there may be
  * ambiguities.
  * </p>
+ * <p>
+ * In order to speed up frequent queries, an instance caches the XPath
+ * expressions it has compiled (up to a certain number of distinct keys). In
+ * addition, the {@code JXPathContext} created for a root node is kept and
+ * reused for following queries on the same root node. Because nodes are
+ * immutable, the nodes structure of a configuration gets a new root node on
+ * each update; so a stale context is never used.
+ * </p>
  *
  * @since 1.3
  * @version $Id$
@@ -164,9 +178,18 @@ public class XPathExpressionEngine implements ExpressionEngine
     /** Constant for the end of an index expression. */
     private static final char END_INDEX = ']';
 
+    /** Constant for the maximum number of compiled expressions to cache. */
+    private static final int MAX_COMPILED_EXPRESSIONS = 256;
+
     /** The internally used context factory. */
     private final XPathContextFactory contextFactory;
 
+    /** A cache for the expressions compiled by this engine. */
+    private final ConcurrentMap<String, CompiledExpression> compiledExpressions;
+
+    /** Stores a context which can be reused for the next query. */
+    private final AtomicReference<ContextData> reusableContext;
+
     /**
      * Creates a new instance of {@code XPathExpressionEngine} with default
      * settings.
@@ -185,6 +208,8 @@ public class XPathExpressionEngine implements ExpressionEngine
     XPathExpressionEngine(XPathContextFactory factory)
     {
         contextFactory = factory;
+        compiledExpressions = new ConcurrentHashMap<>();
+        reusableContext = new AtomicReference<>();
     }
 
     /**
@@ -202,13 +227,20 @@ public class XPathExpressionEngine implements ExpressionEngine
         }
         else
         {
-            JXPathContext context = createContext(root, handler);
-            List<?> results = context.selectNodes(key);
-            if (results == null)
+            ContextData contextData = obtainContext(root, handler);
+            try
+            {
+                List<?> results = selectNodes(contextData.getContext(), key);
+                if (results == null)
+                {
+                    results = Collections.emptyList();
+                }
+                return convertResults(results);
+            }
+            finally
             {
-                results = Collections.emptyList();
+                reusableContext.set(contextData);
             }
-            return convertResults(results);
         }
     }
 
@@ -421,6 +453,77 @@ public class XPathExpressionEngine implements ExpressionEngine
                 attr, pathNodes);
     }
 
+    /**
+     * Returns a compiled expression for the given key. Compiled expressions
+     * are cached. If the cache becomes too large, it is cleared.
+     *
+     * @param key the key (an XPath expression)
+     * @return the compiled expression for this key
+     */
+    CompiledExpression compile(String key)
+    {
+        CompiledExpression expression = compiledExpressions.get(key);
+        if (expression == null)
+        {
+            if (compiledExpressions.size() >= MAX_COMPILED_EXPRESSIONS)
+            {
+                compiledExpressions.clear();
+            }
+            expression = JXPathContext.compile(key);
+            compiledExpressions.put(key, expression);
+        }
+        return expression;
+    }
+
+    /**
+     * Obtains a context for a query on the given root node. If the context
+     * used by the last query was created for the same root node and node
+     * handler, it is reused. A context which is reused is removed from this
+     * object; so it is never used by multiple threads concurrently.
+     *
+     * @param root the configuration root node
+     * @param handler the node handler
+     * @param <T> the type of the nodes involved
+     * @return the data object for the context to be used
+     */
+    private <T> ContextData obtainContext(T root, NodeHandler<T> handler)
+    {
+        ContextData contextData = reusableContext.getAndSet(null);
+        if (contextData == null || !contextData.matches(root, handler))
+        {
+            contextData =
+                    new ContextData(root, handler, createContext(root,
+                            handler));
+        }
+        return contextData;
+    }
+
+    /**
+     * Evaluates the given key on the specified context and returns the list
+     * of selected nodes. If the context is a standard JXPath context, a
+     * compiled expression is used. (Compiled expressions can only be evaluated
+     * on such contexts.)
+     *
+     * @param context the context
+     * @param key the key to be evaluated
+     * @return a list with the selected nodes
+     */
+    private List<?> selectNodes(JXPathContext context, String key)
+    {
+        if (!(context instanceof JXPathContextReferenceImpl))
+        {
+            return context.selectNodes(key);
+        }
+
+        List<Object> results = new ArrayList<>();
+        Iterator<?> it = compile(key).iteratePointers(context);
+        while (it.hasNext())
+        {
+            results.add(((Pointer) it.next()).getNode());
+        }
+        return results;
+    }
+
     /**
      * Returns the {@code XPathContextFactory} used by this instance.
      *
@@ -558,6 +661,60 @@ public class XPathExpressionEngine implements ExpressionEngine
         }
     }
 
+    /**
+     * A simple data class storing a {@code JXPathContext} together with the
+     * root node and the node handler it was created for.
+     */
+    private static class ContextData
+    {
+        /** The root node. */
+        private final Object root;
+
+        /** The node handler. */
+        private final NodeHandler<?> handler;
+
+        /** The context. */
+        private final JXPathContext context;
+
+        /**
+         * Creates a new instance of {@code ContextData}.
+         *
+         * @param rootNode the root node
+         * @param nodeHandler the node handler
+         * @param ctx the context
+         */
+        public ContextData(Object rootNode, NodeHandler<?> nodeHandler,
+                JXPathContext ctx)
+        {
+            root = rootNode;
+            handler = nodeHandler;
+            context = ctx;
+        }
+
+        /**
+         * Returns the context.
+         *
+         * @return the context
+         */
+        public JXPathContext getContext()
+        {
+            return context;
+        }
+
+        /**
+         * Checks whether the context can be used for a query on the given
+         * root node with the given handler.
+         *
+         * @param rootNode the root node
+         * @param nodeHandler the node handler
+         * @return a flag whether the context can be used
+         */
+        public boolean matches(Object rootNode, NodeHandler<?> nodeHandler)
+        {
+            return root == rootNode && handler == nodeHandler;
+        }
+    }
+
     // static initializer: registers the configuration node pointer factory
     static
     {
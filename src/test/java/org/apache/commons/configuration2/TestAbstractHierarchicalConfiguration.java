@@ -26,6 +26,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -44,9 +45,12 @@ import org.apache.commons.configuration2.tree.DefaultExpressionEngineSymbols;
 import org.apache.commons.configuration2.tree.ExpressionEngine;
 import org.apache.commons.configuration2.tree.ImmutableNode;
 import org.apache.commons.configuration2.tree.InMemoryNodeModel;
+import org.apache.commons.configuration2.tree.NodeAddData;
 import org.apache.commons.configuration2.tree.NodeHandler;
 import org.apache.commons.configuration2.tree.NodeModel;
 import org.apache.commons.configuration2.tree.NodeStructureHelper;
+import org.apache.commons.configuration2.tree.QueryResult;
+import org.apache.commons.lang3.mutable.MutableInt;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -423,6 +427,133 @@ public class TestAbstractHierarchicalConfiguration
         assertFalse("More keys than expected", it.hasNext());
     }
 
+    /**
+     * Tests whether keys of nodes with multiple occurrences are returned only
+     * once and in the order of their first occurrence.
+     */
+    @Test
+    public void testGetKeysDuplicatesOrder()
+    {
+        config.clear();
+        config.addProperty("a.b", "1");
+        config.addProperty("a.c.d", "2");
+        config.addProperty("a.c(-1).e", "3");
+        config.addProperty("a.c(1).d", "4");
+        config.addProperty("a.c(1)[@attr]", "5");
+        config.addProperty("a.c(0)[@attr]", "6");
+        config.addProperty("a.f", "7");
+        List<String> keys = new ArrayList<>();
+        for (Iterator<String> it = config.getKeys(); it.hasNext();)
+        {
+            keys.add(it.next());
+        }
+        assertEquals("Wrong keys",
+                Arrays.asList("a.b", "a.c[@attr]", "a.c.d", "a.c.e", "a.f"),
+                keys);
+    }
+
+    /**
+     * Tests that the iterator returned by getKeys() is not affected by
+     * changes of the configuration performed during the iteration.
+     */
+    @Test
+    public void testGetKeysUpdateDuringIteration()
+    {
+        Iterator<String> it = config.getKeys();
+        String key = it.next();
+        config.clearProperty(key);
+        config.addProperty("another.key", "value");
+        assertTrue("No more keys", it.hasNext());
+        assertEquals("Wrong key", "tables.table.fields.field.name", it.next());
+        assertFalse("Too many keys", it.hasNext());
+    }
+
+    /**
+     * Tests that the key iterator does not support remove operations.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetKeysRemove()
+    {
+        Iterator<String> it = config.getKeys();
+        it.next();
+        it.remove();
+    }
+
+    /**
+     * Tests getKeys() with a prefix that selects multiple nodes.
+     */
+    @Test
+    public void testGetKeysPrefixMultipleNodes()
+    {
+        Iterator<String> it = config.getKeys("tables.table");
+        List<String> keys = new ArrayList<>();
+        while (it.hasNext())
+        {
+            keys.add(it.next());
+        }
+        assertEquals("Wrong keys", Arrays.asList("tables.table.name",
+                "tables.table.fields.field.name"), keys);
+    }
+
+    /**
+     * Tests that the cache for absent keys is disabled per default.
+     */
+    @Test
+    public void testAbsentKeyCacheDisabledByDefault()
+    {
+        assertFalse("Cache enabled", config.isAbsentKeyCacheEnabled());
+    }
+
+    /**
+     * Tests whether queries for absent keys are answered from the cache.
+     */
+    @Test
+    public void testAbsentKeyCacheQuery()
+    {
+        QueryCountingExpressionEngine engine =
+                new QueryCountingExpressionEngine();
+        config.setExpressionEngine(engine);
+        config.setAbsentKeyCacheEnabled(true);
+        assertNull("Got a value (1)", config.getProperty("unknown.key"));
+        assertFalse("Key found", config.containsKey("unknown.key"));
+        assertEquals("Wrong default value", "default",
+                config.getString("unknown.key", "default"));
+        assertEquals("Wrong number of queries", 1, engine.queryCount);
+        assertEquals("Wrong value", "users", config.getString("tables.table(0).name"));
+        assertEquals("Existing key not queried", 2, engine.queryCount);
+    }
+
+    /**
+     * Tests that the cache for absent keys is discarded if the configuration
+     * is updated.
+     */
+    @Test
+    public void testAbsentKeyCacheUpdate()
+    {
+        config.setAbsentKeyCacheEnabled(true);
+        assertFalse("Key found", config.containsKey("new.key"));
+        config.addProperty("new.key", "value");
+        assertEquals("Wrong value", "value", config.getString("new.key"));
+        config.clearProperty("new.key");
+        assertFalse("Key still found", config.containsKey("new.key"));
+    }
+
+    /**
+     * Tests that the cache for absent keys is discarded if the expression
+     * engine is changed.
+     */
+    @Test
+    public void testAbsentKeyCacheChangeExpressionEngine()
+    {
+        config.setAbsentKeyCacheEnabled(true);
+        assertFalse("Key found", config.containsKey("tables/table/name"));
+        config.setExpressionEngine(new DefaultExpressionEngine(
+                new DefaultExpressionEngineSymbols.Builder(
+                        DefaultExpressionEngineSymbols.DEFAULT_SYMBOLS)
+                        .setPropertyDelimiter("/").create()));
+        assertTrue("Key not found", config.containsKey("tables/table/name"));
+    }
+
     /**
      * Tests whether the correct size is calculated.
      */
@@ -491,6 +622,70 @@ public class TestAbstractHierarchicalConfiguration
         config.addProperty(".", "InvalidKey");
     }
 
+    /**
+     * Tests that read operations work with an expression engine which does
+     * not support visitors and that they are routed through its list-based
+     * query() method.
+     */
+    @Test
+    public void testReadWithNonVisitingExpressionEngine()
+    {
+        QueryCountingExpressionEngine engine =
+                new QueryCountingExpressionEngine();
+        config.setExpressionEngine(engine);
+        checkGetProperty(config);
+        assertEquals("Wrong max index", 1, config.getMaxIndex("tables.table"));
+        assertEquals("Wrong number of queries", 7, engine.queryCount);
+    }
+
+    /**
+     * Tests that read operations use the list-based query() method of a
+     * subclass of DefaultExpressionEngine which overrides it.
+     */
+    @Test
+    public void testReadWithDefaultExpressionEngineSubclass()
+    {
+        final MutableInt queryCount = new MutableInt();
+        config.setExpressionEngine(new DefaultExpressionEngine(
+                DefaultExpressionEngineSymbols.DEFAULT_SYMBOLS)
+        {
+            @Override
+            public <T> List<QueryResult<T>> query(T root, String key,
+                    NodeHandler<T> handler)
+            {
+                queryCount.increment();
+                return super.query(root, key, handler);
+            }
+        });
+        checkGetProperty(config);
+        assertEquals("Wrong max index", 1, config.getMaxIndex("tables.table"));
+        assertEquals("Wrong number of queries", 7, queryCount.intValue());
+    }
+
+    /**
+     * Tests that read operations are routed through fetchNodeList() if it is
+     * overridden by a subclass.
+     */
+    @Test
+    public void testReadWithOverriddenFetchNodeList()
+    {
+        final MutableInt fetchCount = new MutableInt();
+        config = new AbstractHierarchicalConfigurationTestImpl(
+                new InMemoryNodeModel(getRootNode()))
+        {
+            @Override
+            protected List<QueryResult<ImmutableNode>> fetchNodeList(
+                    String key)
+            {
+                fetchCount.increment();
+                return super.fetchNodeList(key);
+            }
+        };
+        checkGetProperty(config);
+        assertEquals("Wrong max index", 1, config.getMaxIndex("tables.table"));
+        assertEquals("Wrong number of calls", 7, fetchCount.intValue());
+    }
+
     @Test
     public void testGetMaxIndex()
     {
@@ -1145,4 +1340,54 @@ public class TestAbstractHierarchicalConfiguration
             throw new UnsupportedOperationException("Unexpected method call!");
         }
     }
+
+    /**
+     * A specialized expression engine which counts the number of queries. It
+     * implements only the basic {@code ExpressionEngine} interface and
+     * delegates to a default expression engine.
+     */
+    private static class QueryCountingExpressionEngine implements
+            ExpressionEngine
+    {
+        /** The wrapped expression engine. */
+        private final ExpressionEngine engine = DefaultExpressionEngine.INSTANCE;
+
+        /** The number of queries. */
+        private int queryCount;
+
+        @Override
+        public <T> List<QueryResult<T>> query(T root, String key,
+                NodeHandler<T> handler)
+        {
+            queryCount++;
+            return engine.query(root, key, handler);
+        }
+
+        @Override
+        public <T> String nodeKey(T node, String parentKey,
+                NodeHandler<T> handler)
+        {
+            return engine.nodeKey(node, parentKey, handler);
+        }
+
+        @Override
+        public String attributeKey(String parentKey, String attributeName)
+        {
+            return engine.attributeKey(parentKey, attributeName);
+        }
+
+        @Override
+        public <T> String canonicalKey(T node, String parentKey,
+                NodeHandler<T> handler)
+        {
+            return engine.canonicalKey(node, parentKey, handler);
+        }
+
+        @Override
+        public <T> NodeAddData<T> prepareAdd(T root, String key,
+                NodeHandler<T> handler)
+        {
+            return engine.prepareAdd(root, key, handler);
+        }
+    }
 }
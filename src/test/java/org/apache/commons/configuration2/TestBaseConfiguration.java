@@ -26,7 +26,9 @@ import static org.junit.Assert.assertTrue;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -777,4 +779,144 @@ public class TestBaseConfiguration
         }
         assertEquals("Wrong size", count, config.size());
     }
+
+    /**
+     * Helper method for collecting the keys with a given prefix in a list.
+     *
+     * @param prefix the prefix
+     * @return the list with the keys
+     */
+    private List<String> fetchKeys(String prefix)
+    {
+        List<String> keys = new ArrayList<>();
+        for (Iterator<String> it = config.getKeys(prefix); it.hasNext();)
+        {
+            keys.add(it.next());
+        }
+        return keys;
+    }
+
+    /**
+     * Tests whether keys with a prefix are returned in the order they have
+     * been added.
+     */
+    @Test
+    public void testGetKeysPrefixOrder()
+    {
+        config.addProperty("test.z", "1");
+        config.addProperty("test", "2");
+        config.addProperty("test-other", "3");
+        config.addProperty("test.a", "4");
+        config.addProperty("testing", "5");
+        config.addProperty("test.m.n", "6");
+        config.addProperty("other.test", "7");
+        assertEquals("Wrong keys",
+                Arrays.asList("test.z", "test", "test.a", "test.m.n"),
+                fetchKeys("test"));
+    }
+
+    /**
+     * Tests whether the key index is kept up-to-date when the configuration
+     * is changed.
+     */
+    @Test
+    public void testGetKeysPrefixAfterUpdate()
+    {
+        config.addProperty("test.a", "1");
+        config.addProperty("test.b", "2");
+        assertEquals("Wrong keys (1)", Arrays.asList("test.a", "test.b"),
+                fetchKeys("test"));
+        config.clearProperty("test.a");
+        config.addProperty("test.c", "3");
+        config.addProperty("test.a", "4");
+        config.addProperty("test.b", "5");
+        assertEquals("Wrong keys (2)",
+                Arrays.asList("test.b", "test.c", "test.a"), fetchKeys("test"));
+        config.clear();
+        config.addProperty("test.d", "6");
+        assertEquals("Wrong keys (3)", Arrays.asList("test.d"),
+                fetchKeys("test"));
+    }
+
+    /**
+     * Tests whether keys can be removed via the iterator returned by
+     * getKeys(String).
+     */
+    @Test
+    public void testGetKeysPrefixRemove()
+    {
+        config.addProperty("test.a", "1");
+        config.addProperty("test.b", "2");
+        config.addProperty("other", "3");
+        Iterator<String> it = config.getKeys("test");
+        it.next();
+        it.remove();
+        assertFalse("Key not removed", config.containsKey("test.a"));
+        assertEquals("Wrong keys", Arrays.asList("test.b"), fetchKeys("test"));
+        Iterator<String> itAll = config.getKeys();
+        itAll.next();
+        itAll.remove();
+        assertEquals("Wrong keys after remove", Collections.emptyList(),
+                fetchKeys("test"));
+        assertEquals("Wrong size", 1, config.size());
+    }
+
+    /**
+     * Tests that a clone maintains its own key index.
+     */
+    @Test
+    public void testGetKeysPrefixClone()
+    {
+        config.addProperty("test.a", "1");
+        assertEquals("Wrong keys", Arrays.asList("test.a"), fetchKeys("test"));
+        BaseConfiguration copy = (BaseConfiguration) config.clone();
+        copy.addProperty("test.b", "2");
+        assertEquals("Original changed", Arrays.asList("test.a"),
+                fetchKeys("test"));
+        assertTrue("Key not found in copy", copy.getKeys("test.b").hasNext());
+    }
+
+    /**
+     * Tests that the original configuration is not affected if it is changed
+     * after a clone has been created.
+     */
+    @Test
+    public void testCloneModifyOriginal()
+    {
+        config.addProperty("list", "value1");
+        config.addProperty("list", "value2");
+        config.addProperty("other", "value");
+        BaseConfiguration copy = (BaseConfiguration) config.clone();
+        config.addProperty("list", "value3");
+        config.clearProperty("other");
+        assertEquals("Wrong list in copy", Arrays.asList("value1", "value2"),
+                copy.getList("list"));
+        assertEquals("Wrong value in copy", "value", copy.getString("other"));
+        copy.clear();
+        assertEquals("Wrong size of original", 1, config.size());
+        assertEquals("Wrong list in original",
+                Arrays.asList("value1", "value2", "value3"),
+                config.getList("list"));
+    }
+
+    /**
+     * Tests whether keys can be removed via an iterator which was obtained
+     * before the configuration was cloned.
+     */
+    @Test
+    public void testCloneIteratorRemove()
+    {
+        config.addProperty("key1", "value1");
+        config.addProperty("key2", "value2");
+        Iterator<String> it = config.getKeys();
+        BaseConfiguration copy = (BaseConfiguration) config.clone();
+        assertEquals("Wrong key", "key1", it.next());
+        it.remove();
+        assertEquals("Wrong key (2)", "key2", it.next());
+        assertFalse("Too many keys", it.hasNext());
+        assertFalse("Key not removed", config.containsKey("key1"));
+        assertEquals("Wrong size", 1, config.size());
+        assertTrue("Key removed in copy", copy.containsKey("key1"));
+        assertEquals("Wrong size of copy", 2, copy.size());
+    }
 }
@@ -420,6 +420,27 @@ public class TestCombinedConfiguration
         assertTrue("Combined configs not equal", comp.compare(config, cc2));
     }
 
+    /**
+     * Tests that a clone reuses the combined nodes structure of the original
+     * configuration as long as it is not changed.
+     */
+    @Test
+    public void testCloneReusesCombinedRoot()
+    {
+        config.addConfiguration(setUpTestConfiguration(), TEST_NAME);
+        assertTrue("Wrong property value", config.getBoolean(TEST_KEY));
+        ImmutableNode root = config.getModel().getNodeHandler().getRootNode();
+        CombinedConfiguration cc2 = (CombinedConfiguration) config.clone();
+        assertSame("Combined root was constructed again", root, cc2
+                .getModel().getNodeHandler().getRootNode());
+        assertSame("Wrong source", cc2.getConfiguration(TEST_NAME),
+                cc2.getSource(TEST_KEY));
+
+        cc2.getConfiguration(TEST_NAME).setProperty(TEST_KEY, Boolean.FALSE);
+        assertFalse("Clone not updated", cc2.getBoolean(TEST_KEY));
+        assertTrue("Original changed", config.getBoolean(TEST_KEY));
+    }
+
     /**
      * Tests if the cloned configuration is decoupled from the original.
      */
@@ -28,10 +28,13 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 import org.apache.commons.configuration2.SynchronizerTestImpl.Methods;
@@ -864,6 +867,16 @@ public class TestCompositeConfiguration
                 conf2.getString("newProperty2"));
     }
 
+    /**
+     * Adds the test property with different values to the child
+     * configurations conf1 and conf2.
+     */
+    private void initTestPropertyInChildren()
+    {
+        conf1.addProperty(TEST_PROPERTY, "conf1");
+        conf2.addProperty(TEST_PROPERTY, "conf2");
+    }
+
     /**
      * Creates a test synchronizer and installs it at the test configuration.
      *
@@ -934,4 +947,289 @@ public class TestCompositeConfiguration
                 cc.getNumberOfConfigurations());
         sync.verify(Methods.BEGIN_READ, Methods.END_READ);
     }
+
+    /**
+     * Tests that keys defined by multiple child configurations are returned
+     * only once in the order of their first occurrence.
+     */
+    @Test
+    public void testGetKeysDuplicates()
+    {
+        BaseConfiguration c1 = new BaseConfiguration();
+        c1.addProperty("key1", "v1");
+        c1.addProperty("key2", "v1");
+        BaseConfiguration c2 = new BaseConfiguration();
+        c2.addProperty("key3", "v2");
+        c2.addProperty("key2", "v2");
+        cc.addConfiguration(c1);
+        cc.addConfiguration(c2);
+        cc.addProperty("key4", "v3");
+        cc.addProperty("key1", "v3");
+
+        List<String> keys = new ArrayList<>();
+        for (Iterator<String> it = cc.getKeys(); it.hasNext();)
+        {
+            keys.add(it.next());
+        }
+        assertEquals("Wrong keys",
+                Arrays.asList("key1", "key2", "key3", "key4"), keys);
+    }
+
+    /**
+     * Tests that the iterator over the keys of the child configurations does
+     * not store the keys returned so far. The number of elements referenced
+     * by its collection fields is bounded by the number of child
+     * configurations.
+     */
+    @Test
+    public void testGetKeysRetainedElementsBounded() throws Exception
+    {
+        final int keyCount = 1000;
+        BaseConfiguration c1 = new BaseConfiguration();
+        BaseConfiguration c2 = new BaseConfiguration();
+        for (int i = 0; i < keyCount; i++)
+        {
+            c1.addProperty("key" + i, "v1");
+            c2.addProperty("key" + (i + keyCount / 2), "v2");
+        }
+        cc.addConfiguration(c1);
+        cc.addConfiguration(c2);
+        int childCount = cc.getNumberOfConfigurations();
+
+        Iterator<String> it = cc.getKeys();
+        int count = 0;
+        while (it.hasNext())
+        {
+            it.next();
+            count++;
+            assertTrue("Too many retained elements after " + count + " keys",
+                    retainedElements(it) <= childCount);
+        }
+        assertEquals("Wrong number of keys", keyCount + keyCount / 2, count);
+    }
+
+    /**
+     * Determines the number of elements referenced by the collection and map
+     * fields of the given object.
+     *
+     * @param obj the object to inspect
+     * @return the number of elements stored in collections of this object
+     * @throws IllegalAccessException if a field cannot be accessed
+     */
+    private static int retainedElements(Object obj)
+            throws IllegalAccessException
+    {
+        int count = 0;
+        for (Field field : obj.getClass().getDeclaredFields())
+        {
+            field.setAccessible(true);
+            Object value = field.get(obj);
+            if (value instanceof Collection)
+            {
+                count += ((Collection<?>) value).size();
+            }
+            else if (value instanceof Map)
+            {
+                count += ((Map<?, ?>) value).size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Tests that the iterator for the keys is not affected by changes on the
+     * list of child configurations.
+     */
+    @Test
+    public void testGetKeysChildrenChangedDuringIteration()
+    {
+        BaseConfiguration c1 = new BaseConfiguration();
+        c1.addProperty("key1", "v1");
+        cc.addConfiguration(c1);
+        Iterator<String> it = cc.getKeys();
+        cc.addConfiguration(conf1);
+        assertEquals("Wrong key", "key1", it.next());
+        assertFalse("Too many keys", it.hasNext());
+    }
+
+    /**
+     * Tests that the lookup cache is disabled per default.
+     */
+    @Test
+    public void testLookupCacheDisabledByDefault()
+    {
+        assertFalse("Lookup cache enabled", cc.isLookupCacheEnabled());
+    }
+
+    /**
+     * Tests whether properties can be queried if the lookup cache is enabled.
+     */
+    @Test
+    public void testGetPropertyWithLookupCache()
+    {
+        initTestPropertyInChildren();
+        cc.addConfiguration(conf1);
+        cc.addConfiguration(conf2);
+        cc.setLookupCacheEnabled(true);
+        for (int i = 0; i < 2; i++)
+        {
+            assertEquals("Wrong value (1)", "conf1",
+                    cc.getString(TEST_PROPERTY));
+            assertEquals("Wrong value (2)", "true",
+                    cc.getString("configuration.loaded"));
+            assertTrue("Key not found", cc.containsKey(TEST_PROPERTY));
+            assertFalse("Unknown key found", cc.containsKey("unknown.key"));
+            assertEquals("Wrong default value", "default",
+                    cc.getString("unknown.key", "default"));
+        }
+    }
+
+    /**
+     * Tests that the number of keys recorded as missing in the lookup cache
+     * is limited.
+     */
+    @Test
+    public void testLookupCacheSizeLimitMissingKeys()
+    {
+        cc.addConfiguration(conf1);
+        cc.setLookupCacheEnabled(true);
+        for (int i = 0; i < 2 * CompositeConfiguration.MAX_CACHED_KEYS + 1; i++)
+        {
+            assertNull("Got a value", cc.getProperty("unknown.key" + i));
+            assertTrue("Cache too big",
+                    cc.getCachedKeyCount() <= CompositeConfiguration.MAX_CACHED_KEYS);
+        }
+        assertFalse("Unknown key found", cc.containsKey("unknown.key0"));
+    }
+
+    /**
+     * Tests that the number of key owners stored in the lookup cache is
+     * limited.
+     */
+    @Test
+    public void testLookupCacheSizeLimitKeyOwners()
+    {
+        int count = 2 * CompositeConfiguration.MAX_CACHED_KEYS + 1;
+        for (int i = 0; i < count; i++)
+        {
+            conf1.addProperty("key" + i, i);
+        }
+        cc.addConfiguration(conf1);
+        cc.setLookupCacheEnabled(true);
+        for (int i = 0; i < count; i++)
+        {
+            assertEquals("Wrong value", i, cc.getInt("key" + i));
+            assertTrue("Cache too big",
+                    cc.getCachedKeyCount() <= CompositeConfiguration.MAX_CACHED_KEYS);
+        }
+    }
+
+    /**
+     * Tests whether the lookup cache is updated if a key becomes available in
+     * a child configuration.
+     */
+    @Test
+    public void testLookupCacheKeyAddedToChild()
+    {
+        final String key = "a.new.key";
+        cc.addConfiguration(conf1);
+        cc.addConfiguration(conf2);
+        cc.setLookupCacheEnabled(true);
+        assertFalse("Key found", cc.containsKey(key));
+        conf2.addProperty(key, "value2");
+        assertEquals("Wrong value (1)", "value2", cc.getString(key));
+        conf1.addProperty(key, "value1");
+        assertEquals("Wrong value (2)", "value1", cc.getString(key));
+        conf1.clearProperty(key);
+        assertEquals("Wrong value (3)", "value2", cc.getString(key));
+    }
+
+    /**
+     * Tests whether the lookup cache is updated if properties are added to
+     * the in-memory configuration.
+     */
+    @Test
+    public void testLookupCacheAddPropertyInMemory()
+    {
+        final String key = "in.memory.key";
+        cc.addConfiguration(conf1);
+        cc.setLookupCacheEnabled(true);
+        assertNull("Got a value", cc.getProperty(key));
+        cc.addProperty(key, "test");
+        assertEquals("Wrong value", "test", cc.getString(key));
+    }
+
+    /**
+     * Tests whether the lookup cache is invalidated if a child configuration
+     * is removed.
+     */
+    @Test
+    public void testLookupCacheRemoveConfiguration()
+    {
+        initTestPropertyInChildren();
+        cc.addConfiguration(conf1);
+        cc.addConfiguration(conf2);
+        cc.setLookupCacheEnabled(true);
+        assertEquals("Wrong value (1)", "conf1", cc.getString(TEST_PROPERTY));
+        cc.removeConfiguration(conf1);
+        assertEquals("Wrong value (2)", "conf2", cc.getString(TEST_PROPERTY));
+        conf1.setProperty(TEST_PROPERTY, "changed");
+        assertEquals("Wrong value (3)", "conf2", cc.getString(TEST_PROPERTY));
+    }
+
+    /**
+     * Tests that the lookup cache is not used if a child configuration does
+     * not support change events.
+     */
+    @Test
+    public void testLookupCacheNonEventSourceChild()
+    {
+        final String key = "non.event.source.key";
+        final Configuration child = EasyMock.createMock(Configuration.class);
+        EasyMock.expect(child.getProperty(key)).andReturn(null);
+        EasyMock.expect(child.getProperty(key)).andReturn("value");
+        EasyMock.replay(child);
+        cc.addConfiguration(child);
+        cc.setLookupCacheEnabled(true);
+        assertNull("Got a value", cc.getProperty(key));
+        assertEquals("Wrong value", "value", cc.getProperty(key));
+        EasyMock.verify(child);
+    }
+
+    /**
+     * Tests that a clone does not share the lookup cache with the original.
+     */
+    @Test
+    public void testLookupCacheClone()
+    {
+        initTestPropertyInChildren();
+        cc.addConfiguration(conf1);
+        cc.setLookupCacheEnabled(true);
+        assertEquals("Wrong value (1)", "conf1", cc.getString(TEST_PROPERTY));
+        CompositeConfiguration copy = (CompositeConfiguration) cc.clone();
+        assertTrue("Cache not enabled", copy.isLookupCacheEnabled());
+        ((Configuration) copy.getConfiguration(0)).setProperty(TEST_PROPERTY,
+                "changed");
+        assertEquals("Wrong value in copy", "changed",
+                copy.getString(TEST_PROPERTY));
+        assertEquals("Wrong value (2)", "conf1", cc.getString(TEST_PROPERTY));
+    }
+
+    /**
+     * Tests that the listeners for the lookup cache are removed from the
+     * child configurations if the cache is disabled.
+     */
+    @Test
+    public void testDisableLookupCacheRemovesListeners()
+    {
+        int listenerCount =
+                conf1.getEventListeners(ConfigurationEvent.ANY).size();
+        cc.addConfiguration(conf1);
+        cc.setLookupCacheEnabled(true);
+        assertEquals("Listener not registered", listenerCount + 1,
+                conf1.getEventListeners(ConfigurationEvent.ANY).size());
+        cc.setLookupCacheEnabled(false);
+        assertEquals("Listener not removed", listenerCount,
+                conf1.getEventListeners(ConfigurationEvent.ANY).size());
+    }
 }
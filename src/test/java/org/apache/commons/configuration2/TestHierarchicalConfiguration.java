@@ -271,6 +271,109 @@ public class TestHierarchicalConfiguration
                 subConfig.getString("name"));
     }
 
+    /**
+     * Tests whether a view on a sub tree can be queried.
+     */
+    @Test
+    public void testViewAt()
+    {
+        ImmutableHierarchicalConfiguration view =
+                config.viewAt("tables.table(1)");
+        assertEquals("Wrong table name", NodeStructureHelper.table(1),
+                view.getString("name"));
+        List<Object> lstFlds = view.getList("fields.field.name");
+        assertEquals("Wrong number of fields",
+                NodeStructureHelper.fieldsLength(1), lstFlds.size());
+        for (int i = 0; i < NodeStructureHelper.fieldsLength(1); i++)
+        {
+            assertEquals("Wrong field at position " + i,
+                    NodeStructureHelper.field(1, i), lstFlds.get(i));
+        }
+        assertEquals("Wrong max index", NodeStructureHelper.fieldsLength(1) - 1,
+                view.getMaxIndex("fields.field"));
+    }
+
+    /**
+     * Tests that a view is not affected by later changes on its parent.
+     */
+    @Test
+    public void testViewAtParentChanged()
+    {
+        ImmutableHierarchicalConfiguration view =
+                config.viewAt("tables.table(1)");
+        config.setProperty("tables.table(1).name", "changed");
+        config.clearTree("tables.table(1).fields");
+        assertEquals("Wrong table name", NodeStructureHelper.table(1),
+                view.getString("name"));
+        assertEquals("Fields removed", NodeStructureHelper.field(1, 0),
+                view.getString("fields.field(0).name"));
+    }
+
+    /**
+     * Tests that a view cannot be modified.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testViewAtModify()
+    {
+        BaseHierarchicalConfiguration view =
+                (BaseHierarchicalConfiguration) config.viewAt("tables.table(0)");
+        view.addProperty("newProperty", Boolean.TRUE);
+    }
+
+    /**
+     * Tests viewAt() if the key selects multiple nodes.
+     */
+    @Test(expected = ConfigurationRuntimeException.class)
+    public void testViewAtNotUnique()
+    {
+        config.viewAt("tables.table.name");
+    }
+
+    /**
+     * Tests whether immutable sub configurations of a view can be queried.
+     */
+    @Test
+    public void testViewAtSubConfiguration()
+    {
+        ImmutableHierarchicalConfiguration sub = config.viewAt("tables")
+                .immutableConfigurationAt("table(1).fields.field(2)");
+        assertEquals("Wrong field", NodeStructureHelper.field(1, 2),
+                sub.getString("name"));
+    }
+
+    /**
+     * Tests whether views on multiple nodes can be created.
+     */
+    @Test
+    public void testViewsAt()
+    {
+        List<ImmutableHierarchicalConfiguration> views =
+                config.viewsAt("tables.table(1).fields.field");
+        assertEquals("Wrong number of views",
+                NodeStructureHelper.fieldsLength(1), views.size());
+        for (int i = 0; i < NodeStructureHelper.fieldsLength(1); i++)
+        {
+            assertEquals("Wrong field at position " + i,
+                    NodeStructureHelper.field(1, i),
+                    views.get(i).getString("name"));
+        }
+    }
+
+    /**
+     * Tests whether views on the child nodes of a node can be created.
+     */
+    @Test
+    public void testChildViewsAt()
+    {
+        List<ImmutableHierarchicalConfiguration> views =
+                config.childViewsAt("tables.table(0)");
+        assertEquals("Wrong number of views", 2, views.size());
+        assertEquals("Wrong name", NodeStructureHelper.table(0), views.get(0)
+                .getString(""));
+        assertEquals("Wrong fields", NodeStructureHelper.fieldsLength(0),
+                views.get(1).getMaxIndex("field") + 1);
+    }
+
     /**
      * Tests the configurationAt() method if the passed in key does not exist.
      */
@@ -21,9 +21,13 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.apache.commons.configuration2.convert.DefaultListDelimiterHandler;
 import org.apache.commons.configuration2.convert.DisabledListDelimiterHandler;
@@ -173,4 +177,28 @@ public class TestMapConfiguration extends TestAbstractConfiguration
         config.setListDelimiterHandler(new DisabledListDelimiterHandler());
         assertEquals("Wrong trimmed value", SPACE_VALUE, config.getProperty(KEY));
     }
+
+    /**
+     * Tests getKeys() with a prefix if the underlying map is sorted.
+     */
+    @Test
+    public void testGetKeysPrefixSortedMap()
+    {
+        Map<String, Object> map = new TreeMap<>();
+        map.put("test", "1");
+        map.put("test-other", "2");
+        map.put("test.b", "3");
+        map.put("test.a.x", "4");
+        map.put("testing", "5");
+        map.put("a.test", "6");
+        MapConfiguration config = new MapConfiguration(map);
+        List<String> keys = new ArrayList<>();
+        for (Iterator<String> it = config.getKeys("test"); it.hasNext();)
+        {
+            keys.add(it.next());
+        }
+        assertEquals("Wrong keys", Arrays.asList("test", "test.a.x", "test.b"),
+                keys);
+        assertEquals("Wrong subset size", 3, config.subset("test").size());
+    }
 }
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.configuration2.ex.ConfigurationRuntimeException;
+import org.apache.commons.configuration2.io.FileHandler;
+import org.apache.commons.configuration2.tree.MappedNode;
+import org.apache.commons.configuration2.tree.MappedNodeModel;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@code MappedHierarchicalConfiguration}.
+ *
+ * @version $Id$
+ */
+public class TestMappedHierarchicalConfiguration
+{
+    /** The XML configuration the test configuration is based on. */
+    private XMLConfiguration xml;
+
+    /** The configuration to be tested. */
+    private MappedHierarchicalConfiguration config;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        xml = new XMLConfiguration();
+        new FileHandler(xml).load(ConfigurationAssert.getTestFile("test.xml"));
+        config =
+                new MappedHierarchicalConfiguration(MappedNodeModel.fromTree(xml
+                        .getNodeModel().getNodeHandler().getRootNode()));
+    }
+
+    /**
+     * Tests that the configuration contains the same data as the original
+     * XML configuration.
+     */
+    @Test
+    public void testContent()
+    {
+        Iterator<String> keys = xml.getKeys();
+        Iterator<String> mappedKeys = config.getKeys();
+        while (keys.hasNext())
+        {
+            String key = keys.next();
+            assertEquals("Wrong key", key, mappedKeys.next());
+            assertEquals("Wrong value for " + key, xml.getProperty(key),
+                    config.getProperty(key));
+        }
+        assertFalse("Too many keys", mappedKeys.hasNext());
+        assertEquals("Wrong attribute", "foo",
+                config.getString("element3[@name]"));
+        assertEquals("Wrong max index", xml.getMaxIndex("list.item"),
+                config.getMaxIndex("list.item"));
+    }
+
+    /**
+     * Tests whether a sub configuration can be obtained.
+     */
+    @Test
+    public void testConfigurationAt()
+    {
+        HierarchicalConfiguration<MappedNode> sub =
+                config.configurationAt("list(1)");
+        assertEquals("Wrong item", "three", sub.getString("item(0)"));
+        assertEquals("Wrong attribute", "three",
+                sub.getString("item(0)[@name]"));
+        assertEquals("Wrong sub list", "six", sub.getString("sublist.item(1)"));
+    }
+
+    /**
+     * Tests configurationAt() for a key selecting multiple nodes.
+     */
+    @Test(expected = ConfigurationRuntimeException.class)
+    public void testConfigurationAtMultipleNodes()
+    {
+        config.configurationAt("list.item");
+    }
+
+    /**
+     * Tests whether sub configurations for multiple nodes can be obtained.
+     */
+    @Test
+    public void testConfigurationsAt()
+    {
+        List<HierarchicalConfiguration<MappedNode>> subs =
+                config.configurationsAt("list.item");
+        assertEquals("Wrong number of sub configurations", 4, subs.size());
+        assertEquals("Wrong value", "four", subs.get(3).getString(""));
+    }
+
+    /**
+     * Tests whether sub configurations for child nodes can be obtained.
+     */
+    @Test
+    public void testChildConfigurationsAt()
+    {
+        List<HierarchicalConfiguration<MappedNode>> subs =
+                config.childConfigurationsAt("split");
+        assertEquals("Wrong number of children", 4, subs.size());
+        assertEquals("Wrong attribute", "a,b,c",
+                subs.get(2).getString("[@values]"));
+        assertTrue("Got children for multiple nodes", config
+                .childConfigurationsAt("list").isEmpty());
+    }
+
+    /**
+     * Tests whether an immutable sub configuration can be obtained.
+     */
+    @Test
+    public void testImmutableConfigurationAt()
+    {
+        ImmutableHierarchicalConfiguration sub =
+                config.immutableConfigurationAt("element2.subelement");
+        assertEquals("Wrong value", "I'm complex!",
+                sub.getString("subsubelement"));
+    }
+
+    /**
+     * Tests that the configuration cannot be changed.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSetPropertyNotSupported()
+    {
+        config.setProperty("element", "newValue");
+    }
+
+    /**
+     * Tries to create an instance without a model.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInitNoModel()
+    {
+        new MappedHierarchicalConfiguration(null);
+    }
+}
@@ -22,6 +22,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -51,6 +52,7 @@ import org.apache.commons.configuration2.io.FileHandler;
 import org.apache.commons.configuration2.resolver.CatalogResolver;
 import org.apache.commons.configuration2.tree.ImmutableNode;
 import org.apache.commons.configuration2.tree.NodeStructureHelper;
+import org.apache.commons.configuration2.tree.StringPool;
 import org.apache.commons.configuration2.tree.xpath.XPathExpressionEngine;
 import org.junit.Before;
 import org.junit.Test;
@@ -154,6 +156,33 @@ public class TestXMLConfiguration
         assertEquals("value", conf.getProperty("element"));
     }
 
+    /**
+     * Tests whether a string pool is used when loading the configuration.
+     */
+    @Test
+    public void testLoadWithStringPool() throws ConfigurationException
+    {
+        StringPool pool = new StringPool();
+        XMLConfiguration c1 = new XMLConfiguration();
+        c1.setStringPool(pool);
+        load(c1, testProperties);
+        XMLConfiguration c2 = new XMLConfiguration();
+        c2.setStringPool(pool);
+        load(c2, testProperties);
+
+        assertSame("Values not pooled", c1.getProperty("element"),
+                c1.getProperty("element3"));
+        assertSame("Values not shared", c1.getProperty("element"),
+                c2.getProperty("element"));
+        assertSame("Attributes not shared", c1.getProperty("element3[@name]"),
+                c2.getProperty("element3[@name]"));
+        assertSame("Node names not shared",
+                c1.getNodeModel().getNodeHandler().getRootNode().getChildren()
+                        .get(0).getNodeName(),
+                c2.getNodeModel().getNodeHandler().getRootNode().getChildren()
+                        .get(0).getNodeName());
+    }
+
     @Test
     public void testGetCommentedProperty()
     {
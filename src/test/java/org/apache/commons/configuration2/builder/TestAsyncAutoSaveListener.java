@@ -0,0 +1,391 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.apache.commons.configuration2.event.ConfigurationEvent;
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.configuration2.io.FileHandler;
+import org.apache.commons.configuration2.sync.ReadWriteSynchronizer;
+import org.apache.commons.lang3.mutable.MutableObject;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for {@code AsyncAutoSaveListener}.
+ *
+ * @version $Id$
+ */
+public class TestAsyncAutoSaveListener
+{
+    /** Constant for the save delay. */
+    private static final long DELAY = 500;
+
+    /** Helper object for managing temporary files. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** A mock for the executor service. */
+    private ScheduledExecutorService executor;
+
+    /** A mock for the future of the save task. */
+    private ScheduledFuture<Void> future;
+
+    /** The listener to be tested. */
+    private AsyncAutoSaveListener listener;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        executor = EasyMock.createMock(ScheduledExecutorService.class);
+        @SuppressWarnings("unchecked")
+        ScheduledFuture<Void> futureMock =
+                EasyMock.createNiceMock(ScheduledFuture.class);
+        future = futureMock;
+        listener =
+                new AsyncAutoSaveListener(new FileBasedConfigurationBuilder<>(
+                        PropertiesConfiguration.class), DELAY, executor);
+    }
+
+    /**
+     * Sends a configuration changed notification to the test listener.
+     *
+     * @param before flag whether the event is before the update
+     */
+    private void fireChangeEvent(boolean before)
+    {
+        listener.onEvent(new ConfigurationEvent(this,
+                ConfigurationEvent.ADD_PROPERTY, "someProperty",
+                "someValue", before));
+    }
+
+    /**
+     * Prepares the executor mock to expect the scheduling of a save task. The
+     * task is stored in the passed in object.
+     *
+     * @param refTask the object for storing the task
+     */
+    private void expectSchedule(final MutableObject<Runnable> refTask)
+    {
+        executor.schedule(EasyMock.anyObject(Runnable.class),
+                EasyMock.eq(DELAY), EasyMock.eq(TimeUnit.MILLISECONDS));
+        EasyMock.expectLastCall().andAnswer(
+                new IAnswer<ScheduledFuture<Void>>()
+                {
+                    @Override
+                    public ScheduledFuture<Void> answer() throws Throwable
+                    {
+                        refTask.setValue((Runnable) EasyMock
+                                .getCurrentArguments()[0]);
+                        return future;
+                    }
+                });
+    }
+
+    /**
+     * Creates a file handler for a test configuration stored in a temporary
+     * file and registers it at the test listener.
+     *
+     * @param config the configuration
+     * @return the test file
+     */
+    private File prepareFileHandler(PropertiesConfiguration config)
+            throws IOException
+    {
+        File file = folder.newFile();
+        FileHandler handler = new FileHandler(config);
+        handler.setFile(file);
+        listener.updateFileHandler(handler);
+        return file;
+    }
+
+    /**
+     * Loads the content of the given file.
+     *
+     * @param file the file
+     * @return the configuration loaded from this file
+     */
+    private static PropertiesConfiguration load(File file)
+            throws ConfigurationException
+    {
+        PropertiesConfiguration config = new PropertiesConfiguration();
+        new FileHandler(config).load(file);
+        return config;
+    }
+
+    /**
+     * Tests that multiple change events cause only a single save task to be
+     * scheduled.
+     */
+    @Test
+    public void testChangesAreCoalesced() throws ConfigurationException,
+            IOException
+    {
+        MutableObject<Runnable> refTask = new MutableObject<>();
+        expectSchedule(refTask);
+        EasyMock.replay(executor, future);
+        PropertiesConfiguration config = new PropertiesConfiguration();
+        File file = prepareFileHandler(config);
+        config.addProperty("test", "value");
+
+        for (int i = 0; i < 10; i++)
+        {
+            fireChangeEvent(false);
+        }
+        assertTrue("No pending save", listener.isSavePending());
+        assertTrue("Saved too early", load(file).isEmpty());
+        refTask.getValue().run();
+        assertFalse("Still pending", listener.isSavePending());
+        assertEquals("Not saved", "value", load(file).getString("test"));
+        assertEquals("Wrong number of files", 1,
+                folder.getRoot().list().length);
+        EasyMock.verify(executor);
+    }
+
+    /**
+     * Tests that a new save task is scheduled for changes after a save
+     * operation.
+     */
+    @Test
+    public void testNewTaskScheduledAfterSave() throws IOException
+    {
+        MutableObject<Runnable> refTask = new MutableObject<>();
+        expectSchedule(refTask);
+        expectSchedule(refTask);
+        EasyMock.replay(executor, future);
+        prepareFileHandler(new PropertiesConfiguration());
+
+        fireChangeEvent(false);
+        refTask.getValue().run();
+        fireChangeEvent(false);
+        assertTrue("No pending save", listener.isSavePending());
+        EasyMock.verify(executor);
+    }
+
+    /**
+     * Tests that no save task is scheduled before an update.
+     */
+    @Test
+    public void testNoScheduleBeforeUpdate()
+    {
+        EasyMock.replay(executor, future);
+        fireChangeEvent(true);
+        assertFalse("Got a pending save", listener.isSavePending());
+    }
+
+    /**
+     * Tests that no save task is scheduled during a load operation.
+     */
+    @Test
+    public void testNoScheduleWhileLoading()
+    {
+        EasyMock.replay(executor, future);
+        listener.loading(new FileHandler());
+        fireChangeEvent(false);
+        assertFalse("Got a pending save", listener.isSavePending());
+    }
+
+    /**
+     * Tests whether flush() writes pending changes and cancels the save task.
+     */
+    @Test
+    public void testFlush() throws ConfigurationException, IOException
+    {
+        expectSchedule(new MutableObject<Runnable>());
+        EasyMock.expect(future.cancel(false)).andReturn(Boolean.TRUE);
+        EasyMock.replay(executor, future);
+        PropertiesConfiguration config = new PropertiesConfiguration();
+        File file = prepareFileHandler(config);
+        config.addProperty("test", "flushed");
+
+        fireChangeEvent(false);
+        listener.flush();
+        assertFalse("Still pending", listener.isSavePending());
+        assertEquals("Not saved", "flushed", load(file).getString("test"));
+        EasyMock.verify(executor, future);
+    }
+
+    /**
+     * Tests that changes remain pending if a save operation fails.
+     */
+    @Test
+    public void testSaveFailureKeepsChangesPending()
+            throws ConfigurationException, IOException
+    {
+        MutableObject<Runnable> refTask = new MutableObject<>();
+        expectSchedule(refTask);
+        expectSchedule(refTask);
+        EasyMock.replay(executor, future);
+        PropertiesConfiguration config = new PropertiesConfiguration();
+        FileHandler handler = new FileHandler(config);
+        listener.updateFileHandler(handler);
+        config.addProperty("test", "retry");
+
+        fireChangeEvent(false);
+        refTask.getValue().run();
+        assertTrue("Changes lost", listener.isSavePending());
+        File file = folder.newFile();
+        handler.setFile(file);
+        refTask.getValue().run();
+        assertFalse("Still pending", listener.isSavePending());
+        assertEquals("Not saved", "retry", load(file).getString("test"));
+        EasyMock.verify(executor);
+    }
+
+    /**
+     * Tests that flush() throws an exception if the save operation fails and
+     * that the changes can be flushed later.
+     */
+    @Test
+    public void testFlushFailure() throws ConfigurationException, IOException
+    {
+        expectSchedule(new MutableObject<Runnable>());
+        expectSchedule(new MutableObject<Runnable>());
+        EasyMock.replay(executor, future);
+        PropertiesConfiguration config = new PropertiesConfiguration();
+        FileHandler handler = new FileHandler(config);
+        listener.updateFileHandler(handler);
+        config.addProperty("test", "flushed");
+
+        fireChangeEvent(false);
+        try
+        {
+            listener.flush();
+            fail("Save failure not detected!");
+        }
+        catch (ConfigurationException cex)
+        {
+            // expected
+        }
+        assertTrue("Changes lost", listener.isSavePending());
+        File file = folder.newFile();
+        handler.setFile(file);
+        listener.flush();
+        assertEquals("Not saved", "flushed", load(file).getString("test"));
+        EasyMock.verify(executor);
+    }
+
+    /**
+     * Tests that no save task is scheduled after a shutdown.
+     */
+    @Test
+    public void testNoScheduleAfterShutdown()
+    {
+        EasyMock.replay(executor, future);
+        listener.shutdown();
+        fireChangeEvent(false);
+        assertTrue("No pending changes", listener.isSavePending());
+        EasyMock.verify(executor);
+    }
+
+    /**
+     * Tests that the configuration can be updated while it is saved in the
+     * background.
+     */
+    @Test
+    public void testUpdatesDuringBackgroundSave() throws Exception
+    {
+        final List<ConfigurationException> failures =
+                Collections.synchronizedList(
+                        new ArrayList<ConfigurationException>());
+        ScheduledExecutorService exec =
+                Executors.newSingleThreadScheduledExecutor();
+        listener =
+                new AsyncAutoSaveListener(new FileBasedConfigurationBuilder<>(
+                        PropertiesConfiguration.class), 1, exec)
+                {
+                    @Override
+                    protected void saveFailed(ConfigurationException ce)
+                    {
+                        failures.add(ce);
+                    }
+                };
+        PropertiesConfiguration config = new PropertiesConfiguration();
+        config.setSynchronizer(new ReadWriteSynchronizer());
+        File file = prepareFileHandler(config);
+        config.addEventListener(ConfigurationEvent.ANY, listener);
+
+        for (int i = 0; i < 2000; i++)
+        {
+            config.addProperty("key" + (i % 100), i);
+            if (i % 10 == 0)
+            {
+                config.clearProperty("key" + (i % 7));
+            }
+        }
+        listener.flush();
+        exec.shutdown();
+        assertTrue("Executor not terminated",
+                exec.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue("Save failures: " + failures, failures.isEmpty());
+        PropertiesConfiguration saved = load(file);
+        for (int i = 0; i < 100; i++)
+        {
+            String key = "key" + i;
+            assertEquals("Wrong value for " + key,
+                    config.getList(String.class, key),
+                    saved.getList(String.class, key));
+        }
+    }
+
+    /**
+     * Tests flush() if there are no pending changes.
+     */
+    @Test
+    public void testFlushNoPendingChanges() throws ConfigurationException,
+            IOException
+    {
+        EasyMock.replay(executor, future);
+        PropertiesConfiguration config = new PropertiesConfiguration();
+        File file = prepareFileHandler(config);
+        config.addProperty("test", "value");
+
+        listener.flush();
+        assertTrue("Saved", load(file).isEmpty());
+    }
+
+    /**
+     * Tests that an executor service passed to the constructor is not shut
+     * down.
+     */
+    @Test
+    public void testShutdownExternalExecutor()
+    {
+        EasyMock.replay(executor, future);
+        listener.shutdown();
+        EasyMock.verify(executor);
+    }
+}
@@ -41,6 +41,7 @@ import org.apache.commons.configuration2.interpol.InterpolatorSpecification;
 import org.apache.commons.configuration2.interpol.Lookup;
 import org.apache.commons.configuration2.sync.ReadWriteSynchronizer;
 import org.apache.commons.configuration2.sync.Synchronizer;
+import org.apache.commons.configuration2.tree.StringPool;
 import org.easymock.EasyMock;
 import org.junit.Before;
 import org.junit.Test;
@@ -489,6 +490,18 @@ public class TestBasicBuilderParameters
                 .get("conversionHandler"));
     }
 
+    /**
+     * Tests whether a StringPool can be set.
+     */
+    @Test
+    public void testSetStringPool()
+    {
+        StringPool pool = new StringPool();
+        assertSame("Wrong result", params, params.setStringPool(pool));
+        assertSame("StringPool not set", pool,
+                params.getParameters().get("stringPool"));
+    }
+
     /**
      * Tests whether a BeanHelper can be set.
      */
@@ -558,10 +571,12 @@ public class TestBasicBuilderParameters
                 new DefaultListDelimiterHandler('#');
         ConfigurationLogger logger = new ConfigurationLogger("test");
         Synchronizer synchronizer = new ReadWriteSynchronizer();
+        StringPool pool = new StringPool(true);
         params.setBeanHelper(beanHelper).setConfigurationDecoder(decoder)
                 .setConversionHandler(conversionHandler)
                 .setListDelimiterHandler(listDelimiterHandler).setLogger(logger)
-                .setSynchronizer(synchronizer).setThrowExceptionOnMissing(true);
+                .setSynchronizer(synchronizer).setThrowExceptionOnMissing(true)
+                .setStringPool(pool);
         BasicBuilderParameters p2 = new BasicBuilderParameters();
 
         p2.inheritFrom(params.getParameters());
@@ -579,6 +594,7 @@ public class TestBasicBuilderParameters
                 parameters.get("synchronizer"));
         assertEquals("Exception flag not set", Boolean.TRUE,
                 parameters.get("throwExceptionOnMissing"));
+        assertEquals("String pool not set", pool, parameters.get("stringPool"));
     }
 
     /**
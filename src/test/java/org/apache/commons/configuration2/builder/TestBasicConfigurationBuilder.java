@@ -54,6 +54,7 @@ import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.configuration2.ex.ConfigurationRuntimeException;
 import org.apache.commons.configuration2.reloading.ReloadingController;
 import org.apache.commons.configuration2.reloading.ReloadingDetector;
+import org.apache.commons.configuration2.tree.StringPool;
 import org.easymock.EasyMock;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -250,6 +251,23 @@ public class TestBasicConfigurationBuilder
                 config.getListDelimiterHandler());
     }
 
+    /**
+     * Tests whether a string pool is passed to the configuration created by
+     * the builder.
+     */
+    @Test
+    public void testGetConfigurationWithStringPool()
+            throws ConfigurationException
+    {
+        StringPool pool = new StringPool(true);
+        PropertiesConfiguration config =
+                new BasicConfigurationBuilder<>(
+                        PropertiesConfiguration.class).configure(
+                        new BasicBuilderParameters().setStringPool(pool))
+                        .getConfiguration();
+        assertSame("Wrong string pool", pool, config.getStringPool());
+    }
+
     /**
      * Tests whether the builder can be accessed by multiple threads and that
      * only a single result object is produced.
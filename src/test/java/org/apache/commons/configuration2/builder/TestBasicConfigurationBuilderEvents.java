@@ -22,6 +22,9 @@ import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.PropertiesConfiguration;
 import org.apache.commons.configuration2.event.Event;
@@ -227,4 +230,62 @@ public class TestBasicConfigurationBuilderEvents
         assertSame("Wrong configuration", configuration,
                 event.getConfiguration());
     }
+
+    /**
+     * Tests whether the type of a result timing event is correctly
+     * configured.
+     */
+    @Test
+    public void testResultTimingEventType()
+    {
+        assertEquals("Wrong super type", ConfigurationBuilderEvent.ANY,
+                ConfigurationBuilderTimingEvent.RESULT_TIMING.getSuperType());
+    }
+
+    /**
+     * Tests whether a timing event is generated after a result was created.
+     */
+    @Test
+    public void testResultTimingEvent() throws ConfigurationException
+    {
+        BasicConfigurationBuilder<PropertiesConfiguration> builder =
+                new BasicConfigurationBuilder<>(
+                        PropertiesConfiguration.class);
+        BuilderEventListenerImpl listener = new BuilderEventListenerImpl();
+        builder.addEventListener(ConfigurationBuilderEvent.ANY, listener);
+
+        builder.getConfiguration();
+        builder.getConfiguration();
+        listener.nextEvent(ConfigurationBuilderEvent.CONFIGURATION_REQUEST);
+        listener.nextEvent(ConfigurationBuilderResultCreatedEvent.RESULT_CREATED);
+        ConfigurationBuilderTimingEvent event =
+                listener.nextEvent(ConfigurationBuilderTimingEvent.RESULT_TIMING);
+        assertSame("Wrong builder", builder, event.getSource());
+        assertTrue("No create phase", event
+                .getPhaseDuration(ConfigurationBuilderTimingEvent.PHASE_CREATE) >= 0);
+        assertTrue("No init phase", event
+                .getPhaseDuration(ConfigurationBuilderTimingEvent.PHASE_INIT) >= 0);
+        assertEquals("Unexpected phase", -1,
+                event.getPhaseDuration(ConfigurationBuilderTimingEvent.PHASE_LOAD));
+        assertTrue("Wrong total duration", event.getTotalDuration() >= event
+                .getPhaseDuration(ConfigurationBuilderTimingEvent.PHASE_INIT));
+        listener.nextEvent(ConfigurationBuilderEvent.CONFIGURATION_REQUEST);
+        listener.assertNoMoreEvents();
+    }
+
+    /**
+     * Tests that the map with phase durations of a timing event cannot be
+     * modified.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testResultTimingEventPhasesModify()
+    {
+        Map<String, Long> phases = new HashMap<>();
+        phases.put(ConfigurationBuilderTimingEvent.PHASE_LOAD, 1L);
+        ConfigurationBuilderTimingEvent event =
+                new ConfigurationBuilderTimingEvent(
+                        new BasicConfigurationBuilder<>(Configuration.class),
+                        phases, 1);
+        event.getPhaseDurations().clear();
+    }
 }
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.configuration2.io.FileHandler;
+import org.apache.commons.configuration2.reloading.ChecksumReloadingDetector;
+import org.junit.Test;
+
+/**
+ * Test class for {@code ChecksumReloadingDetectorFactory}.
+ *
+ * @version $Id$
+ */
+public class TestChecksumReloadingDetectorFactory
+{
+    /**
+     * Tests whether a reloading detector is created correctly.
+     */
+    @Test
+    public void testCreateReloadingDetector() throws ConfigurationException
+    {
+        FileHandler handler = new FileHandler();
+        FileBasedBuilderParametersImpl params =
+                new FileBasedBuilderParametersImpl();
+        final Long refreshDelay = 10000L;
+        params.setReloadingRefreshDelay(refreshDelay);
+        ChecksumReloadingDetector detector =
+                (ChecksumReloadingDetector) new ChecksumReloadingDetectorFactory(
+                        "SHA-1").createReloadingDetector(handler, params);
+        assertSame("Wrong file handler", handler, detector.getFileHandler());
+        assertEquals("Wrong refresh delay", refreshDelay.longValue(),
+                detector.getRefreshDelay());
+        assertEquals("Wrong algorithm", "SHA-1", detector.getAlgorithm());
+    }
+
+    /**
+     * Tests whether default settings are handled correctly.
+     */
+    @Test
+    public void testCreateReloadingDetectorDefaults()
+            throws ConfigurationException
+    {
+        ChecksumReloadingDetector detector =
+                (ChecksumReloadingDetector) new ChecksumReloadingDetectorFactory()
+                        .createReloadingDetector(new FileHandler(),
+                                new FileBasedBuilderParametersImpl());
+        assertEquals("Wrong default refresh delay", 5000,
+                detector.getRefreshDelay());
+        assertEquals("Wrong algorithm",
+                ChecksumReloadingDetector.DEFAULT_ALGORITHM,
+                detector.getAlgorithm());
+    }
+}
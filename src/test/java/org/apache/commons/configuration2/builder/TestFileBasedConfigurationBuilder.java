@@ -30,6 +30,9 @@ import java.io.IOException;
 import java.io.Writer;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.ConfigurationAssert;
@@ -45,6 +48,9 @@ import org.apache.commons.configuration2.io.FileHandler;
 import org.apache.commons.configuration2.io.FileLocator;
 import org.apache.commons.configuration2.io.FileLocatorUtils;
 import org.apache.commons.configuration2.io.HomeDirectoryLocationStrategy;
+import org.apache.commons.configuration2.sync.NoOpSynchronizer;
+import org.apache.commons.configuration2.sync.ReadWriteSynchronizer;
+import org.apache.commons.configuration2.sync.Synchronizer;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -137,6 +143,32 @@ public class TestFileBasedConfigurationBuilder
                 .getFileHandler().getContent());
     }
 
+    /**
+     * Tests whether the durations of locating and loading the file are
+     * recorded in the timing event.
+     */
+    @Test
+    public void testTimingEventLoadPhases() throws ConfigurationException
+    {
+        File file = createTestFile(1);
+        FileBasedConfigurationBuilder<PropertiesConfiguration> builder =
+                new FileBasedConfigurationBuilder<>(
+                        PropertiesConfiguration.class)
+                        .configure(new FileBasedBuilderParametersImpl()
+                                .setFile(file));
+        BuilderEventListenerImpl listener = new BuilderEventListenerImpl();
+        builder.addEventListener(ConfigurationBuilderTimingEvent.RESULT_TIMING,
+                listener);
+        builder.getConfiguration();
+        ConfigurationBuilderTimingEvent event =
+                listener.nextEvent(ConfigurationBuilderTimingEvent.RESULT_TIMING);
+        assertTrue("No locate phase", event
+                .getPhaseDuration(ConfigurationBuilderTimingEvent.PHASE_LOCATE) >= 0);
+        assertTrue("No load phase", event
+                .getPhaseDuration(ConfigurationBuilderTimingEvent.PHASE_LOAD) >= 0);
+        listener.assertNoMoreEvents();
+    }
+
     /**
      * Tests that the location in the FileHandler remains the same if the
      * builder's result is reset.
@@ -428,6 +460,215 @@ public class TestFileBasedConfigurationBuilder
         checkSavedConfig(file, 1);
     }
 
+    /**
+     * Tests the default auto save delay.
+     */
+    @Test
+    public void testAutoSaveDelayDefault()
+    {
+        FileBasedConfigurationBuilder<PropertiesConfiguration> builder =
+                new FileBasedConfigurationBuilder<>(
+                        PropertiesConfiguration.class);
+        assertEquals("Wrong delay", 0, builder.getAutoSaveDelay());
+        assertNull("Got an executor", builder.getAutoSaveExecutor());
+    }
+
+    /**
+     * Tries to set a negative auto save delay.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetAutoSaveDelayNegative()
+    {
+        new FileBasedConfigurationBuilder<>(PropertiesConfiguration.class)
+                .setAutoSaveDelay(-1);
+    }
+
+    /**
+     * Tests whether asynchronous auto save writes changes in the background.
+     */
+    @Test
+    public void testAutoSaveAsync() throws ConfigurationException,
+            InterruptedException
+    {
+        File file = createTestFile(0);
+        ScheduledExecutorService exec =
+                Executors.newSingleThreadScheduledExecutor();
+        FileBasedConfigurationBuilder<PropertiesConfiguration> builder =
+                new FileBasedConfigurationBuilder<>(
+                        PropertiesConfiguration.class)
+                        .configure(new FileBasedBuilderParametersImpl()
+                                .setFile(file));
+        builder.setAutoSaveExecutor(exec);
+        builder.setAutoSaveDelay(10);
+        builder.setAutoSave(true);
+        PropertiesConfiguration config = builder.getConfiguration();
+        for (int i = 1; i <= 100; i++)
+        {
+            config.setProperty(PROP, i);
+        }
+        exec.shutdown();
+        assertTrue("Save task not executed",
+                exec.awaitTermination(10, TimeUnit.SECONDS));
+        checkSavedConfig(file, 100);
+        assertEquals("Temporary files remaining", 1,
+                folder.getRoot().list().length);
+    }
+
+    /**
+     * Tests that a configuration saved asynchronously gets a synchronizer
+     * supporting concurrent access.
+     */
+    @Test
+    public void testAutoSaveAsyncSynchronizer() throws ConfigurationException
+    {
+        FileBasedConfigurationBuilder<PropertiesConfiguration> builder =
+                new FileBasedConfigurationBuilder<>(
+                        PropertiesConfiguration.class)
+                        .configure(new FileBasedBuilderParametersImpl()
+                                .setFile(createTestFile(0)));
+        builder.setAutoSaveDelay(TimeUnit.HOURS.toMillis(1));
+        builder.setAutoSave(true);
+        PropertiesConfiguration config = builder.getConfiguration();
+        assertTrue("Wrong synchronizer",
+                config.getSynchronizer() instanceof ReadWriteSynchronizer);
+        builder.setAutoSave(false);
+    }
+
+    /**
+     * Tests that the synchronizer of an existing configuration is replaced if
+     * asynchronous auto save is enabled.
+     */
+    @Test
+    public void testAutoSaveAsyncSynchronizerExistingConfiguration()
+            throws ConfigurationException
+    {
+        FileBasedConfigurationBuilder<PropertiesConfiguration> builder =
+                new FileBasedConfigurationBuilder<>(
+                        PropertiesConfiguration.class)
+                        .configure(new FileBasedBuilderParametersImpl()
+                                .setFile(createTestFile(0)));
+        PropertiesConfiguration config = builder.getConfiguration();
+        builder.setAutoSave(true);
+        assertTrue("Synchronizer changed in synchronous mode",
+                config.getSynchronizer() instanceof NoOpSynchronizer);
+        builder.setAutoSaveDelay(TimeUnit.HOURS.toMillis(1));
+        assertTrue("Wrong synchronizer",
+                config.getSynchronizer() instanceof ReadWriteSynchronizer);
+        builder.setAutoSave(false);
+    }
+
+    /**
+     * Tests that a synchronizer set explicitly is not replaced in
+     * asynchronous auto save mode.
+     */
+    @Test
+    public void testAutoSaveAsyncCustomSynchronizer()
+            throws ConfigurationException
+    {
+        Synchronizer sync = new ReadWriteSynchronizer();
+        FileBasedConfigurationBuilder<PropertiesConfiguration> builder =
+                new FileBasedConfigurationBuilder<>(
+                        PropertiesConfiguration.class)
+                        .configure(new FileBasedBuilderParametersImpl()
+                                .setFile(createTestFile(0)),
+                                new BasicBuilderParameters()
+                                        .setSynchronizer(sync));
+        builder.setAutoSaveDelay(TimeUnit.HOURS.toMillis(1));
+        builder.setAutoSave(true);
+        assertSame("Synchronizer replaced", sync, builder.getConfiguration()
+                .getSynchronizer());
+        builder.setAutoSave(false);
+    }
+
+    /**
+     * Tests whether pending changes can be flushed.
+     */
+    @Test
+    public void testFlushAutoSave() throws ConfigurationException
+    {
+        File file = createTestFile(0);
+        FileBasedConfigurationBuilder<PropertiesConfiguration> builder =
+                new FileBasedConfigurationBuilder<>(
+                        PropertiesConfiguration.class)
+                        .configure(new FileBasedBuilderParametersImpl()
+                                .setFile(file));
+        builder.setAutoSaveDelay(TimeUnit.HOURS.toMillis(1));
+        builder.setAutoSave(true);
+        PropertiesConfiguration config = builder.getConfiguration();
+        config.setProperty(PROP, 1);
+        checkSavedConfig(file, 0);
+        builder.flushAutoSave();
+        checkSavedConfig(file, 1);
+        builder.setAutoSave(false);
+    }
+
+    /**
+     * Tests that flushAutoSave() has no effect if auto save is disabled.
+     */
+    @Test
+    public void testFlushAutoSaveDisabled() throws ConfigurationException
+    {
+        File file = createTestFile(0);
+        FileBasedConfigurationBuilder<PropertiesConfiguration> builder =
+                new FileBasedConfigurationBuilder<>(
+                        PropertiesConfiguration.class)
+                        .configure(new FileBasedBuilderParametersImpl()
+                                .setFile(file));
+        PropertiesConfiguration config = builder.getConfiguration();
+        config.setProperty(PROP, 1);
+        builder.flushAutoSave();
+        checkSavedConfig(file, 0);
+    }
+
+    /**
+     * Tests that pending changes are written when asynchronous auto save mode
+     * is disabled.
+     */
+    @Test
+    public void testDisableAsyncAutoSaveWritesPendingChanges()
+            throws ConfigurationException
+    {
+        File file = createTestFile(0);
+        FileBasedConfigurationBuilder<PropertiesConfiguration> builder =
+                new FileBasedConfigurationBuilder<>(
+                        PropertiesConfiguration.class)
+                        .configure(new FileBasedBuilderParametersImpl()
+                                .setFile(file));
+        builder.setAutoSaveDelay(TimeUnit.HOURS.toMillis(1));
+        builder.setAutoSave(true);
+        PropertiesConfiguration config = builder.getConfiguration();
+        config.setProperty(PROP, 1);
+        builder.setAutoSave(false);
+        checkSavedConfig(file, 1);
+        config.setProperty(PROP, 2);
+        builder.flushAutoSave();
+        checkSavedConfig(file, 1);
+    }
+
+    /**
+     * Tests whether the auto save delay can be changed while auto save mode
+     * is active.
+     */
+    @Test
+    public void testSetAutoSaveDelayWhileActive() throws ConfigurationException
+    {
+        File file = createTestFile(0);
+        FileBasedConfigurationBuilder<PropertiesConfiguration> builder =
+                new FileBasedConfigurationBuilder<>(
+                        PropertiesConfiguration.class)
+                        .configure(new FileBasedBuilderParametersImpl()
+                                .setFile(file));
+        builder.setAutoSaveDelay(TimeUnit.HOURS.toMillis(1));
+        builder.setAutoSave(true);
+        PropertiesConfiguration config = builder.getConfiguration();
+        config.setProperty(PROP, 1);
+        builder.setAutoSaveDelay(0);
+        assertTrue("Auto save disabled", builder.isAutoSave());
+        checkSavedConfig(file, 1);
+        config.setProperty(PROP, 2);
+        checkSavedConfig(file, 2);
+    }
+
     /**
      * Tries to set a default encoding for a null class.
      */
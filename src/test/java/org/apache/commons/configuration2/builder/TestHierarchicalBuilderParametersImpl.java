@@ -56,6 +56,18 @@ public class TestHierarchicalBuilderParametersImpl
                 .get("expressionEngine"));
     }
 
+    /**
+     * Tests whether the flag for the absent key cache can be set.
+     */
+    @Test
+    public void testSetAbsentKeyCacheEnabled()
+    {
+        assertSame("Wrong result", params,
+                params.setAbsentKeyCacheEnabled(true));
+        assertEquals("Wrong flag", Boolean.TRUE, params.getParameters()
+                .get("absentKeyCacheEnabled"));
+    }
+
     /**
      * Tests whether properties can be set via BeanUtils.
      */
@@ -84,6 +96,7 @@ public class TestHierarchicalBuilderParametersImpl
                 new HierarchicalBuilderParametersImpl();
         params.setExpressionEngine(engine);
         params.setThrowExceptionOnMissing(true);
+        params.setAbsentKeyCacheEnabled(true);
         HierarchicalBuilderParametersImpl params2 =
                 new HierarchicalBuilderParametersImpl();
 
@@ -93,5 +106,7 @@ public class TestHierarchicalBuilderParametersImpl
                 parameters.get("throwExceptionOnMissing"));
         assertEquals("Expression engine not set", engine,
                 parameters.get("expressionEngine"));
+        assertEquals("Cache flag not set", Boolean.TRUE,
+                parameters.get("absentKeyCacheEnabled"));
     }
 }
@@ -18,20 +18,36 @@ package org.apache.commons.configuration2.builder;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.apache.commons.configuration2.XMLConfiguration;
+import org.apache.commons.configuration2.event.ConfigurationErrorEvent;
+import org.apache.commons.configuration2.event.ConfigurationEvent;
+import org.apache.commons.configuration2.event.EventListener;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.configuration2.io.FileHandler;
 import org.apache.commons.configuration2.reloading.FileHandlerReloadingDetector;
 import org.apache.commons.configuration2.reloading.ReloadingDetector;
 import org.easymock.EasyMock;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * Test class for {@code ReloadingFileBasedConfigurationBuilder}.
@@ -40,6 +56,266 @@ import org.junit.Test;
  */
 public class TestReloadingFileBasedConfigurationBuilder
 {
+    /** A helper object for managing temporary files. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Writes the given content into a file.
+     *
+     * @param file the file
+     * @param content the content to be written
+     * @throws IOException if an error occurs
+     */
+    private static void writeFile(File file, String content) throws IOException
+    {
+        Writer out = new FileWriter(file);
+        try
+        {
+            out.write(content);
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * Simulates a reload of the given builder after the content of its file
+     * has been changed. The events fired by the builder for the new result
+     * object are returned.
+     *
+     * @param builder the builder
+     * @param file the builder's file
+     * @param content the new content of the file
+     * @param events the list with received events
+     * @return the events fired after the new result has been created
+     */
+    private static List<ConfigurationEvent> reload(
+            ReloadingFileBasedConfigurationBuilder<?> builder, File file,
+            String content, List<ConfigurationEvent> events)
+            throws IOException, ConfigurationException
+    {
+        writeFile(file, content);
+        builder.resetResult();
+        Object config = builder.getConfiguration();
+        List<ConfigurationEvent> changeEvents = new ArrayList<>();
+        for (ConfigurationEvent event : events)
+        {
+            // events caused by loading the file report both phases
+            if (event.getSource() == config && !event.isBeforeUpdate()
+                    && !hasBeforeEvent(events, event))
+            {
+                changeEvents.add(event);
+            }
+        }
+        return changeEvents;
+    }
+
+    /**
+     * Checks whether there is a before event corresponding to the given
+     * after event.
+     *
+     * @param events the list with all events
+     * @param event the after event
+     * @return a flag whether a corresponding before event exists
+     */
+    private static boolean hasBeforeEvent(List<ConfigurationEvent> events,
+            ConfigurationEvent event)
+    {
+        for (ConfigurationEvent e : events)
+        {
+            if (e.getSource() == event.getSource() && e.isBeforeUpdate()
+                    && e.getEventType() == event.getEventType()
+                    && e.getPropertyName().equals(event.getPropertyName()))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates an event listener which stores all received events in the
+     * given list.
+     *
+     * @param events the list for storing events
+     * @return the listener
+     */
+    private static EventListener<ConfigurationEvent> createCollectingListener(
+            final List<ConfigurationEvent> events)
+    {
+        return new EventListener<ConfigurationEvent>()
+        {
+            @Override
+            public void onEvent(ConfigurationEvent event)
+            {
+                events.add(event);
+            }
+        };
+    }
+
+    /**
+     * Checks an event fired for a change after a reload.
+     *
+     * @param event the event
+     * @param type the expected event type
+     * @param key the expected property key
+     * @param value the expected property value
+     */
+    private static void checkChangeEvent(ConfigurationEvent event,
+            Object type, String key, Object value)
+    {
+        assertEquals("Wrong event type", type, event.getEventType());
+        assertEquals("Wrong key", key, event.getPropertyName());
+        assertEquals("Wrong value", value, event.getPropertyValue());
+    }
+
+    /**
+     * Tests whether events for the changed keys of a flat configuration are
+     * fired after a reload.
+     */
+    @Test
+    public void testFireChangeEventsOnReloadFlat() throws IOException,
+            ConfigurationException
+    {
+        File file = folder.newFile();
+        writeFile(file, "a=1\nb=2\nc=3\n");
+        ReloadingFileBasedConfigurationBuilder<PropertiesConfiguration> builder =
+                new ReloadingFileBasedConfigurationBuilder<>(
+                        PropertiesConfiguration.class)
+                        .configure(new FileBasedBuilderParametersImpl()
+                                .setFile(file));
+        builder.setFireChangeEventsOnReload(true);
+        List<ConfigurationEvent> events = new ArrayList<>();
+        builder.addEventListener(ConfigurationEvent.ANY,
+                createCollectingListener(events));
+        builder.getConfiguration();
+
+        List<ConfigurationEvent> changes =
+                reload(builder, file, "a=1\nb=20\nd=4\n", events);
+        assertEquals("Wrong number of change events", 3, changes.size());
+        checkChangeEvent(changes.get(0), ConfigurationEvent.ADD_PROPERTY, "d",
+                "4");
+        checkChangeEvent(changes.get(1), ConfigurationEvent.CLEAR_PROPERTY,
+                "c", null);
+        checkChangeEvent(changes.get(2), ConfigurationEvent.SET_PROPERTY, "b",
+                "20");
+    }
+
+    /**
+     * Tests whether events for the changed keys of a hierarchical
+     * configuration are fired after a reload.
+     */
+    @Test
+    public void testFireChangeEventsOnReloadHierarchical()
+            throws IOException, ConfigurationException
+    {
+        File file = folder.newFile("test.xml");
+        writeFile(file, "<config><a>1</a><b><c>2</c><c>3</c></b></config>");
+        ReloadingFileBasedConfigurationBuilder<XMLConfiguration> builder =
+                new ReloadingFileBasedConfigurationBuilder<>(
+                        XMLConfiguration.class)
+                        .configure(new FileBasedBuilderParametersImpl()
+                                .setFile(file));
+        builder.setFireChangeEventsOnReload(true);
+        List<ConfigurationEvent> events = new ArrayList<>();
+        builder.addEventListener(ConfigurationEvent.ANY,
+                createCollectingListener(events));
+        builder.getConfiguration();
+
+        List<ConfigurationEvent> changes =
+                reload(builder, file,
+                        "<config><a>1</a><b><c>2</c><c>4</c></b></config>",
+                        events);
+        assertEquals("Wrong number of change events", 1, changes.size());
+        checkChangeEvent(changes.get(0), ConfigurationEvent.SET_PROPERTY,
+                "b.c(1)", "4");
+    }
+
+    /**
+     * Tests that no change events get lost if multiple result objects are
+     * created before the events are fired. Here a listener for the creation
+     * of the first new result causes another reload.
+     */
+    @Test
+    public void testFireChangeEventsOnReloadMultipleResults()
+            throws IOException, ConfigurationException
+    {
+        final File file = folder.newFile();
+        writeFile(file, "a=1\n");
+        final ReloadingFileBasedConfigurationBuilder<PropertiesConfiguration> builder =
+                new ReloadingFileBasedConfigurationBuilder<>(
+                        PropertiesConfiguration.class)
+                        .configure(new FileBasedBuilderParametersImpl()
+                                .setFile(file));
+        builder.setFireChangeEventsOnReload(true);
+        builder.getConfiguration();
+        final List<ConfigurationEvent> events = new ArrayList<>();
+        builder.addEventListener(ConfigurationEvent.SET_PROPERTY,
+                createCollectingListener(events));
+        builder.addEventListener(
+                ConfigurationBuilderResultCreatedEvent.RESULT_CREATED,
+                new EventListener<ConfigurationBuilderResultCreatedEvent>()
+                {
+                    private boolean reloaded;
+
+                    @Override
+                    public void onEvent(
+                            ConfigurationBuilderResultCreatedEvent event)
+                    {
+                        if (!reloaded)
+                        {
+                            reloaded = true;
+                            try
+                            {
+                                writeFile(file, "a=3\n");
+                                builder.resetResult();
+                                builder.getConfiguration();
+                            }
+                            catch (IOException | ConfigurationException ex)
+                            {
+                                throw new AssertionError(ex);
+                            }
+                        }
+                    }
+                });
+
+        writeFile(file, "a=2\n");
+        builder.resetResult();
+        builder.getConfiguration();
+        assertEquals("Wrong value", "3",
+                builder.getConfiguration().getString("a"));
+        assertEquals("Wrong number of change events", 2, events.size());
+        checkChangeEvent(events.get(0), ConfigurationEvent.SET_PROPERTY, "a",
+                "2");
+        checkChangeEvent(events.get(1), ConfigurationEvent.SET_PROPERTY, "a",
+                "3");
+    }
+
+    /**
+     * Tests that no change events are fired after a reload per default.
+     */
+    @Test
+    public void testFireChangeEventsOnReloadDisabled() throws IOException,
+            ConfigurationException
+    {
+        File file = folder.newFile();
+        writeFile(file, "a=1\n");
+        ReloadingFileBasedConfigurationBuilder<PropertiesConfiguration> builder =
+                new ReloadingFileBasedConfigurationBuilder<>(
+                        PropertiesConfiguration.class)
+                        .configure(new FileBasedBuilderParametersImpl()
+                                .setFile(file));
+        assertFalse("Wrong default flag", builder.isFireChangeEventsOnReload());
+        List<ConfigurationEvent> events = new ArrayList<>();
+        builder.addEventListener(ConfigurationEvent.ANY,
+                createCollectingListener(events));
+        builder.getConfiguration();
+
+        assertTrue("Got change events",
+                reload(builder, file, "a=2\n", events).isEmpty());
+    }
     /**
      * Tests whether a configuration can be created if no location is set. This
      * tests also ensures that the super constructor is called correctly.
@@ -226,6 +502,226 @@ public class TestReloadingFileBasedConfigurationBuilder
         assertTrue("Flag not set", builder.isAllowFailOnInit());
     }
 
+    /**
+     * Creates a builder for the given file which uses a stub reloading
+     * detector and the given executor for background reloads.
+     *
+     * @param file the file
+     * @param detector the reloading detector
+     * @param exec the executor for background reloads
+     * @return the builder
+     */
+    private static ReloadingFileBasedConfigurationBuilder<XMLConfiguration> createBackgroundBuilder(
+            File file, final ReloadingDetector detector, Executor exec)
+    {
+        ReloadingFileBasedConfigurationBuilder<XMLConfiguration> builder =
+                new ReloadingFileBasedConfigurationBuilder<XMLConfiguration>(
+                        XMLConfiguration.class)
+                {
+                    @Override
+                    protected ReloadingDetector createReloadingDetector(
+                            FileHandler handler,
+                            FileBasedBuilderParametersImpl fbparams)
+                    {
+                        return detector;
+                    }
+                };
+        builder.configure(new FileBasedBuilderParametersImpl().setFile(file));
+        builder.setBackgroundReloadExecutor(exec);
+        return builder;
+    }
+
+    /**
+     * Tests that background reloads are disabled per default.
+     */
+    @Test
+    public void testBackgroundReloadExecutorDefault()
+    {
+        assertNull("Got an executor",
+                new ReloadingFileBasedConfigurationBuilder<>(
+                        PropertiesConfiguration.class)
+                        .getBackgroundReloadExecutor());
+    }
+
+    /**
+     * Tests that the previous result is returned until a background reload
+     * has completed.
+     */
+    @Test
+    public void testBackgroundReload() throws IOException,
+            ConfigurationException
+    {
+        File file = folder.newFile("background.xml");
+        writeFile(file, "<config><a>1</a></config>");
+        StubDetector detector = new StubDetector();
+        QueueExecutor exec = new QueueExecutor();
+        ReloadingFileBasedConfigurationBuilder<XMLConfiguration> builder =
+                createBackgroundBuilder(file, detector, exec);
+        XMLConfiguration config = builder.getConfiguration();
+
+        writeFile(file, "<config><a>2</a></config>");
+        detector.reloadingRequired = true;
+        assertTrue("No reload", builder.getReloadingController()
+                .checkForReloading(null));
+        assertSame("Result was reset", config, builder.getConfiguration());
+        assertEquals("Wrong number of tasks", 1, exec.tasks.size());
+
+        exec.runTasks();
+        XMLConfiguration newConfig = builder.getConfiguration();
+        assertNotSame("No new result", config, newConfig);
+        assertEquals("Wrong value", 2, newConfig.getInt("a"));
+        assertSame("Wrong file handler content", newConfig, builder
+                .getFileHandler().getContent());
+        assertFalse("Still in reloading state", builder
+                .getReloadingController().isInReloadingState());
+        assertFalse("Detector not reset", detector.reloadingRequired);
+    }
+
+    /**
+     * Tests that a failed background reload does not replace the current
+     * result.
+     */
+    @Test
+    public void testBackgroundReloadFailure() throws IOException,
+            ConfigurationException
+    {
+        File file = folder.newFile("backgroundError.xml");
+        writeFile(file, "<config><a>1</a></config>");
+        StubDetector detector = new StubDetector();
+        QueueExecutor exec = new QueueExecutor();
+        ReloadingFileBasedConfigurationBuilder<XMLConfiguration> builder =
+                createBackgroundBuilder(file, detector, exec);
+        final List<ConfigurationErrorEvent> errors = new ArrayList<>();
+        builder.addEventListener(ConfigurationErrorEvent.READ,
+                new EventListener<ConfigurationErrorEvent>()
+                {
+                    @Override
+                    public void onEvent(ConfigurationErrorEvent event)
+                    {
+                        errors.add(event);
+                    }
+                });
+        XMLConfiguration config = builder.getConfiguration();
+
+        writeFile(file, "<config><a>2</a>");
+        detector.reloadingRequired = true;
+        builder.getReloadingController().checkForReloading(null);
+        exec.runTasks();
+        assertSame("Result was replaced", config, builder.getConfiguration());
+        assertEquals("Wrong value", 1, config.getInt("a"));
+        assertSame("Wrong file handler content", config, builder
+                .getFileHandler().getContent());
+        assertEquals("Wrong number of error events", 1, errors.size());
+        assertNotNull("No cause", errors.get(0).getCause());
+        assertFalse("Still in reloading state", builder
+                .getReloadingController().isInReloadingState());
+    }
+
+    /**
+     * Tests that a synchronous reload is done if the executor rejects the
+     * background task.
+     */
+    @Test
+    public void testBackgroundReloadRejected() throws IOException,
+            ConfigurationException
+    {
+        File file = folder.newFile("backgroundRejected.xml");
+        writeFile(file, "<config><a>1</a></config>");
+        StubDetector detector = new StubDetector();
+        ReloadingFileBasedConfigurationBuilder<XMLConfiguration> builder =
+                createBackgroundBuilder(file, detector, new Executor()
+                {
+                    @Override
+                    public void execute(Runnable command)
+                    {
+                        throw new RejectedExecutionException();
+                    }
+                });
+        XMLConfiguration config = builder.getConfiguration();
+
+        writeFile(file, "<config><a>2</a></config>");
+        detector.reloadingRequired = true;
+        builder.getReloadingController().checkForReloading(null);
+        XMLConfiguration newConfig = builder.getConfiguration();
+        assertNotSame("No new result", config, newConfig);
+        assertEquals("Wrong value", 2, newConfig.getInt("a"));
+    }
+
+    /**
+     * Tests that a result prepared by a background reload is discarded if the
+     * builder is reset.
+     */
+    @Test
+    public void testBackgroundReloadResetResult() throws IOException,
+            ConfigurationException
+    {
+        File file = folder.newFile("backgroundReset.xml");
+        writeFile(file, "<config><a>1</a></config>");
+        StubDetector detector = new StubDetector();
+        QueueExecutor exec = new QueueExecutor();
+        ReloadingFileBasedConfigurationBuilder<XMLConfiguration> builder =
+                createBackgroundBuilder(file, detector, exec);
+        builder.getConfiguration();
+
+        writeFile(file, "<config><a>2</a></config>");
+        detector.reloadingRequired = true;
+        builder.getReloadingController().checkForReloading(null);
+        exec.runTasks();
+        writeFile(file, "<config><a>3</a></config>");
+        builder.resetResult();
+        assertEquals("Prepared result used", 3, builder.getConfiguration()
+                .getInt("a"));
+    }
+
+    /**
+     * A stub reloading detector with a flag that can be set by tests.
+     */
+    private static class StubDetector implements ReloadingDetector
+    {
+        /** The flag to be returned by isReloadingRequired(). */
+        private volatile boolean reloadingRequired;
+
+        @Override
+        public boolean isReloadingRequired()
+        {
+            return reloadingRequired;
+        }
+
+        @Override
+        public void reloadingPerformed()
+        {
+            reloadingRequired = false;
+        }
+    }
+
+    /**
+     * An executor which stores the passed in tasks so that they can be
+     * executed later by the test.
+     */
+    private static class QueueExecutor implements Executor
+    {
+        /** The list with pending tasks. */
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command)
+        {
+            tasks.add(command);
+        }
+
+        /**
+         * Executes all pending tasks.
+         */
+        public void runTasks()
+        {
+            for (Runnable task : tasks)
+            {
+                task.run();
+            }
+            tasks.clear();
+        }
+    }
+
     /**
      * A test builder implementation which allows mocking the underlying
      * reloading detector.
@@ -50,6 +50,7 @@ import org.apache.commons.configuration2.builder.BasicConfigurationBuilder;
 import org.apache.commons.configuration2.builder.BuilderEventListenerImpl;
 import org.apache.commons.configuration2.builder.ConfigurationBuilder;
 import org.apache.commons.configuration2.builder.ConfigurationBuilderEvent;
+import org.apache.commons.configuration2.builder.ConfigurationBuilderTimingEvent;
 import org.apache.commons.configuration2.builder.CopyObjectDefaultHandler;
 import org.apache.commons.configuration2.builder.FileBasedBuilderParametersImpl;
 import org.apache.commons.configuration2.builder.FileBasedBuilderProperties;
@@ -491,6 +492,67 @@ public class TestCombinedConfigurationBuilder
         assertNotSame("No new sub builder instance", subBuilder, subBuilder2);
     }
 
+    /**
+     * Tests that the sub builders are kept if the result is reset because one
+     * of them was reset.
+     */
+    @Test
+    public void testResetChildBuilderKeepsSubBuilders()
+            throws ConfigurationException
+    {
+        Map<String, Object> attrs = new HashMap<>();
+        prepareSubBuilderTest(attrs);
+        CombinedConfiguration cc = builder.getConfiguration();
+        ConfigurationBuilder<? extends Configuration> subBuilder =
+                builder.getNamedBuilder(BUILDER_NAME);
+        ((BasicConfigurationBuilder<?>) subBuilder).resetResult();
+        CombinedConfiguration cc2 = builder.getConfiguration();
+        assertNotSame("No new configuration instance", cc, cc2);
+        assertSame("Sub builder was recreated", subBuilder,
+                builder.getNamedBuilder(BUILDER_NAME));
+    }
+
+    /**
+     * Tests that an explicit reset of the result causes the sub builders to be
+     * recreated.
+     */
+    @Test
+    public void testResetResultRecreatesSubBuilders()
+            throws ConfigurationException
+    {
+        Map<String, Object> attrs = new HashMap<>();
+        prepareSubBuilderTest(attrs);
+        builder.getConfiguration();
+        ConfigurationBuilder<? extends Configuration> subBuilder =
+                builder.getNamedBuilder(BUILDER_NAME);
+        builder.resetResult();
+        builder.getConfiguration();
+        assertNotSame("No new sub builder instance", subBuilder,
+                builder.getNamedBuilder(BUILDER_NAME));
+    }
+
+    /**
+     * Tests whether the timing event of the combined builder contains
+     * information about the single sources.
+     */
+    @Test
+    public void testTimingEventSourcePhases() throws ConfigurationException
+    {
+        Map<String, Object> attrs = new HashMap<>();
+        prepareSubBuilderTest(attrs);
+        BuilderEventListenerImpl listener = new BuilderEventListenerImpl();
+        builder.addEventListener(ConfigurationBuilderTimingEvent.RESULT_TIMING,
+                listener);
+        builder.getConfiguration();
+        ConfigurationBuilderTimingEvent event =
+                listener.nextEvent(ConfigurationBuilderTimingEvent.RESULT_TIMING);
+        assertTrue("No source phase", event
+                .getPhaseDuration(ConfigurationBuilderTimingEvent.PHASE_SOURCE_PREFIX
+                        + BUILDER_NAME) >= 0);
+        assertTrue("No combine phase", event
+                .getPhaseDuration(ConfigurationBuilderTimingEvent.PHASE_COMBINE) >= 0);
+    }
+
     /**
      * Tests whether a reloading sub builder can be created.
      */
@@ -38,6 +38,7 @@ import org.apache.commons.configuration2.builder.BuilderEventListenerImpl;
 import org.apache.commons.configuration2.builder.BuilderParameters;
 import org.apache.commons.configuration2.builder.ConfigurationBuilderEvent;
 import org.apache.commons.configuration2.builder.ConfigurationBuilderResultCreatedEvent;
+import org.apache.commons.configuration2.builder.ConfigurationBuilderTimingEvent;
 import org.apache.commons.configuration2.builder.FileBasedConfigurationBuilder;
 import org.apache.commons.configuration2.builder.XMLBuilderParametersImpl;
 import org.apache.commons.configuration2.convert.DefaultListDelimiterHandler;
@@ -409,6 +410,10 @@ public class TestMultiFileConfigurationBuilder extends AbstractMultiFileConfigur
                 listener.nextEvent(ConfigurationBuilderResultCreatedEvent.RESULT_CREATED);
         assertEquals("Wrong source of creation event", builder,
                 createdEvent.getSource());
+        ConfigurationBuilderTimingEvent timingEvent =
+                listener.nextEvent(ConfigurationBuilderTimingEvent.RESULT_TIMING);
+        assertEquals("Wrong source of timing event", builder,
+                timingEvent.getSource());
         listener.assertNoMoreEvents();
     }
 
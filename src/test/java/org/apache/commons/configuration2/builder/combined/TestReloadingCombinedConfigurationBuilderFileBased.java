@@ -17,6 +17,9 @@
 package org.apache.commons.configuration2.builder.combined;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
@@ -24,6 +27,12 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.configuration2.BaseHierarchicalConfiguration;
 import org.apache.commons.configuration2.CombinedConfiguration;
@@ -38,6 +47,8 @@ import org.apache.commons.configuration2.builder.FileBasedBuilderProperties;
 import org.apache.commons.configuration2.builder.ReloadingDetectorFactory;
 import org.apache.commons.configuration2.builder.ReloadingFileBasedConfigurationBuilder;
 import org.apache.commons.configuration2.builder.fluent.Parameters;
+import org.apache.commons.configuration2.event.ConfigurationEvent;
+import org.apache.commons.configuration2.event.EventSource;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.configuration2.io.FileHandler;
 import org.apache.commons.configuration2.reloading.AlwaysReloadingDetector;
@@ -221,6 +232,165 @@ public class TestReloadingCombinedConfigurationBuilderFileBased
                 config.getInt(testProperty(2)));
     }
 
+    /**
+     * Tests that only the changed source is reloaded. The configurations of
+     * the other sources are reused.
+     */
+    @Test
+    public void testReloadOnlyChangedSource() throws ConfigurationException,
+            IOException
+    {
+        File xmlConf1 = writeReloadFile(null, 1, 0);
+        File xmlConf2 = writeReloadFile(null, 2, 0);
+        final List<ToggleDetector> detectors = new ArrayList<>();
+        ReloadingDetectorFactory detectorFactory =
+                new ReloadingDetectorFactory()
+                {
+                    @Override
+                    public ReloadingDetector createReloadingDetector(
+                            FileHandler handler,
+                            FileBasedBuilderParametersImpl params)
+                            throws ConfigurationException
+                    {
+                        ToggleDetector detector = new ToggleDetector();
+                        detectors.add(detector);
+                        return detector;
+                    }
+                };
+        BaseHierarchicalConfiguration defConf = new BaseHierarchicalConfiguration();
+        addReloadSource(defConf, xmlConf1.getAbsolutePath());
+        addReloadSource(defConf, xmlConf2.getAbsolutePath());
+        builder.configure(parameters
+                .combined()
+                .setDefinitionBuilder(new ConstantConfigurationBuilder(defConf))
+                .registerChildDefaultsHandler(
+                        FileBasedBuilderProperties.class,
+                        new CopyObjectDefaultHandler(
+                                new FileBasedBuilderParametersImpl()
+                                        .setReloadingDetectorFactory(detectorFactory))));
+        CombinedConfiguration config = builder.getConfiguration();
+        Configuration child1 = config.getConfiguration(0);
+        Configuration child2 = config.getConfiguration(1);
+        assertEquals("Wrong number of detectors", 2, detectors.size());
+
+        writeReloadFile(xmlConf1, 1, 1);
+        detectors.get(0).changed = true;
+        builder.getReloadingController().checkForReloading(null);
+        CombinedConfiguration config2 = builder.getConfiguration();
+        assertEquals("Updated value not reloaded", 1,
+                config2.getInt(testProperty(1)));
+        assertNotSame("Changed source not reloaded", child1,
+                config2.getConfiguration(0));
+        assertSame("Unchanged source reloaded", child2,
+                config2.getConfiguration(1));
+        assertEquals("Wrong number of detectors (only the changed source "
+                + "gets a new one)", 3, detectors.size());
+        assertFalse("Old configuration still registered",
+                ((EventSource) child2).removeEventListener(
+                        ConfigurationEvent.ANY, config));
+    }
+
+    /**
+     * Tests a background reload of a child builder while another thread holds
+     * the monitor of the combined builder. The reset event of the child
+     * builder must be fired outside of its monitor; otherwise, the child
+     * builder cannot be accessed until the combined builder is released.
+     */
+    @Test
+    public void testBackgroundReloadOfChildBuilderNoDeadlock()
+            throws Exception
+    {
+        File xmlConf = writeReloadFile(null, 1, 0);
+        final ToggleDetector detector = new ToggleDetector();
+        ReloadingDetectorFactory detectorFactory =
+                new ReloadingDetectorFactory()
+                {
+                    @Override
+                    public ReloadingDetector createReloadingDetector(
+                            FileHandler handler,
+                            FileBasedBuilderParametersImpl params)
+                            throws ConfigurationException
+                    {
+                        return detector;
+                    }
+                };
+        BaseHierarchicalConfiguration defConf = new BaseHierarchicalConfiguration();
+        addReloadSource(defConf, xmlConf.getAbsolutePath());
+        defConf.addProperty(PROP_SRC + "[@config-name]", "child");
+        builder.configure(parameters
+                .combined()
+                .setDefinitionBuilder(new ConstantConfigurationBuilder(defConf))
+                .registerChildDefaultsHandler(
+                        FileBasedBuilderProperties.class,
+                        new CopyObjectDefaultHandler(
+                                new FileBasedBuilderParametersImpl()
+                                        .setReloadingDetectorFactory(detectorFactory))));
+        assertEquals("Wrong initial value", 0, builder.getConfiguration()
+                .getInt(testProperty(1)));
+        final ReloadingFileBasedConfigurationBuilder<?> childBuilder =
+                (ReloadingFileBasedConfigurationBuilder<?>) builder
+                        .getNamedBuilder("child");
+        final List<Thread> reloadThreads = new ArrayList<>();
+        ExecutorService exec = Executors.newSingleThreadExecutor(
+                new ThreadFactory()
+                {
+                    @Override
+                    public Thread newThread(Runnable r)
+                    {
+                        Thread t = new Thread(r);
+                        reloadThreads.add(t);
+                        return t;
+                    }
+                });
+        childBuilder.setBackgroundReloadExecutor(exec);
+        writeReloadFile(xmlConf, 1, 1);
+        detector.changed = true;
+
+        Thread accessThread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    childBuilder.getConfiguration();
+                }
+                catch (ConfigurationException cex)
+                {
+                    throw new AssertionError(cex);
+                }
+            }
+        };
+        try
+        {
+            synchronized (builder)
+            {
+                childBuilder.getReloadingController().checkForReloading(null);
+                // wait until the reset listener of the combined builder waits
+                // for the monitor held by this thread
+                for (int i = 0; i < 500
+                        && (reloadThreads.isEmpty() || reloadThreads.get(0)
+                                .getState() != Thread.State.BLOCKED); i++)
+                {
+                    Thread.sleep(10);
+                }
+                assertEquals("Reload thread not blocked",
+                        Thread.State.BLOCKED, reloadThreads.get(0).getState());
+                accessThread.start();
+                accessThread.join(5000);
+                assertFalse("Child builder is blocked", accessThread.isAlive());
+            }
+        }
+        finally
+        {
+            exec.shutdown();
+            exec.awaitTermination(5, TimeUnit.SECONDS);
+            accessThread.join(5000);
+        }
+        assertEquals("Value not reloaded", 1, builder.getConfiguration()
+                .getInt(testProperty(1)));
+    }
+
     /**
      * Tests concurrent access to a reloading builder for combined
      * configurations.
@@ -440,4 +610,25 @@ public class TestReloadingCombinedConfigurationBuilderFileBased
             }
         }
     }
+
+    /**
+     * A test detector implementation whose change flag can be set directly.
+     */
+    private static class ToggleDetector implements ReloadingDetector
+    {
+        /** The flag whether a change is reported. */
+        private volatile boolean changed;
+
+        @Override
+        public boolean isReloadingRequired()
+        {
+            return changed;
+        }
+
+        @Override
+        public void reloadingPerformed()
+        {
+            changed = false;
+        }
+    }
 }
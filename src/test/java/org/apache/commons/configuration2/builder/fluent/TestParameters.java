@@ -36,6 +36,7 @@ import org.apache.commons.configuration2.builder.combined.CombinedBuilderParamet
 import org.apache.commons.configuration2.builder.combined.MultiFileBuilderParametersImpl;
 import org.apache.commons.configuration2.convert.ListDelimiterHandler;
 import org.apache.commons.configuration2.tree.ExpressionEngine;
+import org.apache.commons.configuration2.tree.StringPool;
 import org.easymock.EasyMock;
 import org.easymock.IAnswer;
 import org.junit.BeforeClass;
@@ -218,6 +219,42 @@ public class TestParameters
                 map.get("expressionEngine"));
     }
 
+    /**
+     * Tests whether the absent key cache can be enabled via the fluent
+     * parameters objects of hierarchical configurations.
+     */
+    @Test
+    public void testAbsentKeyCacheEnabled()
+    {
+        Parameters parameters = new Parameters();
+        assertEquals("Wrong flag (hierarchical)", Boolean.TRUE, parameters
+                .hierarchical().setAbsentKeyCacheEnabled(true).getParameters()
+                .get("absentKeyCacheEnabled"));
+        assertEquals("Wrong flag (XML)", Boolean.TRUE, parameters.xml()
+                .setAbsentKeyCacheEnabled(true).getParameters()
+                .get("absentKeyCacheEnabled"));
+        assertEquals("Wrong flag (INI)", Boolean.TRUE, parameters.ini()
+                .setAbsentKeyCacheEnabled(true).getParameters()
+                .get("absentKeyCacheEnabled"));
+    }
+
+    /**
+     * Tests whether a string pool can be set via the fluent parameters
+     * objects.
+     */
+    @Test
+    public void testStringPool()
+    {
+        Parameters parameters = new Parameters();
+        StringPool pool = new StringPool();
+        assertSame("Wrong pool (file-based)", pool, parameters.fileBased()
+                .setStringPool(pool).getParameters().get("stringPool"));
+        assertSame("Wrong pool (properties)", pool, parameters.properties()
+                .setStringPool(pool).getParameters().get("stringPool"));
+        assertSame("Wrong pool (XML)", pool, parameters.xml()
+                .setStringPool(pool).getParameters().get("stringPool"));
+    }
+
     /**
      * Tests the inheritance structure of a hierarchical parameters object.
      */
@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.reloading;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.commons.configuration2.io.FileHandler;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for {@code ChecksumReloadingDetector}.
+ *
+ * @version $Id$
+ */
+public class TestChecksumReloadingDetector
+{
+    /** Constant for the initial content of the test file. */
+    private static final String CONTENT = "key = value";
+
+    /** A helper object for creating temporary files. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** The test file. */
+    private File file;
+
+    /** The detector to be tested. */
+    private ChecksumDetectorTestImpl detector;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        file = folder.newFile("checksum.properties");
+        writeFile(CONTENT);
+        FileHandler handler = new FileHandler();
+        handler.setFile(file);
+        detector = new ChecksumDetectorTestImpl(handler);
+        assertFalse("Reloading required on init",
+                detector.isReloadingRequired());
+    }
+
+    /**
+     * Writes the given content into the test file and changes its
+     * modification date.
+     *
+     * @param content the content
+     * @throws IOException if an error occurs
+     */
+    private void writeFile(String content) throws IOException
+    {
+        long modified = (file.length() > 0) ? file.lastModified() : 0;
+        OutputStream out = new FileOutputStream(file);
+        try
+        {
+            out.write(content.getBytes("UTF-8"));
+        }
+        finally
+        {
+            out.close();
+        }
+        touch(modified);
+    }
+
+    /**
+     * Sets the modification date of the test file to a value different from
+     * the given one.
+     *
+     * @param oldModified the old modification date
+     */
+    private void touch(long oldModified)
+    {
+        long base = (oldModified > 0) ? oldModified : file.lastModified();
+        assertTrue("Could not touch file", file.setLastModified(base + 10000));
+    }
+
+    /**
+     * Tests the default settings of a new instance.
+     */
+    @Test
+    public void testDefaults()
+    {
+        ChecksumReloadingDetector det = new ChecksumReloadingDetector();
+        assertEquals("Wrong algorithm",
+                ChecksumReloadingDetector.DEFAULT_ALGORITHM,
+                det.getAlgorithm());
+        assertEquals("Wrong refresh delay", 5000, det.getRefreshDelay());
+        assertFalse("Reloading", det.isReloadingRequired());
+    }
+
+    /**
+     * Tests that touching the file does not cause a reload.
+     */
+    @Test
+    public void testTouchIgnored()
+    {
+        touch(file.lastModified());
+        assertFalse("Reloading required", detector.isReloadingRequired());
+        assertFalse("Reloading required on 2nd call",
+                detector.isReloadingRequired());
+        assertEquals("Wrong number of checksums", 2,
+                detector.getChecksumCount());
+    }
+
+    /**
+     * Tests that rewriting the file with the same content does not cause a
+     * reload.
+     */
+    @Test
+    public void testRewriteSameContentIgnored() throws IOException
+    {
+        writeFile(CONTENT);
+        assertFalse("Reloading required", detector.isReloadingRequired());
+    }
+
+    /**
+     * Tests whether a content change with the same file size is detected.
+     */
+    @Test
+    public void testChangeSameSize() throws IOException
+    {
+        writeFile("key = VALUE");
+        assertTrue("Change not detected", detector.isReloadingRequired());
+        assertTrue("Change not detected on 2nd call",
+                detector.isReloadingRequired());
+        assertEquals("Wrong number of checksums", 2,
+                detector.getChecksumCount());
+        detector.reloadingPerformed();
+        assertFalse("Still reloading required",
+                detector.isReloadingRequired());
+    }
+
+    /**
+     * Tests that a change of the file size is detected without calculating a
+     * checksum.
+     */
+    @Test
+    public void testChangeSize() throws IOException
+    {
+        writeFile("key = other value");
+        assertTrue("Change not detected", detector.isReloadingRequired());
+        assertEquals("Checksum calculated", 1, detector.getChecksumCount());
+    }
+
+    /**
+     * Tests that no checksum is calculated if the modification date is
+     * unchanged.
+     */
+    @Test
+    public void testNoChecksumIfUnchanged()
+    {
+        assertFalse("Reloading required", detector.isReloadingRequired());
+        assertEquals("Checksum calculated", 1, detector.getChecksumCount());
+    }
+
+    /**
+     * Tests whether another checksum algorithm can be used.
+     */
+    @Test
+    public void testOtherAlgorithm() throws IOException
+    {
+        FileHandler handler = new FileHandler();
+        handler.setFile(file);
+        ChecksumReloadingDetector det =
+                new ChecksumReloadingDetector(handler, 0, "SHA-256");
+        assertEquals("Wrong algorithm", "SHA-256", det.getAlgorithm());
+        assertFalse("Reloading required", det.isReloadingRequired());
+        writeFile("key = VALUE");
+        assertTrue("Change not detected", det.isReloadingRequired());
+    }
+
+    /**
+     * Tries to create an instance with an unsupported algorithm.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedAlgorithm()
+    {
+        new ChecksumReloadingDetector(null, "unknown algorithm");
+    }
+
+    /**
+     * A test implementation which counts the checksum calculations.
+     */
+    private static class ChecksumDetectorTestImpl extends
+            ChecksumReloadingDetector
+    {
+        /** The number of calculated checksums. */
+        private int checksumCount;
+
+        public ChecksumDetectorTestImpl(FileHandler handler)
+        {
+            super(handler, 0);
+        }
+
+        /**
+         * Returns the number of calculated checksums.
+         *
+         * @return the number of checksums
+         */
+        public int getChecksumCount()
+        {
+            return checksumCount;
+        }
+
+        @Override
+        protected byte[] calculateChecksum(File file)
+        {
+            checksumCount++;
+            return super.calculateChecksum(file);
+        }
+    }
+}
@@ -25,6 +25,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
+import org.apache.commons.configuration2.event.EventListener;
 import org.easymock.EasyMock;
 import org.junit.Test;
 
@@ -38,6 +39,9 @@ public class TestCombinedReloadingController
     /** An array with mock objects for the sub controllers. */
     private ReloadingController[] subControllers;
 
+    /** The current time returned by a test controller. */
+    private long currentTime;
+
     /**
      * Creates an array with mock objects for sub controllers.
      */
@@ -108,7 +112,8 @@ public class TestCombinedReloadingController
     }
 
     /**
-     * Tests a check for a reloading operation which results in true.
+     * Tests a check for a reloading operation which results in true. All sub
+     * controllers have to be checked.
      */
     @Test
     public void testCheckForReloadingTrue()
@@ -118,6 +123,8 @@ public class TestCombinedReloadingController
                 Boolean.FALSE);
         EasyMock.expect(subControllers[1].checkForReloading(null)).andReturn(
                 Boolean.TRUE);
+        EasyMock.expect(subControllers[2].checkForReloading(null)).andReturn(
+                Boolean.FALSE);
         replaySubControllers();
         assertTrue("Wrong result", ctrl.checkForReloading("someData"));
         verifySubSontrollers();
@@ -149,6 +156,10 @@ public class TestCombinedReloadingController
         CombinedReloadingController ctrl = setUpController();
         EasyMock.expect(subControllers[0].checkForReloading(null)).andReturn(
                 Boolean.TRUE);
+        EasyMock.expect(subControllers[1].checkForReloading(null)).andReturn(
+                Boolean.FALSE);
+        EasyMock.expect(subControllers[2].checkForReloading(null)).andReturn(
+                Boolean.FALSE);
         for (ReloadingController rc : subControllers)
         {
             rc.resetReloadingState();
@@ -201,4 +212,63 @@ public class TestCombinedReloadingController
                 setUpController().getSubControllers();
         subs.clear();
     }
+
+    /**
+     * Tests that changes of multiple sub controllers are coalesced if a quiet
+     * period is set. The sub controllers must fire their events before the
+     * combined controller.
+     */
+    @Test
+    public void testCheckForReloadingQuietPeriod()
+    {
+        TestReloadingController.StubDetector det1 =
+                new TestReloadingController.StubDetector();
+        TestReloadingController.StubDetector det2 =
+                new TestReloadingController.StubDetector();
+        ReloadingController sub1 = new ReloadingController(det1);
+        ReloadingController sub2 = new ReloadingController(det2);
+        final List<Object> events = new ArrayList<>();
+        EventListener<ReloadingEvent> l = new EventListener<ReloadingEvent>()
+        {
+            @Override
+            public void onEvent(ReloadingEvent event)
+            {
+                events.add(event.getSource());
+            }
+        };
+        sub1.addEventListener(ReloadingEvent.ANY, l);
+        sub2.addEventListener(ReloadingEvent.ANY, l);
+        CombinedReloadingController ctrl =
+                new CombinedReloadingController(Arrays.asList(sub1, sub2))
+                {
+                    @Override
+                    long now()
+                    {
+                        return currentTime;
+                    }
+                };
+        ctrl.addEventListener(ReloadingEvent.ANY, l);
+        ctrl.setQuietPeriod(100);
+
+        det1.changed = true;
+        assertFalse("Event at first change", ctrl.checkForReloading(null));
+        currentTime = 50;
+        det2.changed = true;
+        assertFalse("Event at second change", ctrl.checkForReloading(null));
+        assertFalse("Sub controller in reloading state",
+                sub1.isInReloadingState() || sub2.isInReloadingState());
+        currentTime = 120;
+        assertFalse("Event in quiet period", ctrl.checkForReloading(null));
+        assertTrue("No sub events expected", events.isEmpty());
+
+        currentTime = 150;
+        assertTrue("No event after quiet period", ctrl.checkForReloading(null));
+        assertEquals("Wrong events", Arrays.asList(sub1, sub2, ctrl), events);
+        assertTrue("Sub 1 not in reloading state", sub1.isInReloadingState());
+        assertTrue("Sub 2 not in reloading state", sub2.isInReloadingState());
+
+        ctrl.resetReloadingState();
+        assertFalse("Sub controller still in reloading state",
+                sub1.isInReloadingState() || sub2.isInReloadingState());
+    }
 }
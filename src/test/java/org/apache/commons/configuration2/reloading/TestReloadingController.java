@@ -21,6 +21,11 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import org.apache.commons.configuration2.event.Event;
 import org.apache.commons.configuration2.event.EventListener;
 import org.apache.commons.lang3.mutable.MutableObject;
@@ -206,4 +211,255 @@ public class TestReloadingController
         assertEquals("Wrong super event type", Event.ANY,
                 ReloadingEvent.ANY.getSuperType());
     }
+
+    /**
+     * Tries to set a negative quiet period.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetQuietPeriodNegative()
+    {
+        createController().setQuietPeriod(-1);
+    }
+
+    /**
+     * Tries to set a negative maximum reload delay.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetMaxReloadDelayNegative()
+    {
+        createController().setMaxReloadDelay(-1);
+    }
+
+    /**
+     * Tests that a burst of changes is coalesced to a single event which is
+     * fired after the quiet period.
+     */
+    @Test
+    public void testCheckForReloadingQuietPeriod()
+    {
+        StubDetector stub = new StubDetector();
+        ClockController ctrl = new ClockController(stub);
+        ctrl.setQuietPeriod(100);
+        CountingListener l = new CountingListener();
+        ctrl.addEventListener(ReloadingEvent.ANY, l);
+
+        stub.changed = true;
+        assertFalse("Event at first change", ctrl.checkForReloading(null));
+        assertFalse("Detector not re-armed", stub.changed);
+        ctrl.time = 60;
+        stub.changed = true;
+        assertFalse("Event at second change", ctrl.checkForReloading(null));
+        ctrl.time = 159;
+        assertFalse("Event in quiet period", ctrl.checkForReloading(null));
+        ctrl.time = 160;
+        assertTrue("No event after quiet period", ctrl.checkForReloading(null));
+        assertTrue("Not in reloading state", ctrl.isInReloadingState());
+        ctrl.time = 500;
+        assertTrue("Wrong result in reloading state",
+                ctrl.checkForReloading(null));
+        assertEquals("Wrong number of events", 1, l.count);
+    }
+
+    /**
+     * Tests that no event is fired with a quiet period if there is no change.
+     */
+    @Test
+    public void testCheckForReloadingQuietPeriodNoChange()
+    {
+        ClockController ctrl = new ClockController(new StubDetector());
+        ctrl.setQuietPeriod(100);
+        ctrl.time = 1000;
+        assertFalse("Wrong result", ctrl.checkForReloading(null));
+        assertFalse("In reloading state", ctrl.isInReloadingState());
+    }
+
+    /**
+     * Tests that an event is fired after the maximum reload delay even if
+     * changes continue.
+     */
+    @Test
+    public void testCheckForReloadingMaxReloadDelay()
+    {
+        StubDetector stub = new StubDetector();
+        ClockController ctrl = new ClockController(stub);
+        ctrl.setQuietPeriod(100);
+        ctrl.setMaxReloadDelay(250);
+        for (int i = 0; i < 5; i++)
+        {
+            ctrl.time = i * 50;
+            stub.changed = true;
+            assertFalse("Early event at " + ctrl.time,
+                    ctrl.checkForReloading(null));
+        }
+        ctrl.time = 250;
+        stub.changed = true;
+        assertTrue("No event after maximum delay",
+                ctrl.checkForReloading(null));
+    }
+
+    /**
+     * Tests that isInReloadingState() does not block while another thread
+     * holds the controller's lock.
+     */
+    @Test
+    public void testIsInReloadingStateNonBlocking() throws InterruptedException
+    {
+        final ReloadingController ctrl =
+                new ReloadingController(new StubDetector());
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Thread t = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                synchronized (ctrl)
+                {
+                    locked.countDown();
+                    try
+                    {
+                        release.await();
+                    }
+                    catch (InterruptedException iex)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        t.start();
+        try
+        {
+            assertTrue("Lock not acquired", locked.await(5, TimeUnit.SECONDS));
+            assertFalse("Wrong result", ctrl.isInReloadingState());
+        }
+        finally
+        {
+            release.countDown();
+            t.join();
+        }
+    }
+
+    /**
+     * Tests that a timing event is fired after a reloading event, and that
+     * it is not received by listeners for reloading events.
+     */
+    @Test
+    public void testReloadingTimingEvent()
+    {
+        StubDetector stub = new StubDetector();
+        ReloadingController ctrl = new ReloadingController(stub);
+        CountingListener reloadListener = new CountingListener();
+        final List<ReloadingTimingEvent> timingEvents = new ArrayList<>();
+        ctrl.addEventListener(ReloadingEvent.ANY, reloadListener);
+        ctrl.addEventListener(ReloadingTimingEvent.RELOADING_TIMING,
+                new EventListener<ReloadingTimingEvent>()
+                {
+                    @Override
+                    public void onEvent(ReloadingTimingEvent event)
+                    {
+                        timingEvents.add(event);
+                    }
+                });
+
+        assertFalse("Wrong result", ctrl.checkForReloading(null));
+        assertTrue("Timing event without reload", timingEvents.isEmpty());
+        stub.changed = true;
+        ctrl.checkForReloading("data");
+        assertEquals("Wrong number of reloading events", 1,
+                reloadListener.count);
+        assertEquals("Wrong number of timing events", 1, timingEvents.size());
+        ReloadingTimingEvent event = timingEvents.get(0);
+        assertSame("Wrong controller", ctrl, event.getController());
+        assertEquals("Wrong data", "data", event.getData());
+        assertTrue("Wrong detection duration", event.getDetectionNanos() >= 0);
+        assertTrue("Wrong listener duration", event.getListenerNanos() >= 0);
+        assertEquals("Wrong latency", 0, event.getChangeLatencyMillis());
+    }
+
+    /**
+     * Tests that the timing event contains the latency caused by the quiet
+     * period.
+     */
+    @Test
+    public void testReloadingTimingEventQuietPeriod()
+    {
+        StubDetector stub = new StubDetector();
+        ClockController ctrl = new ClockController(stub);
+        ctrl.setQuietPeriod(100);
+        final List<ReloadingTimingEvent> timingEvents = new ArrayList<>();
+        ctrl.addEventListener(ReloadingTimingEvent.RELOADING_TIMING,
+                new EventListener<ReloadingTimingEvent>()
+                {
+                    @Override
+                    public void onEvent(ReloadingTimingEvent event)
+                    {
+                        timingEvents.add(event);
+                    }
+                });
+        ctrl.time = 10;
+        stub.changed = true;
+        ctrl.checkForReloading(null);
+        ctrl.time = 150;
+        assertTrue("No reload", ctrl.checkForReloading(null));
+        assertEquals("Wrong latency", 140, timingEvents.get(0)
+                .getChangeLatencyMillis());
+    }
+
+    /**
+     * A simple detector implementation whose change flag can be set
+     * directly.
+     */
+    static class StubDetector implements ReloadingDetector
+    {
+        /** The flag whether a change is reported. */
+        volatile boolean changed;
+
+        @Override
+        public boolean isReloadingRequired()
+        {
+            return changed;
+        }
+
+        @Override
+        public void reloadingPerformed()
+        {
+            changed = false;
+        }
+    }
+
+    /**
+     * A test controller implementation which allows setting the current time.
+     */
+    static class ClockController extends ReloadingController
+    {
+        /** The current time. */
+        long time;
+
+        public ClockController(ReloadingDetector detector)
+        {
+            super(detector);
+        }
+
+        @Override
+        long now()
+        {
+            return time;
+        }
+    }
+
+    /**
+     * A test listener implementation which counts the received events.
+     */
+    static class CountingListener implements EventListener<ReloadingEvent>
+    {
+        /** The number of received events. */
+        int count;
+
+        @Override
+        public void onEvent(ReloadingEvent event)
+        {
+            count++;
+        }
+    }
 }
@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.reloading;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test class for {@code ReloadingScheduler}.
+ *
+ * @version $Id$
+ */
+public class TestReloadingScheduler
+{
+    /** Constant for the maximum time to wait for checks in seconds. */
+    private static final long TIMEOUT = 10;
+
+    /** The scheduler to be tested. */
+    private ReloadingScheduler scheduler;
+
+    @After
+    public void tearDown() throws Exception
+    {
+        if (scheduler != null)
+        {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * Tests the default settings of a new instance.
+     */
+    @Test
+    public void testDefaults()
+    {
+        scheduler = new ReloadingScheduler();
+        assertEquals("Wrong jitter", ReloadingScheduler.DEFAULT_JITTER,
+                scheduler.getJitter(), 0.0001);
+        assertEquals("Wrong batch size",
+                ReloadingScheduler.DEFAULT_BATCH_SIZE, scheduler.getBatchSize());
+        assertEquals("Got registrations", 0,
+                scheduler.getRegisteredControllerCount());
+        assertFalse("Shut down", scheduler.isShutdown());
+    }
+
+    /**
+     * Tests whether registered controllers are checked periodically.
+     */
+    @Test
+    public void testControllersAreChecked() throws InterruptedException
+    {
+        scheduler = new ReloadingScheduler(2);
+        final int count = 3;
+        List<CountingDetector> detectors = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+        {
+            CountingDetector detector = new CountingDetector(3);
+            detectors.add(detector);
+            scheduler.register(new ReloadingController(detector), null,
+                    10 * (i + 1), TimeUnit.MILLISECONDS);
+        }
+        assertEquals("Wrong number of registrations", count,
+                scheduler.getRegisteredControllerCount());
+        for (CountingDetector detector : detectors)
+        {
+            assertTrue("Not checked often enough", detector.await());
+        }
+    }
+
+    /**
+     * Tests that many controllers are processed in batches.
+     */
+    @Test
+    public void testManyControllersInBatches() throws InterruptedException
+    {
+        scheduler = new ReloadingScheduler(null, 0.5, 7);
+        List<CountingDetector> detectors = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+        {
+            CountingDetector detector = new CountingDetector(1);
+            detectors.add(detector);
+            scheduler.register(new ReloadingController(detector), null, 20,
+                    TimeUnit.MILLISECONDS);
+        }
+        for (CountingDetector detector : detectors)
+        {
+            assertTrue("Not checked", detector.await());
+        }
+    }
+
+    /**
+     * Tests that an unregistered controller is no longer checked.
+     */
+    @Test
+    public void testUnregister() throws InterruptedException
+    {
+        scheduler = new ReloadingScheduler();
+        CountingDetector detector = new CountingDetector(1);
+        ReloadingController ctrl = new ReloadingController(detector);
+        scheduler.register(ctrl, null, 10, TimeUnit.MILLISECONDS);
+        assertTrue("Not registered", scheduler.isRegistered(ctrl));
+        assertTrue("Not checked", detector.await());
+
+        assertTrue("Wrong result", scheduler.unregister(ctrl));
+        assertFalse("Still registered", scheduler.isRegistered(ctrl));
+        assertFalse("Unregistered twice", scheduler.unregister(ctrl));
+        Thread.sleep(100);
+        int checks = detector.getCheckCount();
+        Thread.sleep(200);
+        assertEquals("Still checked", checks, detector.getCheckCount());
+    }
+
+    /**
+     * Tests that an exception thrown by a controller does not affect other
+     * controllers.
+     */
+    @Test
+    public void testFailingController() throws InterruptedException
+    {
+        scheduler = new ReloadingScheduler(null, 0, 10);
+        ReloadingDetector failing = new CountingDetector(1)
+        {
+            @Override
+            public boolean isReloadingRequired()
+            {
+                throw new IllegalStateException("Test exception");
+            }
+        };
+        scheduler.register(new ReloadingController(failing), null, 10,
+                TimeUnit.MILLISECONDS);
+        CountingDetector detector = new CountingDetector(3);
+        scheduler.register(new ReloadingController(detector), null, 10,
+                TimeUnit.MILLISECONDS);
+        assertTrue("Not checked", detector.await());
+    }
+
+    /**
+     * Tests whether the jitter is applied to the period.
+     */
+    @Test
+    public void testNextDelayJitter()
+    {
+        scheduler = new ReloadingScheduler(null, 0.2, 1);
+        final long period = 1000000;
+        boolean varied = false;
+        for (int i = 0; i < 100; i++)
+        {
+            long delay = scheduler.nextDelay(period);
+            assertTrue("Delay too short: " + delay, delay >= 800000);
+            assertTrue("Delay too long: " + delay, delay <= 1200000);
+            varied |= delay != period;
+        }
+        assertTrue("No jitter", varied);
+    }
+
+    /**
+     * Tests that the period is used directly if there is no jitter.
+     */
+    @Test
+    public void testNextDelayNoJitter()
+    {
+        scheduler = new ReloadingScheduler(null, 0, 1);
+        assertEquals("Wrong delay", 12345, scheduler.nextDelay(12345));
+    }
+
+    /**
+     * Tests whether shutdown() removes all registrations and shuts down the
+     * executor.
+     */
+    @Test
+    public void testShutdown()
+    {
+        scheduler = new ReloadingScheduler();
+        ReloadingController ctrl =
+                new ReloadingController(new CountingDetector(1));
+        scheduler.register(ctrl, null, 1, TimeUnit.SECONDS);
+        ScheduledExecutorService exec = scheduler.getExecutorService();
+        scheduler.shutdown();
+        assertTrue("Not shut down", scheduler.isShutdown());
+        assertTrue("Executor not shut down", exec.isShutdown());
+        assertFalse("Still registered", scheduler.isRegistered(ctrl));
+    }
+
+    /**
+     * Tests that no controllers can be registered after a shutdown.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testRegisterAfterShutdown()
+    {
+        scheduler = new ReloadingScheduler();
+        scheduler.shutdown();
+        scheduler.register(new ReloadingController(new CountingDetector(1)),
+                null, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Tries to register a null controller.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterNullController()
+    {
+        scheduler = new ReloadingScheduler();
+        scheduler.register(null, null, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Tries to register a controller with an invalid period.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterInvalidPeriod()
+    {
+        scheduler = new ReloadingScheduler();
+        scheduler.register(new ReloadingController(new CountingDetector(1)),
+                null, 0, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Tries to create an instance with an invalid jitter.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInitInvalidJitter()
+    {
+        new ReloadingScheduler(null, 1.0, 1);
+    }
+
+    /**
+     * Tries to create an instance with an invalid batch size.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInitInvalidBatchSize()
+    {
+        new ReloadingScheduler(null, 0, 0);
+    }
+
+    /**
+     * A test detector implementation which counts the number of checks.
+     */
+    private static class CountingDetector implements ReloadingDetector
+    {
+        /** A latch for waiting for a number of checks. */
+        private final CountDownLatch latch;
+
+        /** The number of checks. */
+        private final AtomicInteger checks = new AtomicInteger();
+
+        /**
+         * Creates a new instance of {@code CountingDetector}.
+         *
+         * @param expectedChecks the number of checks to wait for
+         */
+        public CountingDetector(int expectedChecks)
+        {
+            latch = new CountDownLatch(expectedChecks);
+        }
+
+        @Override
+        public boolean isReloadingRequired()
+        {
+            checks.incrementAndGet();
+            latch.countDown();
+            return false;
+        }
+
+        @Override
+        public void reloadingPerformed()
+        {
+        }
+
+        /**
+         * Returns the number of checks performed so far.
+         *
+         * @return the number of checks
+         */
+        public int getCheckCount()
+        {
+            return checks.get();
+        }
+
+        /**
+         * Waits until the expected number of checks has been performed.
+         *
+         * @return a flag whether the checks were performed in time
+         * @throws InterruptedException if waiting is interrupted
+         */
+        public boolean await() throws InterruptedException
+        {
+            return latch.await(TIMEOUT, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -19,6 +19,8 @@ package org.apache.commons.configuration2.reloading;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 import java.io.File;
 import java.io.FileWriter;
@@ -178,4 +180,65 @@ public class TestVFSFileHandlerReloadingDetector
         assertNotNull("No file handler was created", strategy.getFileHandler());
         assertEquals("Wrong refresh delay", delay, strategy.getRefreshDelay());
     }
+
+    /**
+     * Tests that the file object is cached and that changes of the file are
+     * nevertheless detected.
+     */
+    @Test
+    public void testFileObjectCached() throws IOException
+    {
+        File file = folder.newFile();
+        writeTestFile(file, "value1");
+        VFSFileHandlerReloadingDetector strategy =
+                new VFSFileHandlerReloadingDetector();
+        strategy.getFileHandler().setFileSystem(new VFSFileSystem());
+        strategy.getFileHandler().setFile(file);
+        FileObject fo = strategy.getFileObject();
+        assertEquals("Wrong modification date", file.lastModified(),
+                strategy.getLastModificationDate());
+
+        long newDate = file.lastModified() - 60000;
+        writeTestFile(file, "value2");
+        file.setLastModified(newDate);
+        assertEquals("Change not detected", file.lastModified(),
+                strategy.getLastModificationDate());
+        assertSame("File object not cached", fo, strategy.getFileObject());
+    }
+
+    /**
+     * Tests that the cached file object is replaced if the location of the
+     * file handler changes.
+     */
+    @Test
+    public void testFileObjectLocationChanged() throws IOException
+    {
+        File file1 = folder.newFile();
+        File file2 = folder.newFile();
+        writeTestFile(file1, "value1");
+        writeTestFile(file2, "value2");
+        file2.setLastModified(file1.lastModified() - 60000);
+        VFSFileHandlerReloadingDetector strategy =
+                new VFSFileHandlerReloadingDetector();
+        strategy.getFileHandler().setFileSystem(new VFSFileSystem());
+        strategy.getFileHandler().setFile(file1);
+        FileObject fo = strategy.getFileObject();
+
+        strategy.getFileHandler().setFile(file2);
+        assertNotSame("File object not replaced", fo, strategy.getFileObject());
+        assertEquals("Wrong modification date", file2.lastModified(),
+                strategy.getLastModificationDate());
+    }
+
+    /**
+     * Tests whether the file system resolves files.
+     */
+    @Test
+    public void testVFSFileSystemResolveFile() throws IOException
+    {
+        File file = folder.newFile();
+        FileObject fo =
+                new VFSFileSystem().resolveFile(file.toURI().toString());
+        assertEquals("Wrong file", file.getName(), fo.getName().getBaseName());
+    }
 }
@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.reloading;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import org.apache.commons.configuration2.io.FileHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for {@code WatchServiceReloadingDetector}.
+ *
+ * @version $Id$
+ */
+public class TestWatchServiceReloadingDetector
+{
+    /** The maximum time to wait for a change notification. */
+    private static final long TIMEOUT = 10000;
+
+    /** A helper object for creating temporary files. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** The file watcher used by the tests. */
+    private FileWatcher watcher;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        watcher = new FileWatcher();
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        assertEquals("Directories still watched", 0,
+                watcher.getWatchedDirectoryCount());
+    }
+
+    /**
+     * Writes the given content into a file.
+     *
+     * @param file the file
+     * @param content the content
+     * @throws IOException if an error occurs
+     */
+    private static void writeFile(File file, String content) throws IOException
+    {
+        OutputStream out = new FileOutputStream(file);
+        try
+        {
+            out.write(content.getBytes("UTF-8"));
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * Creates a detector for the given file.
+     *
+     * @param file the file to be monitored
+     * @return the detector
+     */
+    private WatchServiceReloadingDetector createDetector(File file)
+    {
+        FileHandler handler = new FileHandler();
+        handler.setFile(file);
+        return new WatchServiceReloadingDetector(handler, 5000, watcher);
+    }
+
+    /**
+     * Waits until the given detector reports a change.
+     *
+     * @param detector the detector
+     * @throws InterruptedException if waiting is interrupted
+     */
+    private static void waitForChange(WatchServiceReloadingDetector detector)
+            throws InterruptedException
+    {
+        long end = System.currentTimeMillis() + TIMEOUT;
+        while (!detector.isReloadingRequired())
+        {
+            assertTrue("Change not detected",
+                    System.currentTimeMillis() < end);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Tests whether a change of the monitored file is detected.
+     */
+    @Test
+    public void testDetectChange() throws Exception
+    {
+        File file = folder.newFile("watched.properties");
+        writeFile(file, "key = value");
+        WatchServiceReloadingDetector detector = createDetector(file);
+        assertFalse("Reloading required", detector.isReloadingRequired());
+        assertTrue("Not watching", detector.isWatching());
+
+        writeFile(file, "key = newValue");
+        waitForChange(detector);
+        assertTrue("Change flag reset", detector.isReloadingRequired());
+        detector.reloadingPerformed();
+        assertFalse("Still reloading required", detector.isReloadingRequired());
+        detector.close();
+        assertFalse("Watcher still active", watcher.isActive());
+    }
+
+    /**
+     * Tests that changes on other files in the same directory are ignored and
+     * that the directory is registered only once.
+     */
+    @Test
+    public void testOtherFileInSameDirectory() throws Exception
+    {
+        File file1 = folder.newFile("watched1.properties");
+        File file2 = folder.newFile("watched2.properties");
+        WatchServiceReloadingDetector detector1 = createDetector(file1);
+        WatchServiceReloadingDetector detector2 = createDetector(file2);
+        assertFalse("Reloading required 1", detector1.isReloadingRequired());
+        assertFalse("Reloading required 2", detector2.isReloadingRequired());
+        assertEquals("Wrong number of directories", 1,
+                watcher.getWatchedDirectoryCount());
+
+        writeFile(file2, "changed");
+        waitForChange(detector2);
+        assertFalse("Change of other file detected",
+                detector1.isReloadingRequired());
+        detector1.close();
+        assertTrue("Watcher not active", watcher.isActive());
+        detector2.close();
+    }
+
+    /**
+     * Tests whether a change of the file handler's location is taken into
+     * account.
+     */
+    @Test
+    public void testLocationChanged() throws Exception
+    {
+        File file1 = folder.newFile("watched.properties");
+        File file2 = new File(folder.newFolder(), "watched.properties");
+        writeFile(file2, "key = value");
+        WatchServiceReloadingDetector detector = createDetector(file1);
+        assertFalse("Reloading required", detector.isReloadingRequired());
+        detector.getFileHandler().setFile(file2);
+        assertFalse("Reloading required after change",
+                detector.isReloadingRequired());
+        assertEquals("Wrong number of directories", 1,
+                watcher.getWatchedDirectoryCount());
+
+        writeFile(file2, "key = newValue");
+        waitForChange(detector);
+        detector.close();
+    }
+
+    /**
+     * Tests that polling is used if a file cannot be watched.
+     */
+    @Test
+    public void testFallbackToPolling() throws Exception
+    {
+        File file = new File(new File(folder.getRoot(), "nonExisting"),
+                "notWatchable.properties");
+        WatchServiceReloadingDetector detector = createDetector(file);
+        assertFalse("Reloading required", detector.isReloadingRequired());
+        assertFalse("Watching", detector.isWatching());
+        assertFalse("Watcher active", watcher.isActive());
+    }
+
+    /**
+     * Tests whether a change is detected if the monitored file is a symbolic
+     * link which is swapped to point to another directory.
+     */
+    @Test
+    public void testSwappedSymbolicLink() throws Exception
+    {
+        File dataDir1 = folder.newFolder("data1");
+        File dataDir2 = folder.newFolder("data2");
+        writeFile(new File(dataDir1, "config.properties"), "key = value");
+        File file2 = new File(dataDir2, "config.properties");
+        writeFile(file2, "key = newValue");
+        file2.setLastModified(file2.lastModified() - 60000);
+        Path root = folder.getRoot().toPath();
+        Path dataLink = root.resolve("..data");
+        Files.createSymbolicLink(dataLink, dataDir1.toPath());
+        Path link = Files.createSymbolicLink(root.resolve("config.properties"),
+                Paths.get("..data", "config.properties"));
+        FileHandler handler = new FileHandler();
+        handler.setFile(link.toFile());
+        WatchServiceReloadingDetector detector =
+                new WatchServiceReloadingDetector(handler, 0, watcher);
+        assertFalse("Reloading required", detector.isReloadingRequired());
+        assertFalse("Watching a symbolic link", detector.isWatching());
+
+        Path tempLink = Files.createSymbolicLink(root.resolve("..data_tmp"),
+                dataDir2.toPath());
+        Files.move(tempLink, dataLink, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        waitForChange(detector);
+        detector.close();
+    }
+
+    /**
+     * Tests that polling is used if the watched file is replaced by a
+     * symbolic link.
+     */
+    @Test
+    public void testFileReplacedBySymbolicLink() throws Exception
+    {
+        File file = folder.newFile("watched.properties");
+        File target = new File(folder.newFolder(), "target.properties");
+        writeFile(target, "key = newValue");
+        WatchServiceReloadingDetector detector = createDetector(file);
+        assertFalse("Reloading required", detector.isReloadingRequired());
+        assertTrue("Not watching", detector.isWatching());
+
+        Path tempLink = Files.createSymbolicLink(
+                folder.getRoot().toPath().resolve("temp.properties"),
+                target.toPath());
+        Files.move(tempLink, file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        waitForChange(detector);
+        detector.reloadingPerformed();
+        assertFalse("Still watching", detector.isWatching());
+        assertFalse("Reloading required after reload",
+                detector.isReloadingRequired());
+        detector.close();
+    }
+
+    /**
+     * Tests isReloadingRequired() if no location has been set.
+     */
+    @Test
+    public void testIsReloadingRequiredNoLocation()
+    {
+        WatchServiceReloadingDetector detector =
+                new WatchServiceReloadingDetector();
+        assertFalse("Reloading", detector.isReloadingRequired());
+        assertFalse("Watching", detector.isWatching());
+    }
+}
@@ -21,10 +21,14 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
+import org.easymock.EasyMock;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -109,6 +113,87 @@ public class TestDefaultExpressionEngine
         checkKey("tables.table.fields.field(1).name", "name", 2);
     }
 
+    /**
+     * Tests whether a query with a visitor yields the same results as a
+     * list-based query.
+     */
+    @Test
+    public void testQueryVisitor()
+    {
+        String[] keys = {
+                "tables.table.name", "tables.table[@type]",
+                "tables.table(1).fields.field.name",
+                "tables.table.fields.field(1).name", "tables.table(5).name",
+                "tables.nonExisting", ""
+        };
+        for (String key : keys)
+        {
+            List<QueryResult<ImmutableNode>> results =
+                    new ArrayList<>();
+            engine.query(root, key, handler, new CollectingVisitor(results,
+                    Integer.MAX_VALUE));
+            assertEquals("Wrong results for key " + key,
+                    engine.query(root, key, handler), results);
+        }
+    }
+
+    /**
+     * Tests that a query with a visitor obtains the child nodes matching a key
+     * part from the node handler, so that custom matching logic of the handler
+     * is taken into account.
+     */
+    @Test
+    public void testQueryVisitorMatchingChildren()
+    {
+        ImmutableNode queryRoot = createNode("root", null);
+        ImmutableNode child = createNode("A", null);
+        ImmutableNode match1 = createNode("B", "1");
+        ImmutableNode match2 = createNode("x", "2");
+        @SuppressWarnings("unchecked")
+        NodeHandler<ImmutableNode> mockHandler =
+                EasyMock.createMock(NodeHandler.class);
+        EasyMock.expect(
+                mockHandler.getMatchingChildren(EasyMock.eq(queryRoot),
+                        EasyMock.<NodeMatcher<String>> anyObject(),
+                        EasyMock.eq("a")))
+                .andReturn(Collections.singletonList(child)).anyTimes();
+        EasyMock.expect(
+                mockHandler.getMatchingChildren(EasyMock.eq(child),
+                        EasyMock.<NodeMatcher<String>> anyObject(),
+                        EasyMock.eq("b")))
+                .andReturn(Arrays.asList(match1, match2)).anyTimes();
+        EasyMock.replay(mockHandler);
+
+        List<QueryResult<ImmutableNode>> results = new ArrayList<>();
+        engine.query(queryRoot, "a.b", mockHandler, new CollectingVisitor(
+                results, Integer.MAX_VALUE));
+        assertEquals("Wrong results", Arrays.asList(
+                QueryResult.createNodeResult(match1),
+                QueryResult.createNodeResult(match2)), results);
+        results.clear();
+        engine.query(queryRoot, "a.b(1)", mockHandler, new CollectingVisitor(
+                results, Integer.MAX_VALUE));
+        assertEquals("Wrong indexed result",
+                Collections.singletonList(QueryResult.createNodeResult(match2)),
+                results);
+        EasyMock.verify(mockHandler);
+    }
+
+    /**
+     * Tests whether a visitor can terminate a query.
+     */
+    @Test
+    public void testQueryVisitorTerminate()
+    {
+        List<QueryResult<ImmutableNode>> results = new ArrayList<>();
+        engine.query(root, "tables.table.fields.field.name", handler,
+                new CollectingVisitor(results, 3));
+        assertEquals("Wrong number of results", 3, results.size());
+        assertEquals("Wrong results",
+                engine.query(root, "tables.table.fields.field.name", handler)
+                        .subList(0, 3), results);
+    }
+
     /**
      * Performs some queries and evaluates the values of the result nodes.
      */
@@ -826,4 +911,45 @@ public class TestDefaultExpressionEngine
     {
         return new ImmutableNode.Builder().name(name).value(value).create();
     }
+
+    /**
+     * A test visitor implementation which stores the query results in a list.
+     * It terminates the query when a given number of results was found.
+     */
+    private static class CollectingVisitor implements
+            QueryResultVisitor<ImmutableNode>
+    {
+        /** The list for the results. */
+        private final List<QueryResult<ImmutableNode>> results;
+
+        /** The maximum number of results. */
+        private final int maxResults;
+
+        public CollectingVisitor(List<QueryResult<ImmutableNode>> list,
+                int max)
+        {
+            results = list;
+            maxResults = max;
+        }
+
+        @Override
+        public void visitNode(ImmutableNode node)
+        {
+            results.add(QueryResult.createNodeResult(node));
+        }
+
+        @Override
+        public void visitAttribute(ImmutableNode parentNode,
+                String attributeName)
+        {
+            results.add(QueryResult.createAttributeResult(parentNode,
+                    attributeName));
+        }
+
+        @Override
+        public boolean terminate()
+        {
+            return results.size() >= maxResults;
+        }
+    }
 }
@@ -17,16 +17,22 @@
 package org.apache.commons.configuration2.tree;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -40,6 +46,15 @@ import org.junit.Test;
  */
 public class TestImmutableNode
 {
+    /** The size of an object header for the calculation of footprints. */
+    private static final int OBJECT_HEADER = 12;
+
+    /** The size of an array header for the calculation of footprints. */
+    private static final int ARRAY_HEADER = 16;
+
+    /** The size of a reference for the calculation of footprints. */
+    private static final int REFERENCE = 4;
+
     /** Constant for a test node name. */
     private static final String NAME = "testNode";
 
@@ -680,4 +695,358 @@ public class TestImmutableNode
         checkUpdatedNode(node, node2);
         checkChildNodes(node2);
     }
+
+    /**
+     * Tests that structures with the same content have the same structural
+     * hash.
+     */
+    @Test
+    public void testStructureHashEqualStructures()
+    {
+        ImmutableNode root1 = NodeStructureHelper.createTablesTree(
+                NodeStructureHelper.getClonedTables(),
+                NodeStructureHelper.getClonedFields());
+        ImmutableNode root2 = NodeStructureHelper.createTablesTree(
+                NodeStructureHelper.getClonedTables(),
+                NodeStructureHelper.getClonedFields());
+        assertNotEquals("No hash", 0, root1.structureHash());
+        assertEquals("Different hashes", root1.structureHash(),
+                root2.structureHash());
+    }
+
+    /**
+     * Tests that the structural hash takes the data of child nodes into
+     * account.
+     */
+    @Test
+    public void testStructureHashDifferentChildValue()
+    {
+        String[][] fields = NodeStructureHelper.getClonedFields();
+        ImmutableNode root1 = NodeStructureHelper.createTablesTree(
+                NodeStructureHelper.getClonedTables(), fields);
+        fields[1][2] = "otherField";
+        ImmutableNode root2 = NodeStructureHelper.createTablesTree(
+                NodeStructureHelper.getClonedTables(), fields);
+        assertNotEquals("Same hashes", root1.structureHash(),
+                root2.structureHash());
+        assertEquals("Different hashes of unchanged children", root1
+                .getChildren().get(0).structureHash(), root2.getChildren()
+                .get(0).structureHash());
+    }
+
+    /**
+     * Tests that the structural hash is not affected by the order of
+     * attributes, but by the order of child nodes.
+     */
+    @Test
+    public void testStructureHashOrder()
+    {
+        ImmutableNode child1 = createChild();
+        ImmutableNode child2 = createChild();
+        ImmutableNode node1 = new ImmutableNode.Builder().name(NAME)
+                .addAttribute("a1", "v1").addAttribute("a2", "v2")
+                .addChild(child1).addChild(child2).create();
+        ImmutableNode node2 = new ImmutableNode.Builder().name(NAME)
+                .addAttribute("a2", "v2").addAttribute("a1", "v1")
+                .addChild(child1).addChild(child2).create();
+        ImmutableNode node3 = new ImmutableNode.Builder().name(NAME)
+                .addAttribute("a1", "v1").addAttribute("a2", "v2")
+                .addChild(child2).addChild(child1).create();
+        assertEquals("Attribute order relevant", node1.structureHash(),
+                node2.structureHash());
+        assertNotEquals("Child order not relevant", node1.structureHash(),
+                node3.structureHash());
+    }
+
+    /**
+     * Tests that strings with the same hash code produce different structural
+     * hashes.
+     */
+    @Test
+    public void testStructureHashStringHashCodeCollision()
+    {
+        assertEquals("No collision", "Aa".hashCode(), "BB".hashCode());
+        ImmutableNode node1 =
+                new ImmutableNode.Builder().name(NAME).value("Aa").create();
+        ImmutableNode node2 =
+                new ImmutableNode.Builder().name(NAME).value("BB").create();
+        assertNotEquals("Same hashes", node1.structureHash(),
+                node2.structureHash());
+    }
+
+    /**
+     * Tests whether the builder uses a string pool if one is set.
+     */
+    @Test
+    public void testBuilderStringPool()
+    {
+        StringPool pool = new StringPool();
+        String name = pool.intern(NAME);
+        String attr = pool.intern(ATTR);
+        String attrValue = pool.intern(ATTR_VALUE);
+        ImmutableNode node =
+                new ImmutableNode.Builder().name(new String(NAME))
+                        .value(new String(ATTR_VALUE))
+                        .addAttribute(new String(ATTR), new String(ATTR_VALUE))
+                        .stringPool(pool).create();
+        assertSame("Name not pooled", name, node.getNodeName());
+        assertSame("Value not pooled", attrValue, node.getValue());
+        Map.Entry<String, Object> e =
+                node.getAttributes().entrySet().iterator().next();
+        assertSame("Attribute name not pooled", attr, e.getKey());
+        assertSame("Attribute value not pooled", attrValue, e.getValue());
+    }
+
+    /**
+     * Tests that the children of a node with children cannot be manipulated.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testChildrenImmutableNonEmpty()
+    {
+        ImmutableNode node = createDefaultNode(VALUE);
+        node.getChildren().set(0, createChild());
+    }
+
+    /**
+     * Tests that the attributes of a node cannot be removed via an iterator.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAttributesImmutableIterator()
+    {
+        ImmutableNode node = setUpBuilder().addAttribute(ATTR, ATTR_VALUE)
+                .addAttribute("other", VALUE).create();
+        Iterator<String> it = node.getAttributes().keySet().iterator();
+        it.next();
+        it.remove();
+    }
+
+    /**
+     * Tests whether many attributes can be added and removed one by one. This
+     * test covers the transition between the different internal
+     * representations of attributes.
+     */
+    @Test
+    public void testSetAndRemoveManyAttributes()
+    {
+        final int attrCount = 12;
+        ImmutableNode node = setUpBuilder().create();
+        Map<String, Object> expAttrs = new LinkedHashMap<>();
+        for (int i = 0; i < attrCount; i++)
+        {
+            node = node.setAttribute(ATTR + i, i);
+            expAttrs.put(ATTR + i, i);
+            assertEquals("Wrong attributes", expAttrs, node.getAttributes());
+        }
+        node = node.setAttribute(ATTR + 0, ATTR_VALUE);
+        assertEquals("Attribute not overridden", ATTR_VALUE, node
+                .getAttributes().get(ATTR + 0));
+        expAttrs.put(ATTR + 0, ATTR_VALUE);
+
+        for (int i = attrCount - 1; i >= 0; i--)
+        {
+            node = node.removeAttribute(ATTR + i);
+            expAttrs.remove(ATTR + i);
+            assertEquals("Wrong attributes", expAttrs, node.getAttributes());
+            assertFalse("Attribute not removed",
+                    node.getAttributes().containsKey(ATTR + i));
+        }
+        assertTrue("Got attributes", node.getAttributes().isEmpty());
+    }
+
+    /**
+     * Tests that small sets of attributes keep the order in which they have
+     * been added.
+     */
+    @Test
+    public void testAttributesOrder()
+    {
+        ImmutableNode node =
+                setUpBuilder().addAttribute("z", 1).create()
+                        .setAttribute("a", 2).setAttribute("m", 3);
+        assertEquals("Wrong order", Arrays.asList("z", "a", "m"),
+                new ArrayList<>(node.getAttributes().keySet()));
+    }
+
+    /**
+     * Tests that an attribute with a null value can be removed.
+     */
+    @Test
+    public void testRemoveAttributeNullValue()
+    {
+        ImmutableNode node = setUpBuilder().addAttribute(ATTR, null).create();
+        assertTrue("Attribute not removed", node.removeAttribute(ATTR)
+                .getAttributes().isEmpty());
+    }
+
+    /**
+     * Tests the heap footprint of typical leaf nodes with a single child and a
+     * single attribute. The footprint is calculated from the fields of the
+     * node and its containers and from the lengths of their arrays; so the
+     * result does not depend on the garbage collector. It is compared with
+     * the one of an equivalent structure using the former representation
+     * based on unmodifiable linked lists and hash maps. The compact
+     * representation has to need considerably less memory.
+     */
+    @Test
+    public void testMemoryFootprint() throws Exception
+    {
+        ImmutableNode node =
+                new ImmutableNode.Builder().name(NAME).value(VALUE)
+                        .addAttribute(ATTR, ATTR_VALUE).addChild(createChild())
+                        .create();
+        long compactBytes = shallowSize(ImmutableNode.class)
+                + containerSize(node.getChildren())
+                + containerSize(node.getAttributes());
+        long legacyBytes = legacyNodeSize(1, 1);
+        assertTrue("Too much memory: " + compactBytes
+                + " bytes per node, before: " + legacyBytes,
+                compactBytes * 2 < legacyBytes);
+    }
+
+    /**
+     * Calculates the size of a node with the given number of children and
+     * attributes in the former representation. Such a node had four fields
+     * and stored its children in an unmodifiable linked list and its
+     * attributes in an unmodifiable hash map with the default capacity.
+     *
+     * @param childCount the number of children
+     * @param attributeCount the number of attributes
+     * @return the size of the legacy node in bytes
+     * @throws ClassNotFoundException if a class cannot be resolved
+     */
+    private static long legacyNodeSize(int childCount, int attributeCount)
+            throws ClassNotFoundException
+    {
+        long nodeSize = align(OBJECT_HEADER + 4 * REFERENCE);
+        long childrenSize =
+                shallowSize(Collections.unmodifiableList(
+                        new LinkedList<ImmutableNode>()).getClass())
+                        + shallowSize(LinkedList.class)
+                        + childCount
+                        * shallowSize(Class.forName("java.util.LinkedList$Node"));
+        long attributesSize =
+                shallowSize(Collections.unmodifiableMap(
+                        new HashMap<String, Object>()).getClass())
+                        + shallowSize(HashMap.class)
+                        + arraySize(16)
+                        + attributeCount
+                        * shallowSize(Class.forName("java.util.HashMap$Node"));
+        return nodeSize + childrenSize + attributesSize;
+    }
+
+    /**
+     * Calculates the size of a container object of a node including the
+     * arrays referenced by its fields.
+     *
+     * @param container the container
+     * @return the size of the container in bytes
+     * @throws IllegalAccessException if a field cannot be accessed
+     */
+    private static long containerSize(Object container)
+            throws IllegalAccessException
+    {
+        long size = shallowSize(container.getClass());
+        for (Field field : container.getClass().getDeclaredFields())
+        {
+            if (!Modifier.isStatic(field.getModifiers())
+                    && Object[].class.isAssignableFrom(field.getType()))
+            {
+                field.setAccessible(true);
+                Object[] array = (Object[]) field.get(container);
+                if (array != null)
+                {
+                    size += arraySize(array.length);
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Calculates the shallow size of an instance of the given class. A 64-bit
+     * JVM with compressed references is assumed.
+     *
+     * @param cls the class
+     * @return the size of an instance in bytes
+     */
+    private static long shallowSize(Class<?> cls)
+    {
+        long size = OBJECT_HEADER;
+        for (Class<?> c = cls; c != null; c = c.getSuperclass())
+        {
+            for (Field field : c.getDeclaredFields())
+            {
+                if (!Modifier.isStatic(field.getModifiers()))
+                {
+                    size += fieldSize(field.getType());
+                }
+            }
+        }
+        return align(size);
+    }
+
+    /**
+     * Returns the number of bytes needed for a field of the given type.
+     *
+     * @param type the type of the field
+     * @return the size of the field in bytes
+     */
+    private static int fieldSize(Class<?> type)
+    {
+        if (type == long.class || type == double.class)
+        {
+            return 8;
+        }
+        if (type == int.class || type == float.class)
+        {
+            return 4;
+        }
+        if (type == short.class || type == char.class)
+        {
+            return 2;
+        }
+        if (type == byte.class || type == boolean.class)
+        {
+            return 1;
+        }
+        return REFERENCE;
+    }
+
+    /**
+     * Calculates the size of an array of references with the given length.
+     *
+     * @param length the length of the array
+     * @return the size of the array in bytes
+     */
+    private static long arraySize(int length)
+    {
+        return align(ARRAY_HEADER + (long) length * REFERENCE);
+    }
+
+    /**
+     * Rounds the given size to the alignment of objects.
+     *
+     * @param size the size
+     * @return the aligned size
+     */
+    private static long align(long size)
+    {
+        return (size + 7) & ~7L;
+    }
+
+    /**
+     * Tests that nodes without children and attributes share empty
+     * containers.
+     */
+    @Test
+    public void testEmptyContainersShared()
+    {
+        ImmutableNode node1 = new ImmutableNode.Builder().name(NAME).create();
+        ImmutableNode node2 =
+                new ImmutableNode.Builder().name(NAME).value(VALUE).create();
+        assertSame("Children not shared", node1.getChildren(),
+                node2.getChildren());
+        assertSame("Attributes not shared", node1.getAttributes(),
+                node2.getAttributes());
+    }
 }
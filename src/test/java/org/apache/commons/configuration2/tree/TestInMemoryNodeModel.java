@@ -1076,4 +1076,33 @@ public class TestInMemoryNodeModel
                 NodeStructureHelper.ROOT_AUTHORS_TREE,
                 model.getInMemoryRepresentation());
     }
+
+    /**
+     * Tests whether a copy of a model can be created which shares the nodes
+     * structure with the original.
+     */
+    @Test
+    public void testCreateCopy()
+    {
+        InMemoryNodeModel model = new InMemoryNodeModel(ROOT_AUTHORS_TREE);
+        InMemoryNodeModel copy = model.createCopy();
+        assertSame("Wrong root node", ROOT_AUTHORS_TREE, copy.getRootNode());
+        ImmutableNode node = nodeForKey(ROOT_AUTHORS_TREE, "Homer/Ilias");
+        assertSame("Wrong parent", nodeForKey(ROOT_AUTHORS_TREE, "Homer"),
+                copy.getNodeHandler().getParent(node));
+    }
+
+    /**
+     * Tests that a copy of a model is independent on the original.
+     */
+    @Test
+    public void testCreateCopyModify()
+    {
+        InMemoryNodeModel model = new InMemoryNodeModel(ROOT_AUTHORS_TREE);
+        InMemoryNodeModel copy = model.createCopy();
+        copy.setRootNode(ROOT_PERSONAE_TREE);
+        assertSame("Original changed", ROOT_AUTHORS_TREE, model.getRootNode());
+        model.clear(createResolver());
+        assertSame("Copy changed", ROOT_PERSONAE_TREE, copy.getRootNode());
+    }
 }
@@ -1000,4 +1000,82 @@ public class TestInMemoryNodeModelTrackedNodes
                         NodeStructureHelper.nodeForKey(root, "tables/table(1)"));
         checkTrackChildNodeWithCreationInvalidKey(nodes);
     }
+
+    /**
+     * Tests that a tracked node is not selected again after an update which
+     * does not affect the path to this node.
+     */
+    @Test
+    public void testUpdateSkipsUnaffectedSelector()
+    {
+        NodeKeyResolver<ImmutableNode> resolver = createResolver();
+        CountingNodeSelector countingSelector =
+                new CountingNodeSelector(SELECTOR_KEY);
+        model.trackNode(countingSelector, resolver);
+        model.clearProperty("tables.table(0).fields.field(1).name", resolver);
+        model.addProperty("tables.table(1).fields.field(0).type",
+                Collections.singleton("int"), createResolverForAdd());
+        assertEquals("Selector evaluated again", 1,
+                countingSelector.getCount());
+        assertSame("Wrong tracked node",
+                NodeStructureHelper.nodeForKey(model, "tables/table(1)"),
+                model.getTrackedNode(selector));
+        assertFalse("Detached", model.isTrackedNodeDetached(selector));
+
+        model.clearTree("tables.table(0)", resolver);
+        assertEquals("Selector not evaluated", 2, countingSelector.getCount());
+        assertTrue("Not detached", model.isTrackedNodeDetached(selector));
+    }
+
+    /**
+     * Creates a resolver which can also handle add operations.
+     *
+     * @return the resolver supporting add operations
+     */
+    private static NodeKeyResolver<ImmutableNode> createResolverForAdd()
+    {
+        NodeKeyResolver<ImmutableNode> addResolver = createResolver(false);
+        NodeStructureHelper.expectResolveAddKeys(addResolver);
+        EasyMock.replay(addResolver);
+        return addResolver;
+    }
+
+    /**
+     * A test selector implementation which counts its evaluations.
+     */
+    private static class CountingNodeSelector extends NodeSelector
+    {
+        /** The number of evaluations. */
+        private int count;
+
+        /**
+         * Creates a new instance of {@code CountingNodeSelector} with the
+         * given key.
+         *
+         * @param key the key
+         */
+        public CountingNodeSelector(String key)
+        {
+            super(key);
+        }
+
+        @Override
+        public ImmutableNode select(ImmutableNode root,
+                NodeKeyResolver<ImmutableNode> resolver,
+                NodeHandler<ImmutableNode> handler)
+        {
+            count++;
+            return super.select(root, resolver, handler);
+        }
+
+        /**
+         * Returns the number of evaluations of this selector.
+         *
+         * @return the number of evaluations
+         */
+        public int getCount()
+        {
+            return count;
+        }
+    }
 }
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for {@code MappedNodeModel}.
+ *
+ * @version $Id$
+ */
+public class TestMappedNodeModel
+{
+    /** A helper object for creating temporary files. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Creates a test structure with attributes and a root node without a
+     * name.
+     *
+     * @return the root node of the test structure
+     */
+    private static ImmutableNode createTestTree()
+    {
+        ImmutableNode child1 =
+                new ImmutableNode.Builder().name("child").value("v1")
+                        .addAttribute("id", "1").addAttribute("type", "a")
+                        .create();
+        ImmutableNode child2 =
+                new ImmutableNode.Builder().name("child").value("v2").create();
+        ImmutableNode other =
+                new ImmutableNode.Builder().name("other").value(42).create();
+        return new ImmutableNode.Builder().addChild(child1).addChild(other)
+                .addChild(child2).create();
+    }
+
+    /**
+     * Tests whether a structure can be converted back to immutable nodes.
+     */
+    @Test
+    public void testGetInMemoryRepresentation()
+    {
+        MappedNodeModel model =
+                MappedNodeModel.fromTree(NodeStructureHelper.ROOT_TABLES_TREE);
+        ImmutableNode root = model.getInMemoryRepresentation();
+        assertNotSame("Same root", NodeStructureHelper.ROOT_TABLES_TREE, root);
+        assertTrue("Different structure", TreeDiff.compare(
+                NodeStructureHelper.ROOT_TABLES_TREE, root).isEmpty());
+    }
+
+    /**
+     * Tests whether a model can be written to a file and mapped again.
+     */
+    @Test
+    public void testWriteAndMap() throws Exception
+    {
+        File file = folder.newFile();
+        MappedNodeModel.write(NodeStructureHelper.ROOT_AUTHORS_TREE, file);
+        MappedNodeModel model = MappedNodeModel.map(file);
+        assertTrue("Different structure", TreeDiff.compare(
+                NodeStructureHelper.ROOT_AUTHORS_TREE,
+                model.getInMemoryRepresentation()).isEmpty());
+    }
+
+    /**
+     * Tests the properties of nodes obtained from the node handler.
+     */
+    @Test
+    public void testNodeHandlerProperties()
+    {
+        MappedNodeModel model = MappedNodeModel.fromTree(createTestTree());
+        assertEquals("Wrong node count", 4, model.getNodeCount());
+        NodeHandler<MappedNode> handler = model.getNodeHandler();
+        MappedNode root = handler.getRootNode();
+        assertNull("Got a root name", handler.nodeName(root));
+        assertNull("Got a parent", handler.getParent(root));
+        assertEquals("Wrong number of children", 3, handler.getChildren(root)
+                .size());
+
+        MappedNode child = handler.getChild(root, 0);
+        assertEquals("Wrong name", "child", handler.nodeName(child));
+        assertEquals("Wrong value", "v1", handler.getValue(child));
+        assertEquals("Wrong parent", root, handler.getParent(child));
+        assertEquals("Wrong attributes", Arrays.asList("id", "type"),
+                new ArrayList<>(handler.getAttributes(child)));
+        assertEquals("Wrong attribute value", "a",
+                handler.getAttributeValue(child, "type"));
+        assertNull("Got unknown attribute",
+                handler.getAttributeValue(child, "unknown"));
+        assertTrue("No attributes", handler.hasAttributes(child));
+        assertTrue("Not defined", handler.isDefined(child));
+
+        MappedNode other = handler.getChild(root, 1);
+        assertEquals("Value not converted", "42", handler.getValue(other));
+        assertFalse("Got attributes", handler.hasAttributes(other));
+        assertEquals("Wrong index", 1, handler.indexOfChild(root, other));
+    }
+
+    /**
+     * Tests whether children can be queried by name.
+     */
+    @Test
+    public void testGetChildrenByName()
+    {
+        NodeHandler<MappedNode> handler =
+                MappedNodeModel.fromTree(createTestTree()).getNodeHandler();
+        MappedNode root = handler.getRootNode();
+        List<MappedNode> children = handler.getChildren(root, "child");
+        assertEquals("Wrong number of children", 2, children.size());
+        assertEquals("Wrong child 1", handler.getChild(root, 0),
+                children.get(0));
+        assertEquals("Wrong child 2", handler.getChild(root, 2),
+                children.get(1));
+        assertEquals("Wrong count", 2,
+                handler.getChildrenCount(root, "child"));
+        assertEquals("Wrong total count", 3,
+                handler.getChildrenCount(root, null));
+        assertTrue("Got children for unknown name",
+                handler.getChildren(root, "unknown").isEmpty());
+        assertEquals("Wrong matching children", children,
+                handler.getMatchingChildren(root, NodeNameMatchers.EQUALS,
+                        "child"));
+    }
+
+    /**
+     * Tests that nodes of another model are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNodeOfOtherModel()
+    {
+        MappedNodeModel model1 = MappedNodeModel.fromTree(createTestTree());
+        MappedNodeModel model2 = MappedNodeModel.fromTree(createTestTree());
+        model1.getNodeHandler().nodeName(
+                model2.getNodeHandler().getRootNode());
+    }
+
+    /**
+     * Tests that the model cannot be changed.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAddPropertyNotSupported()
+    {
+        MappedNodeModel.fromTree(createTestTree()).addProperty("test",
+                Collections.singleton("value"), null);
+    }
+
+    /**
+     * Tries to create a model for a buffer with invalid content.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBuffer()
+    {
+        new MappedNodeModel(ByteBuffer.allocate(64));
+    }
+}
@@ -245,6 +245,78 @@ public class TestNodeTreeWalker
                 .getVisitedNodes().size());
     }
 
+    /**
+     * Tests that a DFS walk can handle very deep structures.
+     */
+    @Test
+    public void testWalkDFSDeepStructure()
+    {
+        final int depth = 100000;
+        ImmutableNode node = new ImmutableNode.Builder().name("leaf").create();
+        for (int i = 0; i < depth; i++)
+        {
+            node = new ImmutableNode.Builder(1).name("n").addChild(node)
+                    .create();
+        }
+        TestVisitor visitor = new TestVisitor();
+        NodeTreeWalker.INSTANCE.walkDFS(node, visitor, createHandler());
+        List<String> visitedNodes = visitor.getVisitedNodes();
+        assertEquals("Wrong number of visited nodes", 2 * (depth + 1),
+                visitedNodes.size());
+        assertEquals("Wrong middle node", "leaf",
+                visitedNodes.get(depth));
+        assertEquals("Wrong last node", visitAfterName("n"),
+                visitedNodes.get(visitedNodes.size() - 1));
+    }
+
+    /**
+     * Tries to create an instance with an invalid parallel threshold.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInitInvalidParallelThreshold()
+    {
+        new NodeTreeWalker(1);
+    }
+
+    /**
+     * Tests whether a parallel DFS walk produces the same results as a
+     * sequential one.
+     */
+    @Test
+    public void testWalkParallelDFS()
+    {
+        ImmutableNode.Builder rootBuilder = new ImmutableNode.Builder();
+        for (int i = 0; i < 40; i++)
+        {
+            ImmutableNode.Builder childBuilder = new ImmutableNode.Builder();
+            for (int j = 0; j < 30; j++)
+            {
+                childBuilder.addChild(new ImmutableNode.Builder()
+                        .name("leaf" + i + "_" + j).create());
+            }
+            rootBuilder.addChild(childBuilder.name("child" + i).create());
+        }
+        ImmutableNode root = rootBuilder.name("root").create();
+        TestVisitor seqVisitor = new TestVisitor();
+        NodeTreeWalker.INSTANCE.walkDFS(root, seqVisitor, createHandler());
+
+        MergeableTestVisitor visitor = new MergeableTestVisitor();
+        new NodeTreeWalker(2).walkParallelDFS(root, visitor, createHandler());
+        assertEquals("Wrong visited nodes", seqVisitor.getVisitedNodes(),
+                visitor.getVisitedNodes());
+    }
+
+    /**
+     * Tests walkParallelDFS() if no root node is passed.
+     */
+    @Test
+    public void testWalkParallelDFSNoNode()
+    {
+        MergeableTestVisitor visitor = new MergeableTestVisitor();
+        NodeTreeWalker.INSTANCE.walkParallelDFS(null, visitor, createHandler());
+        assertEquals("Got visited nodes", 0, visitor.getVisitedNodes().size());
+    }
+
     /**
      * A visitor implementation used for testing purposes. The visitor produces
      * a list with the names of the nodes visited in the order it was called.
@@ -311,4 +383,23 @@ public class TestNodeTreeWalker
             return visitedNodes.size() >= getMaxNodeCount();
         }
     }
+
+    /**
+     * A mergeable variant of the test visitor.
+     */
+    private static class MergeableTestVisitor extends TestVisitor implements
+            MergeableNodeVisitor<ImmutableNode, MergeableTestVisitor>
+    {
+        @Override
+        public MergeableTestVisitor fork()
+        {
+            return new MergeableTestVisitor();
+        }
+
+        @Override
+        public void merge(MergeableTestVisitor other)
+        {
+            getVisitedNodes().addAll(other.getVisitedNodes());
+        }
+    }
 }
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.tree;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@code ReadOnlyNodeModel}.
+ *
+ * @version $Id$
+ */
+public class TestReadOnlyNodeModel
+{
+    /** The model to be tested. */
+    private ReadOnlyNodeModel model;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        model = new ReadOnlyNodeModel(NodeStructureHelper.ROOT_AUTHORS_TREE);
+    }
+
+    /**
+     * Tries to create an instance without a root node.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInitNoRoot()
+    {
+        new ReadOnlyNodeModel(null);
+    }
+
+    /**
+     * Tests whether the root node is returned.
+     */
+    @Test
+    public void testGetRootNode()
+    {
+        assertSame("Wrong root node", NodeStructureHelper.ROOT_AUTHORS_TREE,
+                model.getNodeHandler().getRootNode());
+        assertSame("Wrong in-memory representation",
+                NodeStructureHelper.ROOT_AUTHORS_TREE,
+                model.getInMemoryRepresentation());
+    }
+
+    /**
+     * Tests whether the parents of nodes can be determined.
+     */
+    @Test
+    public void testGetParent()
+    {
+        NodeHandler<ImmutableNode> handler = model.getNodeHandler();
+        ImmutableNode author =
+                NodeStructureHelper.ROOT_AUTHORS_TREE.getChildren().get(0);
+        ImmutableNode work = author.getChildren().get(0);
+        assertNull("Got a parent for the root node",
+                handler.getParent(handler.getRootNode()));
+        assertSame("Wrong parent of author",
+                NodeStructureHelper.ROOT_AUTHORS_TREE, handler.getParent(author));
+        assertSame("Wrong parent of work", author, handler.getParent(work));
+    }
+
+    /**
+     * Tests getParent() for a node which does not belong to the model.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetParentUnknownNode()
+    {
+        model.getNodeHandler().getParent(
+                new ImmutableNode.Builder().name("unknown").create());
+    }
+
+    /**
+     * Tests that the root node cannot be changed.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSetRootNode()
+    {
+        model.setRootNode(NodeStructureHelper.ROOT_TABLES_TREE);
+    }
+
+    /**
+     * Tests that properties cannot be added.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAddProperty()
+    {
+        model.addProperty("key", Collections.singleton("value"),
+                NodeStructureHelper.createResolverMock());
+    }
+
+    /**
+     * Tests that the model cannot be cleared.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testClear()
+    {
+        model.clear(NodeStructureHelper.createResolverMock());
+    }
+}
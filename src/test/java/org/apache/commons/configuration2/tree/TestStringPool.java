@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@code StringPool}.
+ *
+ * @version $Id$
+ */
+public class TestStringPool
+{
+    /** Constant for a test string. */
+    private static final String TEST = "test";
+
+    /**
+     * Helper method for testing whether strings are interned.
+     *
+     * @param pool the pool to be tested
+     */
+    private static void checkIntern(StringPool pool)
+    {
+        String s1 = new String(TEST);
+        String s2 = new String(TEST);
+        assertSame("Wrong first instance", s1, pool.intern(s1));
+        assertSame("Wrong second instance", s1, pool.intern(s2));
+        assertEquals("Wrong size", 1, pool.size());
+    }
+
+    /**
+     * Tests interning strings in a pool with strong references.
+     */
+    @Test
+    public void testInternStrong()
+    {
+        StringPool pool = new StringPool();
+        assertFalse("Weak", pool.isWeak());
+        checkIntern(pool);
+    }
+
+    /**
+     * Tests interning strings in a pool with weak references.
+     */
+    @Test
+    public void testInternWeak()
+    {
+        StringPool pool = new StringPool(true);
+        assertTrue("Not weak", pool.isWeak());
+        checkIntern(pool);
+    }
+
+    /**
+     * Tests that null strings are handled.
+     */
+    @Test
+    public void testInternNull()
+    {
+        StringPool pool = new StringPool();
+        assertNull("Wrong result", pool.intern(null));
+        assertEquals("Wrong size", 0, pool.size());
+    }
+
+    /**
+     * Tests internValue() for a string value.
+     */
+    @Test
+    public void testInternValueString()
+    {
+        StringPool pool = new StringPool();
+        pool.intern(TEST);
+        assertSame("Not interned", TEST, pool.internValue(new String(TEST)));
+    }
+
+    /**
+     * Tests that internValue() does not touch objects which are no strings.
+     */
+    @Test
+    public void testInternValueNoString()
+    {
+        StringPool pool = new StringPool();
+        Integer value = 42;
+        assertSame("Wrong result", value, pool.internValue(value));
+        assertEquals("Wrong size", 0, pool.size());
+    }
+
+    /**
+     * Tests whether a pool can be cleared.
+     */
+    @Test
+    public void testClear()
+    {
+        StringPool pool = new StringPool(true);
+        pool.intern(TEST);
+        pool.clear();
+        assertEquals("Wrong size", 0, pool.size());
+        String s = new String(TEST);
+        assertSame("Old string still in pool", s, pool.intern(s));
+    }
+
+    /**
+     * Tests the shared pool.
+     */
+    @Test
+    public void testSharedPool()
+    {
+        StringPool pool = StringPool.sharedPool();
+        assertTrue("Not weak", pool.isWeak());
+        assertSame("Different instances", pool, StringPool.sharedPool());
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@code TreeDiff}.
+ *
+ * @version $Id$
+ */
+public class TestTreeDiff
+{
+    /**
+     * Creates a new structure with test tables.
+     *
+     * @param tables the table names
+     * @param fields the field names
+     * @return the root node of the structure
+     */
+    private static ImmutableNode createTables(String[] tables,
+            String[][] fields)
+    {
+        return NodeStructureHelper.createTablesTree(tables, fields);
+    }
+
+    /**
+     * Creates a set with the given keys.
+     *
+     * @param keys the keys
+     * @return the set with these keys
+     */
+    private static Set<String> keys(String... keys)
+    {
+        return new LinkedHashSet<>(Arrays.asList(keys));
+    }
+
+    /**
+     * Tests a comparison of a structure with itself.
+     */
+    @Test
+    public void testCompareSameRoot()
+    {
+        TreeDiff diff = TreeDiff.compare(NodeStructureHelper.ROOT_TABLES_TREE,
+                NodeStructureHelper.ROOT_TABLES_TREE);
+        assertTrue("Differences found", diff.isEmpty());
+    }
+
+    /**
+     * Tests a comparison of different, but equal structures.
+     */
+    @Test
+    public void testCompareEqualStructures()
+    {
+        TreeDiff diff = TreeDiff.compare(NodeStructureHelper.ROOT_TABLES_TREE,
+                createTables(NodeStructureHelper.getClonedTables(),
+                        NodeStructureHelper.getClonedFields()));
+        assertTrue("Differences found", diff.isEmpty());
+    }
+
+    /**
+     * Tests whether a changed value is detected.
+     */
+    @Test
+    public void testCompareChangedValue()
+    {
+        String[][] fields = NodeStructureHelper.getClonedFields();
+        fields[1][2] = "changedField";
+        TreeDiff diff = TreeDiff.compare(NodeStructureHelper.ROOT_TABLES_TREE,
+                createTables(NodeStructureHelper.getClonedTables(), fields));
+        assertEquals("Wrong changed keys",
+                keys("table(1).fields.field(2).name"), diff.getChangedKeys());
+        assertTrue("Got added keys", diff.getAddedKeys().isEmpty());
+        assertTrue("Got removed keys", diff.getRemovedKeys().isEmpty());
+        assertFalse("Empty", diff.isEmpty());
+    }
+
+    /**
+     * Tests whether added and removed sub trees are detected.
+     */
+    @Test
+    public void testCompareAddedAndRemovedNodes()
+    {
+        String[] tables = {
+                "users", "documents", "orders"
+        };
+        String[][] fields = {
+                NodeStructureHelper.getClonedFields()[0],
+                NodeStructureHelper.getClonedFields()[1], {
+                        "oid"
+                }
+        };
+        ImmutableNode root = createTables(tables, fields);
+        TreeDiff diff = TreeDiff.compare(NodeStructureHelper.ROOT_TABLES_TREE,
+                root);
+        assertEquals("Wrong added keys",
+                keys("table(2).name", "table(2).fields.field.name"),
+                diff.getAddedKeys());
+        assertTrue("Got removed keys", diff.getRemovedKeys().isEmpty());
+
+        TreeDiff diff2 = TreeDiff.compare(root,
+                NodeStructureHelper.ROOT_TABLES_TREE);
+        assertEquals("Wrong removed keys", diff.getAddedKeys(),
+                diff2.getRemovedKeys());
+        assertTrue("Got added keys", diff2.getAddedKeys().isEmpty());
+        assertTrue("Got changed keys", diff2.getChangedKeys().isEmpty());
+    }
+
+    /**
+     * Tests whether changes on values and attributes are detected.
+     */
+    @Test
+    public void testCompareValuesAndAttributes()
+    {
+        ImmutableNode oldNode =
+                new ImmutableNode.Builder().name("root")
+                        .addAttribute("removed", "r")
+                        .addAttribute("changed", "c1").create();
+        ImmutableNode newNode =
+                new ImmutableNode.Builder().name("root").value("v")
+                        .addAttribute("added", "a")
+                        .addAttribute("changed", "c2").create();
+        TreeDiff diff = TreeDiff.compare(oldNode, newNode);
+        assertEquals("Wrong added keys", keys("", "[@added]"),
+                diff.getAddedKeys());
+        assertEquals("Wrong removed keys", keys("[@removed]"),
+                diff.getRemovedKeys());
+        assertEquals("Wrong changed keys", keys("[@changed]"),
+                diff.getChangedKeys());
+    }
+
+    /**
+     * Tests that the result cannot be modified.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetChangedKeysModify()
+    {
+        TreeDiff.compare(NodeStructureHelper.ROOT_TABLES_TREE,
+                NodeStructureHelper.ROOT_AUTHORS_TREE).getChangedKeys()
+                .addAll(Collections.singleton("test"));
+    }
+
+    /**
+     * Tries to compare a null structure.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testCompareNullRoot()
+    {
+        TreeDiff.compare(NodeStructureHelper.ROOT_TABLES_TREE, null);
+    }
+}
@@ -17,6 +17,7 @@
 package org.apache.commons.configuration2.tree.xpath;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -325,4 +326,45 @@ public class TestConfigurationNodeIteratorChildren extends AbstractXPathTest
                     .toString().endsWith(String.valueOf(expectedIndices[i])));
         }
     }
+
+    /**
+     * Tests whether positions can be accessed directly if a node name test
+     * is involved.
+     */
+    @Test
+    public void testIterateWithNameTestSetPosition()
+    {
+        NodeNameTest test = new NodeNameTest(new QName(null, CHILD_NAME2));
+        ConfigurationNodeIteratorChildren<ImmutableNode> it =
+                new ConfigurationNodeIteratorChildren<>(
+                        rootPointer, test, false, null);
+        assertTrue("Position 3 not valid", it.setPosition(3));
+        assertEquals("Wrong node at 3", "5",
+                ((ImmutableNode) it.getNodePointer().getImmediateNode())
+                        .getValue());
+        assertTrue("Position 1 not valid", it.setPosition(1));
+        assertEquals("Wrong node at 1", "1",
+                ((ImmutableNode) it.getNodePointer().getImmediateNode())
+                        .getValue());
+        assertFalse("Position 4 valid", it.setPosition(4));
+    }
+
+    /**
+     * Tests an iteration with a node name test and a start node.
+     */
+    @Test
+    public void testIterateWithNameTestStartsWith()
+    {
+        NodeNameTest test = new NodeNameTest(new QName(null, CHILD_NAME2));
+        ConfigurationNodePointer<ImmutableNode> childPointer =
+                new ConfigurationNodePointer<>(rootPointer, root
+                        .getChildren().get(2), handler);
+        ConfigurationNodeIteratorChildren<ImmutableNode> it =
+                new ConfigurationNodeIteratorChildren<>(
+                        rootPointer, test, false, childPointer);
+        List<NodePointer> nodes = iterationElements(it);
+        assertEquals("Wrong size of iteration", 1, nodes.size());
+        assertEquals("Wrong node", "5",
+                ((ImmutableNode) nodes.get(0).getImmediateNode()).getValue());
+    }
 }
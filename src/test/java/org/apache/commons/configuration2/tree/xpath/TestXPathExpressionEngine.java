@@ -573,4 +573,70 @@ public class TestXPathExpressionEngine
         assertEquals("Wrong key", "parent",
                 engine.canonicalKey(root, "parent", handler));
     }
+
+    /**
+     * Tests whether compiled expressions are cached.
+     */
+    @Test
+    public void testCompileCached()
+    {
+        XPathExpressionEngine engine = new XPathExpressionEngine();
+        assertSame("Expression not cached", engine.compile("a/b[2]"),
+                engine.compile("a/b[2]"));
+    }
+
+    /**
+     * Tests whether the context is reused for queries on the same root node.
+     */
+    @Test
+    public void testQueryReusesContext()
+    {
+        ImmutableNode child = new ImmutableNode.Builder().name("child")
+                .value("test").create();
+        ImmutableNode testRoot = new ImmutableNode.Builder().name(ROOT_NAME)
+                .addChild(child).create();
+        NodeHandler<ImmutableNode> testHandler =
+                new InMemoryNodeModel(testRoot).getNodeHandler();
+        CountingContextFactory factory = new CountingContextFactory();
+        XPathExpressionEngine engine = new XPathExpressionEngine(factory);
+
+        for (int i = 0; i < 3; i++)
+        {
+            List<QueryResult<ImmutableNode>> results =
+                    engine.query(testRoot, "child", testHandler);
+            assertEquals("Wrong number of results", 1, results.size());
+            assertSame("Wrong result node", child, results.get(0).getNode());
+        }
+        assertEquals("Wrong number of contexts", 1, factory.getCount());
+
+        assertTrue("Got results",
+                engine.query(root, "child", handler).isEmpty());
+        assertEquals("No new context", 2, factory.getCount());
+    }
+
+    /**
+     * A test context factory which counts the contexts created.
+     */
+    private static class CountingContextFactory extends XPathContextFactory
+    {
+        /** The number of created contexts. */
+        private int count;
+
+        @Override
+        public <T> JXPathContext createContext(T root, NodeHandler<T> handler)
+        {
+            count++;
+            return super.createContext(root, handler);
+        }
+
+        /**
+         * Returns the number of contexts created by this factory.
+         *
+         * @return the number of contexts
+         */
+        public int getCount()
+        {
+            return count;
+        }
+    }
 }